@@ -0,0 +1,203 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip.model.impl.bagit;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.roda_project.commons_ip.model.ParseException;
+
+import gov.loc.repository.bagit.Bag;
+import gov.loc.repository.bagit.BagFile;
+import gov.loc.repository.bagit.Manifest;
+import gov.loc.repository.bagit.Manifest.Algorithm;
+
+/**
+ * Verifies the payload manifests of a bag with a pool of hashing threads,
+ * reading each payload file once for all manifest algorithms.
+ *
+ * <p>
+ * Payload files of a bag folder are referenced in place. Payload files of a
+ * zipped bag are extracted, preserving their relative paths, while being
+ * hashed, so the ZIP is also read only once.
+ * </p>
+ */
+public final class BagitPayloadVerifier {
+  private static final String BAGIT_TXT = "bagit.txt";
+
+  private BagitPayloadVerifier() {
+    // do nothing
+  }
+
+  /**
+   * Verifies the payload of a bag using one thread per available processor.
+   *
+   * @see #verify(Bag, Path, int)
+   */
+  public static Map<String, Path> verify(Bag bag, Path destinationDirectory) throws ParseException {
+    return verify(bag, destinationDirectory, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Verifies the payload of a bag.
+   *
+   * @param bag
+   *          the {@link Bag}.
+   * @param destinationDirectory
+   *          where to extract the payload of zipped bags.
+   * @param threads
+   *          the number of hashing threads.
+   * @return the {@link Path} of each payload file, by its path in the bag.
+   * @throws ParseException
+   *           if some payload file is missing or does not match its checksums.
+   */
+  public static Map<String, Path> verify(Bag bag, Path destinationDirectory, int threads) throws ParseException {
+    Map<String, Map<Algorithm, String>> expected = new TreeMap<>();
+    for (Manifest manifest : bag.getPayloadManifests()) {
+      for (Entry<String, String> entry : manifest.entrySet()) {
+        expected.computeIfAbsent(entry.getKey(), k -> new EnumMap<>(Algorithm.class)).put(manifest.getAlgorithm(),
+          entry.getValue());
+      }
+    }
+    Set<String> files = new TreeSet<>(expected.keySet());
+    for (BagFile bagFile : bag.getPayload()) {
+      files.add(bagFile.getFilepath());
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+    try (ZipFile zipFile = bag.getFormat() == Bag.Format.ZIP ? new ZipFile(bag.getFile()) : null) {
+      String zipRoot = zipFile != null ? findRoot(zipFile) : null;
+      Path bagDirectory = bag.getFile().toPath();
+
+      Map<String, Future<Path>> futures = new LinkedHashMap<>();
+      for (String file : files) {
+        Map<Algorithm, String> checksums = expected.getOrDefault(file, Collections.emptyMap());
+        futures.put(file, executor.submit(() -> zipFile != null
+          ? verifyFile(file, zipFile.getEntry(zipRoot + file), zipFile, destinationDirectory, checksums)
+          : verifyFile(file, bagDirectory, checksums)));
+      }
+
+      Map<String, Path> paths = new LinkedHashMap<>();
+      List<String> errors = new ArrayList<>();
+      for (Entry<String, Future<Path>> future : futures.entrySet()) {
+        try {
+          paths.put(future.getKey(), future.getValue().get());
+        } catch (ExecutionException e) {
+          errors.add(e.getCause().getMessage());
+        }
+      }
+      if (!errors.isEmpty()) {
+        throw new ParseException(errors.toString());
+      }
+      return paths;
+    } catch (IOException e) {
+      throw new ParseException("Error verifying bag payload", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ParseException("Interrupted while verifying bag payload", e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static Path verifyFile(String file, Path bagDirectory, Map<Algorithm, String> checksums)
+    throws IOException, NoSuchAlgorithmException {
+    Path path = bagDirectory.resolve(file).normalize();
+    if (!path.startsWith(bagDirectory.normalize())) {
+      throw new IOException(file + " is outside of the bag");
+    }
+    if (!Files.isRegularFile(path)) {
+      throw new FileNotFoundException(file + " is listed in a payload manifest but does not exist");
+    }
+    try (InputStream inputStream = Files.newInputStream(path)) {
+      checkFixity(file, inputStream, NullOutputStream.NULL_OUTPUT_STREAM, checksums);
+    }
+    return path;
+  }
+
+  private static Path verifyFile(String file, ZipEntry entry, ZipFile zipFile, Path destinationDirectory,
+    Map<Algorithm, String> checksums) throws IOException, NoSuchAlgorithmException {
+    if (entry == null) {
+      throw new FileNotFoundException(file + " is listed in a payload manifest but does not exist");
+    }
+    Path path = destinationDirectory.resolve(file).normalize();
+    if (!path.startsWith(destinationDirectory.normalize())) {
+      throw new IOException(file + " is outside of the bag");
+    }
+    Files.createDirectories(path.getParent());
+    try (InputStream inputStream = zipFile.getInputStream(entry);
+      OutputStream outputStream = Files.newOutputStream(path)) {
+      checkFixity(file, inputStream, outputStream, checksums);
+    }
+    return path;
+  }
+
+  private static void checkFixity(String file, InputStream inputStream, OutputStream outputStream,
+    Map<Algorithm, String> checksums) throws IOException, NoSuchAlgorithmException {
+    Map<Algorithm, MessageDigest> digests = new EnumMap<>(Algorithm.class);
+    InputStream digestInputStream = inputStream;
+    for (Algorithm algorithm : checksums.keySet()) {
+      MessageDigest digest = MessageDigest.getInstance(algorithm.javaSecurityAlgorithm);
+      digests.put(algorithm, digest);
+      digestInputStream = new DigestInputStream(digestInputStream, digest);
+    }
+    IOUtils.copyLarge(digestInputStream, outputStream);
+
+    for (Entry<Algorithm, MessageDigest> digest : digests.entrySet()) {
+      String actual = DatatypeConverter.printHexBinary(digest.getValue().digest());
+      if (!actual.equalsIgnoreCase(checksums.get(digest.getKey()))) {
+        throw new IOException(file + " fails " + digest.getKey().bagItAlgorithm + " fixity check");
+      }
+    }
+  }
+
+  /** The prefix of the bag root folder inside the ZIP (e.g. "bagName/"). */
+  private static String findRoot(ZipFile zipFile) throws IOException {
+    String root = null;
+    Enumeration<? extends ZipEntry> entries = zipFile.entries();
+    while (entries.hasMoreElements()) {
+      String name = entries.nextElement().getName();
+      if ((name.equals(BAGIT_TXT) || name.endsWith("/" + BAGIT_TXT))
+        && (root == null || name.length() - BAGIT_TXT.length() < root.length())) {
+        root = name.substring(0, name.length() - BAGIT_TXT.length());
+      }
+    }
+    if (root == null) {
+      throw new IOException("No " + BAGIT_TXT + " found in " + zipFile.getName());
+    }
+    return root;
+  }
+}
@@ -0,0 +1,197 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip.model.impl.bagit;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.input.CountingInputStream;
+import org.roda_project.commons_ip.model.IPConstants;
+import org.roda_project.commons_ip.model.IPFile;
+import org.roda_project.commons_ip.model.IPRepresentation;
+import org.roda_project.commons_ip.model.SIP;
+import org.roda_project.commons_ip.model.impl.ModelUtils;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip.utils.ZIPUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gov.loc.repository.bagit.Manifest.Algorithm;
+import gov.loc.repository.bagit.utilities.SizeHelper;
+
+/**
+ * Writes a SIP as a zipped BagIt bag in a single pass: each payload file is
+ * read once, being zipped and hashed (with every manifest algorithm) at the
+ * same time, and the tag files (bagit.txt, bag-info.txt, the payload manifests
+ * and the tag manifests) are written at the end.
+ */
+public final class BagitZipWriter {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BagitZipWriter.class);
+
+  private static final String BAGIT_TXT = "bagit.txt";
+  private static final String BAG_INFO_TXT = "bag-info.txt";
+  private static final String MANIFEST_PREFIX = "manifest-";
+  private static final String TAG_MANIFEST_PREFIX = "tagmanifest-";
+  private static final String TXT_EXTENSION = ".txt";
+  private static final String BAGIT_VERSION = "0.97";
+  private static final String LINE_SEPARATOR = "\n";
+
+  private BagitZipWriter() {
+    // do nothing
+  }
+
+  /**
+   * Writes the bag.
+   *
+   * @param sip
+   *          the {@link SIP} whose representations are the payload.
+   * @param zipPath
+   *          the ZIP file to write; its name is also the name of the bag root
+   *          folder inside the ZIP.
+   * @param bagInfo
+   *          the bag-info.txt entries, besides Payload-Oxum, Bagging-Date and
+   *          Bag-Size which are calculated.
+   * @param algorithms
+   *          the manifest algorithms.
+   * @throws IPException
+   *           if some error occurs.
+   * @throws InterruptedException
+   *           if the thread was interrupted.
+   */
+  public static void write(SIP sip, Path zipPath, Map<String, String> bagInfo, List<Algorithm> algorithms)
+    throws IPException, InterruptedException {
+    String root = zipPath.getFileName().toString() + "/";
+    Set<String> javaAlgorithms = new TreeSet<>();
+    Map<Algorithm, StringBuilder> manifests = new LinkedHashMap<>();
+    Map<Algorithm, StringBuilder> tagManifests = new LinkedHashMap<>();
+    for (Algorithm algorithm : algorithms) {
+      javaAlgorithms.add(algorithm.javaSecurityAlgorithm);
+      manifests.put(algorithm, new StringBuilder());
+      tagManifests.put(algorithm, new StringBuilder());
+    }
+
+    Map<String, IPFile> payload = new LinkedHashMap<>();
+    for (IPRepresentation rep : sip.getRepresentations()) {
+      for (IPFile file : rep.getData()) {
+        payload.put(IPConstants.BAGIT_DATA_FOLDER + "/" + rep.getRepresentationID() + "/"
+          + ModelUtils.getFoldersFromList(file.getRelativeFolders()) + file.getFileName(), file);
+      }
+    }
+
+    sip.notifySipBuildPackagingStarted(payload.size());
+    boolean written = false;
+    try {
+      try (OutputStream outputStream = Files.newOutputStream(zipPath);
+        ZipOutputStream zos = new ZipOutputStream(outputStream)) {
+        long octets = 0;
+        int i = 0;
+        for (Entry<String, IPFile> entry : payload.entrySet()) {
+          if (Thread.interrupted()) {
+            throw new InterruptedException();
+          }
+          LOGGER.debug("Adding file {} to bag", entry.getValue().getPath());
+          try (InputStream inputStream = Files.newInputStream(entry.getValue().getPath())) {
+            octets += writeEntry(zos, root, entry.getKey(), inputStream, javaAlgorithms, manifests);
+          }
+          i++;
+          sip.notifySipBuildPackagingCurrentStatus(i);
+        }
+
+        StringBuilder bagit = new StringBuilder();
+        bagit.append("BagIt-Version: ").append(BAGIT_VERSION).append(LINE_SEPARATOR);
+        bagit.append("Tag-File-Character-Encoding: UTF-8").append(LINE_SEPARATOR);
+        writeTagFile(zos, root, BAGIT_TXT, bagit, javaAlgorithms, tagManifests);
+
+        StringBuilder info = new StringBuilder();
+        info.append("Payload-Oxum: ").append(octets).append('.').append(payload.size()).append(LINE_SEPARATOR);
+        info.append("Bagging-Date: ").append(new SimpleDateFormat("yyyy-MM-dd").format(new Date()))
+          .append(LINE_SEPARATOR);
+        info.append("Bag-Size: ").append(SizeHelper.getSize(octets)).append(LINE_SEPARATOR);
+        for (Entry<String, String> entry : bagInfo.entrySet()) {
+          info.append(entry.getKey()).append(": ").append(entry.getValue()).append(LINE_SEPARATOR);
+        }
+        writeTagFile(zos, root, BAG_INFO_TXT, info, javaAlgorithms, tagManifests);
+
+        for (Entry<Algorithm, StringBuilder> manifest : manifests.entrySet()) {
+          writeTagFile(zos, root, MANIFEST_PREFIX + manifest.getKey().bagItAlgorithm + TXT_EXTENSION,
+            manifest.getValue(), javaAlgorithms, tagManifests);
+        }
+
+        for (Entry<Algorithm, StringBuilder> tagManifest : tagManifests.entrySet()) {
+          zos.putNextEntry(
+            new ZipEntry(root + TAG_MANIFEST_PREFIX + tagManifest.getKey().bagItAlgorithm + TXT_EXTENSION));
+          zos.write(tagManifest.getValue().toString().getBytes(StandardCharsets.UTF_8));
+          zos.closeEntry();
+        }
+      }
+      written = true;
+    } catch (IOException | NoSuchAlgorithmException e) {
+      throw new IPException("Error writing bag " + zipPath, e);
+    } finally {
+      if (!written) {
+        deleteIncompleteBag(zipPath);
+      }
+    }
+    sip.notifySipBuildPackagingEnded();
+  }
+
+  /**
+   * Deletes the ZIP of a bag that could not be fully written, so that it is
+   * not mistaken for a bag.
+   */
+  private static void deleteIncompleteBag(Path zipPath) {
+    try {
+      Files.deleteIfExists(zipPath);
+    } catch (IOException e) {
+      LOGGER.warn("Could not delete incomplete bag {}", zipPath, e);
+    }
+  }
+
+  private static void writeTagFile(ZipOutputStream zos, String root, String name, StringBuilder content,
+    Set<String> javaAlgorithms, Map<Algorithm, StringBuilder> tagManifests)
+    throws IOException, NoSuchAlgorithmException {
+    byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+    writeEntry(zos, root, name, new ByteArrayInputStream(bytes), javaAlgorithms, tagManifests);
+  }
+
+  /**
+   * Zips an entry, adding its checksums to the manifests.
+   *
+   * @return the size of the entry.
+   */
+  private static long writeEntry(ZipOutputStream zos, String root, String name, InputStream inputStream,
+    Set<String> javaAlgorithms, Map<Algorithm, StringBuilder> manifests) throws IOException, NoSuchAlgorithmException {
+    zos.putNextEntry(new ZipEntry(root + name));
+    CountingInputStream countingInputStream = new CountingInputStream(inputStream);
+    Map<String, String> checksums = ZIPUtils.calculateChecksums(Optional.of(zos), countingInputStream,
+      javaAlgorithms);
+    zos.closeEntry();
+    for (Entry<Algorithm, StringBuilder> manifest : manifests.entrySet()) {
+      manifest.getValue().append(checksums.get(manifest.getKey().javaSecurityAlgorithm).toLowerCase()).append("  ")
+        .append(name).append(LINE_SEPARATOR);
+    }
+    return countingInputStream.getByteCount();
+  }
+}
@@ -36,4 +36,8 @@ public class IPEnums {
     EARK2S, EARK2
   }
 
+  public enum ArchiveFormat {
+    ZIP, TAR
+  }
+
 }
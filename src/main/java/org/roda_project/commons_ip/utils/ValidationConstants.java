@@ -52,6 +52,10 @@ public final class ValidationConstants {
   public static final String OTHER_METADATA_FILE_NOT_FOUND = "Other metadata file not found.";
   public static final String OTHER_METADATA_FPTR_NOT_FOUND = "Other metadata has no FPTR.";
   public static final String UNKNOWN_DESCRIPTIVE_METADATA_TYPE = "Descriptive metadata type is unknown.";
+  public static final String METADATA_VALID_AGAINST_SCHEMA = "Metadata file is valid against its schema.";
+  public static final String METADATA_NOT_VALID_AGAINST_SCHEMA = "Metadata file is not valid against its schema.";
+  public static final String METADATA_SCHEMA_NOT_FOUND = "No schema was found to validate the metadata file.";
+  public static final String METADATA_SCHEMA_NOT_VALID = "Schema of the metadata file could not be compiled.";
 
   // Mets checksum related
   public static final String CHECKSUM_NOT_SET = "Checksum in METS.xml is not set.";
@@ -65,6 +69,10 @@ public final class ValidationConstants {
   public static final String REPRESENTATION_FILE_NOT_FOUND = "Representation file referenced in METS.xml not found.";
   public static final String REPRESENTATION_FILE_HAS_NO_FLOCAT = "Representation file referenced in METS.xml has no FLocat element.";
   public static final String REPRESENTATION_SCHEME_NOT_FOUND = "Representation schema referenced in METS.xml not found for Shallow file";
+  public static final String SHALLOW_FILE_VERIFIED = "Shallow file referenced in METS.xml was reached and matches METS size and checksum.";
+  public static final String SHALLOW_FILE_NOT_REACHABLE = "Shallow file referenced in METS.xml could not be reached.";
+  public static final String SHALLOW_FILE_SIZE_DIFFERS = "Size in METS.xml doesn't match shallow file size.";
+  public static final String SHALLOW_FILE_SCHEME_NOT_SUPPORTED = "Shallow file referenced in METS.xml uses a scheme that can't be verified.";
 
   // Mets schemas and documentation related
   public static final String SCHEMA_FILE_FOUND_WITH_MATCHING_CHECKSUMS = "Schema file referenced in METS.xml was found and file checksum matches METS checksum.";
@@ -16,6 +16,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import javax.xml.datatype.XMLGregorianCalendar;
 
@@ -25,6 +27,7 @@ import org.roda_project.commons_ip.utils.IPEnums.IPType;
 import org.roda_project.commons_ip.utils.IPException;
 import org.roda_project.commons_ip.utils.METSEnums.CreatorType;
 import org.roda_project.commons_ip.utils.ZipEntryInfo;
+import org.roda_project.commons_ip2.utils.AsyncTasks;
 import org.roda_project.commons_ip2.utils.Utils;
 
 public abstract class IP implements IPInterface {
@@ -54,6 +57,8 @@ public abstract class IP implements IPInterface {
 
   private ValidationReport validationReport;
 
+  private boolean deterministicBuild;
+
   public IP() {
     this.setId(Utils.generateRandomAndPrefixedUUID());
     this.profile = "NOT_DEFINED";
@@ -201,6 +206,19 @@ public abstract class IP implements IPInterface {
     return this;
   }
 
+  /**
+   * Whether building the package twice from the same content yields the same
+   * bytes (METS ids derived from the package paths, fixed timestamps).
+   */
+  public IP setDeterministicBuild(final boolean deterministicBuild) {
+    this.deterministicBuild = deterministicBuild;
+    return this;
+  }
+
+  public boolean isDeterministicBuild() {
+    return deterministicBuild;
+  }
+
   @Override
   public IP setBasePath(final Path basePath) {
     this.basePath = basePath;
@@ -459,6 +477,21 @@ public abstract class IP implements IPInterface {
     throw new ParseException("One must implement static method parse in a concrete class");
   }
 
+  /**
+   * Builds the IP asynchronously, as {@link #build(Path)} does.
+   *
+   * @param destinationDirectory
+   *          the {@link Path} where the IP should be built.
+   * @param executor
+   *          the {@link Executor} where the IP is built.
+   * @return the {@link CompletableFuture} of the {@link Path} of the built IP.
+   *         Cancelling it stops the build and removes the partially written IP
+   *         and the temporary build files.
+   */
+  public CompletableFuture<Path> buildAsync(final Path destinationDirectory, final Executor executor) {
+    return AsyncTasks.supplyAsync(() -> build(destinationDirectory), executor);
+  }
+
   @Override
   public Map<String, ZipEntryInfo> getZipEntries() {
     return zipEntries;
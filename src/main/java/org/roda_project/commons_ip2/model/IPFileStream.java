@@ -0,0 +1,144 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A representation data file whose content is read from a
+ * {@link ContentSupplier} (e.g. an object store or a database) while the
+ * package is being built, instead of from a local file.
+ *
+ * <p>
+ * The size must be declared up front, as it goes into the METS before the
+ * content is read. When a checksum is also given, the content is verified
+ * against it while being packaged. The supplier is not serialized.
+ * </p>
+ */
+public class IPFileStream implements IPFileInterface {
+  private static final long serialVersionUID = 2218471262376101855L;
+
+  /** Opens the content of a file, once per build. */
+  @FunctionalInterface
+  public interface ContentSupplier {
+    InputStream open() throws IOException;
+  }
+
+  private transient ContentSupplier contentSupplier;
+  private String fileName;
+  private long size;
+  private List<String> relativeFolders;
+  private String mimeType = "application/octet-stream";
+  private String checksum = "";
+  private String checksumAlgorithm = "";
+
+  public IPFileStream(String fileName, long size, ContentSupplier contentSupplier) {
+    this(fileName, size, contentSupplier, new ArrayList<>());
+  }
+
+  public IPFileStream(String fileName, long size, ContentSupplier contentSupplier, List<String> relativeFolders) {
+    super();
+    this.fileName = fileName;
+    this.size = size;
+    this.contentSupplier = contentSupplier;
+    this.relativeFolders = relativeFolders;
+  }
+
+  /**
+   * @return {@code null}, the content is not in a local file.
+   */
+  @Override
+  public Path getPath() {
+    return null;
+  }
+
+  public InputStream openInputStream() throws IOException {
+    if (contentSupplier == null) {
+      throw new IOException("No content supplier for file " + fileName);
+    }
+    return contentSupplier.open();
+  }
+
+  public ContentSupplier getContentSupplier() {
+    return contentSupplier;
+  }
+
+  public IPFileStream setContentSupplier(ContentSupplier contentSupplier) {
+    this.contentSupplier = contentSupplier;
+    return this;
+  }
+
+  @Override
+  public String getFileName() {
+    return fileName;
+  }
+
+  public IPFileStream setFileName(String fileName) {
+    this.fileName = fileName;
+    return this;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public IPFileStream setSize(long size) {
+    this.size = size;
+    return this;
+  }
+
+  @Override
+  public List<String> getRelativeFolders() {
+    return relativeFolders;
+  }
+
+  public IPFileStream setRelativeFolders(List<String> relativeFolders) {
+    this.relativeFolders = relativeFolders;
+    return this;
+  }
+
+  public String getMimeType() {
+    return mimeType;
+  }
+
+  public IPFileStream setMimeType(String mimeType) {
+    this.mimeType = mimeType;
+    return this;
+  }
+
+  public String getChecksum() {
+    return checksum;
+  }
+
+  public String getChecksumAlgorithm() {
+    return checksumAlgorithm;
+  }
+
+  /**
+   * @param checksum
+   *          the known checksum of the content, in hexadecimal.
+   * @param checksumAlgorithm
+   *          the {@link java.security.MessageDigest} algorithm of the checksum
+   *          (e.g. "SHA-256" or "MD5").
+   */
+  public IPFileStream setChecksumAndAlgorithm(String checksum, String checksumAlgorithm) {
+    this.checksum = checksum == null ? "" : checksum;
+    this.checksumAlgorithm = checksumAlgorithm == null ? "" : checksumAlgorithm;
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return "IPFileStream [fileName=" + fileName + ", size=" + size + ", relativeFolders=" + relativeFolders
+      + ", mimeType=" + mimeType + ", checksum=" + checksum + ", checksumAlgorithm=" + checksumAlgorithm + "]";
+  }
+}
@@ -19,6 +19,7 @@ public class IPMetadata implements Serializable {
   private static final long serialVersionUID = 3697420963728707487L;
 
   private String id;
+  private boolean generatedId;
   private Optional<XMLGregorianCalendar> createDate;
   private IPFileInterface metadata;
   private MetadataType metadataType = MetadataType.OTHER();
@@ -30,6 +31,7 @@ public class IPMetadata implements Serializable {
 
   public IPMetadata(IPFileInterface metadata) {
     id = Utils.generateRandomAndPrefixedUUID();
+    generatedId = true;
     createDate = Utils.getCurrentTime();
     this.metadata = metadata;
     metadataType = MetadataType.OTHER();
@@ -37,6 +39,7 @@ public class IPMetadata implements Serializable {
 
   public IPMetadata(IPFileInterface metadata, MetadataType metadataType) {
     this.id = Utils.generateRandomAndPrefixedUUID();
+    this.generatedId = true;
     createDate = Utils.getCurrentTime();
     this.metadata = metadata;
     this.metadataType = metadataType;
@@ -55,9 +58,17 @@ public class IPMetadata implements Serializable {
 
   public IPMetadata setId(String id) {
     this.id = id;
+    this.generatedId = false;
     return this;
   }
 
+  /**
+   * @return whether the id is the random default one, rather than a given one.
+   */
+  public boolean isGeneratedId() {
+    return generatedId;
+  }
+
   public Optional<XMLGregorianCalendar> getCreateDate() {
     return createDate;
   }
@@ -0,0 +1,297 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.bind.JAXBException;
+
+import org.apache.commons.lang3.StringUtils;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip2.mets_v1_12.beans.DivType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.DivType.Mptr;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileGrpType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType.FLocat;
+import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.FileSec.FileGrp;
+import org.roda_project.commons_ip2.mets_v1_12.beans.StructMapType;
+import org.roda_project.commons_ip2.utils.METSUtils;
+import org.roda_project.commons_ip2.utils.Utils;
+import org.xml.sax.SAXException;
+
+/**
+ * Lightweight, lazy, read-only access to an information package, either packed
+ * (ZIP) or as a folder. Unlike a full parse nothing is extracted nor
+ * checksum-verified: the root METS is only parsed when first needed, each
+ * representation METS only when that representation is accessed, and payload
+ * files are opened as streams straight from the package.
+ *
+ * <p>
+ * Instances are not thread-safe.
+ * </p>
+ */
+public class IPReader implements Closeable {
+
+  private final Path source;
+  private final ZipFile zipFile;
+  /** Prefix of the package root inside the ZIP (e.g. "sipId/") or "". */
+  private final String zipRoot;
+  private final Path folderRoot;
+
+  private Mets mets;
+  private Map<String, String> representationMetsPaths;
+  private final Map<String, Mets> representationsMets = new HashMap<>();
+
+  private IPReader(Path source, ZipFile zipFile, String zipRoot, Path folderRoot) {
+    this.source = source;
+    this.zipFile = zipFile;
+    this.zipRoot = zipRoot;
+    this.folderRoot = folderRoot;
+  }
+
+  /**
+   * Opens an information package. Only the package index (the ZIP central
+   * directory or the folder root) is read.
+   *
+   * @param source
+   *          the ZIP file or the folder of the package.
+   * @return the {@link IPReader}, which must be closed.
+   * @throws ParseException
+   *           if the package cannot be opened or has no root METS file.
+   */
+  public static IPReader open(Path source) throws ParseException {
+    if (Files.isDirectory(source)) {
+      Path root = source;
+      if (!Files.exists(root.resolve(IPConstants.METS_FILE))) {
+        root = null;
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(source)) {
+          for (Path path : directoryStream) {
+            if (Files.isDirectory(path) && Files.exists(path.resolve(IPConstants.METS_FILE))) {
+              root = path;
+              break;
+            }
+          }
+        } catch (IOException e) {
+          throw new ParseException("Error listing folder " + source, e);
+        }
+      }
+      if (root == null) {
+        throw new ParseException("No " + IPConstants.METS_FILE + " found in " + source);
+      }
+      return new IPReader(source, null, null, root.normalize());
+    }
+
+    ZipFile zipFile = null;
+    try {
+      zipFile = new ZipFile(source.toFile());
+      String zipRoot = null;
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        String name = entries.nextElement().getName();
+        if (IPConstants.METS_FILE.equals(name)) {
+          zipRoot = "";
+          break;
+        } else if (name.endsWith(IPConstants.ZIP_PATH_SEPARATOR + IPConstants.METS_FILE)
+          && name.indexOf(IPConstants.ZIP_PATH_SEPARATOR) == name.length() - IPConstants.METS_FILE.length() - 1) {
+          zipRoot = name.substring(0, name.length() - IPConstants.METS_FILE.length());
+        }
+      }
+      if (zipRoot == null) {
+        throw new ParseException("No " + IPConstants.METS_FILE + " found in " + source);
+      }
+      return new IPReader(source, zipFile, zipRoot, null);
+    } catch (IOException e) {
+      closeQuietly(zipFile);
+      throw new ParseException("Error opening " + source, e);
+    } catch (ParseException e) {
+      closeQuietly(zipFile);
+      throw e;
+    }
+  }
+
+  public Path getSource() {
+    return source;
+  }
+
+  /**
+   * @return the root METS, parsed on first access.
+   */
+  public Mets getMets() throws ParseException {
+    if (mets == null) {
+      mets = readMets(IPConstants.METS_FILE);
+    }
+    return mets;
+  }
+
+  /**
+   * @return the ids of the representations, as declared in the root METS
+   *         structural map (no representation METS is read).
+   */
+  public List<String> getRepresentationIds() throws ParseException {
+    return new ArrayList<>(getRepresentationMetsPaths().keySet());
+  }
+
+  /**
+   * @return the METS of a representation, parsed on first access.
+   */
+  public Mets getRepresentationMets(String representationId) throws ParseException {
+    Mets representationMets = representationsMets.get(representationId);
+    if (representationMets == null) {
+      String metsPath = getRepresentationMetsPaths().get(representationId);
+      if (metsPath == null) {
+        throw new ParseException("Representation " + representationId + " not found in " + source);
+      }
+      representationMets = readMets(metsPath);
+      representationsMets.put(representationId, representationMets);
+    }
+    return representationMets;
+  }
+
+  /**
+   * @return the paths, relative to the package root, of the files listed in the
+   *         file section of a representation METS, in METS order.
+   */
+  public List<String> getRepresentationFiles(String representationId) throws ParseException {
+    Mets representationMets = getRepresentationMets(representationId);
+    String metsPath = getRepresentationMetsPaths().get(representationId);
+    String representationFolder = metsPath.substring(0, metsPath.length() - IPConstants.METS_FILE.length());
+    List<String> files = new ArrayList<>();
+    if (representationMets.getFileSec() != null) {
+      for (FileGrp fileGrp : representationMets.getFileSec().getFileGrp()) {
+        addFiles(fileGrp, representationFolder, files);
+      }
+    }
+    return files;
+  }
+
+  /**
+   * Opens a file of the package, without extracting it.
+   *
+   * @param relativePath
+   *          the path of the file, relative to the package root and using "/"
+   *          as separator (e.g. "representations/rep1/data/file.pdf").
+   * @return an {@link InputStream}, which must be closed.
+   * @throws IOException
+   *           if the file does not exist or cannot be read.
+   */
+  public InputStream openFile(String relativePath) throws IOException {
+    if (zipFile != null) {
+      ZipEntry entry = zipFile.getEntry(zipRoot + relativePath);
+      if (entry == null || entry.isDirectory()) {
+        throw new FileNotFoundException(relativePath + " not found in " + source);
+      }
+      return zipFile.getInputStream(entry);
+    } else {
+      Path file = folderRoot.resolve(relativePath).normalize();
+      if (!file.startsWith(folderRoot)) {
+        throw new FileNotFoundException(relativePath + " is outside of " + source);
+      }
+      return Files.newInputStream(file);
+    }
+  }
+
+  /**
+   * @return whether a file exists in the package.
+   */
+  public boolean exists(String relativePath) {
+    if (zipFile != null) {
+      return zipFile.getEntry(zipRoot + relativePath) != null;
+    } else {
+      Path file = folderRoot.resolve(relativePath).normalize();
+      return file.startsWith(folderRoot) && Files.exists(file);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (zipFile != null) {
+      zipFile.close();
+    }
+  }
+
+  private Map<String, String> getRepresentationMetsPaths() throws ParseException {
+    if (representationMetsPaths == null) {
+      Map<String, String> paths = new LinkedHashMap<>();
+      for (StructMapType structMap : getMets().getStructMap()) {
+        if (StringUtils.equals(structMap.getLABEL(), IPConstants.COMMON_SPEC_STRUCTURAL_MAP)
+          && structMap.getDiv() != null) {
+          for (DivType div : structMap.getDiv().getDiv()) {
+            if (div.getLABEL() != null
+              && div.getLABEL().startsWith(IPConstants.REPRESENTATIONS_WITH_FIRST_LETTER_CAPITAL)
+              && !div.getMptr().isEmpty()) {
+              // one and only one mets for each representation div
+              Mptr mptr = div.getMptr().get(0);
+              paths.put(div.getLABEL().replaceFirst(IPConstants.REPRESENTATIONS_WITH_FIRST_LETTER_CAPITAL + "/", ""),
+                normalize(Utils.extractedRelativePathFromHref(mptr.getHref())));
+            }
+          }
+        }
+      }
+      representationMetsPaths = paths;
+    }
+    return representationMetsPaths;
+  }
+
+  private void addFiles(FileGrpType fileGrp, String folder, List<String> files) {
+    for (FileType fileType : fileGrp.getFile()) {
+      if (fileType != null && !fileType.getFLocat().isEmpty()) {
+        FLocat fLocat = fileType.getFLocat().get(0);
+        files.add(normalize(folder + Utils.extractedRelativePathFromHref(fLocat.getHref())));
+      }
+    }
+    for (FileGrpType subFileGrp : fileGrp.getFileGrp()) {
+      addFiles(subFileGrp, folder, files);
+    }
+  }
+
+  private Mets readMets(String relativePath) throws ParseException {
+    try (InputStream inputStream = openFile(relativePath)) {
+      return METSUtils.instantiateMETSFromStream(inputStream);
+    } catch (IOException | JAXBException | SAXException e) {
+      throw new ParseException("Error reading " + relativePath + " from " + source, e);
+    }
+  }
+
+  /** Resolves "." and ".." segments, as hrefs are relative to the METS file. */
+  private static String normalize(String relativePath) {
+    List<String> segments = new ArrayList<>();
+    for (String segment : relativePath.split(IPConstants.ZIP_PATH_SEPARATOR)) {
+      if ("..".equals(segment) && !segments.isEmpty()) {
+        segments.remove(segments.size() - 1);
+      } else if (!segment.isEmpty() && !".".equals(segment)) {
+        segments.add(segment);
+      }
+    }
+    return StringUtils.join(segments, IPConstants.ZIP_PATH_SEPARATOR);
+  }
+
+  private static void closeQuietly(ZipFile zipFile) {
+    if (zipFile != null) {
+      try {
+        zipFile.close();
+      } catch (IOException e) {
+        // do nothing
+      }
+    }
+  }
+}
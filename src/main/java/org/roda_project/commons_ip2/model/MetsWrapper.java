@@ -11,6 +11,7 @@ import java.nio.file.Path;
 
 import org.roda_project.commons_ip2.mets_v1_12.beans.DivType;
 import org.roda_project.commons_ip2.mets_v1_12.beans.FileGrpType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
 import org.roda_project.commons_ip2.mets_v1_12.beans.MdSecType;
 import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
 
@@ -33,6 +34,11 @@ public class MetsWrapper {
   private FileGrpType submissionFileGroup;
   private FileGrpType documentationFileGroup;
   private FileGrpType dataFileGroup;
+  /**
+   * Files of the data file group that are not in its bean, as their METS
+   * elements are only created while the METS is written.
+   */
+  private Iterable<FileType> dataFiles;
 
   private MdSecType mainDmdSec;
   private MdSecType documentationDmdSec;
@@ -115,6 +121,14 @@ public class MetsWrapper {
     this.dataFileGroup = dataFileGroup;
   }
 
+  public Iterable<FileType> getDataFiles() {
+    return dataFiles;
+  }
+
+  public void setDataFiles(Iterable<FileType> dataFiles) {
+    this.dataFiles = dataFiles;
+  }
+
   public FileGrpType getMainFileGroup() {
     return mainFileGroup;
   }
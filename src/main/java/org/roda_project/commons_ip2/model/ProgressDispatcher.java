@@ -0,0 +1,184 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model;
+
+import java.io.Closeable;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coalesces the "current status" progress notifications of a {@link SIP}
+ * before they reach its {@link SIPObserver}s.
+ *
+ * <p>
+ * A status is delivered only when at least {@code minIntervalMillis} passed or
+ * at least {@code minPercentage} of the total was processed since the last
+ * delivered one; the latest status is always delivered before the
+ * corresponding "ended" notification. Statuses can be delivered on a separate
+ * thread, so that slow observers do not slow down the build. Started and ended
+ * notifications are never throttled and are always delivered, in order, on the
+ * thread building the SIP.
+ * </p>
+ */
+public class ProgressDispatcher implements Closeable {
+
+  /** The kinds of throttled progress. */
+  public enum Progress {
+    REPRESENTATION_PROCESSING, PACKAGING, PACKAGING_BYTES
+  }
+
+  /** Delivers a status to the observers. */
+  @FunctionalInterface
+  public interface Delivery {
+    void deliver(Progress progress, long current, long total);
+  }
+
+  private final long minIntervalNanos;
+  private final int minPercentage;
+  private final ExecutorService executor;
+  private final Map<Progress, Status> statuses = new EnumMap<>(Progress.class);
+  /** Held while calling the observers, so they are never called concurrently. */
+  private final ReentrantLock deliveryLock = new ReentrantLock();
+  private Delivery delivery;
+
+  /**
+   * @param minIntervalMillis
+   *          minimum time between two delivered statuses of the same kind.
+   * @param minPercentage
+   *          minimum progress, in percentage of the total, between two
+   *          delivered statuses of the same kind (when the total is known).
+   * @param asynchronous
+   *          whether statuses are delivered on a separate thread.
+   */
+  public ProgressDispatcher(long minIntervalMillis, int minPercentage, boolean asynchronous) {
+    this.minIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minIntervalMillis);
+    this.minPercentage = minPercentage;
+    this.executor = asynchronous ? Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "commons-ip-progress");
+      thread.setDaemon(true);
+      return thread;
+    }) : null;
+    for (Progress progress : Progress.values()) {
+      statuses.put(progress, new Status());
+    }
+  }
+
+  void setDelivery(Delivery delivery) {
+    this.delivery = delivery;
+  }
+
+  /**
+   * Resets a kind of progress and runs the started notification.
+   */
+  void started(Progress progress, long total, Runnable notification) {
+    deliveryLock.lock();
+    try {
+      Status status = statuses.get(progress);
+      synchronized (status) {
+        status.total = total;
+        status.current = -1;
+        status.delivered = -1;
+        status.deliveredAt = System.nanoTime();
+      }
+      notification.run();
+    } finally {
+      deliveryLock.unlock();
+    }
+  }
+
+  /**
+   * Records a status, delivering it if it is due.
+   */
+  void update(Progress progress, long current, long total) {
+    Status status = statuses.get(progress);
+    boolean due;
+    synchronized (status) {
+      status.current = current;
+      if (total >= 0) {
+        status.total = total;
+      }
+      due = !status.queued && isDue(status);
+      if (due) {
+        status.queued = true;
+      }
+    }
+    if (due) {
+      if (executor != null) {
+        executor.execute(() -> deliverPending(progress));
+      } else {
+        deliverPending(progress);
+      }
+    }
+  }
+
+  /**
+   * Delivers the pending status, if any, and runs the ended notification.
+   */
+  void ended(Progress progress, Runnable notification) {
+    deliveryLock.lock();
+    try {
+      deliverPending(progress);
+      notification.run();
+    } finally {
+      deliveryLock.unlock();
+    }
+  }
+
+  private boolean isDue(Status status) {
+    if (status.current == status.total || System.nanoTime() - status.deliveredAt >= minIntervalNanos) {
+      return true;
+    }
+    return status.total > 0 && (status.current - Math.max(0, status.delivered)) * 100 >= status.total * minPercentage;
+  }
+
+  private void deliverPending(Progress progress) {
+    deliveryLock.lock();
+    try {
+      Status status = statuses.get(progress);
+      long current;
+      long total;
+      synchronized (status) {
+        status.queued = false;
+        if (status.current < 0 || status.current == status.delivered) {
+          return;
+        }
+        current = status.current;
+        total = status.total;
+        status.delivered = current;
+        status.deliveredAt = System.nanoTime();
+      }
+      if (delivery != null) {
+        delivery.deliver(progress, current, total);
+      }
+    } finally {
+      deliveryLock.unlock();
+    }
+  }
+
+  /**
+   * Stops the delivery thread, if any.
+   */
+  @Override
+  public void close() {
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+
+  private static final class Status {
+    private long total = -1;
+    private long current = -1;
+    private long delivered = -1;
+    private long deliveredAt;
+    private boolean queued;
+  }
+}
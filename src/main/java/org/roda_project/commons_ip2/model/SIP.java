@@ -13,9 +13,12 @@ import java.util.List;
 
 import org.roda_project.commons_ip.model.ParseException;
 import org.roda_project.commons_ip.utils.IPEnums.IPType;
+import org.roda_project.commons_ip.utils.ZipEntryInfo;
+import org.roda_project.commons_ip2.model.ProgressDispatcher.Progress;
 
 public abstract class SIP extends IP {
   private final List<SIPObserver> observers;
+  private ProgressDispatcher progressDispatcher;
 
   public SIP() {
     super();
@@ -46,6 +49,33 @@ public abstract class SIP extends IP {
     observers.remove(observer);
   }
 
+  public ProgressDispatcher getProgressDispatcher() {
+    return progressDispatcher;
+  }
+
+  /**
+   * Sets the {@link ProgressDispatcher} that throttles the current status
+   * notifications, or {@code null} to notify every status synchronously.
+   */
+  public void setProgressDispatcher(ProgressDispatcher progressDispatcher) {
+    this.progressDispatcher = progressDispatcher;
+    if (progressDispatcher != null) {
+      progressDispatcher.setDelivery(this::deliverProgress);
+    }
+  }
+
+  private void deliverProgress(Progress progress, long current, long total) {
+    for (SIPObserver sipObserver : observers) {
+      if (progress == Progress.REPRESENTATION_PROCESSING) {
+        sipObserver.sipBuildRepresentationProcessingCurrentStatus((int) current);
+      } else if (progress == Progress.PACKAGING) {
+        sipObserver.sipBuildPackagingCurrentStatus((int) current);
+      } else {
+        sipObserver.sipBuildPackagingBytesStatus(current, total);
+      }
+    }
+  }
+
   public void notifySipBuildRepresentationsProcessingStarted(int totalNumberOfRepresentations) {
     for (SIPObserver sipObserver : observers) {
       sipObserver.sipBuildRepresentationsProcessingStarted(totalNumberOfRepresentations);
@@ -53,20 +83,36 @@ public abstract class SIP extends IP {
   }
 
   public void notifySipBuildRepresentationProcessingStarted(int totalNumberOfFiles) {
-    for (SIPObserver sipObserver : observers) {
-      sipObserver.sipBuildRepresentationProcessingStarted(totalNumberOfFiles);
+    Runnable notification = () -> {
+      for (SIPObserver sipObserver : observers) {
+        sipObserver.sipBuildRepresentationProcessingStarted(totalNumberOfFiles);
+      }
+    };
+    if (progressDispatcher != null) {
+      progressDispatcher.started(Progress.REPRESENTATION_PROCESSING, totalNumberOfFiles, notification);
+    } else {
+      notification.run();
     }
   }
 
   public void notifySipBuildRepresentationProcessingCurrentStatus(int numberOfFilesAlreadyProcessed) {
-    for (SIPObserver sipObserver : observers) {
-      sipObserver.sipBuildRepresentationProcessingCurrentStatus(numberOfFilesAlreadyProcessed);
+    if (progressDispatcher != null) {
+      progressDispatcher.update(Progress.REPRESENTATION_PROCESSING, numberOfFilesAlreadyProcessed, -1);
+    } else {
+      deliverProgress(Progress.REPRESENTATION_PROCESSING, numberOfFilesAlreadyProcessed, -1);
     }
   }
 
   public void notifySipBuildRepresentationProcessingEnded() {
-    for (SIPObserver sipObserver : observers) {
-      sipObserver.sipBuildRepresentationProcessingEnded();
+    Runnable notification = () -> {
+      for (SIPObserver sipObserver : observers) {
+        sipObserver.sipBuildRepresentationProcessingEnded();
+      }
+    };
+    if (progressDispatcher != null) {
+      progressDispatcher.ended(Progress.REPRESENTATION_PROCESSING, notification);
+    } else {
+      notification.run();
     }
   }
 
@@ -77,20 +123,54 @@ public abstract class SIP extends IP {
   }
 
   public void notifySipBuildPackagingStarted(int totalNumberOfFiles) {
-    for (SIPObserver sipObserver : observers) {
-      sipObserver.sipBuildPackagingStarted(totalNumberOfFiles);
+    Runnable notification = () -> {
+      for (SIPObserver sipObserver : observers) {
+        sipObserver.sipBuildPackagingStarted(totalNumberOfFiles);
+      }
+    };
+    if (progressDispatcher != null) {
+      progressDispatcher.started(Progress.PACKAGING_BYTES, -1, () -> {
+      });
+      progressDispatcher.started(Progress.PACKAGING, totalNumberOfFiles, notification);
+    } else {
+      notification.run();
     }
   }
 
   public void notifySipBuildPackagingCurrentStatus(int numberOfFilesAlreadyProcessed) {
+    if (progressDispatcher != null) {
+      progressDispatcher.update(Progress.PACKAGING, numberOfFilesAlreadyProcessed, -1);
+    } else {
+      deliverProgress(Progress.PACKAGING, numberOfFilesAlreadyProcessed, -1);
+    }
+  }
+
+  public void notifySipBuildPackagingBytesStatus(long bytesProcessed, long totalBytes) {
+    if (progressDispatcher != null) {
+      progressDispatcher.update(Progress.PACKAGING_BYTES, bytesProcessed, totalBytes);
+    } else {
+      deliverProgress(Progress.PACKAGING_BYTES, bytesProcessed, totalBytes);
+    }
+  }
+
+  public void notifySipBuildPackagingEntryWritten(String name, long size, ZipEntryInfo entry) {
     for (SIPObserver sipObserver : observers) {
-      sipObserver.sipBuildPackagingCurrentStatus(numberOfFilesAlreadyProcessed);
+      sipObserver.sipBuildPackagingEntryWritten(name, size, entry);
     }
   }
 
   public void notifySipBuildPackagingEnded() {
-    for (SIPObserver sipObserver : observers) {
-      sipObserver.sipBuildPackagingEnded();
+    Runnable notification = () -> {
+      for (SIPObserver sipObserver : observers) {
+        sipObserver.sipBuildPackagingEnded();
+      }
+    };
+    if (progressDispatcher != null) {
+      progressDispatcher.ended(Progress.PACKAGING_BYTES, () -> {
+      });
+      progressDispatcher.ended(Progress.PACKAGING, notification);
+    } else {
+      notification.run();
     }
   }
 
@@ -7,6 +7,8 @@
  */
 package org.roda_project.commons_ip2.model;
 
+import org.roda_project.commons_ip.utils.ZipEntryInfo;
+
 public interface SIPObserver {
 
   public void sipBuildRepresentationsProcessingStarted(int totalNumberOfRepresentations);
@@ -25,4 +27,33 @@ public interface SIPObserver {
 
   public void sipBuildPackagingEnded();
 
+  /**
+   * Byte level packaging progress. Called very often unless the SIP has a
+   * {@link ProgressDispatcher}; does nothing by default.
+   *
+   * @param bytesProcessed
+   *          number of bytes already packaged.
+   * @param totalBytes
+   *          estimated total number of bytes to package.
+   */
+  public default void sipBuildPackagingBytesStatus(long bytesProcessed, long totalBytes) {
+    // do nothing
+  }
+
+  /**
+   * An entry was written to the package, with the checksum and size calculated
+   * while writing it (and, for METS files, the generated file still in place).
+   * Does nothing by default.
+   *
+   * @param name
+   *          the entry name in the package.
+   * @param size
+   *          the entry size.
+   * @param entry
+   *          the {@link ZipEntryInfo} written.
+   */
+  public default void sipBuildPackagingEntryWritten(String name, long size, ZipEntryInfo entry) {
+    // do nothing
+  }
+
 }
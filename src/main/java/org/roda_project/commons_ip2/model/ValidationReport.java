@@ -9,20 +9,46 @@ package org.roda_project.commons_ip2.model;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 
 public class ValidationReport {
+  /**
+   * Which entries a report keeps. Entries of every level are always counted,
+   * by message, so a package with millions of files yields a report whose size
+   * depends on the problems found and not on the number of files.
+   */
+  public enum Verbosity {
+    /** Keep all entries. */
+    FULL,
+    /** Keep only {@link ValidationEntry.LEVEL#ERROR} entries. */
+    ERRORS_ONLY,
+    /** Keep no entries, only the counters. */
+    COUNTERS_ONLY
+  }
+
   private boolean valid;
   private List<ValidationEntry> entries;
   private Date date;
+  private Verbosity verbosity;
+  private Map<ValidationEntry.LEVEL, Map<String, Long>> counters;
 
   public ValidationReport() {
+    this(Verbosity.FULL);
+  }
+
+  public ValidationReport(Verbosity verbosity) {
     valid = true;
     entries = new ArrayList<>();
     date = new Date();
+    this.verbosity = verbosity;
+    counters = new EnumMap<>(ValidationEntry.LEVEL.class);
   }
 
   public boolean isValid() {
@@ -41,11 +67,51 @@ public class ValidationReport {
     return date;
   }
 
-  public void addEntry(ValidationEntry entry) {
-    if (entry.getLevel() == ValidationEntry.LEVEL.ERROR) {
+  public Verbosity getVerbosity() {
+    return verbosity;
+  }
+
+  public void setVerbosity(Verbosity verbosity) {
+    this.verbosity = verbosity;
+  }
+
+  /**
+   * @return the number of entries added (kept or not) by level and message.
+   */
+  public Map<ValidationEntry.LEVEL, Map<String, Long>> getCounters() {
+    return Collections.unmodifiableMap(counters);
+  }
+
+  /**
+   * @return the number of entries added (kept or not) with this level.
+   */
+  public long getCount(ValidationEntry.LEVEL level) {
+    return counters.getOrDefault(level, Collections.emptyMap()).values().stream().mapToLong(Long::longValue).sum();
+  }
+
+  /**
+   * Whether entries with this level are kept, given the report
+   * {@link Verbosity}; when not, callers may just {@link #count} them.
+   */
+  public boolean isToKeep(ValidationEntry.LEVEL level) {
+    return verbosity == Verbosity.FULL || (verbosity == Verbosity.ERRORS_ONLY && level == ValidationEntry.LEVEL.ERROR);
+  }
+
+  /**
+   * Accounts for an entry without keeping it.
+   */
+  public void count(ValidationEntry.LEVEL level, String message) {
+    if (level == ValidationEntry.LEVEL.ERROR) {
       setValid(false);
     }
-    this.entries.add(entry);
+    counters.computeIfAbsent(level, l -> new LinkedHashMap<>()).merge(message, 1L, Long::sum);
+  }
+
+  public void addEntry(ValidationEntry entry) {
+    count(entry.getLevel(), entry.getMessage());
+    if (isToKeep(entry.getLevel())) {
+      this.entries.add(entry);
+    }
   }
 
   @Override
@@ -72,6 +138,11 @@ public class ValidationReport {
     // add validation entries
     getValidationEntries(sb, showInfo, showWarn, showError);
 
+    // add counters of the entries not kept
+    if (verbosity != Verbosity.FULL) {
+      getValidationCounters(sb);
+    }
+
     // close report
     sb.append(getDivEnding());
 
@@ -107,6 +178,20 @@ public class ValidationReport {
     sb.append(getDivEnding());
   }
 
+  private void getValidationCounters(StringBuilder sb) {
+    sb.append(getDivBeginning("counters"));
+    for (Map.Entry<ValidationEntry.LEVEL, Map<String, Long>> level : counters.entrySet()) {
+      for (Map.Entry<String, Long> counter : level.getValue().entrySet()) {
+        sb.append(getDivBeginning("entry " + "level_" + level.getKey().toString().toLowerCase()));
+        getValidationEntryAttribute(sb, "level", "Level", level.getKey().toString());
+        getValidationEntryAttribute(sb, "message", "Message", counter.getKey());
+        getValidationEntryAttribute(sb, "count", "Count", counter.getValue().toString());
+        sb.append(getDivEnding());
+      }
+    }
+    sb.append(getDivEnding());
+  }
+
   private boolean isToAddEntry(ValidationEntry validationEntry, ValidationEntry.LEVEL level, boolean isToShow) {
     return validationEntry.getLevel() == level && isToShow;
   }
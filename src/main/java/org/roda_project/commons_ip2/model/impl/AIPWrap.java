@@ -136,6 +136,22 @@ public class AIPWrap implements AIP {
     return aip.getStatus();
   }
 
+  /**
+   * Sets the deterministic build mode of the wrapped {@link AIP}.
+   * 
+   * @see IP#setDeterministicBuild(boolean)
+   */
+  public IP setDeterministicBuild(final boolean deterministicBuild) {
+    if (!(aip instanceof IP)) {
+      throw new UnsupportedOperationException(aip.getClass().getName() + " does not support deterministic builds");
+    }
+    return ((IP) aip).setDeterministicBuild(deterministicBuild);
+  }
+
+  public boolean isDeterministicBuild() {
+    return aip instanceof IP && ((IP) aip).isDeterministicBuild();
+  }
+
   @Override
   public IP setCreateDate(final XMLGregorianCalendar date) {
     return aip.setCreateDate(date);
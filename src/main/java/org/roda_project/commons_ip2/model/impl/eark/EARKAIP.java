@@ -8,12 +8,23 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.xml.bind.DatatypeConverter;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.NullOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.roda_project.commons_ip.model.ParseException;
@@ -24,13 +35,17 @@ import org.roda_project.commons_ip2.mets_v1_12.beans.StructMapType;
 import org.roda_project.commons_ip2.model.AIP;
 import org.roda_project.commons_ip2.model.IPConstants;
 import org.roda_project.commons_ip2.model.MetsWrapper;
+import org.roda_project.commons_ip2.model.ValidationReport;
 import org.roda_project.commons_ip2.model.impl.AIPWrap;
 import org.roda_project.commons_ip2.model.impl.BasicAIP;
 import org.roda_project.commons_ip2.model.impl.ModelUtils;
+import org.roda_project.commons_ip2.utils.AsyncTasks;
+import org.roda_project.commons_ip2.utils.DeterministicBuild;
 import org.roda_project.commons_ip2.utils.METSFileTypeZipEntryInfo;
 import org.roda_project.commons_ip2.utils.METSMdRefZipEntryInfo;
 import org.roda_project.commons_ip2.utils.METSUtils;
 import org.roda_project.commons_ip2.utils.METSZipEntryInfo;
+import org.roda_project.commons_ip2.utils.StreamZipEntryInfo;
 import org.roda_project.commons_ip2.utils.ZIPUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +56,9 @@ import org.slf4j.LoggerFactory;
 public class EARKAIP extends AIPWrap {
   private static final Logger LOGGER = LoggerFactory.getLogger(EARKAIP.class);
   private static final String TEMP_DIR = "EARKAIP";
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private int writeParallelism = 1;
 
   /**
    * Constructor.
@@ -52,6 +70,26 @@ public class EARKAIP extends AIPWrap {
     super(aip);
   }
 
+  public int getWriteParallelism() {
+    return writeParallelism;
+  }
+
+  /**
+   * Sets how many files are copied and hashed at the same time when building
+   * into a directory. Writing many small files is bound by the latency of the
+   * storage rather than by the CPU, so this may well be above the number of
+   * processors. The result is the same as with the default, 1, which writes the
+   * files one after the other.
+   *
+   * @param writeParallelism
+   *          the number of writer threads.
+   * @return this {@link EARKAIP}.
+   */
+  public EARKAIP setWriteParallelism(final int writeParallelism) {
+    this.writeParallelism = Math.max(1, writeParallelism);
+    return this;
+  }
+
   public static AIP parse(final Path source) throws ParseException {
     try {
       if (Files.isDirectory(source)) {
@@ -65,17 +103,64 @@ public class EARKAIP extends AIPWrap {
   }
 
   public static AIP parse(Path source, Path destinationDirectory) throws ParseException {
-    return parseEARKAIP(source, destinationDirectory);
+    return parse(source, destinationDirectory, ValidationReport.Verbosity.FULL);
+  }
+
+  /**
+   * Parses an AIP as {@link #parse(Path, Path)} does, keeping, in its
+   * {@link ValidationReport}, only the entries allowed by the given verbosity
+   * (all entries are still counted).
+   */
+  public static AIP parse(Path source, Path destinationDirectory, ValidationReport.Verbosity verbosity)
+    throws ParseException {
+    return parseEARKAIP(source, destinationDirectory, verbosity);
+  }
+
+  /**
+   * Parses an AIP asynchronously, as {@link #parse(Path, Path)} does.
+   * Cancelling the returned future stops extracting the AIP, leaving what was
+   * already extracted in the destination directory.
+   */
+  public static CompletableFuture<AIP> parseAsync(final Path source, final Path destinationDirectory,
+    final Executor executor) {
+    return AsyncTasks.supplyAsync(() -> parse(source, destinationDirectory), executor);
   }
 
-  private static AIP parseEARKAIP(final Path source, final Path destinationDirectory) throws ParseException {
+  /**
+   * Parses an AIP asynchronously, as {@link #parse(Path)} does, in place if it
+   * is a directory or else from a temporary directory. Cancelling the returned
+   * future stops extracting the AIP and removes the temporary directory.
+   */
+  public static CompletableFuture<AIP> parseAsync(final Path source, final Executor executor) {
+    final AtomicReference<Path> destinationDirectory = new AtomicReference<>();
+    return AsyncTasks.supplyAsync(() -> {
+      if (Files.isDirectory(source)) {
+        return parseEARKAIPFromPath(source);
+      }
+      try {
+        destinationDirectory.set(Files.createTempDirectory("unzipped"));
+      } catch (final IOException e) {
+        throw new ParseException("Error creating temporary directory for E-ARK AIP parse", e);
+      }
+      return parse(source, destinationDirectory.get());
+    }, executor, () -> ModelUtils.cleanUpUponInterrupt(LOGGER, destinationDirectory.get()));
+  }
+
+  private static AIP parseEARKAIP(final Path source, final Path destinationDirectory,
+    final ValidationReport.Verbosity verbosity) throws ParseException {
     Path aipPath = ZIPUtils.extractIPIfInZipFormat(source, destinationDirectory);
-    return parseEARKAIPFromPath(aipPath);
+    return parseEARKAIPFromPath(aipPath, verbosity);
   }
 
   private static AIP parseEARKAIPFromPath(final Path aipPath) throws ParseException {
+    return parseEARKAIPFromPath(aipPath, ValidationReport.Verbosity.FULL);
+  }
+
+  private static AIP parseEARKAIPFromPath(final Path aipPath, final ValidationReport.Verbosity verbosity)
+    throws ParseException {
     try {
       final AIP aip = new EARKAIP(new BasicAIP());
+      aip.getValidationReport().setVerbosity(verbosity);
       aip.setBasePath(aipPath);
       final MetsWrapper metsWrapper = EARKUtils.processMainMets(aip, aipPath);
 
@@ -132,6 +217,9 @@ public class EARKAIP extends AIPWrap {
     throws IPException, InterruptedException {
     final Path buildDir = ModelUtils.createBuildDir(TEMP_DIR);
     Path zipPath = null;
+    if (isDeterministicBuild()) {
+      DeterministicBuild.begin(StringUtils.join(getIds(), " "));
+    }
     try {
       final Map<String, ZipEntryInfo> zipEntries = getZipEntries();
       zipPath = getDirPath(destinationDirectory, fileNameWithoutExtension, false);
@@ -173,6 +261,7 @@ public class EARKAIP extends AIPWrap {
       ModelUtils.cleanUpUponInterrupt(LOGGER, zipPath);
       throw e;
     } finally {
+      DeterministicBuild.end();
       ModelUtils.deleteBuildDir(buildDir);
     }
   }
@@ -199,6 +288,10 @@ public class EARKAIP extends AIPWrap {
     throws IPException, InterruptedException {
     try {
       Files.createDirectories(path);
+      if (writeParallelism > 1) {
+        writeToPathInParallel(zipEntryInfos, path, onlyMets);
+        return;
+      }
       for (ZipEntryInfo zipEntryInfo : zipEntryInfos.values()) {
         if (Thread.interrupted()) {
           throw new InterruptedException();
@@ -207,6 +300,9 @@ public class EARKAIP extends AIPWrap {
         zipEntryInfo.prepareEntryforZipping();
         LOGGER.debug("Writing file {}", zipEntryInfo.getFilePath());
         final Path outputPath = Paths.get(path.toString(), zipEntryInfo.getName());
+        if (isWritten(zipEntryInfo, onlyMets)) {
+          Files.createDirectories(outputPath.getParent());
+        }
         writeFileToPath(zipEntryInfo, outputPath, onlyMets);
       }
     } catch (final IOException | NoSuchAlgorithmException e) {
@@ -215,39 +311,111 @@ public class EARKAIP extends AIPWrap {
     }
   }
 
-  private void writeFileToPath(final ZipEntryInfo zipEntryInfo, final Path outputPath, final boolean onlyMets)
-    throws IOException, NoSuchAlgorithmException {
-    InputStream is = null;
-    OutputStream os = null;
+  /**
+   * Creates all directories first, then copies and hashes the files on a pool of
+   * {@link #getWriteParallelism()} threads and, once all their checksums are
+   * set, writes the METS files in order, as the representation METS files must
+   * be written before the root METS that references them.
+   */
+  private void writeToPathInParallel(final Map<String, ZipEntryInfo> zipEntryInfos, final Path path,
+    final boolean onlyMets) throws IOException, NoSuchAlgorithmException, IPException, InterruptedException {
+    final List<ZipEntryInfo> files = new ArrayList<>();
+    final List<ZipEntryInfo> metsFiles = new ArrayList<>();
+    final Set<Path> directories = new TreeSet<>();
+    for (ZipEntryInfo zipEntryInfo : zipEntryInfos.values()) {
+      if (zipEntryInfo instanceof METSZipEntryInfo) {
+        metsFiles.add(zipEntryInfo);
+      } else {
+        files.add(zipEntryInfo);
+      }
+      if (isWritten(zipEntryInfo, onlyMets)) {
+        directories.add(Paths.get(path.toString(), zipEntryInfo.getName()).getParent());
+      }
+    }
+    for (Path directory : directories) {
+      Files.createDirectories(directory);
+    }
+
+    final AtomicReference<Exception> failure = new AtomicReference<>();
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(writeParallelism, writeParallelism, 0L,
+      TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(writeParallelism * 2), new ThreadPoolExecutor.CallerRunsPolicy());
     try {
+      for (ZipEntryInfo zipEntryInfo : files) {
+        if (Thread.interrupted()) {
+          throw new InterruptedException();
+        }
+        if (failure.get() != null) {
+          break;
+        }
+        executor.execute(() -> {
+          if (failure.get() != null) {
+            return;
+          }
+          try {
+            zipEntryInfo.prepareEntryforZipping();
+            LOGGER.debug("Writing file {}", zipEntryInfo.getFilePath());
+            writeFileToPath(zipEntryInfo, Paths.get(path.toString(), zipEntryInfo.getName()), onlyMets);
+          } catch (final IPException | IOException | NoSuchAlgorithmException | RuntimeException e) {
+            failure.compareAndSet(null, e);
+          }
+        });
+      }
+      executor.shutdown();
+      if (!executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS)) {
+        throw new InterruptedException();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    if (failure.get() != null) {
+      throw new IPException(failure.get().getMessage(), failure.get());
+    }
 
-      is = Files.newInputStream(zipEntryInfo.getFilePath());
+    for (ZipEntryInfo zipEntryInfo : metsFiles) {
+      zipEntryInfo.prepareEntryforZipping();
+      LOGGER.debug("Writing file {}", zipEntryInfo.getFilePath());
+      writeFileToPath(zipEntryInfo, Paths.get(path.toString(), zipEntryInfo.getName()), onlyMets);
+    }
+  }
 
-      if (!onlyMets || zipEntryInfo instanceof METSZipEntryInfo) {
-        Files.createDirectories(outputPath.getParent());
-        os = Files.newOutputStream(outputPath);
-      } else {
-        os = new NullOutputStream();
-      }
+  private static boolean isWritten(final ZipEntryInfo zipEntryInfo, final boolean onlyMets) {
+    return !onlyMets || zipEntryInfo instanceof METSZipEntryInfo;
+  }
 
-      final byte[] buffer = new byte[4096];
-      final MessageDigest complete = MessageDigest.getInstance(IPConstants.CHECKSUM_ALGORITHM);
+  private void writeFileToPath(final ZipEntryInfo zipEntryInfo, final Path outputPath, final boolean onlyMets)
+    throws IOException, NoSuchAlgorithmException {
+    // as when zipping, streamed content is checked against what was declared
+    final StreamZipEntryInfo streamEntry = zipEntryInfo instanceof StreamZipEntryInfo
+      ? (StreamZipEntryInfo) zipEntryInfo
+      : null;
+    final Set<String> algorithms = Collections.singleton(IPConstants.CHECKSUM_ALGORITHM);
+    final Map<String, MessageDigest> digests = new HashMap<>();
+    for (String algorithm : streamEntry != null ? streamEntry.getChecksumAlgorithms(algorithms) : algorithms) {
+      digests.put(algorithm, MessageDigest.getInstance(algorithm));
+    }
+
+    long size = 0;
+    try (InputStream is = ZIPUtils.openEntry(zipEntryInfo);
+      OutputStream os = isWritten(zipEntryInfo, onlyMets) ? Files.newOutputStream(outputPath)
+        : new NullOutputStream()) {
+      final byte[] buffer = new byte[BUFFER_SIZE];
       int numRead;
-      do {
-        numRead = is.read(buffer);
-        if (numRead > 0) {
-          complete.update(buffer, 0, numRead);
-          if (!onlyMets || zipEntryInfo instanceof METSZipEntryInfo) {
-            os.write(buffer, 0, numRead);
-          }
+      while ((numRead = is.read(buffer)) != -1) {
+        for (MessageDigest digest : digests.values()) {
+          digest.update(buffer, 0, numRead);
         }
-      } while (numRead != -1);
+        os.write(buffer, 0, numRead);
+        size += numRead;
+      }
+    }
 
-      setChecksum(zipEntryInfo, DatatypeConverter.printHexBinary(complete.digest()), IPConstants.CHECKSUM_ALGORITHM);
-    } finally {
-      IOUtils.closeQuietly(is);
-      IOUtils.closeQuietly(os);
+    final Map<String, String> checksums = new HashMap<>();
+    digests
+      .forEach((algorithm, digest) -> checksums.put(algorithm, DatatypeConverter.printHexBinary(digest.digest())));
+    if (streamEntry != null) {
+      streamEntry.verify(size, checksums);
     }
+    setChecksum(zipEntryInfo, checksums.get(IPConstants.CHECKSUM_ALGORITHM), IPConstants.CHECKSUM_ALGORITHM);
   }
 
   private void setChecksum(final ZipEntryInfo zipEntryInfo, final String checksum, final String checksumType)
@@ -256,8 +424,7 @@ public class EARKAIP extends AIPWrap {
     zipEntryInfo.setChecksumAlgorithm(checksumType);
     if (zipEntryInfo instanceof METSFileTypeZipEntryInfo) {
       METSFileTypeZipEntryInfo f = (METSFileTypeZipEntryInfo) zipEntryInfo;
-      f.getMetsFileType().setCHECKSUM(checksum);
-      f.getMetsFileType().setCHECKSUMTYPE(checksumType);
+      f.setMetsFileTypeChecksum(checksum, checksumType);
     } else if (zipEntryInfo instanceof METSMdRefZipEntryInfo) {
       METSMdRefZipEntryInfo f = (METSMdRefZipEntryInfo) zipEntryInfo;
       f.getMetsMdRef().setCHECKSUM(checksum);
@@ -52,6 +52,7 @@ import org.roda_project.commons_ip2.model.IPContentType;
 import org.roda_project.commons_ip2.model.IPDescriptiveMetadata;
 import org.roda_project.commons_ip2.model.IPFileInterface;
 import org.roda_project.commons_ip2.model.IPFileShallow;
+import org.roda_project.commons_ip2.model.IPFileStream;
 import org.roda_project.commons_ip2.model.IPHeader;
 import org.roda_project.commons_ip2.model.IPInterface;
 import org.roda_project.commons_ip2.model.IPMetadata;
@@ -59,6 +60,7 @@ import org.roda_project.commons_ip2.model.IPRepresentation;
 import org.roda_project.commons_ip2.model.MetsWrapper;
 import org.roda_project.commons_ip2.model.ValidationEntry.LEVEL;
 import org.roda_project.commons_ip2.model.impl.ModelUtils;
+import org.roda_project.commons_ip2.utils.DeterministicBuild;
 import org.roda_project.commons_ip2.utils.METSUtils;
 import org.roda_project.commons_ip2.utils.StructMapDiv;
 import org.roda_project.commons_ip2.utils.Tree;
@@ -75,9 +77,10 @@ public final class EARKMETSUtils {
   private static final Logger LOGGER = LoggerFactory.getLogger(EARKMETSUtils.class);
 
   /**
-   * {@link HashMap} with all data fileGrps.
+   * {@link HashMap} with all data fileGrps of the representation being built
+   * on the current thread.
    */
-  private static final Map<String, FileGrp> dataFileGrp = new HashMap<>();
+  private static final ThreadLocal<Map<String, FileGrp>> dataFileGrp = ThreadLocal.withInitial(HashMap::new);
 
   private EARKMETSUtils() {
     // do nothing
@@ -221,22 +224,22 @@ public final class EARKMETSUtils {
 
   private static FileGrp createFileGroup(final String use) {
     final FileGrp fileGroup = new FileGrp();
-    fileGroup.setID(Utils.generateRandomAndPrefixedUUID());
+    fileGroup.setID(Utils.generatePrefixedUUID("fileGrp " + use));
     fileGroup.setUSE(use);
     return fileGroup;
   }
 
   private static DivType createDivForStructMap(final String label) {
     final DivType div = new DivType();
-    div.setID(Utils.generateRandomAndPrefixedUUID());
+    div.setID(Utils.generatePrefixedUUID("div " + label));
     div.setLABEL(label);
     return div;
   }
 
   private static DivType createRepresentationDivForStructMap(final String representationId, final Mptr mptr) {
     final DivType div = new DivType();
-    div.setID(Utils.generateRandomAndPrefixedUUID());
     div.setLABEL(IPConstants.REPRESENTATIONS_WITH_FIRST_LETTER_CAPITAL + "/" + representationId);
+    div.setID(Utils.generatePrefixedUUID("div " + div.getLABEL()));
     div.getMptr().add(mptr);
     return div;
   }
@@ -257,7 +260,7 @@ public final class EARKMETSUtils {
 
       // create file
       final FileType fileType = new FileType();
-      fileType.setID(Utils.generateRandomAndPrefixedFileID());
+      fileType.setID(Utils.generatePrefixedFileID(representationMetsPath));
 
       addMETSToZip(zipEntries, representationMETSWrapper, representationMetsPath, buildDir, false, fileType);
 
@@ -282,7 +285,7 @@ public final class EARKMETSUtils {
     final String metsPath, final Path buildDir, final boolean mainMets, final FileType fileType)
     throws JAXBException, IOException, IPException {
     final Path temp = Files.createTempFile(buildDir, IPConstants.METS_FILE_NAME, IPConstants.METS_FILE_EXTENSION);
-    ZIPUtils.addMETSFileToZip(zipEntries, temp, metsPath, metsWrapper.getMets(), mainMets, fileType);
+    ZIPUtils.addMETSFileToZip(zipEntries, temp, metsPath, metsWrapper, mainMets, fileType);
   }
 
   private static Agent createMETSAgent(final IPAgent ipAgent) {
@@ -344,9 +347,9 @@ public final class EARKMETSUtils {
     final boolean isDescriptive) throws IPException, InterruptedException {
     final MdSecType dmdSec = new MdSecType();
     dmdSec.setSTATUS(metadata.getMetadataStatus().toString());
-    dmdSec.setID(Utils.generateRandomAndPrefixedUUID());
+    dmdSec.setID(Utils.generatePrefixedUUID("dmdSec " + metadataPath));
 
-    final MdRef mdRef = createMdRef(metadata.getId(), metadataPath);
+    final MdRef mdRef = createMdRef(getMetadataId(metadata, metadataPath), metadataPath);
     mdRef.setMDTYPE(mdType);
     if (StringUtils.isNotBlank(mdOtherType)) {
       mdRef.setOTHERMDTYPE(mdOtherType);
@@ -375,8 +378,9 @@ public final class EARKMETSUtils {
     throws IPException, InterruptedException {
     final MdSecType digiprovMD = new MdSecType();
     digiprovMD.setSTATUS(preservationMetadata.getMetadataStatus().toString());
-    digiprovMD.setID(Utils.generateRandomAndPrefixedUUID());
-    final MdRef mdRef = createMdRef(preservationMetadata.getId(), preservationMetadataPath);
+    digiprovMD.setID(Utils.generatePrefixedUUID("digiprovMD " + preservationMetadataPath));
+    final MdRef mdRef = createMdRef(getMetadataId(preservationMetadata, preservationMetadataPath),
+      preservationMetadataPath);
     mdRef.setMDTYPE(preservationMetadata.getMetadataType().asString());
 
     // set mimetype, date creation, etc.
@@ -390,6 +394,17 @@ public final class EARKMETSUtils {
     return mdRef;
   }
 
+  /**
+   * The id of a metadata file or, during a deterministic build and unless one
+   * was given, an id derived from its path.
+   */
+  private static String getMetadataId(final IPMetadata metadata, final String metadataPath) {
+    if (DeterministicBuild.isActive() && metadata.isGeneratedId()) {
+      return Utils.generatePrefixedUUID("mdRef " + metadataPath);
+    }
+    return metadata.getId();
+  }
+
   private static String escapeNCName(final String id) {
     return id.replaceAll("[:@$%&/+,;\\s]", "_");
   }
@@ -405,7 +420,7 @@ public final class EARKMETSUtils {
 
   public static void addDataFileToMETS(final MetsWrapper representationMETS, final IPFileShallow shallow) {
     final FileType file = shallow.getFileType();
-    file.setID(Utils.generateRandomAndPrefixedFileID());
+    file.setID(Utils.generatePrefixedFileID(shallow.getFileLocation().toString()));
 
     // add to file section
     final FLocat fileLocation = METSUtils.createShallowFileLocation(shallow.getFileLocation().toString());
@@ -417,29 +432,83 @@ public final class EARKMETSUtils {
   public static FileType addDataFileToMETS(final MetsWrapper representationMETS, final String dataFilePath,
     final Path dataFile) throws IPException, InterruptedException {
     final FileType file = new FileType();
-    file.setID(Utils.generateRandomAndPrefixedFileID());
+    file.setID(Utils.generatePrefixedFileID(dataFilePath));
+
+    // set mimetype, date creation, etc.
+    METSUtils.setFileBasicInformation(LOGGER, dataFile, file);
+
+    addDataFileToMETS(representationMETS, dataFilePath, file);
+    return file;
+  }
+
+  public static FileType addDataFileToMETS(final MetsWrapper representationMETS, final String dataFilePath,
+    final IPFileStream dataFile) throws IPException {
+    final FileType file = createDataFileType(dataFilePath, dataFile);
+    addDataFileToMETS(representationMETS, dataFilePath, file);
+    return file;
+  }
+
+  static FileType createDataFileType(final String dataFilePath, final IPFileStream dataFile) throws IPException {
+    final FileType file = new FileType();
+    file.setID(Utils.generatePrefixedFileID(dataFilePath));
+
+    // declared mimetype and size, as the content is only read when packaging
+    file.setMIMETYPE(dataFile.getMimeType());
+    file.setSIZE(dataFile.getSize());
+    try {
+      file.setCREATED(Utils.getCurrentCalendar());
+    } catch (DatatypeConfigurationException e) {
+      throw new IPException("Error getting curent calendar (" + dataFilePath + ")", e);
+    }
+    return file;
+  }
+
+  /**
+   * Adds the data files of a representation to its METS, whose METS file
+   * elements are only created while the METS is written.
+   */
+  public static void addDataFilesToMETS(final MetsWrapper representationMETS, final Iterable<FileType> dataFiles) {
+    representationMETS.setDataFiles(dataFiles);
+    addDataFptr(representationMETS);
+  }
+
+  /**
+   * Creates the METS file element of a data file, with no location nor
+   * checksum, as the checksum is only known once the file is zipped.
+   */
+  static FileType createDataFileType(final String dataFilePath, final Path dataFile)
+    throws IPException, InterruptedException {
+    final FileType file = new FileType();
+    file.setID(Utils.generatePrefixedFileID(dataFilePath));
 
     // set mimetype, date creation, etc.
     METSUtils.setFileBasicInformation(LOGGER, dataFile, file);
+    return file;
+  }
 
+  private static void addDataFileToMETS(final MetsWrapper representationMETS, final String dataFilePath,
+    final FileType file) {
     // add to file section
     final FLocat fileLocation = METSUtils.createFileLocation(dataFilePath);
     file.getFLocat().add(fileLocation);
     representationMETS.getDataFileGroup().getFile().add(file);
 
+    addDataFptr(representationMETS);
+  }
+
+  private static void addDataFptr(final MetsWrapper representationMETS) {
     // add to struct map
     if (representationMETS.getDataDiv().getFptr().isEmpty()) {
       final Fptr fptr = new Fptr();
       fptr.setFILEID(representationMETS.getDataFileGroup());
       representationMETS.getDataDiv().getFptr().add(fptr);
     }
-    return file;
   }
 
   public static FileType addSchemaFileToMETS(final MetsWrapper metsWrapper, final String schemaFilePath,
     final Path schemaFile) throws IPException, InterruptedException {
     final FileType file = new FileType();
-    file.setID(Utils.generateRandomAndPrefixedFileID());
+    file.setID(Utils.generatePrefixedFileID(schemaFilePath));
 
     // set mimetype, date creation, etc.
     METSUtils.setFileBasicInformation(LOGGER, schemaFile, file);
@@ -463,7 +532,7 @@ public final class EARKMETSUtils {
   public static FileType addSubmissionFileToMETS(final MetsWrapper metsWrapper, final String submissionFilePath,
     final Path submissionFile) throws IPException, InterruptedException {
     final FileType file = new FileType();
-    file.setID(Utils.generateRandomAndPrefixedFileID());
+    file.setID(Utils.generatePrefixedFileID(submissionFilePath));
 
     // set mimetype, date creation, etc.
     METSUtils.setFileBasicInformation(LOGGER, submissionFile, file);
@@ -483,7 +552,7 @@ public final class EARKMETSUtils {
   public static FileType addDocumentationFileToMETS(final MetsWrapper metsWrapper, final String documentationFilePath,
     final Path documentationFile) throws IPException, InterruptedException {
     final FileType file = new FileType();
-    file.setID(Utils.generateRandomAndPrefixedFileID());
+    file.setID(Utils.generatePrefixedFileID(documentationFilePath));
 
     // set mimetype, date creation, etc.
     METSUtils.setFileBasicInformation(LOGGER, documentationFile, file);
@@ -505,7 +574,7 @@ public final class EARKMETSUtils {
 
   private static StructMapType generateAncestorStructMap(final List<String> ancestors) {
     final StructMapType structMap = new StructMapType();
-    structMap.setID(Utils.generateRandomAndPrefixedUUID());
+    structMap.setID(Utils.generatePrefixedUUID("structMap " + IPConstants.RODA_STRUCTURAL_MAP));
     structMap.setLABEL(IPConstants.RODA_STRUCTURAL_MAP);
 
     final DivType mainDiv = createDivForStructMap(IPConstants.RODA_DIV_LABEL);
@@ -602,7 +671,7 @@ public final class EARKMETSUtils {
 
   private static void addAmdSecToMets(final Mets mets) {
     final AmdSecType amdSec = new AmdSecType();
-    amdSec.setID(Utils.generateRandomAndPrefixedUUID());
+    amdSec.setID(Utils.generatePrefixedUUID("amdSec"));
     mets.getAmdSec().add(amdSec);
   }
 
@@ -627,7 +696,7 @@ public final class EARKMETSUtils {
 
   private static FileSec createFileSec() {
     final FileSec fileSec = new FileSec();
-    fileSec.setID(Utils.generateRandomAndPrefixedUUID());
+    fileSec.setID(Utils.generatePrefixedUUID("fileSec"));
     return fileSec;
   }
 
@@ -642,7 +711,7 @@ public final class EARKMETSUtils {
 
   private static StructMapType createStructMap() {
     final StructMapType structMap = new StructMapType();
-    structMap.setID(Utils.generateRandomAndPrefixedUUID());
+    structMap.setID(Utils.generatePrefixedUUID("structMap " + IPConstants.COMMON_SPEC_STRUCTURAL_MAP));
     structMap.setTYPE(IPConstants.METS_TYPE_PHYSICAL);
     structMap.setLABEL(IPConstants.COMMON_SPEC_STRUCTURAL_MAP);
     return structMap;
@@ -708,7 +777,7 @@ public final class EARKMETSUtils {
   }
 
   public static Map<String, FileGrp> getDataFileGrp() {
-    return dataFileGrp;
+    return dataFileGrp.get();
   }
 
   /**
@@ -728,9 +797,9 @@ public final class EARKMETSUtils {
         dataFilePath = IPConstants.DATA_FOLDER + ModelUtils.getFoldersFromList(file.getRelativeFolders());
       }
 
-      if (!dataFileGrp.containsKey(dataFilePath) && ((IPFileShallow) file).getFileLocation() != null) {
+      if (!dataFileGrp.get().containsKey(dataFilePath) && ((IPFileShallow) file).getFileLocation() != null) {
         final FileGrp dataFileGroup = createFileGroup(dataFilePath);
-        dataFileGrp.put(dataFilePath, dataFileGroup);
+        dataFileGrp.get().put(dataFilePath, dataFileGroup);
       }
     }
   }
@@ -754,7 +823,7 @@ public final class EARKMETSUtils {
     final boolean mainMets, final boolean isRepresentationsData, final IPRepresentation representation) {
     if (!mainMets && isRepresentationsData) {
       addFileGrps(representation);
-      for (Map.Entry<String, FileGrp> entry : dataFileGrp.entrySet()) {
+      for (Map.Entry<String, FileGrp> entry : dataFileGrp.get().entrySet()) {
         fileSec.getFileGrp().add(entry.getValue());
         if (metsWrapper.getDataFileGroup() == null) {
           metsWrapper.setDataFileGroup(new FileGrpType());
@@ -783,9 +852,9 @@ public final class EARKMETSUtils {
     if (!mainMets && isRepresentationsData) {
       final Tree<StructMapDiv> dataDivsTree = createTree(representation);
       DivType dataDiv = createDivForStructMap(dataDivsTree.getRoot().getLabel());
-      if (dataDiv.getFptr().isEmpty() && dataFileGrp.get(dataDiv.getLABEL()) != null) {
+      if (dataDiv.getFptr().isEmpty() && dataFileGrp.get().get(dataDiv.getLABEL()) != null) {
         final Fptr fptr = new Fptr();
-        fptr.setFILEID(dataFileGrp.get(dataDiv.getLABEL()));
+        fptr.setFILEID(dataFileGrp.get().get(dataDiv.getLABEL()));
         dataDiv.getFptr().add(fptr);
       }
       createDataDiv(dataDivsTree, dataDiv);
@@ -801,7 +870,7 @@ public final class EARKMETSUtils {
    *          {@link IPRepresentation}.
    * @return {@link Tree} of {@link StructMapDiv}.
    */
-  private static Tree<StructMapDiv> createTree(IPRepresentation representation) {
+  static Tree<StructMapDiv> createTree(IPRepresentation representation) {
     final Tree<StructMapDiv> divsTree = new Tree<>(new StructMapDiv(IPConstants.DATA_WITH_FIRST_LETTER_CAPITAL));
     for (IPFileInterface file : representation.getData()) {
       IPFileShallow shallow = (IPFileShallow) file;
@@ -817,7 +886,8 @@ public final class EARKMETSUtils {
   }
 
   /**
-   * Recursive method to add Nodes in the {@link Tree}.
+   * Adds the Nodes of a file relative folders to the {@link Tree}, walking down
+   * one folder at a time.
    * 
    * @param divTree
    *          {@link Tree} of {@link StructMapDiv}.
@@ -828,19 +898,18 @@ public final class EARKMETSUtils {
    */
   private static void addNodes(final Tree<StructMapDiv> divTree, final String fileLocation,
     List<String> fileRelativeFolders) {
-    if (fileRelativeFolders == null || fileRelativeFolders.isEmpty()) {
-      if (fileLocation != null) {
-        divTree.getRoot().setFileLocation(fileLocation);
-      }
-    } else {
-      if (fileRelativeFolders.get(0) != null) {
-        Tree<StructMapDiv> childNode = divTree.addChild(new StructMapDiv(fileRelativeFolders.get(0)),
-          divTree.getRoot());
-        List<String> newRelativeFolders = new ArrayList<>(fileRelativeFolders);
-        newRelativeFolders.remove(0);
-        addNodes(childNode, fileLocation, newRelativeFolders);
+    Tree<StructMapDiv> node = divTree;
+    if (fileRelativeFolders != null) {
+      for (String folder : fileRelativeFolders) {
+        if (folder == null) {
+          return;
+        }
+        node = node.addChild(new StructMapDiv(folder));
       }
     }
+    if (fileLocation != null) {
+      node.getRoot().setFileLocation(fileLocation);
+    }
   }
 
   /**
@@ -856,9 +925,9 @@ public final class EARKMETSUtils {
     if (!dataDivsTree.getChilds().isEmpty()) {
       for (Tree<StructMapDiv> child : dataDivsTree.getChilds()) {
         DivType div = createDivForStructMap(child.getRoot().getLabel());
-        if (div.getFptr().isEmpty() && dataFileGrp.get(child.getRoot().getFileLocation()) != null) {
+        if (div.getFptr().isEmpty() && dataFileGrp.get().get(child.getRoot().getFileLocation()) != null) {
           final Fptr fptr = new Fptr();
-          fptr.setFILEID(dataFileGrp.get(child.getRoot().getFileLocation()));
+          fptr.setFILEID(dataFileGrp.get().get(child.getRoot().getFileLocation()));
           div.getFptr().add(fptr);
         }
         dataDiv.getDiv().add(div);
@@ -895,7 +964,7 @@ public final class EARKMETSUtils {
    * Clean the {@link HashMap} data.
    */
   public static void cleanFileGrpStructure() {
-    dataFileGrp.clear();
+    dataFileGrp.get().clear();
   }
 
 }
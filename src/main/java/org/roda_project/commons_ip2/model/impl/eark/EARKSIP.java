@@ -8,14 +8,21 @@
 package org.roda_project.commons_ip2.model.impl.eark;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
 import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.roda_project.commons_ip.model.ParseException;
 import org.roda_project.commons_ip.utils.IPEnums;
@@ -27,8 +34,12 @@ import org.roda_project.commons_ip2.model.IPContentInformationType;
 import org.roda_project.commons_ip2.model.IPContentType;
 import org.roda_project.commons_ip2.model.MetsWrapper;
 import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.model.ValidationReport;
 import org.roda_project.commons_ip2.model.impl.ModelUtils;
+import org.roda_project.commons_ip2.utils.AsyncTasks;
+import org.roda_project.commons_ip2.utils.DeterministicBuild;
 import org.roda_project.commons_ip2.utils.METSUtils;
+import org.roda_project.commons_ip2.utils.TARUtils;
 import org.roda_project.commons_ip2.utils.ZIPUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -70,7 +81,17 @@ public class EARKSIP extends SIP {
    */
 
   public static SIP parse(Path source, Path destinationDirectory) throws ParseException {
-    return parseEARKSIP(source, destinationDirectory);
+    return parse(source, destinationDirectory, ValidationReport.Verbosity.FULL);
+  }
+
+  /**
+   * Parses a SIP as {@link #parse(Path, Path)} does, keeping, in its
+   * {@link ValidationReport}, only the entries allowed by the given verbosity
+   * (all entries are still counted).
+   */
+  public static SIP parse(Path source, Path destinationDirectory, ValidationReport.Verbosity verbosity)
+    throws ParseException {
+    return parseEARKSIP(source, destinationDirectory, verbosity);
   }
 
   public static SIP parse(Path source) throws ParseException {
@@ -81,10 +102,39 @@ public class EARKSIP extends SIP {
     }
   }
 
-  private static SIP parseEARKSIP(final Path source, final Path destinationDirectory) throws ParseException {
+  /**
+   * Parses a SIP asynchronously, as {@link #parse(Path, Path)} does. Cancelling
+   * the returned future stops extracting the SIP, leaving what was already
+   * extracted in the destination directory.
+   */
+  public static CompletableFuture<SIP> parseAsync(final Path source, final Path destinationDirectory,
+    final Executor executor) {
+    return AsyncTasks.supplyAsync(() -> parse(source, destinationDirectory), executor);
+  }
+
+  /**
+   * Parses a SIP asynchronously into a temporary directory, as
+   * {@link #parse(Path)} does. Cancelling the returned future stops extracting
+   * the SIP and removes the temporary directory.
+   */
+  public static CompletableFuture<SIP> parseAsync(final Path source, final Executor executor) {
+    final AtomicReference<Path> destinationDirectory = new AtomicReference<>();
+    return AsyncTasks.supplyAsync(() -> {
+      try {
+        destinationDirectory.set(Files.createTempDirectory("unzipped"));
+      } catch (IOException e) {
+        throw new ParseException("Error creating temporary directory for E-ARK SIP parse", e);
+      }
+      return parse(source, destinationDirectory.get());
+    }, executor, () -> ModelUtils.cleanUpUponInterrupt(LOGGER, destinationDirectory.get()));
+  }
+
+  private static SIP parseEARKSIP(final Path source, final Path destinationDirectory,
+    final ValidationReport.Verbosity verbosity) throws ParseException {
     try {
       IPConstants.METS_ENCODE_AND_DECODE_HREF = true;
       SIP sip = new EARKSIP();
+      sip.getValidationReport().setVerbosity(verbosity);
 
       Path sipPath = ZIPUtils.extractIPIfInZipFormat(source, destinationDirectory);
       sip.setBasePath(sipPath);
@@ -189,39 +239,131 @@ public class EARKSIP extends SIP {
     IPConstants.METS_ENCODE_AND_DECODE_HREF = true;
     Path buildDir = ModelUtils.createBuildDir(SIP_TEMP_DIR);
     Path zipPath = getZipPath(destinationDirectory, fileNameWithoutExtension);
+    if (isDeterministicBuild()) {
+      DeterministicBuild.begin(StringUtils.join(getIds(), " "));
+    }
     try {
-      Map<String, ZipEntryInfo> zipEntries = getZipEntries();
-      boolean isMetadataOther = (this.getOtherMetadata() != null && !this.getOtherMetadata().isEmpty());
-      boolean isMetadata = ((this.getDescriptiveMetadata() != null && !this.getDescriptiveMetadata().isEmpty())
-        || (this.getPreservationMetadata() != null && !this.getPreservationMetadata().isEmpty()));
-      boolean isDocumentation = (this.getDocumentation() != null && !this.getDocumentation().isEmpty());
-      boolean isSchemas = (this.getSchemas() != null && !this.getSchemas().isEmpty());
-      boolean isRepresentations = (this.getRepresentations() != null && !this.getRepresentations().isEmpty());
-      MetsWrapper mainMETSWrapper = EARKMETSUtils.generateMETS(StringUtils.join(this.getIds(), " "),
-        this.getDescription(), this.getProfile(), true, Optional.ofNullable(this.getAncestors()), null,
-        this.getHeader(), this.getType(), this.getContentType(), this.getContentInformationType(), isMetadata,
-        isMetadataOther, isSchemas, isDocumentation, false, isRepresentations, false);
-
-      EARKUtils.addDescriptiveMetadataToZipAndMETS(zipEntries, mainMETSWrapper, getDescriptiveMetadata(), null);
-      EARKUtils.addPreservationMetadataToZipAndMETS(zipEntries, mainMETSWrapper, getPreservationMetadata(), null);
-      EARKUtils.addOtherMetadataToZipAndMETS(zipEntries, mainMETSWrapper, getOtherMetadata(), null);
-      EARKUtils.addRepresentationsToZipAndMETS(this, getRepresentations(), zipEntries, mainMETSWrapper, buildDir,
-        sipType);
-      EARKUtils.addDefaultSchemas(LOGGER, getSchemas(), buildDir);
-      EARKUtils.addSchemasToZipAndMETS(zipEntries, mainMETSWrapper, getSchemas(), null);
-      EARKUtils.addDocumentationToZipAndMETS(zipEntries, mainMETSWrapper, getDocumentation(), null);
-      METSUtils.addMainMETSToZip(zipEntries, mainMETSWrapper, buildDir);
-
+      Map<String, ZipEntryInfo> zipEntries = prepareZipEntries(buildDir, sipType);
       createZipFile(zipEntries, zipPath);
       return zipPath;
     } catch (InterruptedException e) {
       ModelUtils.cleanUpUponInterrupt(LOGGER, zipPath);
       throw e;
     } finally {
+      DeterministicBuild.end();
       ModelUtils.deleteBuildDir(buildDir);
     }
   }
 
+  /**
+   * Builds a SIP as a ZIP directly into an {@link OutputStream}, which does not
+   * need to be seekable (e.g. stdout, a pipe or a socket). The stream is not
+   * closed.
+   *
+   * @param outputStream
+   *          the {@link OutputStream} where the SIP should be written.
+   * @throws IPException
+   *           if some error occurs.
+   * @throws InterruptedException
+   *           if some error occurs.
+   */
+  public void build(final OutputStream outputStream) throws IPException, InterruptedException {
+    build(outputStream, IPEnums.SipType.EARK2, IPEnums.ArchiveFormat.ZIP);
+  }
+
+  /**
+   * Builds a SIP directly into a {@link WritableByteChannel}. The channel is not
+   * closed.
+   *
+   * @param channel
+   *          the {@link WritableByteChannel} where the SIP should be written.
+   * @param sipType
+   *          the {@link IPEnums.SipType}.
+   * @param format
+   *          the {@link IPEnums.ArchiveFormat} of the output.
+   * @throws IPException
+   *           if some error occurs.
+   * @throws InterruptedException
+   *           if some error occurs.
+   */
+  public void build(final WritableByteChannel channel, final IPEnums.SipType sipType,
+    final IPEnums.ArchiveFormat format) throws IPException, InterruptedException {
+    build(Channels.newOutputStream(channel), sipType, format);
+  }
+
+  /**
+   * Builds a SIP directly into an {@link OutputStream}, in a single forward pass.
+   * Every METS file is only produced after the checksums of the files it
+   * references are known. The stream is not closed.
+   *
+   * @param outputStream
+   *          the {@link OutputStream} where the SIP should be written.
+   * @param sipType
+   *          the {@link IPEnums.SipType}.
+   * @param format
+   *          the {@link IPEnums.ArchiveFormat} of the output.
+   * @throws IPException
+   *           if some error occurs.
+   * @throws InterruptedException
+   *           if some error occurs.
+   */
+  public void build(final OutputStream outputStream, final IPEnums.SipType sipType,
+    final IPEnums.ArchiveFormat format) throws IPException, InterruptedException {
+    IPConstants.METS_ENCODE_AND_DECODE_HREF = true;
+    Path buildDir = ModelUtils.createBuildDir(SIP_TEMP_DIR);
+    if (isDeterministicBuild()) {
+      DeterministicBuild.begin(StringUtils.join(getIds(), " "));
+    }
+    try {
+      Map<String, ZipEntryInfo> zipEntries = prepareZipEntries(buildDir, sipType);
+      notifySipBuildPackagingStarted(zipEntries.size());
+      try {
+        OutputStream out = new CloseShieldOutputStream(outputStream);
+        if (format == IPEnums.ArchiveFormat.TAR) {
+          TARUtils.tar(zipEntries, out, this, true);
+        } else {
+          ZIPUtils.zip(zipEntries, out, this, true, true);
+        }
+        outputStream.flush();
+      } finally {
+        notifySipBuildPackagingEnded();
+      }
+    } catch (ClosedByInterruptException e) {
+      throw new InterruptedException();
+    } catch (IOException e) {
+      throw new IPException("Error generating E-ARK SIP " + format + " stream. Reason: " + e.getMessage(), e);
+    } finally {
+      DeterministicBuild.end();
+      ModelUtils.deleteBuildDir(buildDir);
+    }
+  }
+
+  private Map<String, ZipEntryInfo> prepareZipEntries(Path buildDir, IPEnums.SipType sipType)
+    throws IPException, InterruptedException {
+    Map<String, ZipEntryInfo> zipEntries = getZipEntries();
+    boolean isMetadataOther = (this.getOtherMetadata() != null && !this.getOtherMetadata().isEmpty());
+    boolean isMetadata = ((this.getDescriptiveMetadata() != null && !this.getDescriptiveMetadata().isEmpty())
+      || (this.getPreservationMetadata() != null && !this.getPreservationMetadata().isEmpty()));
+    boolean isDocumentation = (this.getDocumentation() != null && !this.getDocumentation().isEmpty());
+    boolean isSchemas = (this.getSchemas() != null && !this.getSchemas().isEmpty());
+    boolean isRepresentations = (this.getRepresentations() != null && !this.getRepresentations().isEmpty());
+    MetsWrapper mainMETSWrapper = EARKMETSUtils.generateMETS(StringUtils.join(this.getIds(), " "),
+      this.getDescription(), this.getProfile(), true, Optional.ofNullable(this.getAncestors()), null,
+      this.getHeader(), this.getType(), this.getContentType(), this.getContentInformationType(), isMetadata,
+      isMetadataOther, isSchemas, isDocumentation, false, isRepresentations, false);
+
+    EARKUtils.addDescriptiveMetadataToZipAndMETS(zipEntries, mainMETSWrapper, getDescriptiveMetadata(), null);
+    EARKUtils.addPreservationMetadataToZipAndMETS(zipEntries, mainMETSWrapper, getPreservationMetadata(), null);
+    EARKUtils.addOtherMetadataToZipAndMETS(zipEntries, mainMETSWrapper, getOtherMetadata(), null);
+    EARKUtils.addRepresentationsToZipAndMETS(this, getRepresentations(), zipEntries, mainMETSWrapper, buildDir,
+      sipType);
+    EARKUtils.addDefaultSchemas(LOGGER, getSchemas(), buildDir);
+    EARKUtils.addSchemasToZipAndMETS(zipEntries, mainMETSWrapper, getSchemas(), null);
+    EARKUtils.addDocumentationToZipAndMETS(zipEntries, mainMETSWrapper, getDocumentation(), null);
+    METSUtils.addMainMETSToZip(zipEntries, mainMETSWrapper, buildDir);
+    return zipEntries;
+  }
+
   private Path getZipPath(Path destinationDirectory, String fileNameWithoutExtension) throws IPException {
     Path zipPath;
     if (fileNameWithoutExtension != null) {
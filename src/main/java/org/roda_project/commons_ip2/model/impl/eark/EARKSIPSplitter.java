@@ -0,0 +1,315 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.model.IPConstants;
+import org.roda_project.commons_ip2.model.IPDescriptiveMetadata;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPFileInterface;
+import org.roda_project.commons_ip2.model.IPFileStream;
+import org.roda_project.commons_ip2.model.IPMetadata;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.utils.ZIPUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Builds an E-ARK SIP that is too big to be transferred as a whole as several
+ * divided packages: a parent package, with the SIP id and all the package
+ * level metadata, schemas and documentation, and as many part packages as
+ * needed to keep each one under a maximum size and number of data files. The
+ * representation data files are distributed over the parts in order, so a
+ * representation may span several parts; its own metadata goes with its first
+ * part.
+ *
+ * <p>
+ * Each part has the ancestors of the SIP plus the parent id as ancestors (see
+ * {@link SIP#setAncestors(List)}), so it is linked to the parent through the
+ * RODA struct map. All packages are built concurrently, and a JSON manifest
+ * with their ids, file names, sizes and checksums is written next to them, as
+ * {@code <SIP id>-parts.json}.
+ * </p>
+ *
+ * <p>
+ * The limits apply to the representation data files, not to the METS files and
+ * schemas added on build; a data file bigger than the maximum size gets a part
+ * of its own.
+ * </p>
+ */
+public class EARKSIPSplitter {
+  private static final Logger LOGGER = LoggerFactory.getLogger(EARKSIPSplitter.class);
+
+  public static final String MANIFEST_SUFFIX = "-parts.json";
+
+  private final long maxContentSize;
+  private final int maxFileCount;
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * @param maxContentSize
+   *          maximum size, in bytes, of the data files of a part (0 for no
+   *          limit).
+   * @param maxFileCount
+   *          maximum number of data files of a part (0 for no limit).
+   */
+  public EARKSIPSplitter(long maxContentSize, int maxFileCount) {
+    this.maxContentSize = maxContentSize;
+    this.maxFileCount = maxFileCount;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * @param parallelism
+   *          maximum number of packages built at the same time.
+   */
+  public EARKSIPSplitter setParallelism(int parallelism) {
+    this.parallelism = Math.max(1, parallelism);
+    return this;
+  }
+
+  /**
+   * Builds the parent and part packages of a SIP.
+   *
+   * @param sip
+   *          the SIP to divide, which is not built itself.
+   * @param destinationDirectory
+   *          directory where the packages and the manifest are placed into.
+   * @return the paths of the packages, parent first.
+   * @throws IPException
+   *           if some error occurs.
+   * @throws InterruptedException
+   *           if interrupted while building.
+   */
+  public List<Path> build(SIP sip, Path destinationDirectory) throws IPException, InterruptedException {
+    List<Part> parts = new ArrayList<>();
+    parts.add(createParent(sip));
+    parts.addAll(split(sip));
+    LOGGER.debug("Dividing SIP {} into {} parts", sip.getId(), parts.size() - 1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, parts.size()));
+    List<Future<Path>> futures = new ArrayList<>();
+    try {
+      for (Part part : parts) {
+        futures.add(executor.submit(buildTask(part, destinationDirectory)));
+      }
+      List<Path> paths = new ArrayList<>();
+      for (Future<Path> future : futures) {
+        paths.add(future.get());
+      }
+      writeManifest(sip, parts, destinationDirectory.resolve(sip.getId() + MANIFEST_SUFFIX));
+      return paths;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IPException) {
+        throw (IPException) e.getCause();
+      } else if (e.getCause() instanceof InterruptedException) {
+        throw (InterruptedException) e.getCause();
+      }
+      throw new IPException("Error building divided E-ARK SIP " + sip.getId(), e.getCause());
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+      executor.shutdownNow();
+    }
+  }
+
+  private Callable<Path> buildTask(Part part, Path destinationDirectory) {
+    return () -> {
+      Path path = part.sip.build(destinationDirectory);
+      try (InputStream inputStream = Files.newInputStream(path)) {
+        part.checksum = ZIPUtils.calculateChecksums(Optional.empty(), inputStream,
+          Collections.singleton(IPConstants.CHECKSUM_ALGORITHM)).get(IPConstants.CHECKSUM_ALGORITHM);
+        part.size = Files.size(path);
+        part.fileName = path.getFileName().toString();
+      } catch (IOException | NoSuchAlgorithmException e) {
+        throw new IPException("Error calculating checksum of " + path, e);
+      }
+      return path;
+    };
+  }
+
+  private static Part createParent(SIP sip) throws IPException {
+    EARKSIP parent = new EARKSIP(sip.getId(), sip.getContentType(), sip.getContentInformationType());
+    copyPackageInformation(sip, parent);
+    parent.setIds(sip.getIds());
+    parent.setDescription(sip.getDescription());
+    parent.setAncestors(sip.getAncestors());
+    for (IPDescriptiveMetadata metadata : sip.getDescriptiveMetadata()) {
+      parent.addDescriptiveMetadata(metadata);
+    }
+    for (IPMetadata metadata : sip.getPreservationMetadata()) {
+      parent.addPreservationMetadata(metadata);
+    }
+    for (IPMetadata metadata : sip.getOtherMetadata()) {
+      parent.addOtherMetadata(metadata);
+    }
+    sip.getSchemas().forEach(parent::addSchema);
+    sip.getDocumentation().forEach(parent::addDocumentation);
+    return new Part(parent);
+  }
+
+  private List<Part> split(SIP sip) throws IPException {
+    List<Part> parts = new ArrayList<>();
+    Part current = null;
+    for (IPRepresentation representation : sip.getRepresentations()) {
+      boolean firstSlice = true;
+      for (IPFileInterface file : representation.getData()) {
+        long size = getSize(file);
+        if (current == null || current.isFull(size, maxContentSize, maxFileCount)) {
+          current = createPart(sip, parts.size() + 1);
+          parts.add(current);
+        }
+        IPRepresentation slice = current.representations.get(representation.getRepresentationID());
+        if (slice == null) {
+          slice = createSlice(representation, firstSlice);
+          firstSlice = false;
+          current.representations.put(representation.getRepresentationID(), slice);
+          current.sip.addRepresentation(slice);
+        }
+        slice.addFile(file);
+        current.contentSize += size;
+        current.fileCount++;
+      }
+    }
+    return parts;
+  }
+
+  private static Part createPart(SIP sip, int number) {
+    String id = sip.getId() + "-part-" + number;
+    EARKSIP part = new EARKSIP(id, sip.getContentType(), sip.getContentInformationType());
+    copyPackageInformation(sip, part);
+    part.setDescription("Part " + number + " of " + sip.getId());
+    List<String> ancestors = new ArrayList<>(sip.getAncestors());
+    ancestors.add(sip.getId());
+    part.setAncestors(ancestors);
+    return new Part(part);
+  }
+
+  /** Profile, status and header (agents and dates), shared by all packages. */
+  private static void copyPackageInformation(SIP sip, SIP target) {
+    target.setProfile(sip.getProfile());
+    target.setHeader(sip.getHeader());
+    target.setStatus(sip.getStatus());
+    target.setDeterministicBuild(sip.isDeterministicBuild());
+  }
+
+  private static IPRepresentation createSlice(IPRepresentation representation, boolean withMetadata) {
+    IPRepresentation slice = new IPRepresentation(representation.getRepresentationID());
+    slice.setObjectID(representation.getObjectID());
+    slice.setStatus(representation.getStatus());
+    slice.setContentType(representation.getContentType());
+    slice.setContentInformationType(representation.getContentInformationType());
+    slice.setDescription(representation.getDescription());
+    slice.setCreateDate(representation.getCreateDate().orElse(null));
+    if (representation.getModificationDate() != null) {
+      slice.setModificationDate(representation.getModificationDate().orElse(null));
+    }
+    if (withMetadata) {
+      representation.getAgents().forEach(slice::addAgent);
+      representation.getDescriptiveMetadata().forEach(slice::addDescriptiveMetadata);
+      representation.getPreservationMetadata().forEach(slice::addPreservationMetadata);
+      representation.getOtherMetadata().forEach(slice::addOtherMetadata);
+      representation.getSchemas().forEach(slice::addSchema);
+      representation.getDocumentation().forEach(slice::addDocumentation);
+    }
+    return slice;
+  }
+
+  private static long getSize(IPFileInterface file) throws IPException {
+    if (file instanceof IPFileStream) {
+      return ((IPFileStream) file).getSize();
+    } else if (file instanceof IPFile) {
+      try {
+        return Files.size(file.getPath());
+      } catch (IOException e) {
+        throw new IPException("Error getting file size (" + file.getPath() + ")", e);
+      }
+    }
+    return 0;
+  }
+
+  private static void writeManifest(SIP sip, List<Part> parts, Path manifest) throws IPException {
+    try (OutputStream outputStream = Files.newOutputStream(manifest);
+      JsonGenerator generator = new JsonFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+      generator.useDefaultPrettyPrinter();
+      generator.writeStartObject();
+      generator.writeStringField("id", sip.getId());
+      generator.writeArrayFieldStart("packages");
+      for (int i = 0; i < parts.size(); i++) {
+        Part part = parts.get(i);
+        generator.writeStartObject();
+        generator.writeStringField("id", part.sip.getId());
+        generator.writeStringField("role", i == 0 ? "parent" : "part");
+        generator.writeStringField("file", part.fileName);
+        generator.writeNumberField("size", part.size);
+        generator.writeStringField("checksum", part.checksum);
+        generator.writeStringField("checksumAlgorithm", IPConstants.CHECKSUM_ALGORITHM);
+        generator.writeNumberField("dataFiles", part.fileCount);
+        generator.writeNumberField("dataSize", part.contentSize);
+        generator.writeArrayFieldStart("representations");
+        for (String representationId : part.representations.keySet()) {
+          generator.writeString(representationId);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new IPException("Error writing manifest of divided E-ARK SIP " + sip.getId(), e);
+    }
+  }
+
+  /** A package being built, with what goes into it. */
+  private static final class Part {
+    private final SIP sip;
+    private final Map<String, IPRepresentation> representations = new LinkedHashMap<>();
+    private long contentSize;
+    private int fileCount;
+    private String fileName;
+    private long size;
+    private String checksum;
+
+    private Part(SIP sip) {
+      this.sip = sip;
+    }
+
+    private boolean isFull(long nextFileSize, long maxContentSize, int maxFileCount) {
+      if (fileCount == 0) {
+        return false;
+      }
+      return (maxFileCount > 0 && fileCount >= maxFileCount)
+        || (maxContentSize > 0 && contentSize + nextFileSize > maxContentSize);
+    }
+  }
+}
@@ -24,6 +24,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.roda_project.commons_ip.model.ParseException;
 import org.roda_project.commons_ip.utils.IPEnums;
 import org.roda_project.commons_ip.utils.IPEnums.IPStatus;
+import org.roda_project.commons_ip.utils.FileZipEntryInfo;
 import org.roda_project.commons_ip.utils.IPException;
 import org.roda_project.commons_ip.utils.ValidationConstants;
 import org.roda_project.commons_ip.utils.ZipEntryInfo;
@@ -45,6 +46,7 @@ import org.roda_project.commons_ip2.model.IPDescriptiveMetadata;
 import org.roda_project.commons_ip2.model.IPFile;
 import org.roda_project.commons_ip2.model.IPFileInterface;
 import org.roda_project.commons_ip2.model.IPFileShallow;
+import org.roda_project.commons_ip2.model.IPFileStream;
 import org.roda_project.commons_ip2.model.IPHeader;
 import org.roda_project.commons_ip2.model.IPInterface;
 import org.roda_project.commons_ip2.model.IPMetadata;
@@ -224,19 +226,22 @@ public final class EARKUtils {
         ((SIP) ip).notifySipBuildRepresentationProcessingStarted(representation.getData().size());
       }
       int i = 0;
+      boolean hasDataFiles = false;
       for (IPFileInterface file : representation.getData()) {
         if (Thread.interrupted()) {
           throw new InterruptedException();
         }
 
-        if (file instanceof IPFile) {
-          String dataFilePath = IPConstants.DATA_FOLDER + ModelUtils.getFoldersFromList(file.getRelativeFolders())
-            + file.getFileName();
-          FileType fileType = EARKMETSUtils.addDataFileToMETS(representationMETSWrapper, dataFilePath, file.getPath());
-
-          dataFilePath = IPConstants.REPRESENTATIONS_FOLDER + representationId + IPConstants.ZIP_PATH_SEPARATOR
-            + dataFilePath;
-          ZIPUtils.addFileTypeFileToZip(zipEntries, file.getPath(), dataFilePath, fileType);
+        if (RepresentationDataFiles.isDataFile(file)) {
+          // its METS file element is only created when the METS is written
+          String zipPath = RepresentationDataFiles.getZipPath(representationId,
+            RepresentationDataFiles.getDataFilePath(file));
+          if (file instanceof IPFileStream) {
+            ZIPUtils.addStreamFileToZip(zipEntries, (IPFileStream) file, zipPath, null);
+          } else {
+            zipEntries.put(zipPath, new FileZipEntryInfo(zipPath, file.getPath()));
+          }
+          hasDataFiles = true;
         } else if (file instanceof IPFileShallow) {
           IPFileShallow shallow = (IPFileShallow) file;
           if (shallow.getFileLocation() != null) {
@@ -249,6 +254,10 @@ public final class EARKUtils {
           ((SIP) ip).notifySipBuildRepresentationProcessingCurrentStatus(i);
         }
       }
+      if (hasDataFiles) {
+        EARKMETSUtils.addDataFilesToMETS(representationMETSWrapper,
+          new RepresentationDataFiles(representation.getData(), representationId, zipEntries));
+      }
       if (ip instanceof SIP) {
         ((SIP) ip).notifySipBuildRepresentationProcessingEnded();
       }
@@ -642,6 +651,9 @@ public final class EARKUtils {
       } else if (IPConstants.PRESERVATION.equalsIgnoreCase(metadataType)) {
         IPMetadata preservationMetadata = new IPMetadata(metadataFile.get());
         preservationMetadata.setCreateDate(mdRef.getCREATED());
+        if (mdRef.getMDTYPE() != null) {
+          preservationMetadata.setMetadataType(new MetadataType(mdRef.getMDTYPE().toUpperCase()));
+        }
         if (representation == null) {
           ip.addPreservationMetadata(preservationMetadata);
         } else {
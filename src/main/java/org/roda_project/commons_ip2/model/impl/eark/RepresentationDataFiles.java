@@ -0,0 +1,117 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip.utils.ZipEntryInfo;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.model.IPConstants;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPFileInterface;
+import org.roda_project.commons_ip2.model.IPFileStream;
+import org.roda_project.commons_ip2.model.impl.ModelUtils;
+import org.roda_project.commons_ip2.utils.METSUtils;
+
+/**
+ * The METS file elements of the data files of a representation, created from
+ * its files each time they are iterated, with the checksums of their zip
+ * entries. Nothing is kept per file, so the representation METS can be
+ * streamed with memory bounded by a single file element.
+ *
+ * <p>
+ * As an {@link Iterator} cannot throw checked exceptions, errors creating a
+ * file element are thrown as {@link UncheckedIOException}s.
+ * </p>
+ */
+final class RepresentationDataFiles implements Iterable<FileType> {
+  private final List<IPFileInterface> files;
+  private final String representationId;
+  private final Map<String, ZipEntryInfo> zipEntries;
+
+  RepresentationDataFiles(final List<IPFileInterface> files, final String representationId,
+    final Map<String, ZipEntryInfo> zipEntries) {
+    this.files = files;
+    this.representationId = representationId;
+    this.zipEntries = zipEntries;
+  }
+
+  /**
+   * Check if a file of a representation is one of its data files, whose
+   * content is part of the package.
+   */
+  static boolean isDataFile(final IPFileInterface file) {
+    return file instanceof IPFile || file instanceof IPFileStream;
+  }
+
+  static String getDataFilePath(final IPFileInterface file) {
+    return IPConstants.DATA_FOLDER + ModelUtils.getFoldersFromList(file.getRelativeFolders()) + file.getFileName();
+  }
+
+  static String getZipPath(final String representationId, final String dataFilePath) {
+    return IPConstants.REPRESENTATIONS_FOLDER + representationId + IPConstants.ZIP_PATH_SEPARATOR + dataFilePath;
+  }
+
+  @Override
+  public Iterator<FileType> iterator() {
+    final Iterator<IPFileInterface> iterator = files.iterator();
+    return new Iterator<FileType>() {
+      private IPFileInterface next = null;
+
+      @Override
+      public boolean hasNext() {
+        while (next == null && iterator.hasNext()) {
+          final IPFileInterface file = iterator.next();
+          if (isDataFile(file)) {
+            next = file;
+          }
+        }
+        return next != null;
+      }
+
+      @Override
+      public FileType next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        final IPFileInterface file = next;
+        next = null;
+        return createFileType(file);
+      }
+    };
+  }
+
+  private FileType createFileType(final IPFileInterface file) {
+    final String dataFilePath = getDataFilePath(file);
+    try {
+      final FileType fileType = file instanceof IPFileStream
+        ? EARKMETSUtils.createDataFileType(dataFilePath, (IPFileStream) file)
+        : EARKMETSUtils.createDataFileType(dataFilePath, file.getPath());
+      fileType.getFLocat().add(METSUtils.createFileLocation(dataFilePath));
+
+      final ZipEntryInfo zipEntry = zipEntries.get(getZipPath(representationId, dataFilePath));
+      if (zipEntry != null && zipEntry.getChecksum() != null) {
+        fileType.setCHECKSUM(zipEntry.getChecksum());
+        fileType.setCHECKSUMTYPE(zipEntry.getChecksumAlgorithm());
+      }
+      return fileType;
+    } catch (IPException e) {
+      throw new UncheckedIOException(new IOException(e.getMessage(), e));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new UncheckedIOException(new InterruptedIOException("Interrupted creating METS file of " + dataFilePath));
+    }
+  }
+}
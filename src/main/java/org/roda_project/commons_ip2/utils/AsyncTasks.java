@@ -0,0 +1,126 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs blocking package operations (build, parse, validate) on a given
+ * {@link Executor} and exposes them as {@link CompletableFuture}s, so that they
+ * can be composed into pipelines without a thread waiting on each package.
+ *
+ * <p>
+ * Unlike {@link CompletableFuture#supplyAsync}, cancelling the future
+ * interrupts the thread running the operation, which stops at its next
+ * {@link Thread#interrupted()} check and removes what it was writing. A task
+ * cancelled before it starts never runs.
+ * </p>
+ */
+public final class AsyncTasks {
+  private AsyncTasks() {
+    // do nothing
+  }
+
+  /**
+   * Runs a task asynchronously.
+   *
+   * @param task
+   *          the task.
+   * @param executor
+   *          the {@link Executor} where the task runs.
+   * @return the {@link CompletableFuture} of the task result, which interrupts
+   *         the task when cancelled.
+   */
+  public static <T> CompletableFuture<T> supplyAsync(final Callable<T> task, final Executor executor) {
+    return supplyAsync(task, executor, null);
+  }
+
+  /**
+   * Runs a task asynchronously.
+   *
+   * @param task
+   *          the task.
+   * @param executor
+   *          the {@link Executor} where the task runs.
+   * @param cleanUp
+   *          run once the task stopped (or immediately, if it had not started)
+   *          when the future is cancelled, or {@code null}.
+   * @return the {@link CompletableFuture} of the task result, which interrupts
+   *         the task when cancelled.
+   */
+  public static <T> CompletableFuture<T> supplyAsync(final Callable<T> task, final Executor executor,
+    final Runnable cleanUp) {
+    final InterruptibleTask<T> interruptibleTask = new InterruptibleTask<>(task, cleanUp);
+    executor.execute(interruptibleTask);
+    return interruptibleTask.future;
+  }
+
+  private static final class InterruptibleTask<T> implements Runnable {
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+    private final Callable<T> task;
+    private final Runnable cleanUp;
+    /**
+     * The thread running the task, only interrupted while it runs the task.
+     */
+    private Thread runner;
+    private boolean started = false;
+
+    private InterruptibleTask(final Callable<T> task, final Runnable cleanUp) {
+      this.task = task;
+      this.cleanUp = cleanUp;
+      future.whenComplete((result, error) -> {
+        if (future.isCancelled()) {
+          cancelled();
+        }
+      });
+    }
+
+    private void cancelled() {
+      final boolean notStarted;
+      synchronized (this) {
+        if (runner != null) {
+          runner.interrupt();
+        }
+        notStarted = !started;
+        started = true;
+      }
+      if (notStarted && cleanUp != null) {
+        cleanUp.run();
+      }
+    }
+
+    @Override
+    public void run() {
+      synchronized (this) {
+        if (started) {
+          return;
+        }
+        started = true;
+        runner = Thread.currentThread();
+      }
+      try {
+        future.complete(task.call());
+      } catch (final Throwable e) {
+        future.completeExceptionally(e);
+      } finally {
+        synchronized (this) {
+          runner = null;
+        }
+        if (future.isCancelled()) {
+          // do not leave the interrupt to the next task of the executor thread
+          Thread.interrupted();
+          if (cleanUp != null) {
+            cleanUp.run();
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * State of a deterministic build on the current thread. While active, METS ids
+ * are derived from a seed (the package ids) and the path or label of what they
+ * identify, instead of being random, and every timestamp (METS dates and archive
+ * entry times) is the same fixed instant, so building the same content twice
+ * yields the same bytes. As ids do not depend on the order in which they are
+ * generated, adding a file to a package leaves the ids of the others unchanged.
+ *
+ * <p>
+ * The fixed instant is taken from the {@code SOURCE_DATE_EPOCH} environment
+ * variable (seconds since the epoch, as defined by reproducible-builds.org) or
+ * is 1980-01-01T00:00:00Z, the earliest date a ZIP entry can hold.
+ * </p>
+ */
+public final class DeterministicBuild {
+  private static final String SOURCE_DATE_EPOCH = "SOURCE_DATE_EPOCH";
+  private static final Instant DEFAULT_TIMESTAMP = Instant.parse("1980-01-01T00:00:00Z");
+
+  private static final ThreadLocal<DeterministicBuild> CURRENT = new ThreadLocal<>();
+
+  private final String seed;
+  private final Date timestamp;
+  /** Occurrences of each key, so that repeated labels still get unique ids. */
+  private final Map<String, Integer> occurrences = new HashMap<>();
+
+  private DeterministicBuild(String seed, Date timestamp) {
+    this.seed = seed;
+    this.timestamp = timestamp;
+  }
+
+  /**
+   * Starts a deterministic build on the current thread.
+   *
+   * @param seed
+   *          the seed of the ids, e.g. the package ids.
+   */
+  public static void begin(String seed) {
+    CURRENT.set(new DeterministicBuild(seed, Date.from(getSourceDate())));
+  }
+
+  /**
+   * Ends the deterministic build on the current thread, if any.
+   */
+  public static void end() {
+    CURRENT.remove();
+  }
+
+  public static boolean isActive() {
+    return CURRENT.get() != null;
+  }
+
+  /**
+   * @param key
+   *          the path or label of what the id identifies, e.g. "div Metadata".
+   * @return the id of the key in the current deterministic build.
+   */
+  static String id(String prefix, String key) {
+    DeterministicBuild build = CURRENT.get();
+    int occurrence = build.occurrences.merge(prefix + key, 1, Integer::sum);
+    String name = build.seed + "/" + prefix + key + (occurrence > 1 ? "#" + occurrence : "");
+    return prefix + UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)).toString().toUpperCase();
+  }
+
+  /**
+   * @return the fixed timestamp of the current deterministic build.
+   */
+  public static Date getTimestamp() {
+    return new Date(CURRENT.get().timestamp.getTime());
+  }
+
+  /**
+   * ZIP entries store a local date and time, converted with the default time
+   * zone; returns the time to give them so that the stored date and time are the
+   * UTC ones of the build timestamp, whatever the time zone.
+   *
+   * @return the time to set in ZIP entries.
+   */
+  public static long getZipEntryTime() {
+    LocalDateTime utc = LocalDateTime.ofInstant(CURRENT.get().timestamp.toInstant(), ZoneOffset.UTC);
+    return utc.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+
+  private static Instant getSourceDate() {
+    String epoch = System.getenv(SOURCE_DATE_EPOCH);
+    if (StringUtils.isNumeric(epoch)) {
+      return Instant.ofEpochSecond(Long.parseLong(epoch));
+    }
+    return DEFAULT_TIMESTAMP;
+  }
+}
@@ -1,8 +1,11 @@
 package org.roda_project.commons_ip2.utils;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -11,27 +14,43 @@ import org.roda_project.commons_ip2.validator.constants.Constants;
 
 /** {@author João Gomes <jgomes@keep.pt>}. */
 public final class IanaMediaTypes {
-  /**
-   * {@link Set} with the IANA Media Types.
-   */
-  private static Set<String> ianaMediaTypesList = null;
-
   private IanaMediaTypes() {
     // do nothing
   }
 
   /**
-   * If {@link Set} with the IANA Media types is null, loads from resource.
+   * Gets the {@link Set} with the IANA Media types, loaded from resource on the
+   * first call.
    *
    * @return {@link Set}.
    */
   public static Set<String> getIanaMediaTypesList() {
-    if (ianaMediaTypesList == null) {
-      ianaMediaTypesList = new BufferedReader(new InputStreamReader(
+    return Holder.IANA_MEDIA_TYPES;
+  }
+
+  /**
+   * Holds the IANA Media Types, loaded once by the class initialization, which
+   * is thread-safe, when first used.
+   */
+  private static final class Holder {
+    /**
+     * {@link Set} with the IANA Media Types.
+     */
+    private static final Set<String> IANA_MEDIA_TYPES = load();
+
+    private Holder() {
+      // do nothing
+    }
+
+    private static Set<String> load() {
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(
         Objects.requireNonNull(
           IanaMediaTypes.class.getResourceAsStream(Constants.PATH_RESOURCES_CSIP_VOCABULARY_IANA_MEDIA_TYPES)),
-        StandardCharsets.UTF_8)).lines().collect(Collectors.toSet());
+        StandardCharsets.UTF_8))) {
+        return Collections.unmodifiableSet(reader.lines().collect(Collectors.toSet()));
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
     }
-    return ianaMediaTypesList;
   }
 }
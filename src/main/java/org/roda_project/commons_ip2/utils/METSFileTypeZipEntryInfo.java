@@ -37,4 +37,15 @@ public class METSFileTypeZipEntryInfo extends FileZipEntryInfo {
     this.metsFileType = metsFileType;
   }
 
+  /**
+   * Sets the checksum of the METS file, if any, calculated while zipping the
+   * entry.
+   */
+  public void setMetsFileTypeChecksum(String checksum, String checksumType) {
+    if (metsFileType != null) {
+      metsFileType.setCHECKSUM(checksum);
+      metsFileType.setCHECKSUMTYPE(checksumType);
+    }
+  }
+
 }
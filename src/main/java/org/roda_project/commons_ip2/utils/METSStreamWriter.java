@@ -0,0 +1,328 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
+
+/**
+ * Writes a METS file as {@link Marshaller#JAXB_FORMATTED_OUTPUT} does, but
+ * with the {@code <file>} elements of one file group taken from an
+ * {@link Iterator} while they are written, after the ones of the group bean.
+ *
+ * <p>
+ * The header, metadata sections, structural map and the other file groups are
+ * marshalled from the {@link Mets} bean. The streamed files are marshalled one
+ * at a time as fragments, so a representation with millions of files never
+ * holds their beans all at once.
+ * </p>
+ */
+final class METSStreamWriter implements XMLEventWriter {
+  private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+  private static final String INDENT = "    ";
+  private static final String METS_NAMESPACE = "http://www.loc.gov/METS/";
+  private static final String FILE_GROUP_ELEMENT = "fileGrp";
+  private static final String FILE_ELEMENT = "file";
+  private static final String ID_ATTRIBUTE = "ID";
+
+  private final XMLStreamWriter writer;
+  private final Marshaller fileMarshaller;
+  private final String streamedFileGroupID;
+  private final Iterator<FileType> streamedFiles;
+
+  /**
+   * Prefix of each namespace declared in the root element, reused by the
+   * streamed files instead of declaring it again.
+   */
+  private final Map<String, String> rootPrefixes = new HashMap<>();
+  /**
+   * Start tag not yet written, as it may be of an empty element.
+   */
+  private StartElement pendingStartElement = null;
+  private final List<XMLEvent> pendingAttributes = new ArrayList<>();
+  private int depth = 0;
+  private boolean lastWasEndElement = false;
+  /**
+   * Depth of the streamed file group element, or -1 if not inside it.
+   */
+  private int streamedFileGroupDepth = -1;
+  private boolean streaming = false;
+
+  private METSStreamWriter(final XMLStreamWriter writer, final Marshaller fileMarshaller,
+    final String streamedFileGroupID, final Iterator<FileType> streamedFiles) {
+    this.writer = writer;
+    this.fileMarshaller = fileMarshaller;
+    this.streamedFileGroupID = streamedFileGroupID;
+    this.streamedFiles = streamedFiles;
+  }
+
+  /**
+   * Writes a METS file.
+   *
+   * @param mets
+   *          the {@link Mets} bean.
+   * @param metsFile
+   *          the {@link Path} of the file to write.
+   * @param schemaLocation
+   *          the {@code xsi:schemaLocation} of the root element.
+   * @param streamedFileGroupID
+   *          the ID of the file group where the streamed files are added.
+   * @param streamedFiles
+   *          the {@link FileType}s to add to that file group, each one only
+   *          needed until it is written.
+   * @throws JAXBException
+   *           if some error occurs marshalling the METS.
+   * @throws IOException
+   *           if some I/O error occurs.
+   */
+  static void write(final Mets mets, final Path metsFile, final String schemaLocation,
+    final String streamedFileGroupID, final Iterator<FileType> streamedFiles) throws JAXBException, IOException {
+    final Marshaller marshaller = METSUtils.getMetsContext().createMarshaller();
+    marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+    marshaller.setProperty(Marshaller.JAXB_SCHEMA_LOCATION, schemaLocation);
+    final Marshaller fileMarshaller = METSUtils.getMetsContext().createMarshaller();
+    fileMarshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+
+    try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(metsFile))) {
+      // as written by the marshaller, which a stream writer cannot declare
+      outputStream.write(XML_DECLARATION.getBytes(StandardCharsets.UTF_8));
+      final XMLStreamWriter streamWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream,
+        StandardCharsets.UTF_8.name());
+      final METSStreamWriter metsWriter = new METSStreamWriter(streamWriter, fileMarshaller, streamedFileGroupID,
+        streamedFiles);
+      marshaller.marshal(mets, metsWriter);
+      if (streamedFiles.hasNext()) {
+        throw new JAXBException("File group " + streamedFileGroupID + " not found in the METS");
+      }
+      streamWriter.writeCharacters("\n");
+      streamWriter.close();
+    } catch (XMLStreamException e) {
+      throw new JAXBException(e);
+    }
+  }
+
+  @Override
+  public void add(final XMLEvent event) throws XMLStreamException {
+    if (event.isAttribute() || event.isNamespace()) {
+      if (pendingStartElement == null) {
+        throw new XMLStreamException("Attribute or namespace outside of a start tag");
+      }
+      pendingAttributes.add(event);
+      return;
+    }
+
+    // an empty streamed file group stays empty if there are no files to stream
+    if (event.isEndElement() && pendingStartElement != null
+      && (!isStreamedFileGroup() || !streamedFiles.hasNext())) {
+      writeStartTag(true);
+      depth--;
+      lastWasEndElement = true;
+      return;
+    }
+    if (pendingStartElement != null) {
+      writeStartTag(false);
+    }
+
+    if (event.isStartElement()) {
+      pendingStartElement = event.asStartElement();
+    } else if (event.isEndElement()) {
+      if (depth - 1 == streamedFileGroupDepth) {
+        streamedFileGroupDepth = -1;
+        writeStreamedFiles();
+      }
+      depth--;
+      if (lastWasEndElement) {
+        indent();
+      }
+      writer.writeEndElement();
+      lastWasEndElement = true;
+    } else if (event.isCharacters()) {
+      writer.writeCharacters(event.asCharacters().getData());
+    } else if (!event.isStartDocument() && !event.isEndDocument()) {
+      throw new XMLStreamException("Unexpected event " + event);
+    }
+  }
+
+  /**
+   * Check if the pending start tag is the one of the streamed file group.
+   */
+  private boolean isStreamedFileGroup() {
+    if (streaming || !FILE_GROUP_ELEMENT.equals(pendingStartElement.getName().getLocalPart())) {
+      return false;
+    }
+    for (XMLEvent event : pendingAttributes) {
+      if (event.isAttribute() && ID_ATTRIBUTE.equals(((Attribute) event).getName().getLocalPart())
+        && streamedFileGroupID.equals(((Attribute) event).getValue())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void writeStartTag(final boolean empty) throws XMLStreamException {
+    if (!empty && isStreamedFileGroup()) {
+      streamedFileGroupDepth = depth;
+    }
+    final StartElement startElement = pendingStartElement;
+    pendingStartElement = null;
+    final QName name = startElement.getName();
+
+    if (depth > 0) {
+      indent();
+    }
+    final String prefix = getPrefix(name);
+    if (empty) {
+      writer.writeEmptyElement(prefix, name.getLocalPart(), name.getNamespaceURI());
+    } else {
+      writer.writeStartElement(prefix, name.getLocalPart(), name.getNamespaceURI());
+    }
+    // the marshaller gives an event writer the namespaces in reverse order
+    for (int i = pendingAttributes.size() - 1; i >= 0; i--) {
+      if (pendingAttributes.get(i).isNamespace()) {
+        writeNamespace((Namespace) pendingAttributes.get(i));
+      }
+    }
+    for (XMLEvent event : pendingAttributes) {
+      if (event.isAttribute()) {
+        final Attribute attribute = (Attribute) event;
+        final QName attributeName = attribute.getName();
+        if (attributeName.getNamespaceURI().isEmpty()) {
+          writer.writeAttribute(attributeName.getLocalPart(), attribute.getValue());
+        } else {
+          writer.writeAttribute(getPrefix(attributeName), attributeName.getNamespaceURI(),
+            attributeName.getLocalPart(), attribute.getValue());
+        }
+      }
+    }
+    pendingAttributes.clear();
+    lastWasEndElement = false;
+    depth++;
+  }
+
+  private void writeNamespace(final Namespace namespace) throws XMLStreamException {
+    if (depth == 0) {
+      rootPrefixes.put(namespace.getNamespaceURI(), namespace.getPrefix());
+    } else if (streaming && rootPrefixes.containsKey(namespace.getNamespaceURI())) {
+      // already declared in the root element
+      return;
+    }
+    if (namespace.isDefaultNamespaceDeclaration()) {
+      writer.writeDefaultNamespace(namespace.getNamespaceURI());
+    } else {
+      writer.writeNamespace(namespace.getPrefix(), namespace.getNamespaceURI());
+    }
+  }
+
+  /**
+   * The prefix of a name, or the one of the root element for the same
+   * namespace while streaming, as each file is marshalled on its own.
+   */
+  private String getPrefix(final QName name) {
+    if (streaming && rootPrefixes.containsKey(name.getNamespaceURI())) {
+      return rootPrefixes.get(name.getNamespaceURI());
+    }
+    return name.getPrefix();
+  }
+
+  private void indent() throws XMLStreamException {
+    final StringBuilder indentation = new StringBuilder("\n");
+    for (int i = 0; i < depth; i++) {
+      indentation.append(INDENT);
+    }
+    writer.writeCharacters(indentation.toString());
+  }
+
+  /**
+   * Writes the streamed files after the children of the file group bean, as
+   * files come last in a file group.
+   */
+  private void writeStreamedFiles() throws XMLStreamException {
+    final QName fileName = new QName(METS_NAMESPACE, FILE_ELEMENT);
+    streaming = true;
+    try {
+      while (streamedFiles.hasNext()) {
+        fileMarshaller.marshal(new JAXBElement<>(fileName, FileType.class, streamedFiles.next()), this);
+      }
+    } catch (JAXBException e) {
+      throw new XMLStreamException(e);
+    } finally {
+      streaming = false;
+    }
+  }
+
+  @Override
+  public void add(final XMLEventReader reader) throws XMLStreamException {
+    while (reader.hasNext()) {
+      add(reader.nextEvent());
+    }
+  }
+
+  @Override
+  public void flush() throws XMLStreamException {
+    if (!streaming) {
+      writer.flush();
+    }
+  }
+
+  @Override
+  public void close() throws XMLStreamException {
+    writer.close();
+  }
+
+  @Override
+  public String getPrefix(final String uri) throws XMLStreamException {
+    return writer.getPrefix(uri);
+  }
+
+  @Override
+  public void setPrefix(final String prefix, final String uri) throws XMLStreamException {
+    writer.setPrefix(prefix, uri);
+  }
+
+  @Override
+  public void setDefaultNamespace(final String uri) throws XMLStreamException {
+    writer.setDefaultNamespace(uri);
+  }
+
+  @Override
+  public void setNamespaceContext(final NamespaceContext context) throws XMLStreamException {
+    writer.setNamespaceContext(context);
+  }
+
+  @Override
+  public NamespaceContext getNamespaceContext() {
+    return writer.getNamespaceContext();
+  }
+}
@@ -15,6 +15,7 @@ import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Iterator;
 import java.util.Map;
 
 import javax.xml.XMLConstants;
@@ -49,38 +50,53 @@ public final class METSUtils {
     // do nothing
   }
 
+  private static JAXBContext metsContext;
+  private static Schema metsSchema;
+
+  /**
+   * Returns the (shared) {@link JAXBContext} for {@link Mets}. Creating it is
+   * expensive and instances are thread-safe, so it is created only once per JVM.
+   */
+  public static synchronized JAXBContext getMetsContext() throws JAXBException {
+    if (metsContext == null) {
+      metsContext = JAXBContext.newInstance(Mets.class);
+    }
+    return metsContext;
+  }
+
+  /**
+   * Returns the (shared) compiled METS {@link Schema}. Compiled schemas are
+   * immutable and thread-safe, so it is compiled only once per JVM.
+   */
+  public static synchronized Schema getMetsSchema() throws SAXException {
+    if (metsSchema == null) {
+      SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+      factory.setResourceResolver(new ResourceResolver());
+      InputStream metsSchemaInputStream = METSUtils.class
+        .getResourceAsStream(IPConstants.SCHEMA_METS_RELATIVE_PATH_FROM_RESOURCES);
+      Source metsSchemaSource = new StreamSource(metsSchemaInputStream);
+      metsSchema = factory.newSchema(metsSchemaSource);
+    }
+    return metsSchema;
+  }
+
   public static Mets instantiateMETSFromFile(Path metsFile) throws JAXBException, SAXException {
-    JAXBContext jaxbContext = JAXBContext.newInstance(Mets.class);
-    Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-    SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-    factory.setResourceResolver(new ResourceResolver());
-    InputStream metsSchemaInputStream = METSUtils.class
-      .getResourceAsStream(IPConstants.SCHEMA_METS_RELATIVE_PATH_FROM_RESOURCES);
-    Source metsSchemaSource = new StreamSource(metsSchemaInputStream);
-    Schema schema = factory.newSchema(metsSchemaSource);
-    jaxbUnmarshaller.setSchema(schema);
+    Unmarshaller jaxbUnmarshaller = getMetsContext().createUnmarshaller();
+    jaxbUnmarshaller.setSchema(getMetsSchema());
     return (Mets) jaxbUnmarshaller.unmarshal(metsFile.toFile());
   }
 
+  public static Mets instantiateMETSFromStream(InputStream metsStream) throws JAXBException, SAXException {
+    Unmarshaller jaxbUnmarshaller = getMetsContext().createUnmarshaller();
+    jaxbUnmarshaller.setSchema(getMetsSchema());
+    return (Mets) jaxbUnmarshaller.unmarshal(metsStream);
+  }
+
   public static Path marshallMETS(Mets mets, Path tempMETSFile, boolean rootMETS)
     throws JAXBException, IOException, IPException {
-    JAXBContext context = JAXBContext.newInstance(Mets.class);
-    Marshaller m = context.createMarshaller();
+    Marshaller m = getMetsContext().createMarshaller();
     m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-
-    if (rootMETS) {
-      m.setProperty(Marshaller.JAXB_SCHEMA_LOCATION,
-        "http://www.loc.gov/METS/ schemas/" + IPConstants.SCHEMA_METS_FILENAME_WITH_VERSION
-          + " http://www.w3.org/1999/xlink schemas/" + IPConstants.SCHEMA_XLINK_FILENAME
-          + " https://dilcis.eu/XML/METS/CSIPExtensionMETS schemas/" + IPConstants.SCHEMA_EARK_CSIP_FILENAME
-          + " https://dilcis.eu/XML/METS/SIPExtensionMETS schemas/" + IPConstants.SCHEMA_EARK_SIP_FILENAME);
-    } else {
-      m.setProperty(Marshaller.JAXB_SCHEMA_LOCATION,
-        "http://www.loc.gov/METS/ ../../schemas/" + IPConstants.SCHEMA_METS_FILENAME_WITH_VERSION
-          + " http://www.w3.org/1999/xlink ../../schemas/" + IPConstants.SCHEMA_XLINK_FILENAME
-          + " https://dilcis.eu/XML/METS/CSIPExtensionMETS ../../schemas/" + IPConstants.SCHEMA_EARK_CSIP_FILENAME
-          + " https://dilcis.eu/XML/METS/SIPExtensionMETS ../../schemas/" + IPConstants.SCHEMA_EARK_SIP_FILENAME);
-    }
+    m.setProperty(Marshaller.JAXB_SCHEMA_LOCATION, getSchemaLocation(rootMETS));
 
     try (OutputStream metsOutputStream = Files.newOutputStream(tempMETSFile)) {
       m.marshal(mets, metsOutputStream);
@@ -89,6 +105,32 @@ public final class METSUtils {
     return tempMETSFile;
   }
 
+  /**
+   * Marshals a METS whose file group with the given ID gets its files from an
+   * {@link Iterator}, each one marshalled and released before the next is
+   * requested, so that the files of large representations are never all held
+   * in memory.
+   */
+  public static Path marshallMETS(Mets mets, Path tempMETSFile, boolean rootMETS, String streamedFileGroupID,
+    Iterator<FileType> streamedFiles) throws JAXBException, IOException {
+    METSStreamWriter.write(mets, tempMETSFile, getSchemaLocation(rootMETS), streamedFileGroupID, streamedFiles);
+    return tempMETSFile;
+  }
+
+  private static String getSchemaLocation(boolean rootMETS) {
+    if (rootMETS) {
+      return "http://www.loc.gov/METS/ schemas/" + IPConstants.SCHEMA_METS_FILENAME_WITH_VERSION
+        + " http://www.w3.org/1999/xlink schemas/" + IPConstants.SCHEMA_XLINK_FILENAME
+        + " https://dilcis.eu/XML/METS/CSIPExtensionMETS schemas/" + IPConstants.SCHEMA_EARK_CSIP_FILENAME
+        + " https://dilcis.eu/XML/METS/SIPExtensionMETS schemas/" + IPConstants.SCHEMA_EARK_SIP_FILENAME;
+    } else {
+      return "http://www.loc.gov/METS/ ../../schemas/" + IPConstants.SCHEMA_METS_FILENAME_WITH_VERSION
+        + " http://www.w3.org/1999/xlink ../../schemas/" + IPConstants.SCHEMA_XLINK_FILENAME
+        + " https://dilcis.eu/XML/METS/CSIPExtensionMETS ../../schemas/" + IPConstants.SCHEMA_EARK_CSIP_FILENAME
+        + " https://dilcis.eu/XML/METS/SIPExtensionMETS ../../schemas/" + IPConstants.SCHEMA_EARK_SIP_FILENAME;
+    }
+  }
+
   public static void addMainMETSToZip(Map<String, ZipEntryInfo> zipEntries, MetsWrapper metsWrapper, String metsPath,
     Path buildDir) throws IPException {
     try {
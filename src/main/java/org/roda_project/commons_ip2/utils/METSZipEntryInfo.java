@@ -9,6 +9,7 @@ package org.roda_project.commons_ip2.utils;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.NoSuchAlgorithmException;
@@ -36,6 +37,8 @@ public class METSZipEntryInfo extends FileZipEntryInfo {
   private Map<String, String> checksums;
   private long size;
   private FileType fileType;
+  private String streamedFileGroupID;
+  private Iterable<FileType> streamedFiles;
 
   public METSZipEntryInfo(String name, Path filePath, Mets mets, boolean rootMETS, FileType fileType) {
     super(name, filePath);
@@ -62,10 +65,25 @@ public class METSZipEntryInfo extends FileZipEntryInfo {
     this.size = size;
   }
 
+  /**
+   * Sets the data files whose METS {@code <file>} elements are written in the
+   * given file group while marshalling, instead of being part of the
+   * {@link Mets} bean. They are iterated once per marshalling, so each one is
+   * only held while it is written.
+   */
+  public void setStreamedFiles(String fileGroupID, Iterable<FileType> files) {
+    this.streamedFileGroupID = fileGroupID;
+    this.streamedFiles = files;
+  }
+
   @Override
   public void prepareEntryforZipping() throws IPException {
     try {
-      METSUtils.marshallMETS(mets, getFilePath(), rootMETS);
+      if (streamedFiles != null) {
+        METSUtils.marshallMETS(mets, getFilePath(), rootMETS, streamedFileGroupID, streamedFiles.iterator());
+      } else {
+        METSUtils.marshallMETS(mets, getFilePath(), rootMETS);
+      }
       if (!rootMETS && fileType != null) {
         METSUtils.setFileBasicInformation(LOGGER, getFilePath(), fileType);
 
@@ -85,6 +103,8 @@ public class METSZipEntryInfo extends FileZipEntryInfo {
       }
     } catch (JAXBException | IOException e) {
       throw new IPException("Error marshalling METS", e);
+    } catch (UncheckedIOException e) {
+      throw new IPException("Error marshalling METS", e.getCause());
     } catch (InterruptedException e) {
       // do nothing
     }
@@ -0,0 +1,440 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.DatatypeConverter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.roda_project.commons_ip.utils.ValidationConstants;
+import org.roda_project.commons_ip2.model.IPDescriptiveMetadata;
+import org.roda_project.commons_ip2.model.IPFileInterface;
+import org.roda_project.commons_ip2.model.IPInterface;
+import org.roda_project.commons_ip2.model.IPMetadata;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.ValidationEntry.LEVEL;
+import org.roda_project.commons_ip2.model.ValidationReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Validates the content of the descriptive and preservation metadata files of
+ * an information package against their XML schemas, recording the outcome in
+ * the package {@link ValidationReport}.
+ *
+ * <p>
+ * The schema of a metadata file is the one registered for its
+ * {@code MDTYPE}/{@code MDTYPEVERSION} (see
+ * {@link #registerSchema(String, String, URL)}) or, failing that, the schema of
+ * the package (or representation) {@code schemas} whose target namespace is the
+ * namespace of the file root element. Compiled schemas are kept in a bounded
+ * cache shared by all validators, keyed by the schema content, so a schema
+ * shipped in many packages is only compiled once; the {@link Validator}s of a
+ * cached schema are pooled and reused. Files are validated concurrently, with
+ * bounded parallelism.
+ * </p>
+ *
+ * <p>
+ * Schemas may only import or include local ({@code file} or {@code jar})
+ * schemas, besides the ones bundled in the classpath, and metadata files may
+ * not reference external DTDs or schemas.
+ * </p>
+ */
+public class MetadataSchemaValidator {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetadataSchemaValidator.class);
+
+  private static final int MAX_CACHED_SCHEMAS = 64;
+  private static final int MAX_POOLED_VALIDATORS = 16;
+  private static final String LOCAL_ACCESS = "file,jar";
+  private static final String NO_ACCESS = "";
+  private static final String ANY_VERSION = "*";
+
+  private static final Map<String, CachedSchema> SCHEMAS = new LinkedHashMap<String, CachedSchema>(16, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, CachedSchema> eldest) {
+      return size() > MAX_CACHED_SCHEMAS;
+    }
+  };
+
+  private final int parallelism;
+  private final Map<String, URL> registeredSchemas = new HashMap<>();
+
+  /**
+   * @param parallelism
+   *          maximum number of metadata files validated at the same time.
+   */
+  public MetadataSchemaValidator(int parallelism) {
+    this.parallelism = Math.max(1, parallelism);
+  }
+
+  /**
+   * Registers the schema of a metadata type, e.g. a bundled EAD or PREMIS
+   * schema.
+   *
+   * @param mdType
+   *          the METS {@code MDTYPE} (or {@code OTHERMDTYPE}).
+   * @param mdTypeVersion
+   *          the METS {@code MDTYPEVERSION}, or {@code null} for any version.
+   * @param schema
+   *          the location of the schema.
+   */
+  public MetadataSchemaValidator registerSchema(String mdType, String mdTypeVersion, URL schema) {
+    registeredSchemas.put(getKey(mdType, mdTypeVersion), schema);
+    return this;
+  }
+
+  /**
+   * Validates the descriptive and preservation metadata files of an information
+   * package and of its representations, adding one entry per file to its
+   * {@link ValidationReport}.
+   *
+   * @param ip
+   *          the information package.
+   * @return the {@link ValidationReport} of the information package.
+   * @throws InterruptedException
+   *           if interrupted while waiting for the validations.
+   */
+  public ValidationReport validate(IPInterface ip) throws InterruptedException {
+    List<Target> targets = new ArrayList<>();
+    addTargets(targets, ip.getDescriptiveMetadata(), ip.getPreservationMetadata(), ip.getSchemas());
+    for (IPRepresentation representation : ip.getRepresentations()) {
+      List<IPFileInterface> schemas = new ArrayList<>(representation.getSchemas());
+      schemas.addAll(ip.getSchemas());
+      addTargets(targets, representation.getDescriptiveMetadata(), representation.getPreservationMetadata(),
+        schemas);
+    }
+
+    Run run = new Run();
+    Result[] results = new Result[targets.size()];
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(parallelism * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+    try {
+      for (int i = 0; i < targets.size(); i++) {
+        final int index = i;
+        executor.execute(() -> results[index] = validate(targets.get(index), run));
+      }
+    } finally {
+      executor.shutdown();
+    }
+    try {
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      throw e;
+    }
+
+    ValidationReport report = ip.getValidationReport();
+    for (int i = 0; i < results.length; i++) {
+      Path file = targets.get(i).file;
+      boolean relative = ip.getBasePath() != null && file.startsWith(ip.getBasePath());
+      ValidationUtils.addEntry(report, results[i].message, results[i].level, results[i].description,
+        relative ? ip.getBasePath() : null, relative ? file : null);
+    }
+    return report;
+  }
+
+  private static void addTargets(List<Target> targets, List<IPDescriptiveMetadata> descriptiveMetadata,
+    List<IPMetadata> preservationMetadata, List<IPFileInterface> schemas) {
+    List<IPMetadata> metadata = new ArrayList<>(descriptiveMetadata);
+    metadata.addAll(preservationMetadata);
+    for (IPMetadata md : metadata) {
+      if (md.getMetadata() != null && md.getMetadata().getPath() != null) {
+        String version = md instanceof IPDescriptiveMetadata ? ((IPDescriptiveMetadata) md).getMetadataVersion()
+          : null;
+        targets.add(new Target(md.getMetadata().getPath(), md.getMetadataType().asString(), version, schemas));
+      }
+    }
+  }
+
+  private Result validate(Target target, Run run) {
+    String description = String.format("metadata file '%s' (%s%s)", target.file.getFileName(), target.mdType,
+      target.mdTypeVersion != null ? " " + target.mdTypeVersion : "");
+    try {
+      Optional<URL> schemaLocation = findSchema(target, run.targetNamespaces);
+      if (!schemaLocation.isPresent()) {
+        return new Result(LEVEL.WARN, ValidationConstants.METADATA_SCHEMA_NOT_FOUND, description);
+      }
+
+      CachedSchema schema;
+      try {
+        schema = getSchema(schemaLocation.get(), run.schemas);
+      } catch (IOException | SAXException e) {
+        return new Result(LEVEL.ERROR, ValidationConstants.METADATA_SCHEMA_NOT_VALID,
+          description + ", schema '" + schemaLocation.get() + "': " + e.getMessage());
+      }
+
+      List<String> errors = schema.validate(target.file);
+      if (errors.isEmpty()) {
+        return new Result(LEVEL.INFO, ValidationConstants.METADATA_VALID_AGAINST_SCHEMA, description);
+      }
+      return new Result(LEVEL.ERROR, ValidationConstants.METADATA_NOT_VALID_AGAINST_SCHEMA,
+        description + ": " + StringUtils.join(errors, "; "));
+    } catch (IOException | XMLStreamException e) {
+      LOGGER.debug("Error validating metadata file {}", target.file, e);
+      return new Result(LEVEL.ERROR, ValidationConstants.METADATA_NOT_VALID_AGAINST_SCHEMA,
+        description + ": " + e.getMessage());
+    } catch (RuntimeException e) {
+      LOGGER.warn("Unexpected error validating metadata file {}", target.file, e);
+      return new Result(LEVEL.ERROR, ValidationConstants.METADATA_NOT_VALID_AGAINST_SCHEMA,
+        description + ": " + e);
+    }
+  }
+
+  private Optional<URL> findSchema(Target target, Map<Path, Optional<String>> targetNamespaces)
+    throws IOException, XMLStreamException {
+    URL registered = registeredSchemas.get(getKey(target.mdType, target.mdTypeVersion));
+    if (registered == null) {
+      registered = registeredSchemas.get(getKey(target.mdType, null));
+    }
+    if (registered != null) {
+      return Optional.of(registered);
+    }
+
+    String namespace = readRootNamespace(target.file);
+    for (IPFileInterface schema : target.schemas) {
+      Path schemaPath = schema.getPath();
+      if (schemaPath == null) {
+        continue;
+      }
+      Optional<String> targetNamespace = targetNamespaces.get(schemaPath);
+      if (targetNamespace == null) {
+        targetNamespace = readTargetNamespace(schemaPath);
+        targetNamespaces.put(schemaPath, targetNamespace);
+      }
+      if (targetNamespace.isPresent() && targetNamespace.get().equals(namespace)) {
+        return Optional.of(schemaPath.toUri().toURL());
+      }
+    }
+    return Optional.empty();
+  }
+
+  private static String getKey(String mdType, String mdTypeVersion) {
+    return StringUtils.defaultString(mdType).toUpperCase(Locale.ROOT) + "/"
+      + (mdTypeVersion == null ? ANY_VERSION : mdTypeVersion);
+  }
+
+  /**
+   * @return the namespace of the root element ("" if none).
+   */
+  private static String readRootNamespace(Path file) throws IOException, XMLStreamException {
+    try (InputStream inputStream = Files.newInputStream(file)) {
+      XMLStreamReader reader = createXMLInputFactory().createXMLStreamReader(inputStream);
+      try {
+        while (reader.hasNext()) {
+          if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+            return StringUtils.defaultString(reader.getNamespaceURI());
+          }
+        }
+        return "";
+      } finally {
+        reader.close();
+      }
+    }
+  }
+
+  private static Optional<String> readTargetNamespace(Path schema) {
+    try (InputStream inputStream = Files.newInputStream(schema)) {
+      XMLStreamReader reader = createXMLInputFactory().createXMLStreamReader(inputStream);
+      try {
+        while (reader.hasNext()) {
+          if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+            if (!XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(reader.getNamespaceURI())) {
+              return Optional.empty();
+            }
+            return Optional.of(StringUtils.defaultString(reader.getAttributeValue(null, "targetNamespace")));
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    } catch (IOException | XMLStreamException e) {
+      LOGGER.debug("Schema {} could not be read", schema, e);
+    }
+    return Optional.empty();
+  }
+
+  private static XMLInputFactory createXMLInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return factory;
+  }
+
+  /**
+   * Gets a compiled schema from the cache, compiling it if needed. Schemas are
+   * keyed by their content, as the same schema is usually found at a different
+   * location in each package, so each location is only read once per run.
+   */
+  private static CachedSchema getSchema(URL location, Map<String, CachedSchema> runSchemas)
+    throws IOException, SAXException {
+    CachedSchema runSchema = runSchemas.get(location.toString());
+    if (runSchema != null) {
+      return runSchema;
+    }
+
+    String key;
+    try (InputStream inputStream = location.openStream()) {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(IOUtils.toByteArray(inputStream));
+      key = DatatypeConverter.printHexBinary(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+
+    CachedSchema cachedSchema;
+    synchronized (SCHEMAS) {
+      cachedSchema = SCHEMAS.get(key);
+      if (cachedSchema == null) {
+        cachedSchema = new CachedSchema();
+        SCHEMAS.put(key, cachedSchema);
+      }
+    }
+    cachedSchema.compile(location);
+    runSchemas.put(location.toString(), cachedSchema);
+    return cachedSchema;
+  }
+
+  /** A schema, compiled once, and a pool of its validators. */
+  private static final class CachedSchema {
+    private Schema schema;
+    private final BlockingQueue<Validator> validators = new ArrayBlockingQueue<>(MAX_POOLED_VALIDATORS);
+
+    private synchronized void compile(URL location) throws SAXException {
+      if (schema == null) {
+        LOGGER.debug("Compiling schema {}", location);
+        SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        // also restricts the validators of the schema, which inherit these
+        factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, NO_ACCESS);
+        factory.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, LOCAL_ACCESS);
+        factory.setResourceResolver(new ResourceResolver(false));
+        schema = factory.newSchema(location);
+      }
+    }
+
+    private synchronized Schema getCompiled() {
+      return schema;
+    }
+
+    private List<String> validate(Path file) throws IOException {
+      Validator validator = validators.poll();
+      if (validator == null) {
+        validator = getCompiled().newValidator();
+      }
+      try {
+        return validate(validator, file);
+      } finally {
+        // dropped if the pool is full
+        validators.offer(validator);
+      }
+    }
+
+    private static List<String> validate(Validator validator, Path file) throws IOException {
+      List<String> errors = new ArrayList<>();
+      validator.reset();
+      validator.setErrorHandler(new ErrorHandler() {
+        @Override
+        public void warning(SAXParseException exception) {
+          // warnings do not make the file invalid
+        }
+
+        @Override
+        public void error(SAXParseException exception) {
+          errors.add(describe(exception));
+        }
+
+        @Override
+        public void fatalError(SAXParseException exception) throws SAXException {
+          throw exception;
+        }
+      });
+      try {
+        validator.validate(new StreamSource(file.toFile()));
+      } catch (SAXParseException e) {
+        errors.add(describe(e));
+      } catch (SAXException e) {
+        errors.add(e.getMessage());
+      }
+      return errors;
+    }
+
+    private static String describe(SAXParseException exception) {
+      return "line " + exception.getLineNumber() + ", column " + exception.getColumnNumber() + ": "
+        + exception.getMessage();
+    }
+  }
+
+  /** A metadata file to validate. */
+  private static final class Target {
+    private final Path file;
+    private final String mdType;
+    private final String mdTypeVersion;
+    private final List<IPFileInterface> schemas;
+
+    private Target(Path file, String mdType, String mdTypeVersion, List<IPFileInterface> schemas) {
+      this.file = file;
+      this.mdType = mdType;
+      this.mdTypeVersion = mdTypeVersion;
+      this.schemas = schemas;
+    }
+  }
+
+  /** State shared by the validations of one information package. */
+  private static final class Run {
+    private final Map<Path, Optional<String>> targetNamespaces = new ConcurrentHashMap<>();
+    /** Schemas already found, by location. */
+    private final Map<String, CachedSchema> schemas = new ConcurrentHashMap<>();
+  }
+
+  /** Outcome of validating one metadata file. */
+  private static final class Result {
+    private final LEVEL level;
+    private final String message;
+    private final String description;
+
+    private Result(LEVEL level, String message, String description) {
+      this.level = level;
+      this.message = message;
+      this.description = description;
+    }
+  }
+}
@@ -37,6 +37,21 @@ public class ResourceResolver implements LSResourceResolver {
     internalResources.put(IPConstants.SCHEMA_XLINK_FILENAME, IPConstants.SCHEMA_XLINK_RELATIVE_PATH_FROM_RESOURCES);
   }
 
+  private final boolean remoteAccess;
+
+  public ResourceResolver() {
+    this(true);
+  }
+
+  /**
+   * @param remoteAccess
+   *          if resources not bundled in the classpath may be fetched from
+   *          other than local ({@code file} or {@code jar}) URLs.
+   */
+  public ResourceResolver(boolean remoteAccess) {
+    this.remoteAccess = remoteAccess;
+  }
+
   @Override
   public LSInput resolveResource(String type, String namespaceURI, String publicId, String systemId, String baseURI) {
     InputStream resourceAsStream = null;
@@ -45,6 +60,10 @@ public class ResourceResolver implements LSResourceResolver {
     } else {
       try {
         URL url = new URL(systemId);
+        if (!remoteAccess && !"file".equals(url.getProtocol()) && !"jar".equals(url.getProtocol())) {
+          // left to the parser, which enforces its external access restrictions
+          return null;
+        }
         resourceAsStream = url.openStream();
       } catch (MalformedURLException e) {
         // the XSD's are expected to be in the root of the classpath
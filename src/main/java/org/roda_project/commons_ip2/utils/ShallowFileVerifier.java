@@ -0,0 +1,312 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.roda_project.commons_ip.utils.ValidationConstants;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.model.IPFileInterface;
+import org.roda_project.commons_ip2.model.IPFileShallow;
+import org.roda_project.commons_ip2.model.IPInterface;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.ValidationEntry.LEVEL;
+import org.roda_project.commons_ip2.model.ValidationReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Verifies the files referenced by a shallow (E-ARK SIP-S) information
+ * package: that each {@code file:} or {@code http(s):} reference is reachable
+ * and that its size, and optionally its checksum, match the METS file
+ * attributes. References are checked concurrently, with bounded parallelism,
+ * and the outcome is recorded in the package {@link ValidationReport}.
+ *
+ * <p>
+ * HTTP references are checked with a HEAD request (falling back to a one byte
+ * range request when the server does not answer HEAD or omits the length) and
+ * only downloaded when checksums are verified. Connections are reused through
+ * the JVM HTTP keep-alive cache (see the {@code http.maxConnections} system
+ * property).
+ * </p>
+ */
+public class ShallowFileVerifier {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ShallowFileVerifier.class);
+
+  private static final int DEFAULT_TIMEOUT_MILLIS = 30000;
+
+  private final int parallelism;
+  private final boolean verifyChecksums;
+  private int timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+
+  /**
+   * @param parallelism
+   *          maximum number of references checked at the same time.
+   * @param verifyChecksums
+   *          whether to read the referenced content to verify its checksum
+   *          (otherwise only reachability and size are checked).
+   */
+  public ShallowFileVerifier(int parallelism, boolean verifyChecksums) {
+    this.parallelism = Math.max(1, parallelism);
+    this.verifyChecksums = verifyChecksums;
+  }
+
+  public int getTimeoutMillis() {
+    return timeoutMillis;
+  }
+
+  /**
+   * @param timeoutMillis
+   *          connect and read timeout for HTTP references.
+   */
+  public ShallowFileVerifier setTimeoutMillis(int timeoutMillis) {
+    this.timeoutMillis = timeoutMillis;
+    return this;
+  }
+
+  /**
+   * Verifies all shallow files of the representations of an information
+   * package, adding one entry per reference to its {@link ValidationReport}.
+   *
+   * @param ip
+   *          the information package.
+   * @return the {@link ValidationReport} of the information package.
+   * @throws InterruptedException
+   *           if interrupted while waiting for the verifications.
+   */
+  public ValidationReport verify(IPInterface ip) throws InterruptedException {
+    List<IPFileShallow> files = new ArrayList<>();
+    for (IPRepresentation representation : ip.getRepresentations()) {
+      for (IPFileInterface file : representation.getData()) {
+        if (file instanceof IPFileShallow && ((IPFileShallow) file).getFileLocation() != null) {
+          files.add((IPFileShallow) file);
+        }
+      }
+    }
+
+    Result[] results = new Result[files.size()];
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(parallelism * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+    try {
+      for (int i = 0; i < files.size(); i++) {
+        final int index = i;
+        executor.execute(() -> results[index] = verify(files.get(index)));
+      }
+    } finally {
+      executor.shutdown();
+    }
+    try {
+      if (!executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS)) {
+        throw new InterruptedException();
+      }
+    } catch (InterruptedException e) {
+      // stop the verifications still running before giving up on them
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+      throw e;
+    }
+
+    ValidationReport report = ip.getValidationReport();
+    for (Result result : results) {
+      result.addTo(report);
+    }
+    return report;
+  }
+
+  private Result verify(IPFileShallow file) {
+    URI uri = file.getFileLocation();
+    FileType fileType = file.getFileType();
+    String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+    boolean withChecksum = verifyChecksums && fileType != null && fileType.getCHECKSUM() != null
+      && fileType.getCHECKSUMTYPE() != null;
+    try {
+      switch (scheme) {
+        case "file":
+          return verifyLocal(file, Paths.get(uri), withChecksum);
+        case "http":
+        case "https":
+          return verifyRemote(file, uri, withChecksum);
+        default:
+          return new Result(file, LEVEL.WARN, ValidationConstants.SHALLOW_FILE_SCHEME_NOT_SUPPORTED, "");
+      }
+    } catch (IOException | RuntimeException e) {
+      LOGGER.debug("Shallow file {} is not reachable", uri, e);
+      return new Result(file, LEVEL.ERROR, ValidationConstants.SHALLOW_FILE_NOT_REACHABLE, e.toString());
+    } catch (NoSuchAlgorithmException e) {
+      return new Result(file, LEVEL.ERROR, ValidationConstants.ERROR_COMPUTING_CHECKSUM_NO_SUCH_ALGORITHM,
+        fileType.getCHECKSUMTYPE());
+    }
+  }
+
+  private Result verifyLocal(IPFileShallow file, Path path, boolean withChecksum)
+    throws IOException, NoSuchAlgorithmException {
+    if (!Files.isRegularFile(path)) {
+      return new Result(file, LEVEL.ERROR, ValidationConstants.SHALLOW_FILE_NOT_REACHABLE, "no such file");
+    }
+    if (withChecksum) {
+      try (InputStream inputStream = Files.newInputStream(path)) {
+        return checkContent(file, inputStream);
+      }
+    }
+    return checkSize(file, Files.size(path));
+  }
+
+  private Result verifyRemote(IPFileShallow file, URI uri, boolean withChecksum)
+    throws IOException, NoSuchAlgorithmException {
+    if (withChecksum) {
+      HttpURLConnection connection = open(uri, "GET");
+      if (connection.getResponseCode() / 100 != 2) {
+        return unreachable(file, connection);
+      }
+      try (InputStream inputStream = connection.getInputStream()) {
+        return checkContent(file, inputStream);
+      }
+    }
+
+    HttpURLConnection head = open(uri, "HEAD");
+    int code = head.getResponseCode();
+    if (code / 100 == 2 && head.getContentLengthLong() >= 0) {
+      long length = head.getContentLengthLong();
+      drain(head);
+      return checkSize(file, length);
+    } else if (code / 100 == 2 || code == HttpURLConnection.HTTP_BAD_METHOD
+      || code == HttpURLConnection.HTTP_NOT_IMPLEMENTED) {
+      if (code / 100 == 2) {
+        // done with the HEAD response before opening another connection
+        drain(head);
+        head.disconnect();
+      }
+      // no length or HEAD not supported, ask for the first byte instead
+      HttpURLConnection range = open(uri, "GET");
+      range.setRequestProperty("Range", "bytes=0-0");
+      int rangeCode = range.getResponseCode();
+      if (rangeCode == HttpURLConnection.HTTP_PARTIAL) {
+        String contentRange = range.getHeaderField("Content-Range");
+        try (InputStream inputStream = range.getInputStream()) {
+          IOUtils.copy(inputStream, NullOutputStream.NULL_OUTPUT_STREAM);
+        }
+        if (contentRange != null && contentRange.lastIndexOf('/') >= 0
+          && !contentRange.endsWith("*")) {
+          return checkSize(file, Long.parseLong(contentRange.substring(contentRange.lastIndexOf('/') + 1).trim()));
+        }
+        return checkSize(file, -1);
+      } else if (rangeCode / 100 == 2) {
+        // range not supported, the length is all we need
+        long length = range.getContentLengthLong();
+        range.disconnect();
+        return checkSize(file, length);
+      }
+      return unreachable(file, range);
+    }
+    return unreachable(file, head);
+  }
+
+  private HttpURLConnection open(URI uri, String method) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+    connection.setRequestMethod(method);
+    connection.setConnectTimeout(timeoutMillis);
+    connection.setReadTimeout(timeoutMillis);
+    connection.setInstanceFollowRedirects(true);
+    return connection;
+  }
+
+  private Result unreachable(IPFileShallow file, HttpURLConnection connection) throws IOException {
+    String status = "HTTP " + connection.getResponseCode();
+    try (InputStream errorStream = connection.getErrorStream()) {
+      if (errorStream != null) {
+        IOUtils.copy(errorStream, NullOutputStream.NULL_OUTPUT_STREAM);
+      }
+    }
+    return new Result(file, LEVEL.ERROR, ValidationConstants.SHALLOW_FILE_NOT_REACHABLE, status);
+  }
+
+  /**
+   * Reads the rest of a successful response, so that its connection can be
+   * kept alive.
+   */
+  private static void drain(HttpURLConnection connection) throws IOException {
+    try (InputStream inputStream = connection.getInputStream()) {
+      IOUtils.copy(inputStream, NullOutputStream.NULL_OUTPUT_STREAM);
+    }
+  }
+
+  private Result checkContent(IPFileShallow file, InputStream inputStream)
+    throws IOException, NoSuchAlgorithmException {
+    FileType fileType = file.getFileType();
+    MessageDigest digest = MessageDigest.getInstance(fileType.getCHECKSUMTYPE());
+    CountingInputStream countingInputStream = new CountingInputStream(
+      new DigestInputStream(inputStream, digest));
+    IOUtils.copyLarge(countingInputStream, NullOutputStream.NULL_OUTPUT_STREAM);
+
+    Result sizeResult = checkSize(file, countingInputStream.getByteCount());
+    if (sizeResult.level != LEVEL.INFO) {
+      return sizeResult;
+    }
+    String checksum = DatatypeConverter.printHexBinary(digest.digest());
+    if (!checksum.equalsIgnoreCase(fileType.getCHECKSUM())) {
+      return new Result(file, LEVEL.ERROR, ValidationConstants.CHECKSUMS_DIFFER, String.format(
+        "METS checksum '%s' (%s), computed checksum '%s'", fileType.getCHECKSUM(), fileType.getCHECKSUMTYPE(),
+        checksum));
+    }
+    return sizeResult;
+  }
+
+  private Result checkSize(IPFileShallow file, long size) {
+    Long expected = file.getFileType() != null ? file.getFileType().getSIZE() : null;
+    if (expected != null && size >= 0 && expected != size) {
+      return new Result(file, LEVEL.ERROR, ValidationConstants.SHALLOW_FILE_SIZE_DIFFERS,
+        String.format("METS size %d, found %d", expected, size));
+    }
+    return new Result(file, LEVEL.INFO, ValidationConstants.SHALLOW_FILE_VERIFIED, "");
+  }
+
+  /** Outcome of verifying one reference. */
+  private static final class Result {
+    private final IPFileShallow file;
+    private final LEVEL level;
+    private final String message;
+    private final String detail;
+
+    private Result(IPFileShallow file, LEVEL level, String message, String detail) {
+      this.file = file;
+      this.level = level;
+      this.message = message;
+      this.detail = detail;
+    }
+
+    private void addTo(ValidationReport report) {
+      FileType fileType = file.getFileType();
+      String description = String.format("file with id '%s' at '%s'",
+        fileType != null ? fileType.getID() : "UNKNOWN_ID", file.getFileLocation());
+      if (!detail.isEmpty()) {
+        description += ": " + detail;
+      }
+      ValidationUtils.addEntry(report, message, level, description, null, null);
+    }
+  }
+}
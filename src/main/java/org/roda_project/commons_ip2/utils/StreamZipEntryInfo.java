@@ -0,0 +1,69 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.model.IPFileStream;
+
+/**
+ * Entry whose content comes from an {@link IPFileStream} instead of a local
+ * file ({@link #getFilePath()} is {@code null}).
+ */
+public class StreamZipEntryInfo extends METSFileTypeZipEntryInfo {
+  private final IPFileStream file;
+
+  public StreamZipEntryInfo(String name, IPFileStream file, FileType metsFileType) {
+    super(name, null, metsFileType);
+    this.file = file;
+  }
+
+  public InputStream openInputStream() throws IOException {
+    return file.openInputStream();
+  }
+
+  public long getSize() {
+    return file.getSize();
+  }
+
+  /**
+   * @return the given algorithms plus the one of the known checksum, if any.
+   */
+  public Set<String> getChecksumAlgorithms(Set<String> checksumAlgorithms) {
+    Set<String> algorithms = new TreeSet<>(checksumAlgorithms);
+    if (!file.getChecksumAlgorithm().isEmpty()) {
+      algorithms.add(file.getChecksumAlgorithm());
+    }
+    return algorithms;
+  }
+
+  /**
+   * Checks the content read against the declared size and known checksum.
+   */
+  public void verify(long size, Map<String, String> checksums) throws IOException {
+    if (size != file.getSize()) {
+      throw new IOException(
+        "Size of " + getName() + " differs: declared " + file.getSize() + ", read " + size + " bytes");
+    }
+    if (!file.getChecksum().isEmpty()
+      && !file.getChecksum().equalsIgnoreCase(checksums.get(file.getChecksumAlgorithm()))) {
+      throw new IOException("Checksum of " + getName() + " differs: known " + file.getChecksum() + " ("
+        + file.getChecksumAlgorithm() + "), computed " + checksums.get(file.getChecksumAlgorithm()));
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "StreamZipEntryInfo [name=" + getName() + ", file=" + file + "]";
+  }
+}
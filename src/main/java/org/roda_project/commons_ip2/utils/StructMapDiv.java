@@ -46,6 +46,7 @@ public class StructMapDiv {
    *          {@link Object}
    * @return if is equals or not.
    */
+  @Override
   public boolean equals(final Object obj) {
     if (this == obj) {
       return true;
@@ -57,4 +58,14 @@ public class StructMapDiv {
     final StructMapDiv structMapDiv = (StructMapDiv) obj;
     return label.equals(structMapDiv.label);
   }
+
+  /**
+   * Hash code consistent with {@link #equals(Object)}, i.e. of the label.
+   *
+   * @return the hash code.
+   */
+  @Override
+  public int hashCode() {
+    return label.hashCode();
+  }
 }
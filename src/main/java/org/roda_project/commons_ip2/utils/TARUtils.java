@@ -0,0 +1,200 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip.utils.ZipEntryInfo;
+import org.roda_project.commons_ip2.model.SIP;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes information packages as POSIX (ustar/pax) TAR archives. Like
+ * {@link ZIPUtils#zip(Map, OutputStream, SIP, boolean, boolean)}, entries are
+ * written in a single forward pass, so the output does not need to be seekable.
+ */
+public final class TARUtils {
+  private static final Logger LOGGER = LoggerFactory.getLogger(TARUtils.class);
+
+  private static final int BLOCK_SIZE = 512;
+  private static final int NAME_LENGTH = 100;
+  private static final int PREFIX_LENGTH = 155;
+  private static final long MAX_USTAR_SIZE = 077777777777L;
+  private static final byte TYPE_FILE = '0';
+  private static final byte TYPE_PAX_HEADER = 'x';
+
+  private TARUtils() {
+    // do nothing
+  }
+
+  public static void tar(Map<String, ZipEntryInfo> files, OutputStream out, SIP sip, boolean createSipIdFolder)
+    throws IOException, InterruptedException, IPException {
+    Set<String> nonMetsChecksumAlgorithms = ZIPUtils.getNonMetsChecksumAlgorithms();
+    Set<String> metsChecksumAlgorithms = ZIPUtils.getMetsChecksumAlgorithms(sip);
+    LongConsumer bytesProgress = ZIPUtils.bytesProgress(files, sip);
+
+    int i = 0;
+    for (ZipEntryInfo file : files.values()) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+
+      file.prepareEntryforZipping();
+
+      LOGGER.debug("Adding file {} to tar", file.getName());
+      String name = createSipIdFolder ? sip.getId() + "/" + file.getName() : file.getName();
+      long size;
+      long modified;
+      if (file instanceof StreamZipEntryInfo) {
+        size = ((StreamZipEntryInfo) file).getSize();
+        modified = System.currentTimeMillis();
+      } else {
+        size = Files.size(file.getFilePath());
+        modified = Files.getLastModifiedTime(file.getFilePath()).toMillis();
+      }
+      if (DeterministicBuild.isActive()) {
+        modified = DeterministicBuild.getTimestamp().getTime();
+      }
+      modified /= 1000;
+
+      writeHeaders(out, name, size, modified);
+      ZIPUtils.writeEntry(file, out, nonMetsChecksumAlgorithms, metsChecksumAlgorithms, bytesProgress);
+      writePadding(out, size);
+      sip.notifySipBuildPackagingEntryWritten(name, size, file);
+      i++;
+
+      sip.notifySipBuildPackagingCurrentStatus(i);
+    }
+
+    // end of archive: two zero filled blocks
+    out.write(new byte[2 * BLOCK_SIZE]);
+    out.close();
+  }
+
+  private static void writeHeaders(OutputStream out, String name, long size, long modified) throws IOException {
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    String[] ustarName = splitName(name, nameBytes);
+    boolean needsPaxName = ustarName == null;
+    boolean needsPaxSize = size > MAX_USTAR_SIZE;
+
+    if (needsPaxName || needsPaxSize) {
+      ByteArrayOutputStream records = new ByteArrayOutputStream();
+      if (needsPaxName) {
+        writePaxRecord(records, "path", name);
+      }
+      if (needsPaxSize) {
+        writePaxRecord(records, "size", Long.toString(size));
+      }
+      byte[] paxData = records.toByteArray();
+      String paxName = "PaxHeaders/" + asciiSuffix(name, NAME_LENGTH - "PaxHeaders/".length());
+      out.write(createHeader(paxName, "", paxData.length, modified, TYPE_PAX_HEADER));
+      out.write(paxData);
+      writePadding(out, paxData.length);
+      if (needsPaxName) {
+        ustarName = new String[] {"", asciiSuffix(name, NAME_LENGTH)};
+      }
+    }
+
+    out.write(createHeader(ustarName[1], ustarName[0], needsPaxSize ? 0 : size, modified, TYPE_FILE));
+  }
+
+  /**
+   * Splits a name into the ustar prefix and name fields, returning {@code null}
+   * if it does not fit them (or is not plain ASCII) and a pax header is needed.
+   */
+  private static String[] splitName(String name, byte[] nameBytes) {
+    if (nameBytes.length != name.length()) {
+      return null;
+    }
+    if (nameBytes.length <= NAME_LENGTH) {
+      return new String[] {"", name};
+    }
+    int slash = name.indexOf('/', name.length() - NAME_LENGTH - 1);
+    while (slash != -1) {
+      if (slash <= PREFIX_LENGTH && name.length() - slash - 1 <= NAME_LENGTH && slash > 0) {
+        return new String[] {name.substring(0, slash), name.substring(slash + 1)};
+      }
+      slash = name.indexOf('/', slash + 1);
+    }
+    return null;
+  }
+
+  private static String asciiSuffix(String name, int length) {
+    String ascii = name.replaceAll("[^\\x20-\\x7E]", "_");
+    return ascii.length() <= length ? ascii : ascii.substring(ascii.length() - length);
+  }
+
+  private static void writePaxRecord(ByteArrayOutputStream records, String key, String value) throws IOException {
+    byte[] content = (" " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8);
+    // the record length includes the digits of the length itself
+    int length = content.length + Integer.toString(content.length).length();
+    if (Integer.toString(length).length() != Integer.toString(content.length).length()) {
+      length++;
+    }
+    records.write(Integer.toString(length).getBytes(StandardCharsets.US_ASCII));
+    records.write(content);
+  }
+
+  private static byte[] createHeader(String name, String prefix, long size, long modified, byte type) {
+    byte[] header = new byte[BLOCK_SIZE];
+    putString(header, 0, NAME_LENGTH, name);
+    putOctal(header, 100, 8, 0644);
+    putOctal(header, 108, 8, 0);
+    putOctal(header, 116, 8, 0);
+    putOctal(header, 124, 12, size);
+    putOctal(header, 136, 12, modified);
+    header[156] = type;
+    putString(header, 257, 6, "ustar");
+    putString(header, 263, 2, "00");
+    putString(header, 345, PREFIX_LENGTH, prefix);
+
+    // checksum is calculated with the checksum field filled with spaces
+    for (int i = 148; i < 156; i++) {
+      header[i] = ' ';
+    }
+    long checksum = 0;
+    for (byte b : header) {
+      checksum += b & 0xFF;
+    }
+    putOctal(header, 148, 7, checksum);
+    header[155] = ' ';
+    return header;
+  }
+
+  private static void putString(byte[] header, int offset, int length, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+    System.arraycopy(bytes, 0, header, offset, Math.min(bytes.length, length));
+  }
+
+  /** Writes a zero padded octal number followed by a NUL. */
+  private static void putOctal(byte[] header, int offset, int length, long value) {
+    String octal = Long.toOctalString(value);
+    StringBuilder padded = new StringBuilder();
+    for (int i = octal.length(); i < length - 1; i++) {
+      padded.append('0');
+    }
+    putString(header, offset, length - 1, padded.append(octal).toString());
+    header[offset + length - 1] = 0;
+  }
+
+  private static void writePadding(OutputStream out, long size) throws IOException {
+    int remainder = (int) (size % BLOCK_SIZE);
+    if (remainder != 0) {
+      out.write(new byte[BLOCK_SIZE - remainder]);
+    }
+  }
+}
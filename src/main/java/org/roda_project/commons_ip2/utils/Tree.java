@@ -1,7 +1,9 @@
 package org.roda_project.commons_ip2.utils;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * {@author João Gomes <jgomes@keep.pt>}.
@@ -27,6 +29,11 @@ public class Tree<T> {
    * children nodes {@link ArrayList}.
    */
   private ArrayList<Tree<T>> childs;
+  /**
+   * children nodes by their root {@link HashMap}, so that finding a child does
+   * not scan the siblings.
+   */
+  private Map<T, Tree<T>> childsByRoot;
 
   /**
    * Constructor of new Tree.
@@ -37,6 +44,7 @@ public class Tree<T> {
   public Tree(final T root) {
     this.root = root;
     this.childs = new ArrayList<>();
+    this.childsByRoot = new HashMap<>();
   }
 
   /**
@@ -46,18 +54,27 @@ public class Tree<T> {
    *          {@link T}
    */
   public Tree<T> addChild(final T child, final T parentNode) {
-    final Tree<T> childTree;
-    if (!checkIfExistChild(child, parentNode)) {
+    Tree<T> childTree = getChild(child, parentNode);
+    if (childTree == null) {
       childTree = new Tree<>(child);
       childTree.parent = this;
       this.childs.add(childTree);
-
-    } else {
-      childTree = getChild(child, parentNode);
+      this.childsByRoot.putIfAbsent(child, childTree);
     }
     return childTree;
   }
 
+  /**
+   * Add a new child to the Tree, or get the existing one.
+   *
+   * @param child
+   *          {@link T}
+   * @return the child {@link Tree<T>}.
+   */
+  public Tree<T> addChild(final T child) {
+    return addChild(child, root);
+  }
+
   /**
    * Get the root of this tree.
    * 
@@ -110,14 +127,7 @@ public class Tree<T> {
    * @return a flag if exist or not.
    */
   public boolean checkIfExistChild(final T child, final T parentNode) {
-    boolean exist = false;
-    for (Tree<T> children : childs) {
-      if (children.getRoot().equals(child) && root.equals(parentNode)) {
-        exist = true;
-        break;
-      }
-    }
-    return exist;
+    return getChild(child, parentNode) != null;
   }
 
   /**
@@ -128,11 +138,6 @@ public class Tree<T> {
    * @return {@link Tree<T>}.
    */
   public Tree<T> getChild(final T child, final T parentNode) {
-    for (Tree<T> children : childs) {
-      if (children.getRoot().equals(child) && root.equals(parentNode)) {
-        return children;
-      }
-    }
-    return null;
+    return root.equals(parentNode) ? childsByRoot.get(child) : null;
   }
 }
@@ -25,6 +25,7 @@ import java.util.GregorianCalendar;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.TimeZone;
 import java.util.UUID;
 
 import javax.xml.bind.DatatypeConverter;
@@ -68,9 +69,19 @@ public final class Utils {
     return res;
   }
 
+  /**
+   * The current date, or the fixed one (in UTC) during a
+   * {@link DeterministicBuild}.
+   */
   public static XMLGregorianCalendar getCurrentCalendar() throws DatatypeConfigurationException {
-    GregorianCalendar gcal = new GregorianCalendar();
-    gcal.setTime(new Date());
+    GregorianCalendar gcal;
+    if (DeterministicBuild.isActive()) {
+      gcal = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+      gcal.setTime(DeterministicBuild.getTimestamp());
+    } else {
+      gcal = new GregorianCalendar();
+      gcal.setTime(new Date());
+    }
     return DatatypeFactory.newInstance().newXMLGregorianCalendar(gcal);
   }
 
@@ -82,6 +93,31 @@ public final class Utils {
     return METSEnums.FILE_ID_PREFIX + UUID.randomUUID().toString().toUpperCase();
   }
 
+  /**
+   * A random id or, during a {@link DeterministicBuild}, one derived from what
+   * it identifies.
+   *
+   * @param derivedFrom
+   *          the element and its path or label, e.g. "div Metadata".
+   */
+  public static String generatePrefixedUUID(String derivedFrom) {
+    if (DeterministicBuild.isActive()) {
+      return DeterministicBuild.id(METSEnums.ID_PREFIX, derivedFrom);
+    }
+    return generateRandomAndPrefixedUUID();
+  }
+
+  /**
+   * A random file id or, during a {@link DeterministicBuild}, one derived from
+   * the path of the file.
+   */
+  public static String generatePrefixedFileID(String path) {
+    if (DeterministicBuild.isActive()) {
+      return DeterministicBuild.id(METSEnums.FILE_ID_PREFIX, path);
+    }
+    return generateRandomAndPrefixedFileID();
+  }
+
   public static Path copyResourceFromClasspathToDir(Class<?> resourceClass, Path dir, String resourceTempSuffix,
     String resourcePath) throws IOException, InterruptedException {
     try {
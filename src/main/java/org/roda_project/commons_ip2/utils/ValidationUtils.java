@@ -40,14 +40,7 @@ public final class ValidationUtils {
 
   private static ValidationReport addInfo(ValidationReport report, String message, String description, Path ipPath,
     Path relatedFilePath) {
-    ValidationEntry validation = new ValidationEntry();
-    validation.setDescription(description);
-    validation.setLevel(LEVEL.INFO);
-    validation.setMessage(message);
-    validation.setRelatedItem(
-      relatedFilePath == null ? (new ArrayList<Path>()) : Arrays.asList(ipPath.relativize(relatedFilePath)));
-    report.getValidationEntries().add(validation);
-    return report;
+    return addEntry(report, message, LEVEL.INFO, description, ipPath, relatedFilePath);
   }
 
   public static ValidationReport addIssue(ValidationReport report, String message, LEVEL level, StructMapType structMap,
@@ -87,6 +80,10 @@ public final class ValidationUtils {
 
   public static ValidationReport addEntry(ValidationReport report, String message, LEVEL level, String description,
     Path ipPath, Path relatedFilePath) {
+    if (!report.isToKeep(level)) {
+      report.count(level, message);
+      return report;
+    }
     ValidationEntry entry = new ValidationEntry();
     entry.setDescription(description);
     entry.setLevel(level);
@@ -10,6 +10,7 @@ package org.roda_project.commons_ip2.utils;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
@@ -22,6 +23,7 @@ import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.LongConsumer;
 import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -30,6 +32,7 @@ import java.util.zip.ZipOutputStream;
 import javax.xml.bind.DatatypeConverter;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.ProxyInputStream;
 import org.roda_project.commons_ip.model.ParseException;
 import org.roda_project.commons_ip.utils.IPException;
 import org.roda_project.commons_ip.utils.ZipEntryInfo;
@@ -37,6 +40,8 @@ import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
 import org.roda_project.commons_ip2.mets_v1_12.beans.MdSecType.MdRef;
 import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
 import org.roda_project.commons_ip2.model.IPConstants;
+import org.roda_project.commons_ip2.model.IPFileStream;
+import org.roda_project.commons_ip2.model.MetsWrapper;
 import org.roda_project.commons_ip2.model.SIP;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -96,12 +101,28 @@ public final class ZIPUtils {
     return zipEntries;
   }
 
+  public static Map<String, ZipEntryInfo> addStreamFileToZip(Map<String, ZipEntryInfo> zipEntries, IPFileStream file,
+    String zipPath, FileType fileType) {
+    zipEntries.put(zipPath, new StreamZipEntryInfo(zipPath, file, fileType));
+    return zipEntries;
+  }
+
   public static Map<String, ZipEntryInfo> addMETSFileToZip(Map<String, ZipEntryInfo> zipEntries, Path filePath,
     String zipPath, Mets mets, boolean rootMETS, FileType fileType) throws IPException {
     zipEntries.put(zipPath, new METSZipEntryInfo(zipPath, filePath, mets, rootMETS, fileType));
     return zipEntries;
   }
 
+  public static Map<String, ZipEntryInfo> addMETSFileToZip(Map<String, ZipEntryInfo> zipEntries, Path filePath,
+    String zipPath, MetsWrapper metsWrapper, boolean rootMETS, FileType fileType) throws IPException {
+    METSZipEntryInfo metsEntry = new METSZipEntryInfo(zipPath, filePath, metsWrapper.getMets(), rootMETS, fileType);
+    if (metsWrapper.getDataFiles() != null) {
+      metsEntry.setStreamedFiles(metsWrapper.getDataFileGroup().getID(), metsWrapper.getDataFiles());
+    }
+    zipEntries.put(zipPath, metsEntry);
+    return zipEntries;
+  }
+
   public static void zip(Map<String, ZipEntryInfo> files, OutputStream out, SIP sip, boolean isCompressed)
     throws IOException, InterruptedException, IPException {
     zip(files, out, sip, true, isCompressed);
@@ -116,11 +137,9 @@ public final class ZIPUtils {
       zos.setLevel(Deflater.NO_COMPRESSION);
     }
 
-    Set<String> nonMetsChecksumAlgorithms = new TreeSet<>();
-    nonMetsChecksumAlgorithms.add(IPConstants.CHECKSUM_ALGORITHM);
-    Set<String> metsChecksumAlgorithms = new TreeSet<>();
-    metsChecksumAlgorithms.addAll(nonMetsChecksumAlgorithms);
-    metsChecksumAlgorithms.addAll(sip.getExtraChecksumAlgorithms());
+    Set<String> nonMetsChecksumAlgorithms = getNonMetsChecksumAlgorithms();
+    Set<String> metsChecksumAlgorithms = getMetsChecksumAlgorithms(sip);
+    LongConsumer bytesProgress = bytesProgress(files, sip);
 
     int i = 0;
     for (ZipEntryInfo file : files.values()) {
@@ -130,45 +149,21 @@ public final class ZIPUtils {
 
       file.prepareEntryforZipping();
 
-      LOGGER.debug("Zipping file {}", file.getFilePath());
+      LOGGER.debug("Zipping file {}", file.getName());
       ZipEntry entry;
       if (createSipIdFolder) {
         entry = new ZipEntry(sip.getId() + "/" + file.getName());
       } else {
         entry = new ZipEntry(file.getName());
       }
+      if (DeterministicBuild.isActive()) {
+        entry.setTime(DeterministicBuild.getZipEntryTime());
+      }
 
       zos.putNextEntry(entry);
-
-      try (InputStream inputStream = Files.newInputStream(file.getFilePath());) {
-        Map<String, String> checksums;
-        if (file instanceof METSZipEntryInfo) {
-          checksums = calculateChecksums(Optional.of(zos), inputStream, metsChecksumAlgorithms);
-          METSZipEntryInfo metsEntry = (METSZipEntryInfo) file;
-          metsEntry.setChecksums(checksums);
-          metsEntry.setSize(metsEntry.getFilePath().toFile().length());
-        } else {
-          checksums = calculateChecksums(Optional.of(zos), inputStream, nonMetsChecksumAlgorithms);
-        }
-
-        LOGGER.debug("Done zipping file");
-        String checksum = checksums.get(IPConstants.CHECKSUM_ALGORITHM);
-        String checksumType = IPConstants.CHECKSUM_ALGORITHM;
-        file.setChecksum(checksum);
-        file.setChecksumAlgorithm(checksumType);
-        if (file instanceof METSFileTypeZipEntryInfo) {
-          METSFileTypeZipEntryInfo f = (METSFileTypeZipEntryInfo) file;
-          f.getMetsFileType().setCHECKSUM(checksum);
-          f.getMetsFileType().setCHECKSUMTYPE(checksumType);
-        } else if (file instanceof METSMdRefZipEntryInfo) {
-          METSMdRefZipEntryInfo f = (METSMdRefZipEntryInfo) file;
-          f.getMetsMdRef().setCHECKSUM(checksum);
-          f.getMetsMdRef().setCHECKSUMTYPE(checksumType);
-        }
-      } catch (NoSuchAlgorithmException e) {
-        LOGGER.error("Error while zipping files", e);
-      }
+      writeEntry(file, zos, nonMetsChecksumAlgorithms, metsChecksumAlgorithms, bytesProgress);
       zos.closeEntry();
+      sip.notifySipBuildPackagingEntryWritten(entry.getName(), entry.getSize(), file);
       i++;
 
       sip.notifySipBuildPackagingCurrentStatus(i);
@@ -178,7 +173,100 @@ public final class ZIPUtils {
     out.close();
   }
 
-  public static Map<String, String> calculateChecksums(Optional<ZipOutputStream> zos, InputStream inputStream,
+  static Set<String> getNonMetsChecksumAlgorithms() {
+    Set<String> nonMetsChecksumAlgorithms = new TreeSet<>();
+    nonMetsChecksumAlgorithms.add(IPConstants.CHECKSUM_ALGORITHM);
+    return nonMetsChecksumAlgorithms;
+  }
+
+  static Set<String> getMetsChecksumAlgorithms(SIP sip) {
+    Set<String> metsChecksumAlgorithms = getNonMetsChecksumAlgorithms();
+    metsChecksumAlgorithms.addAll(sip.getExtraChecksumAlgorithms());
+    return metsChecksumAlgorithms;
+  }
+
+  /**
+   * Reports the bytes read from the entries to the SIP observers. The total is
+   * estimated from the file sizes before packaging, as METS files are only
+   * finalized while being packaged.
+   */
+  static LongConsumer bytesProgress(Map<String, ZipEntryInfo> files, SIP sip) {
+    long total = 0;
+    for (ZipEntryInfo file : files.values()) {
+      if (file instanceof StreamZipEntryInfo) {
+        total += ((StreamZipEntryInfo) file).getSize();
+      } else if (file.getFilePath() != null && Files.isRegularFile(file.getFilePath())) {
+        total += file.getFilePath().toFile().length();
+      }
+    }
+    final long totalBytes = total;
+    final long[] processed = {0};
+    return bytes -> {
+      processed[0] += bytes;
+      sip.notifySipBuildPackagingBytesStatus(processed[0], totalBytes);
+    };
+  }
+
+  /**
+   * Copies an already prepared entry to the output while calculating its
+   * checksums, and updates the entry (and its METS file or mdRef) with them.
+   */
+  static void writeEntry(ZipEntryInfo file, OutputStream out, Set<String> nonMetsChecksumAlgorithms,
+    Set<String> metsChecksumAlgorithms, LongConsumer bytesProgress) throws IOException {
+    final long[] read = {0};
+    try (InputStream inputStream = new ProxyInputStream(openEntry(file)) {
+      @Override
+      protected void afterRead(int n) {
+        if (n > 0) {
+          read[0] += n;
+          bytesProgress.accept(n);
+        }
+      }
+    }) {
+      Map<String, String> checksums;
+      if (file instanceof METSZipEntryInfo) {
+        checksums = calculateChecksums(Optional.of(out), inputStream, metsChecksumAlgorithms);
+        METSZipEntryInfo metsEntry = (METSZipEntryInfo) file;
+        metsEntry.setChecksums(checksums);
+        metsEntry.setSize(metsEntry.getFilePath().toFile().length());
+      } else if (file instanceof StreamZipEntryInfo) {
+        StreamZipEntryInfo streamEntry = (StreamZipEntryInfo) file;
+        checksums = calculateChecksums(Optional.of(out), inputStream,
+          streamEntry.getChecksumAlgorithms(nonMetsChecksumAlgorithms));
+        streamEntry.verify(read[0], checksums);
+      } else {
+        checksums = calculateChecksums(Optional.of(out), inputStream, nonMetsChecksumAlgorithms);
+      }
+
+      LOGGER.debug("Done zipping file");
+      String checksum = checksums.get(IPConstants.CHECKSUM_ALGORITHM);
+      String checksumType = IPConstants.CHECKSUM_ALGORITHM;
+      file.setChecksum(checksum);
+      file.setChecksumAlgorithm(checksumType);
+      if (file instanceof METSFileTypeZipEntryInfo) {
+        METSFileTypeZipEntryInfo f = (METSFileTypeZipEntryInfo) file;
+        f.setMetsFileTypeChecksum(checksum, checksumType);
+      } else if (file instanceof METSMdRefZipEntryInfo) {
+        METSMdRefZipEntryInfo f = (METSMdRefZipEntryInfo) file;
+        f.getMetsMdRef().setCHECKSUM(checksum);
+        f.getMetsMdRef().setCHECKSUMTYPE(checksumType);
+      }
+    } catch (NoSuchAlgorithmException e) {
+      LOGGER.error("Error while zipping files", e);
+    }
+  }
+
+  /**
+   * Opens the content of an entry, be it a local file or a stream.
+   */
+  public static InputStream openEntry(ZipEntryInfo file) throws IOException {
+    if (file instanceof StreamZipEntryInfo) {
+      return ((StreamZipEntryInfo) file).openInputStream();
+    }
+    return Files.newInputStream(file.getFilePath());
+  }
+
+  public static Map<String, String> calculateChecksums(Optional<? extends OutputStream> zos, InputStream inputStream,
     Set<String> checksumAlgorithms) throws NoSuchAlgorithmException, IOException {
     byte[] buffer = new byte[4096];
     Map<String, String> values = new HashMap<>();
@@ -211,14 +299,12 @@ public final class ZIPUtils {
   }
 
   public static void unzip(Path zip, final Path dest) throws IOException {
-    ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(zip.toFile()));
-    ZipEntry zipEntry = zipInputStream.getNextEntry();
-
-    if (zipEntry == null) {
-      // No entries in ZIP
-      zipInputStream.close();
-    } else {
+    try (ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(zip.toFile()))) {
+      ZipEntry zipEntry = zipInputStream.getNextEntry();
       while (zipEntry != null) {
+        if (Thread.interrupted()) {
+          throw new InterruptedIOException("Interrupted while unzipping " + zip);
+        }
         // for each entry to be extracted
         String entryName = zipEntry.getName();
         if (Utils.systemIsWindows()) {
@@ -233,17 +319,14 @@ public final class ZIPUtils {
             Files.createDirectories(newFile.getParent());
           }
 
-          OutputStream newFileOutputStream = Files.newOutputStream(newFile);
-          IOUtils.copyLarge(zipInputStream, newFileOutputStream);
-
-          newFileOutputStream.close();
+          try (OutputStream newFileOutputStream = Files.newOutputStream(newFile)) {
+            IOUtils.copyLarge(zipInputStream, newFileOutputStream);
+          }
           zipInputStream.closeEntry();
         }
 
         zipEntry = zipInputStream.getNextEntry();
       } // end while
-
-      zipInputStream.close();
     }
   }
 
@@ -0,0 +1,406 @@
+package org.roda_project.commons_ip2.validator.CLI;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.bind.JAXBException;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.utils.METSUtils;
+import org.roda_project.commons_ip2.validator.utils.CLIUtils;
+import org.roda_project.commons_ip2.validator.utils.ExitCodes;
+import org.roda_project.commons_ip2.validator.utils.SipCreatorUtils;
+import org.roda_project.commons_ip2.validator.utils.SipManifest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Batch creation mode. Creates one E-ARK SIP per entry of a CSV or JSON
+ * manifest (see {@link SipManifest}) on a bounded worker pool, sharing the JAXB
+ * context and the METS schema loaded once, and writes a results file with the
+ * status, path, size and duration of each SIP.
+ *
+ * <p>
+ * The manifest is read as the pool frees up, so it is never fully held in
+ * memory, and a failing entry is recorded in the results without stopping the
+ * batch.
+ * </p>
+ */
+public class CLIBatchCreator {
+  private static final Logger LOGGER = LoggerFactory.getLogger(CLIBatchCreator.class);
+
+  /**
+   * Default capacity of the jobs queue.
+   */
+  private static final int DEFAULT_QUEUE_CAPACITY = 20;
+
+  /**
+   * Default name of the results file, in the directory where the SIPs are
+   * created.
+   */
+  private static final String DEFAULT_RESULTS_FILE = "batch-results.csv";
+
+  /**
+   * Status of a created SIP.
+   */
+  private static final String STATUS_CREATED = "created";
+
+  /**
+   * Status of a SIP that could not be created.
+   */
+  private static final String STATUS_FAILED = "failed";
+
+  /**
+   * {@link Options}.
+   */
+  private final Options parameters;
+
+  /**
+   * {@link CommandLineParser}.
+   */
+  private final CommandLineParser parser;
+
+  private final AtomicLong createdSIPs = new AtomicLong();
+  private final AtomicLong failedSIPs = new AtomicLong();
+
+  /** Initialize available batch creation options. */
+  public CLIBatchCreator() {
+    this.parameters = new Options();
+    this.parser = new DefaultParser();
+
+    final Option input = new Option(CLIConstants.CLI_CREATE_SHORT_OPTION_INPUT_WITHOUT_IDENT, "input", true,
+      "Manifest of the SIPs to create");
+    input.setArgs(1);
+    input.setRequired(true);
+    parameters.addOption(input);
+
+    final Option output = new Option(CLIConstants.CLI_CREATE_SHORT_OPTION_OUTPUT_FILE_WITHOUT_IDENT, "output", true,
+      "Results file");
+    output.setArgs(1);
+    output.setRequired(false);
+    parameters.addOption(output);
+
+    final Option path = new Option(CLIConstants.CLI_CREATE_SHORT_OPTION_PATH_WITHOUT_IDENT,
+      CLIConstants.CLI_CREATE_LONG_OPTION_PATH_WITHOUT_IDENT, true, "Path to save the SIPs");
+    path.setArgs(1);
+    path.setRequired(false);
+    parameters.addOption(path);
+
+    final Option threads = new Option(CLIConstants.CLI_SERVER_SHORT_OPTION_THREADS_WITHOUT_IDENT,
+      CLIConstants.CLI_SERVER_LONG_OPTION_THREADS_WITHOUT_IDENT, true, "Maximum number of concurrent jobs");
+    threads.setArgs(1);
+    threads.setRequired(false);
+    parameters.addOption(threads);
+
+    final Option queue = new Option(CLIConstants.CLI_SERVER_SHORT_OPTION_QUEUE_WITHOUT_IDENT,
+      CLIConstants.CLI_SERVER_LONG_OPTION_QUEUE_WITHOUT_IDENT, true, "Maximum number of waiting jobs");
+    queue.setArgs(1);
+    queue.setRequired(false);
+    parameters.addOption(queue);
+
+    final Option submitterAgentName = new Option(
+      CLIConstants.CLI_CREATE_SHORT_OPTION_SUBMITTER_AGENT_NAME_WITHOUT_IDENT,
+      CLIConstants.CLI_CREATE_LONG_OPTION_SUBMITTER_AGENT_NAME_WITHOUT_IDENT, true, "Name of the submitter agent");
+    submitterAgentName.setArgs(1);
+    submitterAgentName.setRequired(false);
+    parameters.addOption(submitterAgentName);
+
+    final Option submitterAgentID = new Option(CLIConstants.CLI_CREATE_SHORT_OPTION_SUBMITTER_AGENT_ID_WITHOUT_IDENT,
+      CLIConstants.CLI_CREATE_LONG_OPTION_SUBMITTER_AGENT_ID_WITHOUT_IDENT, true,
+      "Identification code of the submitter agent");
+    submitterAgentID.setArgs(1);
+    submitterAgentID.setRequired(false);
+    parameters.addOption(submitterAgentID);
+  }
+
+  /**
+   * Print All available options.
+   *
+   * @param printStream
+   *          {@link PrintStream}
+   */
+  public static void printUsageBatchCreator(final PrintStream printStream) {
+    final StringBuilder out = new StringBuilder();
+    out.append("Usage: Commons-ip create-batch [OPTIONS]\n");
+    out.append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.COMMANDS_KEY);
+    out.append(CLIConstants.DOUBLE_END_OF_LINE);
+    out.append(CLIConstants.TAB).append(CLIConstants.CLI_OPTION_SIP_PATHS).append(", --input")
+      .append(CLIConstants.DOUBLE_TAB).append("(required) CSV or JSON manifest, one SIP per row with the create")
+      .append(" long options as columns, multiple values separated by ").append(SipManifest.CSV_VALUE_SEPARATOR)
+      .append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.TAB).append(CLIConstants.CLI_OPTION_REPORT_DIRECTORY).append(", --output")
+      .append(CLIConstants.DOUBLE_TAB).append("(optional) Results file, JSON if it ends with ")
+      .append(CLIConstants.JSON_FILE_EXTENSION).append(" or CSV otherwise, default ").append(DEFAULT_RESULTS_FILE)
+      .append(" in the SIPs path").append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.TAB).append(CLIConstants.CLI_CREATE_OPTION_PATH).append(", --path")
+      .append(CLIConstants.DOUBLE_TAB).append("(optional) Path to save the SIPs").append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.TAB).append("-t, --threads").append(CLIConstants.DOUBLE_TAB)
+      .append("(optional) Maximum number of concurrent jobs, default number of processors")
+      .append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.TAB).append("-q, --queue").append(CLIConstants.DOUBLE_TAB)
+      .append("(optional) Maximum number of waiting jobs, default ").append(DEFAULT_QUEUE_CAPACITY)
+      .append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.TAB).append(CLIConstants.CLI_CREATE_OPTION_SUBMITTER_AGENT_NAME)
+      .append(", --submitter-agent-name").append(CLIConstants.DOUBLE_TAB)
+      .append("(optional) The name of the submitter agent").append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.TAB).append(CLIConstants.CLI_CREATE_OPTION_SUBMITTER_AGENT_ID)
+      .append(", --submitter-agent-id").append(CLIConstants.DOUBLE_TAB)
+      .append("(optional) The identification code of the submitter id").append(CLIConstants.END_OF_LINE);
+    printStream.append(out).flush();
+  }
+
+  /**
+   * Create the SIPs of the manifest. Returns once all are created or failed.
+   *
+   * @param args
+   *          {@link String} array with arguments of command.
+   * @return one {@link ExitCodes}
+   */
+  public int start(final String[] args) {
+    final Path manifestPath;
+    final Path sipsPath;
+    final Path resultsPath;
+    final int threads;
+    final int queueCapacity;
+    final String submitterAgentName;
+    final String submitterAgentID;
+    try {
+      final CommandLine commandLine = parser.parse(parameters, args);
+      manifestPath = Paths.get(commandLine.getOptionValue(CLIConstants.CLI_CREATE_SHORT_OPTION_INPUT_WITHOUT_IDENT));
+      final String path = commandLine.getOptionValue(CLIConstants.CLI_CREATE_SHORT_OPTION_PATH_WITHOUT_IDENT);
+      sipsPath = Paths.get(path == null ? System.getProperty("user.dir") : path).toAbsolutePath().normalize();
+      final String output = commandLine.getOptionValue(CLIConstants.CLI_CREATE_SHORT_OPTION_OUTPUT_FILE_WITHOUT_IDENT);
+      resultsPath = output == null ? sipsPath.resolve(DEFAULT_RESULTS_FILE) : Paths.get(output);
+      threads = Integer.parseInt(commandLine.getOptionValue(CLIConstants.CLI_SERVER_SHORT_OPTION_THREADS_WITHOUT_IDENT,
+        "" + Runtime.getRuntime().availableProcessors()));
+      queueCapacity = Integer.parseInt(commandLine
+        .getOptionValue(CLIConstants.CLI_SERVER_SHORT_OPTION_QUEUE_WITHOUT_IDENT, "" + DEFAULT_QUEUE_CAPACITY));
+      submitterAgentName = commandLine
+        .getOptionValue(CLIConstants.CLI_CREATE_SHORT_OPTION_SUBMITTER_AGENT_NAME_WITHOUT_IDENT);
+      submitterAgentID = commandLine
+        .getOptionValue(CLIConstants.CLI_CREATE_SHORT_OPTION_SUBMITTER_AGENT_ID_WITHOUT_IDENT);
+      if (threads < 1 || queueCapacity < 1) {
+        throw new NumberFormatException();
+      }
+    } catch (final ParseException | NumberFormatException e) {
+      printUsageBatchCreator(System.out);
+      return ExitCodes.EXIT_PARSE_ARG;
+    }
+
+    if (!Files.isRegularFile(manifestPath)) {
+      CLIUtils.printErrors(System.out, "The manifest file given does not exist");
+      return ExitCodes.EXIT_CODE_CREATE_INVALID_PATHS;
+    }
+
+    try {
+      Files.createDirectories(sipsPath);
+    } catch (final IOException e) {
+      CLIUtils.printErrors(System.out, "Cannot create the directory to save the SIPs.");
+      return ExitCodes.EXIT_CODE_CREATE_DIRECTORY_FAILS;
+    }
+
+    try {
+      // warm up the expensive, shareable, METS machinery before creating SIPs
+      METSUtils.getMetsContext();
+      METSUtils.getMetsSchema();
+    } catch (final JAXBException | SAXException e) {
+      CLIUtils.printErrors(System.out, "Error on object initialize");
+      return ExitCodes.EXIT_CANNOT_CREATE_EARKVALIDATOR_OBJECT;
+    }
+
+    final String softwareVersion = getClass().getPackage().getImplementationVersion();
+    // reading the manifest waits when the queue is full
+    final ThreadPoolExecutor jobs = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.CallerRunsPolicy());
+    try (SipManifest manifest = SipManifest.open(manifestPath); Results results = Results.open(resultsPath)) {
+      // the jobs are done before the results are closed, even if the manifest
+      // cannot be read
+      boolean read = false;
+      try {
+        // SIPs with the same identifier would be written to the same file
+        final Set<String> sipIDs = new HashSet<>();
+        SipManifest.Entry entry;
+        while ((entry = manifest.next()) != null) {
+          final SipManifest.Entry sipEntry = entry;
+          final boolean duplicate = entry.getSipID() != null && !sipIDs.add(entry.getSipID());
+          jobs.execute(() -> create(sipEntry, duplicate, sipsPath, softwareVersion, submitterAgentName,
+            submitterAgentID, results));
+        }
+        read = true;
+      } finally {
+        if (read) {
+          jobs.shutdown();
+        } else {
+          jobs.shutdownNow();
+        }
+        awaitTermination(jobs);
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      CLIUtils.printErrors(System.out, "Interrupted while creating the SIPs");
+      return ExitCodes.EXIT_CODE_CREATE_CANNOT_SIP;
+    } catch (final IOException e) {
+      CLIUtils.printErrors(System.out, "Cannot read the manifest or write the results: " + e.getMessage());
+      return ExitCodes.EXIT_CODE_CREATE_INVALID_PATHS;
+    }
+
+    System.out.println("Created " + createdSIPs.get() + " SIPs in " + sipsPath + ", " + failedSIPs.get()
+      + " failed, results in " + resultsPath.normalize().toAbsolutePath());
+    return failedSIPs.get() == 0 ? ExitCodes.EXIT_CODE_OK : ExitCodes.EXIT_CODE_CREATE_CANNOT_SIP;
+  }
+
+  /**
+   * Waits for the jobs to end, stopping them if interrupted.
+   */
+  private static void awaitTermination(final ThreadPoolExecutor jobs) throws InterruptedException {
+    try {
+      while (!jobs.awaitTermination(1, TimeUnit.MINUTES)) {
+        LOGGER.info("Waiting for {} SIPs to be created", jobs.getActiveCount() + jobs.getQueue().size());
+      }
+    } catch (final InterruptedException e) {
+      jobs.shutdownNow();
+      throw e;
+    }
+  }
+
+  private void create(final SipManifest.Entry entry, final boolean duplicate, final Path sipsPath, final String softwareVersion,
+    final String submitterAgentName, final String submitterAgentID, final Results results) {
+    final long start = System.currentTimeMillis();
+    String sipID = entry.getSipID();
+    Path sipPath = null;
+    long size = -1;
+    String message = SipCreatorUtils.validateManifestEntry(entry);
+    if (message == null && duplicate) {
+      message = "Duplicate SIP identifier";
+    }
+    if (message == null) {
+      try {
+        final SIP sip = SipCreatorUtils.createEARK2SIP(entry, softwareVersion, submitterAgentName, submitterAgentID);
+        sipID = sip.getId();
+        sipPath = sip.build(sipsPath).normalize().toAbsolutePath();
+        size = Files.size(sipPath);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        message = "Interrupted";
+      } catch (final Exception e) {
+        LOGGER.debug("Cannot create the SIP of manifest entry {}", entry.getNumber(), e);
+        message = "Can't create the sip: " + e.getMessage();
+        sipPath = null;
+      }
+    }
+    final long duration = System.currentTimeMillis() - start;
+    if (message == null) {
+      createdSIPs.incrementAndGet();
+    } else {
+      failedSIPs.incrementAndGet();
+    }
+    try {
+      results.write(entry.getNumber(), sipID, message == null ? STATUS_CREATED : STATUS_FAILED, sipPath, size,
+        duration, message);
+    } catch (final IOException e) {
+      LOGGER.error("Cannot write the result of manifest entry {}", entry.getNumber(), e);
+    }
+  }
+
+  /**
+   * Results file, written as the SIPs are created.
+   */
+  private static final class Results implements Closeable {
+    private final BufferedWriter writer;
+    private final JsonGenerator json;
+
+    private Results(final BufferedWriter writer, final JsonGenerator json) {
+      this.writer = writer;
+      this.json = json;
+    }
+
+    static Results open(final Path resultsPath) throws IOException {
+      final Path parent = resultsPath.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      // not a channel, which an interrupted job writing its result would close
+      final BufferedWriter writer = new BufferedWriter(
+        new OutputStreamWriter(new FileOutputStream(resultsPath.toFile()), StandardCharsets.UTF_8));
+      if (resultsPath.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(CLIConstants.JSON_FILE_EXTENSION)) {
+        final JsonGenerator json = new JsonFactory().createGenerator(writer);
+        json.writeStartArray();
+        return new Results(writer, json);
+      }
+      writer.write("entry,sip-id,status,path,size,duration-ms,message");
+      writer.newLine();
+      return new Results(writer, null);
+    }
+
+    synchronized void write(final int entry, final String sipID, final String status, final Path sipPath,
+      final long size, final long duration, final String message) throws IOException {
+      if (json != null) {
+        json.writeStartObject();
+        json.writeNumberField("entry", entry);
+        json.writeStringField("sip-id", sipID);
+        json.writeStringField("status", status);
+        if (sipPath != null) {
+          json.writeStringField("path", sipPath.toString());
+          json.writeNumberField("size", size);
+        }
+        json.writeNumberField("duration-ms", duration);
+        if (message != null) {
+          json.writeStringField("message", message);
+        }
+        json.writeEndObject();
+        json.flush();
+      } else {
+        writer.write(entry + "," + csv(sipID) + "," + status + "," + csv(sipPath == null ? null : sipPath.toString())
+          + "," + (sipPath == null ? "" : String.valueOf(size)) + "," + duration + "," + csv(message));
+        writer.newLine();
+        writer.flush();
+      }
+    }
+
+    private static String csv(final String value) {
+      if (value == null) {
+        return "";
+      }
+      if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+      }
+      return value;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+      if (json != null) {
+        json.writeEndArray();
+        json.close();
+      } else {
+        writer.close();
+      }
+    }
+  }
+}
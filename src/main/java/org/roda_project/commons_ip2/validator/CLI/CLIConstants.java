@@ -20,6 +20,21 @@ public final class CLIConstants {
    */
   public static final String CLI_OPTION_CREATE = "create";
 
+  /**
+   * CLI option to create the SIPs of a manifest.
+   */
+  public static final String CLI_OPTION_CREATE_BATCH = "create-batch";
+
+  /**
+   * CLI option to start the validation server.
+   */
+  public static final String CLI_OPTION_SERVER = "server";
+
+  /**
+   * CLI option to watch a directory and validate the packages that land there.
+   */
+  public static final String CLI_OPTION_WATCH = "watch";
+
   /**
    * CLI option sip paths to validate.
    */
@@ -40,6 +55,11 @@ public final class CLIConstants {
    */
   public static final String CLI_OPTION_VERBOSE = "-v";
 
+  /**
+   * CLI option to set the validation cache directory.
+   */
+  public static final String CLI_OPTION_CACHE = "-c";
+
   /**
    * CLI option to give the metadata file.
    */
@@ -103,6 +123,46 @@ public final class CLIConstants {
 
   /* OPTIONS WITHOUT "-" char */
 
+  /**
+   * Long option server port without ident.
+   */
+  public static final String CLI_SERVER_LONG_OPTION_PORT_WITHOUT_IDENT = "port";
+
+  /**
+   * Short option server port without ident.
+   */
+  public static final String CLI_SERVER_SHORT_OPTION_PORT_WITHOUT_IDENT = "p";
+
+  /**
+   * Long option server concurrent jobs without ident.
+   */
+  public static final String CLI_SERVER_LONG_OPTION_THREADS_WITHOUT_IDENT = "threads";
+
+  /**
+   * Short option server concurrent jobs without ident.
+   */
+  public static final String CLI_SERVER_SHORT_OPTION_THREADS_WITHOUT_IDENT = "t";
+
+  /**
+   * Long option server queue capacity without ident.
+   */
+  public static final String CLI_SERVER_LONG_OPTION_QUEUE_WITHOUT_IDENT = "queue";
+
+  /**
+   * Short option server queue capacity without ident.
+   */
+  public static final String CLI_SERVER_SHORT_OPTION_QUEUE_WITHOUT_IDENT = "q";
+
+  /**
+   * Long option watch stabilisation time without ident.
+   */
+  public static final String CLI_WATCH_LONG_OPTION_STABLE_WITHOUT_IDENT = "stable";
+
+  /**
+   * Short option watch stabilisation time without ident.
+   */
+  public static final String CLI_WATCH_SHORT_OPTION_STABLE_WITHOUT_IDENT = "s";
+
   /**
    * Short option input without ident.
    */
@@ -118,6 +178,11 @@ public final class CLIConstants {
    */
   public static final String CLI_VALIDATE_SHORT_OPTION_TYPE_OF_REPORT_WITHOUT_IDENT = "r";
 
+  /**
+   * Short option validation cache directory without ident.
+   */
+  public static final String CLI_VALIDATE_SHORT_OPTION_CACHE_WITHOUT_IDENT = "c";
+
   /**
    * Short option verbose without ident.
    */
@@ -0,0 +1,440 @@
+package org.roda_project.commons_ip2.validator.CLI;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import javax.xml.bind.JAXBException;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.utils.METSUtils;
+import org.roda_project.commons_ip2.validator.utils.CLIUtils;
+import org.roda_project.commons_ip2.validator.utils.ExitCodes;
+import org.roda_project.commons_ip2.validator.utils.SipCreatorUtils;
+import org.roda_project.commons_ip2.validator.utils.SipManifest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Long-running validation and build service. Keeps the JAXB context, the METS
+ * schema and the controlled vocabularies loaded between packages and accepts
+ * jobs over a simple HTTP endpoint bound to the loopback interface. Validation
+ * and build jobs share the same bounded job pool.
+ *
+ * <ul>
+ * <li>{@code /validate?sip=<path>[&output=<dir>][&report=default|eark]}
+ * validates a package and answers with the report path and status:
+ * {@code valid} or {@code invalid} once validated, {@code bad_request} for a
+ * malformed request, {@code rejected} if the job queue is full, or
+ * {@code error}.</li>
+ * <li>{@code /build?path=<dir>&<field>=<value>...} builds an E-ARK SIP in the
+ * given directory, with the fields of a batch creation manifest (see
+ * {@link SipManifest}), multi-valued fields separated by
+ * {@value SipManifest#CSV_VALUE_SEPARATOR}, and optionally
+ * {@code submitter-agent-name} and {@code submitter-agent-id}. Answers with the
+ * SIP path and status: {@code created}, {@code bad_request},
+ * {@code rejected} or {@code error}.</li>
+ * <li>{@code /metrics} answers with the job queue metrics.</li>
+ * </ul>
+ */
+public class CLIServer {
+  private static final Logger LOGGER = LoggerFactory.getLogger(CLIServer.class);
+
+  /**
+   * Default port of the server.
+   */
+  private static final int DEFAULT_PORT = 8088;
+
+  /**
+   * Default capacity of the jobs queue.
+   */
+  private static final int DEFAULT_QUEUE_CAPACITY = 100;
+
+  /**
+   * {@link Options}.
+   */
+  private final Options parameters;
+
+  /**
+   * {@link CommandLineParser}.
+   */
+  private final CommandLineParser parser;
+
+  /**
+   * Lock used to choose report names, as concurrent jobs may target the same
+   * report directory.
+   */
+  private final Object reportLock = new Object();
+
+  private final AtomicLong completedJobs = new AtomicLong();
+  private final AtomicLong failedJobs = new AtomicLong();
+  private final AtomicLong rejectedJobs = new AtomicLong();
+  private final AtomicLong totalJobMillis = new AtomicLong();
+
+  /**
+   * Pool of validation jobs, package-private so that tests can fill it.
+   */
+  ThreadPoolExecutor jobs;
+  private int queueCapacity;
+  private HttpServer server;
+  private ExecutorService requests;
+
+  /** Initialize available server options. */
+  public CLIServer() {
+    this.parameters = new Options();
+    this.parser = new DefaultParser();
+
+    final Option port = new Option(CLIConstants.CLI_SERVER_SHORT_OPTION_PORT_WITHOUT_IDENT,
+      CLIConstants.CLI_SERVER_LONG_OPTION_PORT_WITHOUT_IDENT, true, "Port to listen on");
+    port.setArgs(1);
+    port.setRequired(false);
+    parameters.addOption(port);
+
+    final Option threads = new Option(CLIConstants.CLI_SERVER_SHORT_OPTION_THREADS_WITHOUT_IDENT,
+      CLIConstants.CLI_SERVER_LONG_OPTION_THREADS_WITHOUT_IDENT, true, "Maximum number of concurrent jobs");
+    threads.setArgs(1);
+    threads.setRequired(false);
+    parameters.addOption(threads);
+
+    final Option queue = new Option(CLIConstants.CLI_SERVER_SHORT_OPTION_QUEUE_WITHOUT_IDENT,
+      CLIConstants.CLI_SERVER_LONG_OPTION_QUEUE_WITHOUT_IDENT, true, "Maximum number of waiting jobs");
+    queue.setArgs(1);
+    queue.setRequired(false);
+    parameters.addOption(queue);
+  }
+
+  /**
+   * Print All available options.
+   *
+   * @param printStream
+   *          {@link PrintStream}
+   */
+  public static void printUsageServer(final PrintStream printStream) {
+    final StringBuilder out = new StringBuilder();
+    out.append("Usage: Commons-ip server [OPTIONS]\n");
+    out.append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.COMMANDS_KEY);
+    out.append(CLIConstants.DOUBLE_END_OF_LINE);
+    out.append(CLIConstants.TAB).append("-p, --port").append(CLIConstants.DOUBLE_TAB)
+      .append("(optional) Port to listen on, default ").append(DEFAULT_PORT).append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.TAB).append("-t, --threads").append(CLIConstants.DOUBLE_TAB)
+      .append("(optional) Maximum number of concurrent jobs, default number of processors")
+      .append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.TAB).append("-q, --queue").append(CLIConstants.DOUBLE_TAB)
+      .append("(optional) Maximum number of waiting jobs, default ").append(DEFAULT_QUEUE_CAPACITY)
+      .append(CLIConstants.END_OF_LINE);
+    printStream.append(out).flush();
+  }
+
+  /**
+   * Start the server. Returns once the server is listening.
+   *
+   * @param args
+   *          {@link String} array with arguments of command.
+   * @return one {@link ExitCodes}
+   */
+  public int start(final String[] args) {
+    final int port;
+    final int threads;
+    try {
+      final CommandLine commandLine = parser.parse(parameters, args);
+      port = Integer.parseInt(
+        commandLine.getOptionValue(CLIConstants.CLI_SERVER_SHORT_OPTION_PORT_WITHOUT_IDENT, "" + DEFAULT_PORT));
+      threads = Integer.parseInt(commandLine.getOptionValue(CLIConstants.CLI_SERVER_SHORT_OPTION_THREADS_WITHOUT_IDENT,
+        "" + Runtime.getRuntime().availableProcessors()));
+      queueCapacity = Integer.parseInt(commandLine
+        .getOptionValue(CLIConstants.CLI_SERVER_SHORT_OPTION_QUEUE_WITHOUT_IDENT, "" + DEFAULT_QUEUE_CAPACITY));
+      if (port < 0 || threads < 1 || queueCapacity < 1) {
+        throw new NumberFormatException();
+      }
+    } catch (final ParseException | NumberFormatException e) {
+      printUsageServer(System.out);
+      return ExitCodes.EXIT_PARSE_ARG;
+    }
+
+    try {
+      // warm up the expensive, shareable, METS machinery before accepting jobs
+      METSUtils.getMetsContext();
+      METSUtils.getMetsSchema();
+    } catch (final JAXBException | SAXException e) {
+      CLIUtils.printErrors(System.out, "Error on object initialize");
+      return ExitCodes.EXIT_CANNOT_CREATE_EARKVALIDATOR_OBJECT;
+    }
+
+    jobs = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(queueCapacity));
+
+    try {
+      server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+      server.createContext("/validate", this::handleValidate);
+      server.createContext("/build", this::handleBuild);
+      server.createContext("/metrics", this::handleMetrics);
+      // requests only wait on jobs, the concurrency limit is enforced by the job pool
+      requests = Executors.newCachedThreadPool();
+      server.setExecutor(requests);
+      server.start();
+      Runtime.getRuntime().addShutdownHook(new Thread(this::stop));
+      System.out.println("Listening on " + server.getAddress());
+    } catch (final IOException e) {
+      jobs.shutdownNow();
+      CLIUtils.printErrors(System.out, "Cannot start the server: " + e.getMessage());
+      return ExitCodes.EXIT_CODE_SERVER_CANNOT_START;
+    }
+    return ExitCodes.EXIT_CODE_OK;
+  }
+
+  /**
+   * Gets the address the server is listening on.
+   *
+   * @return the {@link InetSocketAddress}, or {@code null} if not started.
+   */
+  public InetSocketAddress getAddress() {
+    return server != null ? server.getAddress() : null;
+  }
+
+  /**
+   * Stops the server, cancelling the running and waiting jobs.
+   */
+  public void stop() {
+    if (server != null) {
+      server.stop(0);
+      requests.shutdownNow();
+      jobs.shutdownNow();
+    }
+  }
+
+  private void handleValidate(final HttpExchange exchange) throws IOException {
+    final Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+    final String sip = query.get("sip");
+    final String output = query.get("output");
+    final String reportType = query.get("report");
+    if (sip == null || !Files.exists(Paths.get(sip))) {
+      sendStatus(exchange, 400, "bad_request", sip, null, "Missing or non existing sip");
+      return;
+    }
+    if (reportType != null && !"default".equals(reportType) && !"eark".equals(reportType)) {
+      sendStatus(exchange, 400, "bad_request", sip, null, "Invalid Option of ReportType");
+      return;
+    }
+
+    final Path sipPath = Paths.get(sip);
+    final Future<Verdict> job;
+    try {
+      job = jobs.submit(() -> validate(sipPath, output, reportType));
+    } catch (final RejectedExecutionException e) {
+      rejectedJobs.incrementAndGet();
+      sendStatus(exchange, 503, "rejected", sip, null, "Job queue is full");
+      return;
+    }
+
+    try {
+      final Verdict verdict = job.get();
+      sendStatus(exchange, 200, verdict.valid ? "valid" : "invalid", sip, verdict.reportPath, null);
+    } catch (final InterruptedException e) {
+      job.cancel(true);
+      Thread.currentThread().interrupt();
+      sendStatus(exchange, 503, "cancelled", sip, null, "Server is shutting down");
+    } catch (final ExecutionException e) {
+      LOGGER.error("Error validating {}", sip, e.getCause());
+      sendStatus(exchange, 500, "error", sip, null, String.valueOf(e.getCause().getMessage()));
+    }
+  }
+
+  private Verdict validate(final Path sipPath, final String output, final String reportType) throws Exception {
+    final long start = System.currentTimeMillis();
+    try {
+      final Path reportPath;
+      synchronized (reportLock) {
+        if (output != null) {
+          Files.createDirectories(Paths.get(output));
+        }
+        final String date = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        reportPath = CLIValidator.createReportPath(sipPath, output, date);
+        // reserve the name so that concurrent jobs do not pick it
+        Files.createFile(reportPath);
+      }
+      final CLIValidator.Outcome outcome = new CLIValidator().validate(reportType, reportPath, sipPath, false);
+      if (outcome.exitCode != ExitCodes.EXIT_CODE_OK && outcome.exitCode != ExitCodes.EXIT_CODE_NOT_VALID) {
+        throw new IOException("Cannot create the report " + reportPath);
+      }
+      completedJobs.incrementAndGet();
+      return new Verdict(outcome.exitCode == ExitCodes.EXIT_CODE_OK, outcome.reportPath);
+    } catch (final Exception e) {
+      failedJobs.incrementAndGet();
+      throw e;
+    } finally {
+      totalJobMillis.addAndGet(System.currentTimeMillis() - start);
+    }
+  }
+
+  private void handleBuild(final HttpExchange exchange) throws IOException {
+    final Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+    final String path = query.get(CLIConstants.CLI_CREATE_LONG_OPTION_PATH_WITHOUT_IDENT);
+    final Map<String, String[]> fields = new HashMap<>();
+    for (Map.Entry<String, String> field : query.entrySet()) {
+      final List<String> values = new ArrayList<>();
+      for (String value : field.getValue().split(Pattern.quote(SipManifest.CSV_VALUE_SEPARATOR))) {
+        if (!value.trim().isEmpty()) {
+          values.add(value.trim());
+        }
+      }
+      fields.put(field.getKey(), values.toArray(new String[] {}));
+    }
+    final SipManifest.Entry entry = SipManifest.Entry.of(fields);
+    if (path == null) {
+      sendStatus(exchange, 400, "bad_request", null, null, "Missing path");
+      return;
+    }
+    final String message = SipCreatorUtils.validateManifestEntry(entry);
+    if (message != null) {
+      sendStatus(exchange, 400, "bad_request", null, null, message);
+      return;
+    }
+
+    final Future<Path> job;
+    try {
+      job = jobs.submit(() -> build(entry, Paths.get(path),
+        query.get(CLIConstants.CLI_CREATE_LONG_OPTION_SUBMITTER_AGENT_NAME_WITHOUT_IDENT),
+        query.get(CLIConstants.CLI_CREATE_LONG_OPTION_SUBMITTER_AGENT_ID_WITHOUT_IDENT)));
+    } catch (final RejectedExecutionException e) {
+      rejectedJobs.incrementAndGet();
+      sendStatus(exchange, 503, "rejected", null, null, "Job queue is full");
+      return;
+    }
+
+    try {
+      sendStatus(exchange, 200, "created", job.get().toString(), null, null);
+    } catch (final InterruptedException e) {
+      job.cancel(true);
+      Thread.currentThread().interrupt();
+      sendStatus(exchange, 503, "cancelled", null, null, "Server is shutting down");
+    } catch (final ExecutionException e) {
+      LOGGER.error("Error building a SIP in {}", path, e.getCause());
+      sendStatus(exchange, 500, "error", null, null, String.valueOf(e.getCause().getMessage()));
+    }
+  }
+
+  private Path build(final SipManifest.Entry entry, final Path path, final String submitterAgentName,
+    final String submitterAgentID) throws Exception {
+    final long start = System.currentTimeMillis();
+    try {
+      final SIP sip = SipCreatorUtils.createEARK2SIP(entry, getClass().getPackage().getImplementationVersion(),
+        submitterAgentName, submitterAgentID);
+      final Path sipPath = sip.build(Files.createDirectories(path)).normalize().toAbsolutePath();
+      completedJobs.incrementAndGet();
+      return sipPath;
+    } catch (final Exception e) {
+      failedJobs.incrementAndGet();
+      throw e;
+    } finally {
+      totalJobMillis.addAndGet(System.currentTimeMillis() - start);
+    }
+  }
+
+  private void handleMetrics(final HttpExchange exchange) throws IOException {
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    try (JsonGenerator json = new JsonFactory().createGenerator(body, JsonEncoding.UTF8)) {
+      final long finished = completedJobs.get() + failedJobs.get();
+      json.writeStartObject();
+      json.writeNumberField("maxConcurrentJobs", jobs.getMaximumPoolSize());
+      json.writeNumberField("queueCapacity", queueCapacity);
+      json.writeNumberField("activeJobs", jobs.getActiveCount());
+      json.writeNumberField("queuedJobs", jobs.getQueue().size());
+      json.writeNumberField("completedJobs", completedJobs.get());
+      json.writeNumberField("failedJobs", failedJobs.get());
+      json.writeNumberField("rejectedJobs", rejectedJobs.get());
+      json.writeNumberField("averageJobMillis", finished == 0 ? 0 : totalJobMillis.get() / finished);
+      json.writeEndObject();
+    }
+    send(exchange, 200, body.toByteArray());
+  }
+
+  private void sendStatus(final HttpExchange exchange, final int code, final String status, final String sip,
+    final Path report, final String message) throws IOException {
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    try (JsonGenerator json = new JsonFactory().createGenerator(body, JsonEncoding.UTF8)) {
+      json.writeStartObject();
+      json.writeStringField("status", status);
+      json.writeStringField("sip", sip);
+      if (report != null) {
+        json.writeStringField("report", report.toString());
+      }
+      if (message != null) {
+        json.writeStringField("message", message);
+      }
+      json.writeEndObject();
+    }
+    send(exchange, code, body.toByteArray());
+  }
+
+  private static void send(final HttpExchange exchange, final int code, final byte[] body) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(code, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static Map<String, String> parseQuery(final String rawQuery) throws UnsupportedEncodingException {
+    final Map<String, String> query = new HashMap<>();
+    if (rawQuery != null) {
+      for (String param : rawQuery.split("&")) {
+        final int index = param.indexOf('=');
+        if (index > 0) {
+          query.put(URLDecoder.decode(param.substring(0, index), StandardCharsets.UTF_8.name()),
+            URLDecoder.decode(param.substring(index + 1), StandardCharsets.UTF_8.name()));
+        }
+      }
+    }
+    return query;
+  }
+
+  /** Outcome of a validation job. */
+  private static final class Verdict {
+    private final boolean valid;
+    private final Path reportPath;
+
+    private Verdict(final boolean valid, final Path reportPath) {
+      this.valid = valid;
+      this.reportPath = reportPath;
+    }
+  }
+}
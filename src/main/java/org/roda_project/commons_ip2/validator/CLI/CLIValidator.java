@@ -23,6 +23,7 @@ import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.roda_project.commons_ip2.validator.EARKPyIPValidator;
 import org.roda_project.commons_ip2.validator.EARKSIPValidator;
+import org.roda_project.commons_ip2.validator.common.ValidationCache;
 import org.roda_project.commons_ip2.validator.constants.Constants;
 import org.roda_project.commons_ip2.validator.observer.ProgressValidationLoggerObserver;
 import org.roda_project.commons_ip2.validator.reporter.ValidationReportOutputJSONPyIP;
@@ -42,6 +43,11 @@ public class CLIValidator {
    */
   private final CommandLineParser parser;
 
+  /**
+   * {@link ValidationCache}, {@code null} if results are not cached.
+   */
+  private ValidationCache validationCache;
+
   /** Initialize available CLI options. */
   public CLIValidator() {
     this.parameters = new Options();
@@ -69,6 +75,10 @@ public class CLIValidator {
     verbose.setOptionalArg(false);
     verbose.setArgs(0);
     parameters.addOption(verbose);
+    final Option cache = new Option(CLIConstants.CLI_VALIDATE_SHORT_OPTION_CACHE_WITHOUT_IDENT, true,
+      "Validation cache directory");
+    cache.setRequired(false);
+    parameters.addOption(cache);
   }
 
   /**
@@ -96,6 +106,9 @@ public class CLIValidator {
       .append(CLIConstants.DOUBLE_END_OF_LINE);
     out.append(CLIConstants.TAB).append(CLIConstants.CLI_OPTION_VERBOSE).append(CLIConstants.DOUBLE_TAB)
       .append("(optional) Verbose command line output with all validation steps").append("/n");
+    out.append(CLIConstants.TAB).append(CLIConstants.CLI_OPTION_CACHE).append(CLIConstants.DOUBLE_TAB)
+      .append("(optional) Directory to cache validation results, reused when validating unchanged packages")
+      .append(CLIConstants.DOUBLE_END_OF_LINE);
     out.append(CLIConstants.END_OF_LINE);
     printStream.append(out).flush();
   }
@@ -136,27 +149,22 @@ public class CLIValidator {
         }
       }
 
+      if (commandLine.hasOption(CLIConstants.CLI_VALIDATE_SHORT_OPTION_CACHE_WITHOUT_IDENT)) {
+        validationCache = new ValidationCache(
+          Paths.get(commandLine.getOptionValue(CLIConstants.CLI_VALIDATE_SHORT_OPTION_CACHE_WITHOUT_IDENT)));
+      }
+
       final LocalDateTime localDateTime = LocalDateTime.now();
 
       final String date = localDateTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
       for (String sip : sipPaths) {
         final Path sipPath = Paths.get(sip);
-        Path reportPath;
-        int count = 1;
-        do {
-          final String reportName = sipPath.getFileName() + "_validation-report_" + date + "_" + count++
-            + CLIConstants.JSON_FILE_EXTENSION;
-          if (reportDirectoryPath != null) {
-            reportPath = Paths.get(reportDirectoryPath).resolve(reportName);
-          } else {
-            reportPath = sipPath.normalize().toAbsolutePath().getParent().resolve(reportName);
-          }
-
-        } while (Files.exists(reportPath));
-
-        validate(typeReportOption, reportPath, sipPath,
+        final Path reportPath = createReportPath(sipPath, reportDirectoryPath, date);
+        final Outcome outcome = validate(typeReportOption, reportPath, sipPath,
           commandLine.hasOption(CLIConstants.CLI_CREATE_SHORT_OPTION_VERBOSE_WITHOUT_IDENT));
-        System.out.println(reportPath.normalize().toAbsolutePath());
+        if (outcome.reportPath != null) {
+          System.out.println(outcome.reportPath);
+        }
       }
 
     } catch (final ParseException e) {
@@ -191,6 +199,34 @@ public class CLIValidator {
     printStream.append(out).flush();
   }
 
+  /**
+   * Resolves a report path for the given SIP that does not exist yet.
+   *
+   * @param sipPath
+   *          the {@link Path} to the SIP.
+   * @param reportDirectoryPath
+   *          the directory to save the report, or {@code null} to use the SIP
+   *          folder.
+   * @param date
+   *          the formatted date to use in the report name.
+   * @return the report {@link Path}.
+   */
+  static Path createReportPath(final Path sipPath, final String reportDirectoryPath, final String date) {
+    Path reportPath;
+    int count = 1;
+    do {
+      final String reportName = sipPath.getFileName() + "_validation-report_" + date + "_" + count++
+        + CLIConstants.JSON_FILE_EXTENSION;
+      if (reportDirectoryPath != null) {
+        reportPath = Paths.get(reportDirectoryPath).resolve(reportName);
+      } else {
+        reportPath = sipPath.normalize().toAbsolutePath().getParent().resolve(reportName);
+      }
+
+    } while (Files.exists(reportPath));
+    return reportPath;
+  }
+
   private int createDirectory(final String path) {
     try {
       Files.createDirectories(Paths.get(path));
@@ -200,20 +236,31 @@ public class CLIValidator {
     return ExitCodes.EXIT_CODE_OK;
   }
 
-  private int validate(final String typeReportOption, final Path reportPath, final Path sipPath, final boolean verbose)
+  /**
+   * Validates a package, writing its report.
+   *
+   * @return the {@link Outcome}, with the path of the report actually written,
+   *         which is a temporary file if the given one cannot be created.
+   */
+  Outcome validate(final String typeReportOption, final Path reportPath, final Path sipPath, final boolean verbose)
     throws IOException, ParserConfigurationException, SAXException, NoSuchAlgorithmException {
     if (typeReportOption == null || typeReportOption.equals("default")) {
-      final OutputStream outputStream = createReportOutputStream(reportPath);
+      final Path outputFile = createReportFile(reportPath);
+      final OutputStream outputStream = createReportOutputStream(outputFile);
+      final Path writtenPath = outputFile.normalize().toAbsolutePath();
       if (outputStream != null) {
         final ValidationReportOutputJson jsonReporter = new ValidationReportOutputJson(sipPath, outputStream);
-        final EARKSIPValidator earksipValidator = new EARKSIPValidator(jsonReporter);
+        final EARKSIPValidator earksipValidator = new EARKSIPValidator(jsonReporter, validationCache);
         if (verbose) {
           earksipValidator.addObserver(new ProgressValidationLoggerObserver());
         }
-        earksipValidator.validate();
+        if (!earksipValidator.validate()) {
+          return new Outcome(ExitCodes.EXIT_CODE_NOT_VALID, writtenPath);
+        }
+        return new Outcome(ExitCodes.EXIT_CODE_OK, writtenPath);
       } else {
         CLIUtils.printErrors(System.out, "Error on creation of reportPath");
-        return ExitCodes.EXIT_CANNOT_CREATE_REPORT;
+        return new Outcome(ExitCodes.EXIT_CANNOT_CREATE_REPORT, null);
       }
     } else if (typeReportOption.equals("eark")) {
       final ValidationReportOutputJSONPyIP jsonReporter = new ValidationReportOutputJSONPyIP(reportPath, sipPath);
@@ -221,16 +268,18 @@ public class CLIValidator {
       if (verbose) {
         earkPyIPValidator.addObserver(new ProgressValidationLoggerObserver());
       }
-      earkPyIPValidator.validate();
+      final Path writtenPath = reportPath.normalize().toAbsolutePath();
+      if (!earkPyIPValidator.validate()) {
+        return new Outcome(ExitCodes.EXIT_CODE_NOT_VALID, writtenPath);
+      }
+      return new Outcome(ExitCodes.EXIT_CODE_OK, writtenPath);
     } else {
       CLIUtils.printErrors(System.out, "Invalid Option of ReportType");
-      return ExitCodes.EXIT_REPORT_TYPE_INVALID;
+      return new Outcome(ExitCodes.EXIT_REPORT_TYPE_INVALID, null);
     }
-    return ExitCodes.EXIT_CODE_OK;
   }
 
-  private OutputStream createReportOutputStream(final Path reportPath) throws IOException {
-    final Path outputFile = createReportFile(reportPath);
+  private OutputStream createReportOutputStream(final Path outputFile) throws IOException {
     OutputStream outputStream = null;
     if (outputFile != null) {
       outputStream = new BufferedOutputStream(new FileOutputStream(outputFile.toFile()));
@@ -256,4 +305,23 @@ public class CLIValidator {
     }
     return outputFile;
   }
+
+  /** Outcome of the validation of a package. */
+  static final class Outcome {
+    /**
+     * {@link ExitCodes#EXIT_CODE_OK} if the package is valid,
+     * {@link ExitCodes#EXIT_CODE_NOT_VALID} if it is not, or the exit code of the
+     * error that prevented the validation.
+     */
+    final int exitCode;
+    /**
+     * {@link Path} of the report written, {@code null} if none was.
+     */
+    final Path reportPath;
+
+    private Outcome(final int exitCode, final Path reportPath) {
+      this.exitCode = exitCode;
+      this.reportPath = reportPath;
+    }
+  }
 }
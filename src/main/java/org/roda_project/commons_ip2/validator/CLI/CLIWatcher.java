@@ -0,0 +1,407 @@
+package org.roda_project.commons_ip2.validator.CLI;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.roda_project.commons_ip2.validator.EARKSIPValidator;
+import org.roda_project.commons_ip2.validator.reporter.ValidationReportOutputJson;
+import org.roda_project.commons_ip2.validator.utils.CLIUtils;
+import org.roda_project.commons_ip2.validator.utils.ExitCodes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+
+/**
+ * Watch-folder mode. Watches a staging directory for ZIP packages, waits until
+ * each upload is complete (a {@code <package>.done} marker file exists or its
+ * size and modification time did not change for a while), validates it on a
+ * bounded worker pool and moves it to the {@code valid} or {@code invalid}
+ * folder, writing the report to the {@code reports} folder. A package that
+ * cannot be validated is moved to the {@code invalid} folder along with a
+ * {@code <package>.error} file with the cause.
+ */
+public class CLIWatcher {
+  private static final Logger LOGGER = LoggerFactory.getLogger(CLIWatcher.class);
+
+  /**
+   * Suffix of the marker file that flags an upload as complete.
+   */
+  private static final String MARKER_SUFFIX = ".done";
+
+  /**
+   * Suffix of the file, next to a package that could not be validated, with
+   * the cause.
+   */
+  private static final String ERROR_SUFFIX = ".error";
+
+  /**
+   * Default seconds a package must stay unchanged to be considered complete.
+   */
+  private static final int DEFAULT_STABLE_SECONDS = 5;
+
+  /**
+   * Default capacity of the jobs queue.
+   */
+  private static final int DEFAULT_QUEUE_CAPACITY = 20;
+
+  /**
+   * {@link Options}.
+   */
+  private final Options parameters;
+
+  /**
+   * {@link CommandLineParser}.
+   */
+  private final CommandLineParser parser;
+
+  /**
+   * Packages seen but not yet scheduled, with their last observed state.
+   */
+  private final Map<Path, PendingPackage> pending = new ConcurrentHashMap<>();
+
+  /**
+   * Packages scheduled or being validated.
+   */
+  private final Set<Path> inProgress = ConcurrentHashMap.newKeySet();
+
+  private Path watchDir;
+  private Path validDir;
+  private Path invalidDir;
+  private Path reportsDir;
+  private long stableMillis;
+
+  /** Initialize available watch options. */
+  public CLIWatcher() {
+    this.parameters = new Options();
+    this.parser = new DefaultParser();
+
+    final Option input = new Option(CLIConstants.CLI_CREATE_SHORT_OPTION_INPUT_WITHOUT_IDENT, "input", true,
+      "Directory to watch");
+    input.setArgs(1);
+    input.setRequired(true);
+    parameters.addOption(input);
+
+    final Option output = new Option(CLIConstants.CLI_CREATE_SHORT_OPTION_OUTPUT_FILE_WITHOUT_IDENT, "output", true,
+      "Directory for the valid, invalid and reports folders");
+    output.setArgs(1);
+    output.setRequired(false);
+    parameters.addOption(output);
+
+    final Option threads = new Option(CLIConstants.CLI_SERVER_SHORT_OPTION_THREADS_WITHOUT_IDENT,
+      CLIConstants.CLI_SERVER_LONG_OPTION_THREADS_WITHOUT_IDENT, true, "Maximum number of concurrent jobs");
+    threads.setArgs(1);
+    threads.setRequired(false);
+    parameters.addOption(threads);
+
+    final Option queue = new Option(CLIConstants.CLI_SERVER_SHORT_OPTION_QUEUE_WITHOUT_IDENT,
+      CLIConstants.CLI_SERVER_LONG_OPTION_QUEUE_WITHOUT_IDENT, true, "Maximum number of waiting jobs");
+    queue.setArgs(1);
+    queue.setRequired(false);
+    parameters.addOption(queue);
+
+    final Option stable = new Option(CLIConstants.CLI_WATCH_SHORT_OPTION_STABLE_WITHOUT_IDENT,
+      CLIConstants.CLI_WATCH_LONG_OPTION_STABLE_WITHOUT_IDENT, true,
+      "Seconds a package must stay unchanged to be validated");
+    stable.setArgs(1);
+    stable.setRequired(false);
+    parameters.addOption(stable);
+  }
+
+  /**
+   * Print All available options.
+   *
+   * @param printStream
+   *          {@link PrintStream}
+   */
+  public static void printUsageWatcher(final PrintStream printStream) {
+    final StringBuilder out = new StringBuilder();
+    out.append("Usage: Commons-ip watch [OPTIONS]\n");
+    out.append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.COMMANDS_KEY);
+    out.append(CLIConstants.DOUBLE_END_OF_LINE);
+    out.append(CLIConstants.TAB).append(CLIConstants.CLI_OPTION_SIP_PATHS).append(", --input")
+      .append(CLIConstants.DOUBLE_TAB).append("(required) Directory to watch for ZIP packages")
+      .append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.TAB).append(CLIConstants.CLI_OPTION_REPORT_DIRECTORY).append(", --output")
+      .append(CLIConstants.DOUBLE_TAB)
+      .append("(optional) Directory for the valid, invalid and reports folders, never watched, default the")
+      .append(" watched directory")
+      .append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.TAB).append("-t, --threads").append(CLIConstants.DOUBLE_TAB)
+      .append("(optional) Maximum number of concurrent jobs, default number of processors")
+      .append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.TAB).append("-q, --queue").append(CLIConstants.DOUBLE_TAB)
+      .append("(optional) Maximum number of waiting jobs, default ").append(DEFAULT_QUEUE_CAPACITY)
+      .append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.TAB).append("-s, --stable").append(CLIConstants.DOUBLE_TAB)
+      .append("(optional) Seconds without changes before validating a package, default ")
+      .append(DEFAULT_STABLE_SECONDS).append(", a <package>").append(MARKER_SUFFIX)
+      .append(" marker file skips the wait").append(CLIConstants.END_OF_LINE);
+    printStream.append(out).flush();
+  }
+
+  /**
+   * Start watching. Blocks until the thread is interrupted.
+   *
+   * @param args
+   *          {@link String} array with arguments of command.
+   * @return one {@link ExitCodes}
+   */
+  public int start(final String[] args) {
+    final Path outputDir;
+    final int threads;
+    final int queueCapacity;
+    try {
+      final CommandLine commandLine = parser.parse(parameters, args);
+      watchDir = Paths.get(commandLine.getOptionValue(CLIConstants.CLI_CREATE_SHORT_OPTION_INPUT_WITHOUT_IDENT))
+        .toAbsolutePath().normalize();
+      final String output = commandLine.getOptionValue(CLIConstants.CLI_CREATE_SHORT_OPTION_OUTPUT_FILE_WITHOUT_IDENT);
+      outputDir = output == null ? watchDir : Paths.get(output).toAbsolutePath().normalize();
+      threads = Integer.parseInt(commandLine.getOptionValue(CLIConstants.CLI_SERVER_SHORT_OPTION_THREADS_WITHOUT_IDENT,
+        "" + Runtime.getRuntime().availableProcessors()));
+      queueCapacity = Integer.parseInt(commandLine
+        .getOptionValue(CLIConstants.CLI_SERVER_SHORT_OPTION_QUEUE_WITHOUT_IDENT, "" + DEFAULT_QUEUE_CAPACITY));
+      stableMillis = TimeUnit.SECONDS.toMillis(Integer.parseInt(commandLine
+        .getOptionValue(CLIConstants.CLI_WATCH_SHORT_OPTION_STABLE_WITHOUT_IDENT, "" + DEFAULT_STABLE_SECONDS)));
+      if (threads < 1 || queueCapacity < 1 || stableMillis < 0) {
+        throw new NumberFormatException();
+      }
+    } catch (final ParseException | NumberFormatException e) {
+      printUsageWatcher(System.out);
+      return ExitCodes.EXIT_PARSE_ARG;
+    }
+
+    if (!Files.isDirectory(watchDir)) {
+      CLIUtils.printErrors(System.out, "The directory to watch does not exist");
+      return ExitCodes.EXIT_CODE_CREATE_INVALID_PATHS;
+    }
+
+    validDir = outputDir.resolve("valid");
+    invalidDir = outputDir.resolve("invalid");
+    reportsDir = outputDir.resolve("reports");
+    try {
+      Files.createDirectories(validDir);
+      Files.createDirectories(invalidDir);
+      Files.createDirectories(reportsDir);
+    } catch (final IOException e) {
+      CLIUtils.printErrors(System.out, "Cannot create the output directories.");
+      return ExitCodes.EXIT_CODE_CREATE_DIRECTORY_FAILS;
+    }
+    if (isOutput(watchDir)) {
+      // packages moved out would land in the watched directory again
+      CLIUtils.printErrors(System.out, "The watched directory cannot be one of the output directories");
+      return ExitCodes.EXIT_CODE_CREATE_INVALID_PATHS;
+    }
+
+    final ThreadPoolExecutor jobs = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(queueCapacity));
+    try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+      watchDir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+      System.out.println("Watching " + watchDir);
+      scan(watchDir);
+      while (!Thread.currentThread().isInterrupted()) {
+        final WatchKey key = watchService.poll(1, TimeUnit.SECONDS);
+        if (key != null) {
+          for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+              scan(watchDir);
+            } else {
+              track(watchDir.resolve((Path) event.context()));
+            }
+          }
+          if (!key.reset()) {
+            CLIUtils.printErrors(System.out, "The watched directory is no longer accessible");
+            return ExitCodes.EXIT_CODE_CREATE_INVALID_PATHS;
+          }
+        }
+        schedule(jobs);
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (final IOException e) {
+      CLIUtils.printErrors(System.out, "Cannot watch the directory: " + e.getMessage());
+      return ExitCodes.EXIT_CODE_CREATE_INVALID_PATHS;
+    } finally {
+      jobs.shutdown();
+    }
+    return ExitCodes.EXIT_CODE_OK;
+  }
+
+  private void scan(final Path watchDir) throws IOException {
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(watchDir)) {
+      for (Path path : stream) {
+        track(path);
+      }
+    }
+  }
+
+  /**
+   * Only the files right inside the watched directory are packages. The
+   * output folders, inside it by default, and anything under them are not.
+   */
+  private void track(final Path path) {
+    if (!watchDir.equals(path.getParent()) || isOutput(path)) {
+      return;
+    }
+    final Path sip = path.getFileName().toString().endsWith(MARKER_SUFFIX) ? Paths.get(
+      path.toString().substring(0, path.toString().length() - MARKER_SUFFIX.length())) : path;
+    if (sip.getFileName().toString().toLowerCase().endsWith(".zip") && !inProgress.contains(sip)) {
+      pending.putIfAbsent(sip, new PendingPackage());
+    }
+  }
+
+  /**
+   * Schedules every pending package whose upload is complete. When the job queue
+   * is full packages stay pending and are retried on the next tick, so the
+   * watcher never blocks nor drops packages.
+   */
+  private void schedule(final ThreadPoolExecutor jobs) {
+    final long now = System.currentTimeMillis();
+    final Iterator<Map.Entry<Path, PendingPackage>> iterator = pending.entrySet().iterator();
+    while (iterator.hasNext()) {
+      final Map.Entry<Path, PendingPackage> entry = iterator.next();
+      final Path sip = entry.getKey();
+      final Path marker = Paths.get(sip + MARKER_SUFFIX);
+      if (!Files.isRegularFile(sip)) {
+        if (!Files.exists(marker)) {
+          iterator.remove();
+        }
+        continue;
+      }
+      if (Files.exists(marker) || entry.getValue().isStable(sip, now, stableMillis)) {
+        try {
+          inProgress.add(sip);
+          jobs.execute(() -> process(sip, marker));
+          iterator.remove();
+        } catch (final RejectedExecutionException e) {
+          inProgress.remove(sip);
+          return;
+        }
+      }
+    }
+  }
+
+  private boolean isOutput(final Path path) {
+    return path.startsWith(validDir) || path.startsWith(invalidDir) || path.startsWith(reportsDir);
+  }
+
+  private void process(final Path sip, final Path marker) {
+    Path reportPath = null;
+    try {
+      final String date = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+      synchronized (this) {
+        reportPath = Files.createFile(CLIValidator.createReportPath(sip, reportsDir.toString(), date));
+      }
+      final boolean valid;
+      try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(reportPath))) {
+        final ValidationReportOutputJson jsonReporter = new ValidationReportOutputJson(sip, outputStream);
+        valid = new EARKSIPValidator(jsonReporter).validate();
+      }
+      final Path target = moveTo(sip, valid ? validDir : invalidDir);
+      Files.deleteIfExists(marker);
+      System.out.println((valid ? "VALID " : "INVALID ") + target + " " + reportPath);
+    } catch (final IOException | ParserConfigurationException | SAXException | RuntimeException e) {
+      LOGGER.error("Error validating {}", sip, e);
+      fail(sip, marker, reportPath, e);
+    } finally {
+      inProgress.remove(sip);
+    }
+  }
+
+  /**
+   * Moves a package that could not be validated to the invalid folder, so that
+   * it does not stay in the watched directory unnoticed, with the cause in a
+   * file next to it. The incomplete report, if any, is removed.
+   */
+  private void fail(final Path sip, final Path marker, final Path reportPath, final Exception cause) {
+    try {
+      final Path target = moveTo(sip, invalidDir);
+      final StringWriter error = new StringWriter();
+      try (PrintWriter printWriter = new PrintWriter(error)) {
+        cause.printStackTrace(printWriter);
+      }
+      final Path errorPath = Paths.get(target + ERROR_SUFFIX);
+      Files.write(errorPath, error.toString().getBytes(StandardCharsets.UTF_8));
+      Files.deleteIfExists(marker);
+      if (reportPath != null) {
+        Files.deleteIfExists(reportPath);
+      }
+      System.out.println("ERROR " + target + " " + errorPath);
+    } catch (final IOException e) {
+      LOGGER.error("Cannot move {} to {}", sip, invalidDir, e);
+    }
+  }
+
+  private static Path moveTo(final Path sip, final Path dir) throws IOException {
+    final String name = sip.getFileName().toString();
+    Path target = dir.resolve(name);
+    int count = 1;
+    while (Files.exists(target)) {
+      target = dir.resolve(name.substring(0, name.length() - ".zip".length()) + "_" + count++ + ".zip");
+    }
+    try {
+      return Files.move(sip, target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (final AtomicMoveNotSupportedException e) {
+      return Files.move(sip, target);
+    }
+  }
+
+  /**
+   * Last observed size and modification time of a package being uploaded.
+   */
+  private static class PendingPackage {
+    private long size = -1;
+    private long modified = -1;
+    private long changedAt = System.currentTimeMillis();
+
+    boolean isStable(final Path sip, final long now, final long stableMillis) {
+      try {
+        final long currentSize = Files.size(sip);
+        final long currentModified = Files.getLastModifiedTime(sip).toMillis();
+        if (currentSize != size || currentModified != modified) {
+          size = currentSize;
+          modified = currentModified;
+          changedAt = now;
+          return false;
+        }
+        return now - changedAt >= stableMillis;
+      } catch (final IOException e) {
+        return false;
+      }
+    }
+  }
+}
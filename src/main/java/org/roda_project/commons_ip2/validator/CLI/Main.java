@@ -33,6 +33,21 @@ public final class Main {
         filteredArgs.remove(0);
         final CLICreator cliCreator = new CLICreator();
         cliCreator.start(filteredArgs.toArray(new String[] {}));
+      } else if (args[0].equals(CLIConstants.CLI_OPTION_CREATE_BATCH)) {
+        final List<String> filteredArgs = new ArrayList<>(Arrays.asList(args));
+        filteredArgs.remove(0);
+        final CLIBatchCreator cliBatchCreator = new CLIBatchCreator();
+        cliBatchCreator.start(filteredArgs.toArray(new String[] {}));
+      } else if (args[0].equals(CLIConstants.CLI_OPTION_SERVER)) {
+        final List<String> filteredArgs = new ArrayList<>(Arrays.asList(args));
+        filteredArgs.remove(0);
+        final CLIServer cliServer = new CLIServer();
+        cliServer.start(filteredArgs.toArray(new String[] {}));
+      } else if (args[0].equals(CLIConstants.CLI_OPTION_WATCH)) {
+        final List<String> filteredArgs = new ArrayList<>(Arrays.asList(args));
+        filteredArgs.remove(0);
+        final CLIWatcher cliWatcher = new CLIWatcher();
+        cliWatcher.start(filteredArgs.toArray(new String[] {}));
       } else {
         CLIUtils.printUsage(System.out);
 
@@ -143,6 +143,26 @@ public class EARKPyIPValidator {
    *           if some error occurs in Checksum Calculation.
    */
   public boolean validate() throws IOException, NoSuchAlgorithmException {
+    // the package digest of the report is calculated while the package is validated
+    validationReportOutputJSONPyIP.startPackageDigest();
+    try {
+      return validateAndWriteReport();
+    } finally {
+      validationReportOutputJSONPyIP.stopPackageDigest();
+      structureValidatorState.getZipManager().closeZipFile();
+    }
+  }
+
+  /**
+   * Validates the Information Package and writes the report.
+   *
+   * @return if the Information package is valid or not
+   * @throws IOException
+   *           if some I/O error occurs.
+   * @throws NoSuchAlgorithmException
+   *           if some error occurs in Checksum Calculation.
+   */
+  private boolean validateAndWriteReport() throws IOException, NoSuchAlgorithmException {
     structureComponent.notifyObserversIPValidationStarted();
     try {
       final Map<String, ReporterDetails> structureValidationResults = structureComponent
@@ -0,0 +1,70 @@
+package org.roda_project.commons_ip2.validator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.validator.common.StreamedZip;
+import org.roda_project.commons_ip2.validator.reporter.ValidationReportOutputJson;
+import org.xml.sax.SAXException;
+
+/**
+ * Builds an E-ARK SIP and validates it right away from what the builder already
+ * knows, instead of running {@link EARKSIPValidator} on the written file.
+ *
+ * <p>
+ * The entry list, sizes and checksums calculated while packaging, and the
+ * generated METS files, are recorded by a {@link StreamedZip.Recorder}. The
+ * structural and checksum requirements are then answered from those facts, so
+ * the package is neither opened nor hashed again and only the METS files are
+ * parsed.
+ * </p>
+ */
+public final class EARKSIPBuildValidator {
+  private EARKSIPBuildValidator() {
+    // do nothing
+  }
+
+  /**
+   * Builds a SIP in ZIP format and validates it.
+   *
+   * @param sip
+   *          the {@link SIP} to build.
+   * @param destinationDirectory
+   *          the {@link Path} where the SIP should be built.
+   * @param reportOutputStream
+   *          the {@link OutputStream} where the validation report is written.
+   * @return the {@link ValidationReportOutputJson}, with the path of the built
+   *         SIP and the results.
+   * @throws IPException
+   *           if some error occurs building the SIP.
+   * @throws InterruptedException
+   *           if interrupted while building the SIP.
+   * @throws IOException
+   *           if some I/O error occurs.
+   * @throws ParserConfigurationException
+   *           if some error occurred.
+   * @throws SAXException
+   *           if some error occurred.
+   */
+  public static ValidationReportOutputJson buildAndValidate(final SIP sip, final Path destinationDirectory,
+    final OutputStream reportOutputStream)
+    throws IPException, InterruptedException, IOException, ParserConfigurationException, SAXException {
+    final StreamedZip.Recorder recorder = new StreamedZip.Recorder();
+    final Path zipPath;
+    sip.addObserver(recorder);
+    try {
+      zipPath = sip.build(destinationDirectory);
+    } finally {
+      sip.removeObserver(recorder);
+    }
+
+    final ValidationReportOutputJson reportOutputJson = new ValidationReportOutputJson(zipPath, reportOutputStream);
+    new EARKSIPValidator(reportOutputJson, recorder.getStreamedZip()).validate();
+    return reportOutputJson;
+  }
+}
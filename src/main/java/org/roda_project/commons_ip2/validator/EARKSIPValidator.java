@@ -1,18 +1,28 @@
 package org.roda_project.commons_ip2.validator;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import javax.xml.bind.JAXBException;
 import javax.xml.parsers.ParserConfigurationException;
 
+import org.apache.commons.io.IOUtils;
+import org.roda_project.commons_ip2.utils.AsyncTasks;
 import org.roda_project.commons_ip2.validator.aipComponents.aipFileSectionComponent.AipFileSectionComponent;
 import org.roda_project.commons_ip2.validator.common.InstatiateMets;
+import org.roda_project.commons_ip2.validator.common.StreamedZip;
+import org.roda_project.commons_ip2.validator.common.ValidationCache;
 import org.roda_project.commons_ip2.validator.component.MetsValidator;
 import org.roda_project.commons_ip2.validator.component.administritiveMetadataComponent.AdministritiveMetadataComponentValidator;
 import org.roda_project.commons_ip2.validator.component.descriptiveMetadataComponent.DescriptiveMetadataComponentValidator;
@@ -32,11 +42,15 @@ import org.roda_project.commons_ip2.validator.sipComponents.sipMetsRootComponent
 import org.roda_project.commons_ip2.validator.state.MetsValidatorState;
 import org.roda_project.commons_ip2.validator.state.StructureValidatorState;
 import org.roda_project.commons_ip2.validator.utils.ResultsUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
 /** {@author João Gomes <jgomes@keep.pt>}. */
 public class EARKSIPValidator {
+  private static final Logger LOGGER = LoggerFactory.getLogger(EARKSIPValidator.class);
+
   /** IP path. */
   private final Path earksipPath;
 
@@ -54,6 +68,8 @@ public class EARKSIPValidator {
   private final List<MetsValidator> aipComponents = new ArrayList<>();
   /** The contextual mets state {@link MetsValidatorState}. */
   private final MetsValidatorState metsValidatorState;
+  /** Optional {@link ValidationCache}, {@code null} if not caching. */
+  private final ValidationCache validationCache;
 
   /**
    * Initializes Validation Objects.
@@ -69,7 +85,52 @@ public class EARKSIPValidator {
    */
   public EARKSIPValidator(final ValidationReportOutputJson reportOutputJson)
     throws IOException, ParserConfigurationException, SAXException {
+    this(reportOutputJson, (ValidationCache) null);
+  }
+
+  /**
+   * Initializes Validation Objects for an Information Package in ZIP format
+   * that was read as a stream, or recorded while being built, so that it is
+   * validated without reading it again. The {@link Path} of the report is only
+   * used as the package name.
+   *
+   * @param reportOutputJson
+   *          the {@link ValidationReportOutputJson}
+   * @param streamedZip
+   *          the {@link StreamedZip}
+   * @throws IOException
+   *           if some I/O error occurs.
+   * @throws ParserConfigurationException
+   *           if some error occurred.
+   * @throws SAXException
+   *           if some error occurred.
+   */
+  public EARKSIPValidator(final ValidationReportOutputJson reportOutputJson, final StreamedZip streamedZip)
+    throws IOException, ParserConfigurationException, SAXException {
+    this(reportOutputJson, (ValidationCache) null);
+    this.structureValidatorState.getZipManager().setStreamedZip(streamedZip);
+  }
 
+  /**
+   * Initializes Validation Objects, reusing results from a
+   * {@link ValidationCache} when the package, or some of its representation
+   * METS files, did not change since they were last validated.
+   *
+   * @param reportOutputJson
+   *          the {@link ValidationReportOutputJson}
+   * @param validationCache
+   *          the {@link ValidationCache}, or {@code null} to always validate.
+   * @throws IOException
+   *           if some I/O error occurs.
+   * @throws ParserConfigurationException
+   *           if some error occurred.
+   * @throws SAXException
+   *           if some error occurred.
+   */
+  public EARKSIPValidator(final ValidationReportOutputJson reportOutputJson, final ValidationCache validationCache)
+    throws IOException, ParserConfigurationException, SAXException {
+
+    this.validationCache = validationCache;
     this.earksipPath = reportOutputJson.getSipPath().toAbsolutePath().normalize();
 
     this.validationReportOutputJson = reportOutputJson;
@@ -138,10 +199,38 @@ public class EARKSIPValidator {
    *           if some I/O error occurs.
    */
   public boolean validate() throws IOException {
+    try {
+      return validateAndWriteReport();
+    } finally {
+      structureValidatorState.getZipManager().closeZipFile();
+    }
+  }
+
+  /**
+   * Validates the Information Package and writes the report.
+   *
+   * @return if the Information package is valid or not
+   * @throws IOException
+   *           if some I/O error occurs.
+   */
+  private boolean validateAndWriteReport() throws IOException {
     structureComponent.notifyObserversIPValidationStarted();
+    final String packageKey = fingerprintKey("package", null);
+    if (packageKey != null) {
+      final Optional<ValidationCache.Entry> cached = validationCache.get(packageKey);
+      if (cached.isPresent()) {
+        LOGGER.debug("Reusing cached validation results for {}", earksipPath);
+        validationReportOutputJson.getResults().putAll(cached.get().getResults());
+        validationReportOutputJson.setIpType(cached.get().getIpType());
+        writeReport();
+        return validationReportOutputJson.getErrors() == 0;
+      }
+    }
+
     final Map<String, ReporterDetails> structureValidationResults = structureComponent
       .validate(structureValidatorState);
     validationReportOutputJson.getResults().putAll(structureValidationResults);
+    checkInterrupted();
 
     if (validationReportOutputJson.validFileComponent()) {
       final Map<String, InputStream> subMets;
@@ -156,6 +245,7 @@ public class EARKSIPValidator {
       if (subMets.size() > 0) {
         validateSubMets(subMets, structureValidatorState.isZipFileFlag());
       }
+      checkInterrupted();
       validateRootMets();
 
       if (!validationReportOutputJson.getResults()
@@ -167,10 +257,41 @@ public class EARKSIPValidator {
           csipStr0);
       }
     }
+    if (packageKey != null) {
+      final String ipType = metsValidatorState.getMets() != null ? metsValidatorState.getIpType() : "";
+      validationCache.put(packageKey,
+        new ValidationCache.Entry(validationReportOutputJson.getResults(), ipType, new ArrayList<>()));
+    }
     writeReport();
     return validationReportOutputJson.getErrors() == 0;
   }
 
+  /**
+   * Validates the Information Package asynchronously, as {@link #validate()}
+   * does. Cancelling the returned future stops the validation before the next
+   * METS file, without writing the report.
+   *
+   * @param executor
+   *          the {@link Executor} where the validation runs.
+   * @return the {@link CompletableFuture} of the validity of the Information
+   *         Package.
+   */
+  public CompletableFuture<Boolean> validateAsync(final Executor executor) {
+    return AsyncTasks.supplyAsync(this::validate, executor);
+  }
+
+  /**
+   * Stops the validation if the thread was interrupted.
+   *
+   * @throws InterruptedIOException
+   *           if the thread was interrupted.
+   */
+  private static void checkInterrupted() throws InterruptedIOException {
+    if (Thread.interrupted()) {
+      throw new InterruptedIOException("Validation interrupted");
+    }
+  }
+
   /**
    * Iterates over all components and merge all results from components
    * validations.
@@ -179,12 +300,43 @@ public class EARKSIPValidator {
    *           if some I/O error occurs.
    */
   private void validateComponents() throws IOException {
+    validateComponents(null);
+  }
+
+  /**
+   * Iterates over all components and merge all results from components
+   * validations, also collecting the results of this METS file alone.
+   *
+   * @param metsResults
+   *          the {@link Map} where to collect the results of this METS file,
+   *          or {@code null}.
+   * @throws IOException
+   *           if some I/O error occurs.
+   */
+  private void validateComponents(final Map<String, ReporterDetails> metsResults) throws IOException {
     for (MetsValidator component : csipComponents) {
       final Map<String, ReporterDetails> componentResults = component.validate(structureValidatorState,
         metsValidatorState);
-      ResultsUtils.mergeResults(validationReportOutputJson.getResults(), componentResults);
+      mergeResults(componentResults, metsResults);
+    }
+    validateIpTypeExtendedComponents(metsResults);
+  }
+
+  /**
+   * Merges component results into the global results and, if not
+   * {@code null}, into the results of the current METS file.
+   *
+   * @param componentResults
+   *          the component results.
+   * @param metsResults
+   *          the results of the current METS file, or {@code null}.
+   */
+  private void mergeResults(final Map<String, ReporterDetails> componentResults,
+    final Map<String, ReporterDetails> metsResults) {
+    ResultsUtils.mergeResults(validationReportOutputJson.getResults(), componentResults);
+    if (metsResults != null) {
+      ResultsUtils.mergeResults(metsResults, componentResults);
     }
-    validateIpTypeExtendedComponents();
   }
 
   /**
@@ -196,15 +348,20 @@ public class EARKSIPValidator {
    *          flag if the Information Package is in compact format or if it is a
    *          folder.
    */
-  private void validateSubMets(final Map<String, InputStream> subMets, final boolean isZip) {
+  private void validateSubMets(final Map<String, InputStream> subMets, final boolean isZip)
+    throws InterruptedIOException {
     for (Map.Entry<String, InputStream> entry : subMets.entrySet()) {
-
-      final InstatiateMets instatiateMets = new InstatiateMets(entry.getValue());
+      checkInterrupted();
       try {
-        metsValidatorState.setMets(instatiateMets.instatiateMetsFile());
-        metsValidatorState.setIpType(metsValidatorState.getMets().getMetsHdr().getOAISPACKAGETYPE());
-        setupMetsValidatorState(entry.getKey(), isZip, false);
-        validateComponents();
+        if (validationCache == null) {
+          final InstatiateMets instatiateMets = new InstatiateMets(entry.getValue());
+          metsValidatorState.setMets(instatiateMets.instatiateMetsFile());
+          metsValidatorState.setIpType(metsValidatorState.getMets().getMetsHdr().getOAISPACKAGETYPE());
+          setupMetsValidatorState(entry.getKey(), isZip, false);
+          validateComponents();
+        } else {
+          validateSubMetsCached(entry.getKey(), entry.getValue(), isZip);
+        }
       } catch (IOException | JAXBException | SAXException e) {
         final String message = createExceptionMessage(e, entry.getKey());
         final ReporterDetails csipStr0 = new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, message,
@@ -216,6 +373,105 @@ public class EARKSIPValidator {
     }
   }
 
+  /**
+   * Validates a representation METS file, reusing the cached results if the
+   * METS file, the files of its representation and the state it depends on
+   * (the METS ids seen before and the validity of the requirements that enable
+   * the SIP/AIP checks) did not change.
+   *
+   * @param key
+   *          the METS file path
+   * @param metsStream
+   *          the {@link InputStream} of the METS file
+   * @param isZip
+   *          Flag if Information package is compacted or not
+   * @throws IOException
+   *           if some I/O error occurs.
+   * @throws JAXBException
+   *           if some error occurs parsing the METS file.
+   * @throws SAXException
+   *           if some error occurs parsing the METS file.
+   */
+  private void validateSubMetsCached(final String key, final InputStream metsStream, final boolean isZip)
+    throws IOException, JAXBException, SAXException {
+    final byte[] metsBytes;
+    try (InputStream inputStream = metsStream) {
+      metsBytes = IOUtils.toByteArray(inputStream);
+    }
+    setupMetsValidatorState(key, isZip, false);
+    final String metsKey = fingerprintKey(ValidationCache.hash(metsBytes), metsValidatorState.getMetsPath(),
+      ValidationCache.hash(metsValidatorState.getMetsInternalIds()), dependentResultsState());
+    if (metsKey != null) {
+      final Optional<ValidationCache.Entry> cached = validationCache.get(metsKey);
+      if (cached.isPresent()) {
+        LOGGER.debug("Reusing cached validation results for {}", key);
+        metsValidatorState.setIpType(cached.get().getIpType());
+        cached.get().getMetsInternalIds().forEach(metsValidatorState::addMetsInternalId);
+        ResultsUtils.mergeResults(validationReportOutputJson.getResults(), cached.get().getResults());
+        return;
+      }
+    }
+
+    metsValidatorState.setMets(new InstatiateMets(new ByteArrayInputStream(metsBytes)).instatiateMetsFile());
+    metsValidatorState.setIpType(metsValidatorState.getMets().getMetsHdr().getOAISPACKAGETYPE());
+    final int knownIds = metsValidatorState.getMetsInternalIds().size();
+    final Map<String, ReporterDetails> metsResults = new LinkedHashMap<>();
+    validateComponents(metsResults);
+    if (metsKey != null) {
+      final List<String> ids = metsValidatorState.getMetsInternalIds();
+      validationCache.put(metsKey, new ValidationCache.Entry(metsResults, metsValidatorState.getIpType(),
+        new ArrayList<>(ids.subList(knownIds, ids.size()))));
+    }
+  }
+
+  /**
+   * Builds a cache key from the fingerprint of the Information Package, or of a
+   * part of it, and some other parts.
+   *
+   * @param first
+   *          the first part of the key.
+   * @param scope
+   *          the scope to fingerprint (see
+   *          {@link ValidationCache#fingerprint(Path, String)}).
+   * @param others
+   *          the remaining parts of the key.
+   * @return the key or {@code null} if not caching or the package can't be
+   *         fingerprinted (in that case it is validated as usual).
+   */
+  private String fingerprintKey(final String first, final String scope, final String... others) {
+    if (validationCache == null) {
+      return null;
+    }
+    try {
+      final String[] parts = new String[others.length + 2];
+      parts[0] = first;
+      parts[1] = ValidationCache.fingerprint(earksipPath, scope);
+      System.arraycopy(others, 0, parts, 2, others.length);
+      return ValidationCache.key(parts);
+    } catch (IOException e) {
+      LOGGER.debug("Cannot fingerprint {}, not using the validation cache", earksipPath, e);
+      return null;
+    }
+  }
+
+  /**
+   * State of the global results that changes how the SIP/AIP components
+   * validate a METS file.
+   *
+   * @return a {@link String} describing that state.
+   */
+  private String dependentResultsState() {
+    final StringBuilder state = new StringBuilder();
+    for (String id : new String[] {ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP10_ID,
+      ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP58_ID,
+      ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP117_ID}) {
+      final ReporterDetails details = validationReportOutputJson.getResults().get(id);
+      state.append(id).append('=')
+        .append(details == null ? "none" : details.isValid() + "/" + details.isSkipped()).append(';');
+    }
+    return state.toString();
+  }
+
   /**
    * Creates Message for Exception.
    *
@@ -320,24 +576,28 @@ public class EARKSIPValidator {
   /**
    * Validate SIP specifications or AIP Specifications if the type is SIP or AIP.
    *
+   * @param metsResults
+   *          the results of the current METS file, or {@code null}.
    * @throws IOException
    *           if some I/O error occurs.
    */
-  private void validateIpTypeExtendedComponents() throws IOException {
+  private void validateIpTypeExtendedComponents(final Map<String, ReporterDetails> metsResults) throws IOException {
     if (metsValidatorState.getIpType() != null && metsValidatorState.getIpType().equals("SIP")) {
-      validateSIPComponents();
+      validateSIPComponents(metsResults);
     } else if (metsValidatorState.getIpType() != null && metsValidatorState.getIpType().equals("AIP")) {
-      validateAIPComponets();
+      validateAIPComponets(metsResults);
     }
   }
 
   /**
    * Iterate over SIP components and merge the results with CSIP validations.
    *
+   * @param metsResults
+   *          the results of the current METS file, or {@code null}.
    * @throws IOException
    *           if some I/O error occurs.
    */
-  private void validateSIPComponents() throws IOException {
+  private void validateSIPComponents(final Map<String, ReporterDetails> metsResults) throws IOException {
     aipComponents.clear();
     for (MetsValidator component : sipComponents) {
       if (component instanceof SipFileSectionComponent) {
@@ -355,7 +615,7 @@ public class EARKSIPValidator {
       }
       final Map<String, ReporterDetails> sipComponentResults = component.validate(structureValidatorState,
         metsValidatorState);
-      ResultsUtils.mergeResults(validationReportOutputJson.getResults(), sipComponentResults);
+      mergeResults(sipComponentResults, metsResults);
     }
   }
 
@@ -363,10 +623,12 @@ public class EARKSIPValidator {
    * Iterate over AIP components and merges the results with CSIP validations
    * results.
    *
+   * @param metsResults
+   *          the results of the current METS file, or {@code null}.
    * @throws IOException
    *           if some I/O error occurs.
    */
-  private void validateAIPComponets() throws IOException {
+  private void validateAIPComponets(final Map<String, ReporterDetails> metsResults) throws IOException {
     sipComponents.clear();
     for (MetsValidator component : aipComponents) {
       if (component instanceof AipFileSectionComponent) {
@@ -375,7 +637,7 @@ public class EARKSIPValidator {
       }
       final Map<String, ReporterDetails> aipComponentResults = component.validate(structureValidatorState,
         metsValidatorState);
-      ResultsUtils.mergeResults(validationReportOutputJson.getResults(), aipComponentResults);
+      mergeResults(aipComponentResults, metsResults);
     }
   }
 
@@ -4,6 +4,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -15,6 +17,12 @@ import org.xml.sax.SAXException;
 /** {@author João Gomes <jgomes@keep.pt>}. */
 public final class ControlledVocabularyParser {
 
+  /**
+   * Already parsed vocabularies, by resource path. Vocabularies are bundled
+   * resources, so they only need to be parsed once per JVM.
+   */
+  private static final Map<String, List<String>> CACHE = new ConcurrentHashMap<>();
+
   private ControlledVocabularyParser() {
     // do nothing
   }
@@ -34,12 +42,17 @@ public final class ControlledVocabularyParser {
    */
   public static List<String> parse(final String resourcePath)
     throws IOException, SAXException, ParserConfigurationException {
-    final SAXParserFactory factory = SAXParserFactory.newInstance();
-    final List<String> data = new ArrayList<>();
-    final SAXParser saxParser = factory.newSAXParser();
-    final ControlledVocabularyHandler controlledVocabularyHandler = new ControlledVocabularyHandler("Term", data);
-    final InputStream stream = ControlledVocabularyParser.class.getResourceAsStream(resourcePath);
-    saxParser.parse(stream, controlledVocabularyHandler);
-    return data;
+    List<String> data = CACHE.get(resourcePath);
+    if (data == null) {
+      final SAXParserFactory factory = SAXParserFactory.newInstance();
+      data = new ArrayList<>();
+      final SAXParser saxParser = factory.newSAXParser();
+      final ControlledVocabularyHandler controlledVocabularyHandler = new ControlledVocabularyHandler("Term", data);
+      try (InputStream stream = ControlledVocabularyParser.class.getResourceAsStream(resourcePath)) {
+        saxParser.parse(stream, controlledVocabularyHandler);
+      }
+      CACHE.put(resourcePath, data);
+    }
+    return new ArrayList<>(data);
   }
 }
@@ -0,0 +1,266 @@
+package org.roda_project.commons_ip2.validator.common;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Snapshot of a folder tree (paths, types, sizes and modification times), taken
+ * once so that the structural questions asked while validating a folder
+ * Information Package do not list the same folders again and again, which is
+ * slow on network mounts where each listing is a round trip. Folders are listed
+ * in parallel, each by its own task.
+ *
+ * <p>
+ * Children keep the order in which the file system listed them. Symbolic links
+ * to folders are recorded but not listed, and folders that could not be listed
+ * are left unlisted: {@link #list(Path)} returns {@code null} for them, so that
+ * callers fall back to the file system.
+ * </p>
+ */
+public final class DirectorySnapshot {
+  /**
+   * {@link Logger}.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(DirectorySnapshot.class);
+
+  /**
+   * Default number of folders listed at the same time.
+   */
+  public static final int DEFAULT_PARALLELISM = 8;
+
+  /**
+   * The root folder, absolute and normalized.
+   */
+  private final Path root;
+  /**
+   * {@link Entry} of each path of the tree, by absolute and normalized path.
+   */
+  private final Map<Path, Entry> entries;
+
+  private DirectorySnapshot(final Path root, final Map<Path, Entry> entries) {
+    this.root = root;
+    this.entries = entries;
+  }
+
+  /**
+   * Takes a snapshot of a folder tree with {@link #DEFAULT_PARALLELISM}.
+   *
+   * @param root
+   *          the root folder {@link Path}.
+   * @return the {@link DirectorySnapshot}.
+   */
+  public static DirectorySnapshot take(final Path root) {
+    return take(root, DEFAULT_PARALLELISM);
+  }
+
+  /**
+   * Takes a snapshot of a folder tree.
+   *
+   * @param root
+   *          the root folder {@link Path}.
+   * @param parallelism
+   *          maximum number of folders listed at the same time.
+   * @return the {@link DirectorySnapshot}.
+   */
+  public static DirectorySnapshot take(final Path root, final int parallelism) {
+    final Path normalizedRoot = normalize(root);
+    final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+    final Entry rootEntry = readEntry(normalizedRoot);
+    if (rootEntry != null) {
+      entries.put(normalizedRoot, rootEntry);
+      if (rootEntry.isDirectory()) {
+        final ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+          pool.invoke(new ListTask(normalizedRoot, rootEntry, entries));
+        } finally {
+          pool.shutdown();
+        }
+      }
+    }
+    LOGGER.debug("Snapshot of {} has {} entries", normalizedRoot, entries.size());
+    return new DirectorySnapshot(normalizedRoot, entries);
+  }
+
+  public Path getRoot() {
+    return root;
+  }
+
+  /**
+   * Get the number of paths in the snapshot, including the root.
+   *
+   * @return the number of paths.
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Get the {@link Entry} of a path.
+   *
+   * @param path
+   *          the {@link Path}.
+   * @return the {@link Entry}, or {@code null} if the path is not in the
+   *         snapshot.
+   */
+  public Entry get(final Path path) {
+    return entries.get(normalize(path));
+  }
+
+  /**
+   * Get the names of the children of a folder.
+   *
+   * @param folder
+   *          the folder {@link Path}.
+   * @return {@link List} of names in listing order, or {@code null} if the
+   *         folder was not listed.
+   */
+  public List<String> list(final Path folder) {
+    final Entry entry = get(folder);
+    return entry == null ? null : entry.children;
+  }
+
+  private static Path normalize(final Path path) {
+    return path.toAbsolutePath().normalize();
+  }
+
+  /**
+   * Reads the attributes of a path, following symbolic links as
+   * {@link java.io.File} does.
+   *
+   * @return the {@link Entry}, or {@code null} if the path does not exist.
+   */
+  private static Entry readEntry(final Path path) {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class,
+        LinkOption.NOFOLLOW_LINKS);
+      final boolean symbolicLink = attributes.isSymbolicLink();
+      if (symbolicLink) {
+        try {
+          attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+          // broken link, neither a file nor a folder
+          return new Entry(false, false, 0L, attributes.lastModifiedTime().toMillis(), true);
+        }
+      }
+      return new Entry(attributes.isDirectory(), attributes.isRegularFile(), attributes.size(),
+        attributes.lastModifiedTime().toMillis(), symbolicLink);
+    } catch (IOException e) {
+      LOGGER.debug("Could not read the attributes of {}", path, e);
+      return null;
+    }
+  }
+
+  /**
+   * Lists a folder, recording its children, and forks the listing of its sub
+   * folders.
+   */
+  private static final class ListTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Path folder;
+    private final transient Entry entry;
+    private final transient Map<Path, Entry> entries;
+
+    private ListTask(final Path folder, final Entry entry, final Map<Path, Entry> entries) {
+      this.folder = folder;
+      this.entry = entry;
+      this.entries = entries;
+    }
+
+    @Override
+    protected void compute() {
+      final List<String> children = new ArrayList<>();
+      final List<ListTask> subTasks = new ArrayList<>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+        for (Path child : stream) {
+          final Entry childEntry = readEntry(child);
+          if (childEntry != null) {
+            children.add(child.getFileName().toString());
+            entries.put(child, childEntry);
+            if (childEntry.isDirectory() && !childEntry.isSymbolicLink()) {
+              subTasks.add(new ListTask(child, childEntry, entries));
+            }
+          }
+        }
+      } catch (IOException e) {
+        LOGGER.debug("Could not list {}", folder, e);
+        return;
+      }
+      invokeAll(subTasks);
+      entry.children = Collections.unmodifiableList(children);
+    }
+  }
+
+  /**
+   * Type, size and modification time of a path.
+   */
+  public static final class Entry {
+    /**
+     * Flag if is a folder.
+     */
+    private final boolean directory;
+    /**
+     * Flag if is a regular file.
+     */
+    private final boolean regularFile;
+    /**
+     * Size in bytes.
+     */
+    private final long size;
+    /**
+     * Last modification time, in milliseconds since the epoch.
+     */
+    private final long lastModified;
+    /**
+     * Flag if is a symbolic link.
+     */
+    private final boolean symbolicLink;
+    /**
+     * Names of the children, {@code null} if not listed.
+     */
+    private volatile List<String> children;
+
+    private Entry(final boolean directory, final boolean regularFile, final long size, final long lastModified,
+      final boolean symbolicLink) {
+      this.directory = directory;
+      this.regularFile = regularFile;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.symbolicLink = symbolicLink;
+    }
+
+    public boolean isDirectory() {
+      return directory;
+    }
+
+    public boolean isRegularFile() {
+      return regularFile;
+    }
+
+    public long getSize() {
+      return size;
+    }
+
+    public long getLastModified() {
+      return lastModified;
+    }
+
+    public boolean isSymbolicLink() {
+      return symbolicLink;
+    }
+  }
+}
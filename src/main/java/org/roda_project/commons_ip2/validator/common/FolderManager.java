@@ -33,10 +33,31 @@ public class FolderManager {
    */
   private File folder = null;
 
+  /**
+   * {@link DirectorySnapshot} of the IP, {@code null} to always ask the file
+   * system.
+   */
+  private DirectorySnapshot snapshot = null;
+
+  /**
+   * Takes a {@link DirectorySnapshot} of the IP folder, used to answer all
+   * subsequent queries about paths inside it.
+   *
+   * @param ipPath
+   *          the IP folder {@link Path}.
+   */
+  public void takeSnapshot(final Path ipPath) {
+    snapshot = DirectorySnapshot.take(ipPath);
+  }
+
+  public DirectorySnapshot getSnapshot() {
+    return snapshot;
+  }
+
   public boolean checkIfExistsRootMetsFile(final Path path) {
     boolean found = false;
     folder = path.toFile();
-    for (File f : folder.listFiles()) {
+    for (File f : listFiles(folder)) {
       if (f.getName().equals("METS.xml")) {
         found = true;
       }
@@ -47,7 +68,7 @@ public class FolderManager {
   public InputStream getMetsRootInputStream(final Path path) throws FileNotFoundException {
     folder = path.toFile();
     String metsPath = null;
-    for (File f : folder.listFiles()) {
+    for (File f : listFiles(folder)) {
       if (f.getName().equals("METS.xml")) {
         metsPath = f.getPath();
       }
@@ -65,14 +86,16 @@ public class FolderManager {
   }
 
   public boolean checkPathExists(final Path path) {
-    return Files.exists(path);
+    // paths missing from the snapshot are checked again, the file system may
+    // not be case sensitive
+    return (snapshot != null && snapshot.get(path) != null) || Files.exists(path);
   }
 
   public boolean verifyChecksum(final Path path, final String alg, final String checksum)
     throws IOException, NoSuchAlgorithmException {
     boolean valid = true;
 
-    if (!Files.exists(path)) {
+    if (!checkPathExists(path)) {
       valid = false;
     } else {
       final InputStream stream = new FileInputStream(path.toFile());
@@ -97,7 +120,7 @@ public class FolderManager {
     if (path == null) {
       valid = false;
     } else {
-      if (Files.size(path) != metsSize) {
+      if (size(path) != metsSize) {
         valid = false;
       }
     }
@@ -106,17 +129,17 @@ public class FolderManager {
 
   public int countMetadataFiles(final Path path) {
     int count = 0;
-    final File[] folder = path.toFile().listFiles();
+    final File[] folder = listFiles(path.toFile());
     if (folder != null) {
       for (File f : folder) {
         if (f.getName().equals("metadata")) {
-          if (f.isDirectory()) {
-            final File[] metadataFiles = f.listFiles();
+          if (isDirectory(f)) {
+            final File[] metadataFiles = listFiles(f);
             if (metadataFiles != null) {
               if (metadataFiles.length != 0) {
                 for (File metadata : metadataFiles) {
-                  if (metadata.isDirectory()) {
-                    final File[] descriptiveFiles = metadata.listFiles();
+                  if (isDirectory(metadata)) {
+                    final File[] descriptiveFiles = listFiles(metadata);
                     if (descriptiveFiles != null) {
                       count += descriptiveFiles.length;
                     }
@@ -135,11 +158,11 @@ public class FolderManager {
 
   public Map<String, InputStream> getSubMets(final Path path) throws FileNotFoundException {
     final HashMap<String, InputStream> subMets = new HashMap<>();
-    final File[] representationsFolder = path.resolve("representations").toFile().listFiles();
+    final File[] representationsFolder = listFiles(path.resolve("representations").toFile());
     if (representationsFolder != null && representationsFolder.length != 0) {
       for (File representation : representationsFolder) {
-        if (representation.isDirectory()) {
-          final File[] representationFiles = representation.listFiles();
+        if (isDirectory(representation)) {
+          final File[] representationFiles = listFiles(representation);
           if (representationFiles != null && representationFiles.length != 0) {
             for (File file : representationFiles) {
               if (file.getName().equals("METS.xml")) {
@@ -155,7 +178,7 @@ public class FolderManager {
   }
 
   public boolean checkDirectory(final Path path) throws IOException {
-    return Files.exists(path);
+    return checkPathExists(path);
   }
 
   public Boolean checkRootFolderName(final Path path, final String objectId) {
@@ -163,10 +186,10 @@ public class FolderManager {
   }
 
   public boolean checkIfExistsFolderInRoot(final Path path, final String folder) {
-    final File[] root = path.toFile().listFiles();
+    final File[] root = listFiles(path.toFile());
     for (File file : root) {
       if (file.getName().equals(folder)) {
-        if (file.isDirectory()) {
+        if (isDirectory(file)) {
           return true;
         }
       }
@@ -175,14 +198,14 @@ public class FolderManager {
   }
 
   public boolean checkIfExistsFolderInside(final Path path, final String rootFolder, final String insideFolder) {
-    final File[] root = path.toFile().listFiles();
+    final File[] root = listFiles(path.toFile());
     for (File file : root) {
       if (file.getName().equals(rootFolder)) {
-        if (file.isDirectory()) {
-          final File[] insideFiles = file.listFiles();
+        if (isDirectory(file)) {
+          final File[] insideFiles = listFiles(file);
           for (File f : insideFiles) {
             if (f.getName().equals(insideFolder)) {
-              if (f.isDirectory()) {
+              if (isDirectory(f)) {
                 return true;
               }
             }
@@ -194,13 +217,13 @@ public class FolderManager {
   }
 
   public boolean checkIfExistsFolderInsideRepresentation(final Path path, final String folder) {
-    final File[] representationFiles = path.resolve("representations").toFile().listFiles();
+    final File[] representationFiles = listFiles(path.resolve("representations").toFile());
     if (representationFiles != null && representationFiles.length != 0) {
       for (File representation : representationFiles) {
-        if (representation.isDirectory()) {
-          final File[] filesInsideRepresentation = representation.listFiles();
+        if (isDirectory(representation)) {
+          final File[] filesInsideRepresentation = listFiles(representation);
           for (File fileInside : filesInsideRepresentation) {
-            if (fileInside.getName().equals(folder) && fileInside.isDirectory()) {
+            if (fileInside.getName().equals(folder) && isDirectory(fileInside)) {
               return true;
             }
           }
@@ -211,17 +234,17 @@ public class FolderManager {
   }
 
   public boolean checkIfExistsSubMets(final Path path) {
-    final File[] root = path.toFile().listFiles();
+    final File[] root = listFiles(path.toFile());
     int countSubMets = 0;
     int countRepresentationsFolder = 0;
     for (File file : root) {
       if (file.getName().equals("representations")) {
-        if (file.isDirectory()) {
-          final File[] insideFiles = file.listFiles();
+        if (isDirectory(file)) {
+          final File[] insideFiles = listFiles(file);
           for (File f : insideFiles) {
-            if (f.isDirectory()) {
+            if (isDirectory(f)) {
               countRepresentationsFolder++;
-              final File[] representationFiles = f.listFiles();
+              final File[] representationFiles = listFiles(f);
               for (File representationFile : representationFiles) {
                 if (representationFile.getName().equals("METS.xml")) {
                   countSubMets++;
@@ -237,13 +260,13 @@ public class FolderManager {
 
   public List<String> getRepresentationsFoldersNames(final Path path) {
     final List<String> representationsFoldersNames = new ArrayList<>();
-    final File[] rootFiles = path.toFile().listFiles();
+    final File[] rootFiles = listFiles(path.toFile());
     for (File rootFile : rootFiles) {
       if (rootFile.getName().equals("representations")) {
-        if (rootFile.isDirectory()) {
-          final File[] representationsFiles = rootFile.listFiles();
+        if (isDirectory(rootFile)) {
+          final File[] representationsFiles = listFiles(rootFile);
           for (File representation : representationsFiles) {
-            if (representation.isDirectory()) {
+            if (isDirectory(representation)) {
               representationsFoldersNames.add(representation.getName());
             }
           }
@@ -255,13 +278,13 @@ public class FolderManager {
 
   public int countFilesInsideRepresentations(final Path path) {
     int count = 0;
-    final File[] rootFiles = path.toFile().listFiles();
+    final File[] rootFiles = listFiles(path.toFile());
     for (File rootFile : rootFiles) {
       if (rootFile.getName().equals("representations")) {
-        if (rootFile.isDirectory()) {
-          final File[] representationsFiles = rootFile.listFiles();
+        if (isDirectory(rootFile)) {
+          final File[] representationsFiles = listFiles(rootFile);
           for (File representation : representationsFiles) {
-            if (!representation.isDirectory()) {
+            if (!isDirectory(representation)) {
               count++;
             }
           }
@@ -285,6 +308,10 @@ public class FolderManager {
       throw new FileNotFoundException("File not Found");
     }
     final HashMap<String, Boolean> data = new HashMap<>();
+    if (snapshot != null && snapshot.list(path.resolve("metadata")) != null) {
+      putFiles(path.resolve("metadata"), data);
+      return data;
+    }
     try (Stream<Path> paths = Files.walk(path.resolve("metadata"))) {
       paths.forEach(filePath -> {
         if (!Files.isDirectory(filePath)) {
@@ -302,10 +329,10 @@ public class FolderManager {
     commonFolders.add("documentation");
     commonFolders.add("schemas");
     commonFolders.add("representations");
-    final File[] rootFiles = path.toFile().listFiles();
+    final File[] rootFiles = listFiles(path.toFile());
     if (rootFiles != null) {
       for (File rootFolder : rootFiles) {
-        if (rootFolder.isDirectory() && !commonFolders.contains(rootFolder.getName())) {
+        if (isDirectory(rootFolder) && !commonFolders.contains(rootFolder.getName())) {
           additionalFolders.add(rootFolder.getName());
         }
       }
@@ -315,10 +342,10 @@ public class FolderManager {
 
   public boolean checkIfExistsFolderRepresentation(final Path ipPath, final String folder,
     final String representation) {
-    final File[] representationFiles = ipPath.resolve("representations").resolve(representation).toFile().listFiles();
+    final File[] representationFiles = listFiles(ipPath.resolve("representations").resolve(representation).toFile());
     if (representationFiles != null) {
       for (File representationFile : representationFiles) {
-        if (representationFile.isDirectory() && representationFile.getName().equals(folder)) {
+        if (isDirectory(representationFile) && representationFile.getName().equals(folder)) {
           return true;
         }
       }
@@ -335,11 +362,11 @@ public class FolderManager {
   public HashMap<String, Boolean> getFilesDirectory(Path path) {
     HashMap<String, Boolean> files = new HashMap<>();
     File folder = path.toFile();
-    for (final File fileEntry : folder.listFiles()) {
-      if (fileEntry.isDirectory() && !fileEntry.getName().equals("metadata")) {
+    for (final File fileEntry : listFiles(folder)) {
+      if (isDirectory(fileEntry) && !fileEntry.getName().equals("metadata")) {
         files.putAll(getFilesDirectory(Paths.get(fileEntry.getPath())));
       } else {
-        if (!fileEntry.isDirectory() && !fileEntry.getName().equals("METS.xml")
+        if (!isDirectory(fileEntry) && !fileEntry.getName().equals("METS.xml")
           && !fileEntry.getName().equals("aip.json")) {
           files.put(Paths.get(fileEntry.getPath()).toString(), false);
         }
@@ -347,4 +374,71 @@ public class FolderManager {
     }
     return files;
   }
+
+  /**
+   * Lists a folder, from the {@link DirectorySnapshot} when it has the folder.
+   *
+   * @param directory
+   *          the folder {@link File}.
+   * @return the children as {@link File#listFiles()} returns them.
+   */
+  private File[] listFiles(final File directory) {
+    if (snapshot != null) {
+      final List<String> names = snapshot.list(directory.toPath());
+      if (names != null) {
+        final File[] files = new File[names.size()];
+        for (int i = 0; i < files.length; i++) {
+          files[i] = new File(directory, names.get(i));
+        }
+        return files;
+      }
+    }
+    return directory.listFiles();
+  }
+
+  private boolean isDirectory(final File file) {
+    if (snapshot != null) {
+      final DirectorySnapshot.Entry entry = snapshot.get(file.toPath());
+      if (entry != null) {
+        return entry.isDirectory();
+      }
+    }
+    return file.isDirectory();
+  }
+
+  private long size(final Path path) throws IOException {
+    if (snapshot != null) {
+      final DirectorySnapshot.Entry entry = snapshot.get(path);
+      if (entry != null && entry.isRegularFile()) {
+        return entry.getSize();
+      }
+    }
+    return Files.size(path);
+  }
+
+  /**
+   * Adds the files of a listed folder and of its sub folders, as
+   * {@link Files#walk(Path, java.nio.file.FileVisitOption...)} finds them.
+   */
+  private void putFiles(final Path directory, final Map<String, Boolean> data) throws IOException {
+    for (String name : snapshot.list(directory)) {
+      final Path filePath = directory.resolve(name);
+      final DirectorySnapshot.Entry entry = snapshot.get(filePath);
+      if (!entry.isDirectory()) {
+        data.put(filePath.toString(), false);
+      } else if (!entry.isSymbolicLink()) {
+        if (snapshot.list(filePath) != null) {
+          putFiles(filePath, data);
+        } else {
+          try (Stream<Path> paths = Files.walk(filePath)) {
+            paths.forEach(p -> {
+              if (!Files.isDirectory(p)) {
+                data.put(p.toString(), false);
+              }
+            });
+          }
+        }
+      }
+    }
+  }
 }
@@ -0,0 +1,132 @@
+package org.roda_project.commons_ip2.validator.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+import javax.xml.bind.DatatypeConverter;
+
+/**
+ * Digest of an Information Package file, for the report.
+ *
+ * <p>
+ * When {@link #start(Path, String) started}, the digest is calculated on a
+ * shared background pool while the package is being validated, instead of with
+ * a full read of its own once validation is over: both reads run at the same
+ * time and share the operating system page cache. A started digest that is no
+ * longer needed must be {@link #cancel() cancelled}, which interrupts its read.
+ * Otherwise it is calculated on the first {@link #get()}. Folder packages have
+ * an empty digest.
+ * </p>
+ */
+public class PackageDigest {
+  /**
+   * Size of the read buffer.
+   */
+  private static final int BUFFER_SIZE = 1024 * 1024;
+
+  /**
+   * Pool where started digests are calculated.
+   */
+  private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+    final Thread thread = new Thread(runnable, "package-digest");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * The calculation.
+   */
+  private final FutureTask<String> task;
+
+  /**
+   * Creates a digest, calculated on the first {@link #get()}.
+   *
+   * @param ipPath
+   *          the IP {@link Path}.
+   * @param algorithm
+   *          the {@link MessageDigest} algorithm.
+   */
+  public PackageDigest(final Path ipPath, final String algorithm) {
+    this.task = new FutureTask<>(() -> calculate(ipPath, algorithm));
+  }
+
+  /**
+   * Starts calculating a digest on the background pool.
+   *
+   * @param ipPath
+   *          the IP {@link Path}.
+   * @param algorithm
+   *          the {@link MessageDigest} algorithm.
+   * @return the {@link PackageDigest}.
+   */
+  public static PackageDigest start(final Path ipPath, final String algorithm) {
+    final PackageDigest packageDigest = new PackageDigest(ipPath, algorithm);
+    EXECUTOR.execute(packageDigest.task);
+    return packageDigest;
+  }
+
+  /**
+   * Cancels the calculation, interrupting it if it is running. Does nothing if
+   * it is already done.
+   */
+  public void cancel() {
+    task.cancel(true);
+  }
+
+  /**
+   * Get the digest, waiting for it if it is being calculated.
+   *
+   * @return the digest in hexadecimal, empty if the IP is not a file.
+   * @throws IOException
+   *           if some I/O error occurs, or if the calculation was cancelled.
+   * @throws NoSuchAlgorithmException
+   *           if the Cryptographic algorithm is not available
+   */
+  public String get() throws IOException, NoSuchAlgorithmException {
+    // does nothing if already started
+    task.run();
+    try {
+      return task.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while calculating the package digest", e);
+    } catch (final CancellationException e) {
+      throw new IOException("The package digest calculation was cancelled", e);
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      } else if (e.getCause() instanceof NoSuchAlgorithmException) {
+        throw (NoSuchAlgorithmException) e.getCause();
+      }
+      throw new IOException("Error calculating the package digest", e.getCause());
+    }
+  }
+
+  private static String calculate(final Path ipPath, final String algorithm)
+    throws IOException, NoSuchAlgorithmException {
+    if (!Files.exists(ipPath) || Files.isDirectory(ipPath)) {
+      return "";
+    }
+    final MessageDigest messageDigest = MessageDigest.getInstance(algorithm);
+    try (FileChannel channel = FileChannel.open(ipPath, StandardOpenOption.READ)) {
+      final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      while (channel.read(buffer) != -1) {
+        buffer.flip();
+        messageDigest.update(buffer);
+        buffer.clear();
+      }
+    }
+    return DatatypeConverter.printHexBinary(messageDigest.digest());
+  }
+}
@@ -0,0 +1,426 @@
+package org.roda_project.commons_ip2.validator.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.roda_project.commons_ip.utils.ZipEntryInfo;
+import org.roda_project.commons_ip2.model.IPConstants;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.model.SIPObserver;
+import org.roda_project.commons_ip2.utils.ZIPUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Information Package in ZIP format read once, as a forward-only stream (for
+ * example while it is being received over the network), so that it can be
+ * validated without storing it and reading it again.
+ *
+ * <p>
+ * The entries are read from their local headers and data descriptors. Each one
+ * is hashed with the given algorithms as it passes and only the METS files and
+ * the XML files inside metadata folders are kept in memory, which is all the
+ * validator reads. Checksums declared with an algorithm that was not calculated
+ * can only be verified for the kept entries.
+ * </p>
+ *
+ * <p>
+ * A {@link Recorder} collects the same facts while a {@link SIP} is being
+ * built, from the names, sizes and checksums calculated by the builder, so that
+ * the package it writes can be validated without opening and hashing it again.
+ * </p>
+ *
+ * <p>
+ * At most {@link #DEFAULT_MAX_KEPT_BYTES} (or the given limit) of content is
+ * kept in memory. Entries that do not fit are still hashed, but reading their
+ * content fails.
+ * </p>
+ *
+ * <p>
+ * As with {@link ZipInputStream}, stored (not compressed) entries followed by a
+ * data descriptor are not supported.
+ * </p>
+ */
+public final class StreamedZip {
+  /**
+   * {@link Logger}.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(StreamedZip.class);
+
+  /**
+   * Default limit of the content kept in memory, in bytes.
+   */
+  public static final long DEFAULT_MAX_KEPT_BYTES = 256L * 1024 * 1024;
+
+  /**
+   * The entries, in stream order.
+   */
+  private final List<ZipEntry> entries = new ArrayList<>();
+  /**
+   * {@link Entry} of each entry name.
+   */
+  private final Map<String, Entry> entriesByName = new HashMap<>();
+  /**
+   * The algorithms calculated for all entries, in upper case.
+   */
+  private final Set<String> algorithms;
+  /**
+   * Limit of the content kept in memory, in bytes.
+   */
+  private final long maxKeptBytes;
+  /**
+   * Content kept in memory, in bytes.
+   */
+  private long keptBytes = 0;
+
+  private StreamedZip(final Set<String> algorithms, final long maxKeptBytes) {
+    this.algorithms = algorithms;
+    this.maxKeptBytes = maxKeptBytes;
+  }
+
+  /**
+   * Reads an Information Package in ZIP format, calculating the
+   * {@link IPConstants#CHECKSUM_ALGORITHM} checksum of each entry.
+   *
+   * @param inputStream
+   *          the ZIP {@link InputStream}, read to the end but not closed.
+   * @return the {@link StreamedZip}.
+   * @throws IOException
+   *           if some I/O error occurs or the stream is not a valid ZIP.
+   */
+  public static StreamedZip read(final InputStream inputStream) throws IOException {
+    try {
+      return read(inputStream, Collections.singleton(IPConstants.CHECKSUM_ALGORITHM));
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Reads an Information Package in ZIP format.
+   *
+   * @param inputStream
+   *          the ZIP {@link InputStream}, read to the end but not closed.
+   * @param checksumAlgorithms
+   *          the algorithms of the checksums calculated for each entry, e.g.
+   *          the ones required by the Submission Agreement.
+   * @return the {@link StreamedZip}.
+   * @throws IOException
+   *           if some I/O error occurs or the stream is not a valid ZIP.
+   * @throws NoSuchAlgorithmException
+   *           if some algorithm is not available.
+   */
+  public static StreamedZip read(final InputStream inputStream, final Set<String> checksumAlgorithms)
+    throws IOException, NoSuchAlgorithmException {
+    return read(inputStream, checksumAlgorithms, DEFAULT_MAX_KEPT_BYTES);
+  }
+
+  /**
+   * Reads an Information Package in ZIP format.
+   *
+   * @param inputStream
+   *          the ZIP {@link InputStream}, read to the end but not closed.
+   * @param checksumAlgorithms
+   *          the algorithms of the checksums calculated for each entry, e.g.
+   *          the ones required by the Submission Agreement.
+   * @param maxKeptBytes
+   *          the limit of the METS and metadata content kept in memory, in
+   *          bytes.
+   * @return the {@link StreamedZip}.
+   * @throws IOException
+   *           if some I/O error occurs or the stream is not a valid ZIP.
+   * @throws NoSuchAlgorithmException
+   *           if some algorithm is not available.
+   */
+  public static StreamedZip read(final InputStream inputStream, final Set<String> checksumAlgorithms,
+    final long maxKeptBytes) throws IOException, NoSuchAlgorithmException {
+    final Set<String> algorithms = new LinkedHashSet<>();
+    for (String algorithm : checksumAlgorithms) {
+      algorithms.add(algorithm.toUpperCase(Locale.ROOT));
+    }
+    final StreamedZip streamedZip = new StreamedZip(Collections.unmodifiableSet(algorithms), maxKeptBytes);
+
+    // not closed, as it would close the caller stream
+    final ZipInputStream zipInputStream = new ZipInputStream(inputStream);
+    ZipEntry zipEntry;
+    while ((zipEntry = zipInputStream.getNextEntry()) != null) {
+      final long room = streamedZip.maxKeptBytes - streamedZip.keptBytes;
+      final KeptContent content = isKept(zipEntry) ? new KeptContent(room) : null;
+      final CountingInputStream countingInputStream = new CountingInputStream(zipInputStream);
+      final Optional<OutputStream> output = Optional
+        .of(content != null ? content : NullOutputStream.NULL_OUTPUT_STREAM);
+      final Map<String, String> checksums = ZIPUtils.calculateChecksums(output, countingInputStream, algorithms);
+      zipInputStream.closeEntry();
+
+      final ZipEntry entry = new ZipEntry(zipEntry);
+      entry.setSize(countingInputStream.getByteCount());
+      streamedZip.add(entry, checksums, content != null ? content.toByteArray() : null, content != null);
+    }
+    // the central directory
+    IOUtils.skip(inputStream, Long.MAX_VALUE);
+    return streamedZip;
+  }
+
+  /**
+   * Adds an entry.
+   *
+   * @param content
+   *          the content, or {@code null} if it was not kept.
+   * @param kept
+   *          whether the content was meant to be kept, even if it did not fit.
+   */
+  private void add(final ZipEntry entry, final Map<String, String> checksums, final byte[] content,
+    final boolean kept) {
+    if (content != null) {
+      keptBytes += content.length;
+    } else if (kept) {
+      LOGGER.warn("The content of {} was not kept, as it exceeds the limit of {} bytes", entry.getName(),
+        maxKeptBytes);
+    }
+    entries.add(entry);
+    entriesByName.putIfAbsent(entry.getName(), new Entry(entry, checksums, content, kept && content == null));
+  }
+
+  /**
+   * Check if the content of an entry is kept in memory.
+   */
+  private static boolean isKept(final ZipEntry entry) {
+    final String name = entry.getName();
+    return !entry.isDirectory()
+      && (name.equals(IPConstants.METS_FILE) || name.endsWith("/" + IPConstants.METS_FILE)
+        || (name.contains("/metadata/") && name.endsWith(".xml")));
+  }
+
+  public Set<String> getAlgorithms() {
+    return algorithms;
+  }
+
+  /**
+   * Get the entries, in stream order.
+   *
+   * @return {@link Enumeration} of {@link ZipEntry}.
+   */
+  public Enumeration<ZipEntry> entries() {
+    return Collections.enumeration(entries);
+  }
+
+  /**
+   * Get an entry by name.
+   *
+   * @param name
+   *          the entry name.
+   * @return the {@link ZipEntry}, or {@code null} if there is no such entry.
+   */
+  public ZipEntry getEntry(final String name) {
+    final Entry entry = entriesByName.get(name);
+    return entry == null ? null : entry.zipEntry;
+  }
+
+  /**
+   * Get the content of a METS file or metadata XML file.
+   *
+   * @param name
+   *          the entry name.
+   * @return the {@link InputStream}, or {@code null} if there is no such entry.
+   * @throws IOException
+   *           if the content of the entry was not kept.
+   */
+  public InputStream getInputStream(final String name) throws IOException {
+    final Entry entry = entriesByName.get(name);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.content == null) {
+      throw new IOException("The content of " + name + " was not kept while streaming"
+        + (entry.overLimit ? ", as it exceeds the limit of " + maxKeptBytes + " bytes" : ""));
+    }
+    return new ByteArrayInputStream(entry.content);
+  }
+
+  /**
+   * Get the checksum of an entry.
+   *
+   * @param name
+   *          the entry name.
+   * @param algorithm
+   *          the checksum algorithm.
+   * @return the checksum in hexadecimal, or {@code null} if there is no such
+   *         entry.
+   * @throws NoSuchAlgorithmException
+   *           if the checksum was not calculated while streaming and the
+   *           content of the entry was not kept.
+   * @throws IOException
+   *           if some I/O error occurs.
+   */
+  public String getChecksum(final String name, final String algorithm)
+    throws NoSuchAlgorithmException, IOException {
+    final Entry entry = entriesByName.get(name);
+    if (entry == null) {
+      return null;
+    }
+    final String checksum = entry.checksums.get(algorithm.toUpperCase(Locale.ROOT));
+    if (checksum != null) {
+      return checksum;
+    }
+    if (entry.content == null) {
+      throw new NoSuchAlgorithmException(algorithm + " checksum of " + name + " was not calculated while streaming");
+    }
+    return ZIPUtils.calculateChecksums(Optional.empty(), new ByteArrayInputStream(entry.content),
+      Collections.singleton(algorithm)).get(algorithm);
+  }
+
+  /**
+   * {@link SIPObserver} that records the entries of the package being built.
+   * It is reset when packaging starts, so it holds the last package built.
+   */
+  public static final class Recorder implements SIPObserver {
+    /**
+     * The {@link StreamedZip} being recorded.
+     */
+    private StreamedZip streamedZip = new StreamedZip(
+      Collections.singleton(IPConstants.CHECKSUM_ALGORITHM.toUpperCase(Locale.ROOT)), DEFAULT_MAX_KEPT_BYTES);
+
+    public StreamedZip getStreamedZip() {
+      return streamedZip;
+    }
+
+    @Override
+    public void sipBuildPackagingStarted(final int totalNumberOfFiles) {
+      streamedZip = new StreamedZip(
+        Collections.singleton(IPConstants.CHECKSUM_ALGORITHM.toUpperCase(Locale.ROOT)), DEFAULT_MAX_KEPT_BYTES);
+    }
+
+    @Override
+    public void sipBuildPackagingEntryWritten(final String name, final long size, final ZipEntryInfo file) {
+      final ZipEntry entry = new ZipEntry(name);
+      entry.setSize(size);
+      final Map<String, String> checksums = new HashMap<>();
+      if (file.getChecksum() != null && file.getChecksumAlgorithm() != null) {
+        checksums.put(file.getChecksumAlgorithm().toUpperCase(Locale.ROOT), file.getChecksum());
+      }
+      byte[] content = null;
+      final boolean kept = isKept(entry) && file.getFilePath() != null;
+      if (kept && size <= streamedZip.maxKeptBytes - streamedZip.keptBytes) {
+        try {
+          // generated METS files are still in the build folder
+          content = Files.readAllBytes(file.getFilePath());
+        } catch (IOException e) {
+          LOGGER.debug("Could not keep the content of {}", name, e);
+        }
+      }
+      streamedZip.add(entry, checksums, content, kept);
+    }
+
+    @Override
+    public void sipBuildRepresentationsProcessingStarted(final int totalNumberOfRepresentations) {
+      // do nothing
+    }
+
+    @Override
+    public void sipBuildRepresentationProcessingStarted(final int totalNumberOfFiles) {
+      // do nothing
+    }
+
+    @Override
+    public void sipBuildRepresentationProcessingCurrentStatus(final int numberOfFilesAlreadyProcessed) {
+      // do nothing
+    }
+
+    @Override
+    public void sipBuildRepresentationProcessingEnded() {
+      // do nothing
+    }
+
+    @Override
+    public void sipBuildRepresentationsProcessingEnded() {
+      // do nothing
+    }
+
+    @Override
+    public void sipBuildPackagingCurrentStatus(final int numberOfFilesAlreadyProcessed) {
+      // do nothing
+    }
+
+    @Override
+    public void sipBuildPackagingEnded() {
+      // do nothing
+    }
+  }
+
+  /**
+   * What is known of an entry after it passed.
+   */
+  private static final class Entry {
+    private final ZipEntry zipEntry;
+    private final Map<String, String> checksums;
+    private final byte[] content;
+    /**
+     * Whether the content was not kept because of the limit.
+     */
+    private final boolean overLimit;
+
+    private Entry(final ZipEntry zipEntry, final Map<String, String> checksums, final byte[] content,
+      final boolean overLimit) {
+      this.zipEntry = zipEntry;
+      this.checksums = checksums;
+      this.content = content;
+      this.overLimit = overLimit;
+    }
+  }
+
+  /**
+   * Buffer of the content of an entry that stops buffering, and drops what it
+   * had, once the content exceeds the room left under the limit.
+   */
+  private static final class KeptContent extends OutputStream {
+    private final long room;
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private KeptContent(final long room) {
+      this.room = room;
+    }
+
+    @Override
+    public void write(final int b) {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+      if (buffer != null) {
+        if (buffer.size() + (long) len > room) {
+          buffer = null;
+        } else {
+          buffer.write(b, off, len);
+        }
+      }
+    }
+
+    /**
+     * @return the content, or {@code null} if it exceeded the room left.
+     */
+    private byte[] toByteArray() {
+      return buffer == null ? null : buffer.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,377 @@
+package org.roda_project.commons_ip2.validator.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.roda_project.commons_ip2.validator.EARKSIPValidator;
+import org.roda_project.commons_ip2.validator.reporter.ReporterDetails;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Local, file based, cache of validation results.
+ *
+ * <p>
+ * Entries are keyed by content fingerprints plus the validator version: a ZIP
+ * package is fingerprinted from its central directory (names, sizes and CRCs,
+ * no decompression) and a folder package from its listing (relative paths,
+ * sizes and modification times).
+ * </p>
+ */
+public class ValidationCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ValidationCache.class);
+
+  /**
+   * Bump whenever the format of the cached entries changes.
+   */
+  private static final String CACHE_FORMAT_VERSION = "1";
+
+  /**
+   * Version of the validator, part of every key. Without a released version
+   * (development and test builds), a stamp of the build is used instead, so
+   * that cached verdicts do not outlive code changes.
+   */
+  private static final String VALIDATOR_VERSION = Optional
+    .ofNullable(EARKSIPValidator.class.getPackage().getImplementationVersion())
+    .orElseGet(ValidationCache::buildStamp);
+
+  /**
+   * Directory where the entries are stored.
+   */
+  private final Path cacheDirectory;
+
+  private final JsonFactory jsonFactory = new JsonFactory();
+
+  /**
+   * Creates the cache.
+   *
+   * @param cacheDirectory
+   *          the directory where the entries are stored, created if needed.
+   * @throws IOException
+   *           if the directory can't be created.
+   */
+  public ValidationCache(final Path cacheDirectory) throws IOException {
+    this.cacheDirectory = Files.createDirectories(cacheDirectory);
+  }
+
+  /**
+   * Fingerprints a package, or a part of it.
+   *
+   * @param ipPath
+   *          the package, ZIP or folder.
+   * @param scope
+   *          for ZIPs the entry name prefix to consider, for folders the
+   *          sub-folder to consider, {@code null} for the whole package.
+   * @return the fingerprint.
+   * @throws IOException
+   *           if some I/O error occurs.
+   */
+  public static String fingerprint(final Path ipPath, final String scope) throws IOException {
+    final MessageDigest digest = newDigest();
+    if (Files.isDirectory(ipPath)) {
+      final Path root = scope == null ? ipPath : ipPath.resolve(scope);
+      if (Files.isDirectory(root)) {
+        try (Stream<Path> files = Files.walk(root)) {
+          for (Path file : files.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+            update(digest, root.relativize(file).toString(), Files.size(file),
+              Files.getLastModifiedTime(file).toMillis());
+          }
+        }
+      }
+    } else {
+      try (ZipFile zipFile = new ZipFile(ipPath.toFile())) {
+        final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+          final ZipEntry entry = entries.nextElement();
+          if (scope == null || entry.getName().startsWith(scope)) {
+            update(digest, entry.getName(), entry.getSize(), entry.getCrc());
+          }
+        }
+      }
+    }
+    return DatatypeConverter.printHexBinary(digest.digest());
+  }
+
+  /**
+   * Builds a cache key from several parts, adding the validator version.
+   *
+   * @param parts
+   *          the parts of the key.
+   * @return the key.
+   */
+  public static String key(final String... parts) {
+    final MessageDigest digest = newDigest();
+    digest.update((CACHE_FORMAT_VERSION + "|" + VALIDATOR_VERSION).getBytes(StandardCharsets.UTF_8));
+    for (String part : parts) {
+      digest.update((byte) '|');
+      digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+    }
+    return DatatypeConverter.printHexBinary(digest.digest());
+  }
+
+  /**
+   * Hash of some bytes, to be used as part of a key.
+   *
+   * @param bytes
+   *          the bytes.
+   * @return the hash.
+   */
+  public static String hash(final byte[] bytes) {
+    return DatatypeConverter.printHexBinary(newDigest().digest(bytes));
+  }
+
+  /**
+   * Hash of a list of strings, to be used as part of a key.
+   *
+   * @param values
+   *          the values.
+   * @return the hash.
+   */
+  public static String hash(final List<String> values) {
+    return hash(String.join("\n", values).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Gets an entry.
+   *
+   * @param key
+   *          the key.
+   * @return the cached {@link Entry}, if any and readable.
+   */
+  public Optional<Entry> get(final String key) {
+    final Path file = cacheDirectory.resolve(key + ".json");
+    if (!Files.exists(file)) {
+      return Optional.empty();
+    }
+    try (InputStream inputStream = Files.newInputStream(file);
+      JsonParser parser = jsonFactory.createParser(inputStream)) {
+      return Optional.of(readEntry(parser));
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("Ignoring unreadable validation cache entry {}", file, e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Stores an entry, atomically replacing any previous one.
+   *
+   * @param key
+   *          the key.
+   * @param entry
+   *          the {@link Entry}.
+   */
+  public void put(final String key, final Entry entry) {
+    final Path file = cacheDirectory.resolve(key + ".json");
+    try {
+      final Path temp = Files.createTempFile(cacheDirectory, key, ".tmp");
+      try (OutputStream outputStream = Files.newOutputStream(temp);
+        JsonGenerator generator = jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8)) {
+        writeEntry(generator, entry);
+      }
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOGGER.warn("Cannot write validation cache entry {}", file, e);
+    }
+  }
+
+  private static void writeEntry(final JsonGenerator generator, final Entry entry) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("ipType", entry.getIpType());
+    generator.writeArrayFieldStart("ids");
+    for (String id : entry.getMetsInternalIds()) {
+      generator.writeString(id);
+    }
+    generator.writeEndArray();
+    generator.writeObjectFieldStart("results");
+    for (Map.Entry<String, ReporterDetails> result : entry.getResults().entrySet()) {
+      final ReporterDetails details = result.getValue();
+      generator.writeObjectFieldStart(result.getKey());
+      generator.writeStringField("specification", details.getSpecification());
+      generator.writeStringField("detail", details.getDetail());
+      generator.writeBooleanField("valid", details.isValid());
+      generator.writeBooleanField("skipped", details.isSkipped());
+      generator.writeArrayFieldStart("issues");
+      for (String issue : details.getIssues()) {
+        generator.writeString(issue);
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+    }
+    generator.writeEndObject();
+    generator.writeEndObject();
+  }
+
+  private static Entry readEntry(final JsonParser parser) throws IOException {
+    String ipType = null;
+    final List<String> ids = new ArrayList<>();
+    final Map<String, ReporterDetails> results = new LinkedHashMap<>();
+    expect(parser.nextToken(), JsonToken.START_OBJECT);
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String field = parser.getCurrentName();
+      parser.nextToken();
+      if ("ipType".equals(field)) {
+        ipType = parser.getValueAsString();
+      } else if ("ids".equals(field)) {
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          ids.add(parser.getValueAsString());
+        }
+      } else if ("results".equals(field)) {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          final String id = parser.getCurrentName();
+          expect(parser.nextToken(), JsonToken.START_OBJECT);
+          results.put(id, readDetails(parser));
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return new Entry(results, ipType, ids);
+  }
+
+  private static ReporterDetails readDetails(final JsonParser parser) throws IOException {
+    String specification = null;
+    String detail = "";
+    boolean valid = true;
+    boolean skipped = false;
+    final List<String> issues = new ArrayList<>();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String field = parser.getCurrentName();
+      parser.nextToken();
+      if ("specification".equals(field)) {
+        specification = parser.getValueAsString();
+      } else if ("detail".equals(field)) {
+        detail = parser.getValueAsString();
+      } else if ("valid".equals(field)) {
+        valid = parser.getBooleanValue();
+      } else if ("skipped".equals(field)) {
+        skipped = parser.getBooleanValue();
+      } else if ("issues".equals(field)) {
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          issues.add(parser.getValueAsString());
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+    final ReporterDetails details = new ReporterDetails(specification, issues, valid, skipped);
+    details.setDetail(detail);
+    return details;
+  }
+
+  private static void expect(final JsonToken actual, final JsonToken expected) throws IOException {
+    if (actual != expected) {
+      throw new IOException("Expected " + expected + " but found " + actual);
+    }
+  }
+
+  /**
+   * Stamp of the code the validator was loaded from: the size and time of its
+   * JAR, or the latest time and number of the files of its classes folder.
+   */
+  private static String buildStamp() {
+    try {
+      final Path location = Paths
+        .get(EARKSIPValidator.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+      if (Files.isDirectory(location)) {
+        try (Stream<Path> files = Files.walk(location)) {
+          final long[] stamp = {0, 0};
+          files.filter(Files::isRegularFile).forEach(file -> {
+            stamp[0] = Math.max(stamp[0], file.toFile().lastModified());
+            stamp[1]++;
+          });
+          return "development-" + stamp[0] + "-" + stamp[1];
+        }
+      }
+      return "development-" + Files.size(location) + "-" + Files.getLastModifiedTime(location).toMillis();
+    } catch (IOException | URISyntaxException | RuntimeException e) {
+      LOGGER.debug("Cannot stamp the validator build, caching only for this run", e);
+      return "development-" + UUID.randomUUID();
+    }
+  }
+
+  private static void update(final MessageDigest digest, final String name, final long size, final long stamp) {
+    digest.update((name + "|" + size + "|" + stamp + "\n").getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Cached outcome of validating a package or a single METS file.
+   */
+  public static class Entry {
+    /** Results by requirement id. */
+    private final Map<String, ReporterDetails> results;
+    /** The IP type found while validating. */
+    private final String ipType;
+    /** METS internal ids registered while validating. */
+    private final List<String> metsInternalIds;
+
+    /**
+     * Creates an entry.
+     *
+     * @param results
+     *          the results by requirement id.
+     * @param ipType
+     *          the IP type.
+     * @param metsInternalIds
+     *          the METS internal ids registered while validating.
+     */
+    public Entry(final Map<String, ReporterDetails> results, final String ipType,
+      final List<String> metsInternalIds) {
+      this.results = new LinkedHashMap<>();
+      results.forEach((id, details) -> {
+        final ReporterDetails copy = details.clone();
+        copy.setDetail(details.getDetail());
+        this.results.put(id, copy);
+      });
+      this.ipType = ipType;
+      this.metsInternalIds = new ArrayList<>(metsInternalIds);
+    }
+
+    public Map<String, ReporterDetails> getResults() {
+      return results;
+    }
+
+    public String getIpType() {
+      return ipType;
+    }
+
+    public List<String> getMetsInternalIds() {
+      return metsInternalIds;
+    }
+  }
+}
@@ -23,6 +23,58 @@ import org.slf4j.LoggerFactory;
 public class ZipManager {
   private static final Logger LOGGER = LoggerFactory.getLogger(ZipManager.class);
   private ZipFile zipFile = null;
+  /**
+   * {@link StreamedZip} read instead of the IP file, {@code null} if reading the
+   * file.
+   */
+  private StreamedZip streamedZip = null;
+
+  /**
+   * Reads the IP from a {@link StreamedZip} instead of from its file.
+   *
+   * @param streamedZip
+   *          the {@link StreamedZip}.
+   */
+  public void setStreamedZip(StreamedZip streamedZip) {
+    this.streamedZip = streamedZip;
+  }
+
+  /**
+   * Check if the IP is read from a {@link StreamedZip}.
+   *
+   * @return if the IP is streamed.
+   */
+  public boolean isStreamed() {
+    return streamedZip != null;
+  }
+
+  private ZipFile getZipFile(Path path) throws IOException {
+    if (zipFile == null) {
+      zipFile = new ZipFile(path.toFile());
+    }
+    return zipFile;
+  }
+
+  private Enumeration<? extends ZipEntry> entries(Path path) throws IOException {
+    if (streamedZip != null) {
+      return streamedZip.entries();
+    }
+    return getZipFile(path).entries();
+  }
+
+  private ZipEntry getEntry(Path path, String entry) throws IOException {
+    if (streamedZip != null) {
+      return streamedZip.getEntry(entry);
+    }
+    return getZipFile(path).getEntry(entry);
+  }
+
+  private InputStream getInputStream(Path path, ZipEntry entry) throws IOException {
+    if (streamedZip != null) {
+      return streamedZip.getInputStream(entry.getName());
+    }
+    return getZipFile(path).getInputStream(entry);
+  }
 
   /**
    * Gets {@link InputStream} to the IP in zip format.
@@ -36,15 +88,11 @@ public class ZipManager {
    *           if some I/O error occurs
    */
   public InputStream getZipInputStream(Path path, String entry) throws IOException {
-    if (zipFile == null) {
-      zipFile = new ZipFile(path.toFile());
-    }
-
-    ZipEntry zipArchiveEntry = zipFile.getEntry(entry);
+    ZipEntry zipArchiveEntry = getEntry(path, entry);
     if (zipArchiveEntry == null) {
       return null;
     }
-    return zipFile.getInputStream(zipArchiveEntry);
+    return getInputStream(path, zipArchiveEntry);
   }
 
   /**
@@ -57,11 +105,7 @@ public class ZipManager {
    *           if some I/O error occurs
    */
   public InputStream getMetsRootInputStream(Path path) throws IOException {
-    if (zipFile == null) {
-      zipFile = new ZipFile(path.toFile());
-    }
-
-    Enumeration entries = zipFile.entries();
+    Enumeration entries = entries(path);
     String entry = null;
     while (entries.hasMoreElements()) {
       ZipEntry entr = (ZipEntry) entries.nextElement();
@@ -75,12 +119,12 @@ public class ZipManager {
       LOGGER.debug("METS.xml not Found");
       throw new IOException("METS.xml not Found");
     }
-    ZipEntry zipArchiveEntry = zipFile.getEntry(entry);
-    return zipFile.getInputStream(zipArchiveEntry);
+    ZipEntry zipArchiveEntry = getEntry(path, entry);
+    return getInputStream(path, zipArchiveEntry);
   }
 
   public Enumeration getEntries() {
-    return zipFile.entries();
+    return streamedZip != null ? streamedZip.entries() : zipFile.entries();
   }
 
   /**
@@ -94,10 +138,7 @@ public class ZipManager {
    */
   public ZipEntry getZipEntry(Path path, String entry) {
     try {
-      if (zipFile == null) {
-        zipFile = new ZipFile(path.toFile());
-      }
-      return zipFile.getEntry(entry);
+      return getEntry(path, entry);
     } catch (IOException e) {
       LOGGER.debug("Failed to retrieve the entry: {} from {}", entry, path, e);
       return null;
@@ -115,8 +156,7 @@ public class ZipManager {
    */
   public boolean checkIfExistsRootMetsFile(Path path) throws IOException {
     boolean found = false;
-    ZipFile zipFile = new ZipFile(path.toFile());
-    Enumeration entries = zipFile.entries();
+    Enumeration entries = entries(path);
     while (entries.hasMoreElements()) {
       ZipEntry entry = (ZipEntry) entries.nextElement();
       if (entry.getName().endsWith("/METS.xml")) {
@@ -154,8 +194,7 @@ public class ZipManager {
    */
   public boolean checkPathExists(Path path, String filePath) throws IOException {
     boolean found = false;
-    ZipFile zipFile = new ZipFile(path.toFile());
-    Enumeration entries = zipFile.entries();
+    Enumeration entries = entries(path);
     while (entries.hasMoreElements()) {
       ZipEntry entry = (ZipEntry) entries.nextElement();
       if (entry.getName().equals(filePath)) {
@@ -184,6 +223,10 @@ public class ZipManager {
    */
   public boolean verifyChecksum(Path path, String file, String alg, String checksum)
     throws IOException, NoSuchAlgorithmException {
+    if (streamedZip != null) {
+      String streamedChecksum = streamedZip.getChecksum(file, alg);
+      return streamedChecksum != null && checksum.equalsIgnoreCase(streamedChecksum);
+    }
     boolean valid = true;
     InputStream entry = getZipInputStream(path, file);
     if (entry == null) {
@@ -218,8 +261,7 @@ public class ZipManager {
   }
 
   public boolean verifyIfExistsFilesInFolder(Path path, String regex) throws IOException {
-    ZipFile zipFile = new ZipFile(path.toFile());
-    Enumeration entries = zipFile.entries();
+    Enumeration entries = entries(path);
     while (entries.hasMoreElements()) {
       ZipEntry entry = (ZipEntry) entries.nextElement();
       if (entry.getName().matches(regex)) {
@@ -235,8 +277,7 @@ public class ZipManager {
 
   public int countMetadataFiles(Path path, String regex) throws IOException {
     int count = 0;
-    ZipFile zipFile = new ZipFile(path.toFile());
-    Enumeration entries = zipFile.entries();
+    Enumeration entries = entries(path);
     while (entries.hasMoreElements()) {
       ZipEntry entry = (ZipEntry) entries.nextElement();
       if (entry.getName().matches(regex)) {
@@ -250,14 +291,13 @@ public class ZipManager {
 
   public HashMap<String, InputStream> getSubMets(Path path) throws IOException {
     HashMap<String, InputStream> subMets = new HashMap<>();
-    ZipFile zipFile = new ZipFile(path.toFile());
-    Enumeration entries = zipFile.entries();
+    Enumeration entries = entries(path);
 
     while (entries.hasMoreElements()) {
       ZipEntry entry = (ZipEntry) entries.nextElement();
       if (entry.getName().endsWith("/METS.xml") && entry.getName().split("/").length > 2
         && entry.getName().split("/").length <= 4 && !entry.getName().matches(".+/submission/.+")) {
-        InputStream stream = zipFile.getInputStream(entry);
+        InputStream stream = getInputStream(path, entry);
         if (stream != null) {
           subMets.put(entry.getName(), stream);
         }
@@ -267,8 +307,7 @@ public class ZipManager {
   }
 
   public boolean checkSingleRootFolder(Path path) throws IOException {
-    ZipFile zipFile = new ZipFile(path.toFile());
-    Enumeration entries = zipFile.entries();
+    Enumeration entries = entries(path);
 
     Set<String> tmp = new HashSet<>();
     while (entries.hasMoreElements()) {
@@ -280,9 +319,8 @@ public class ZipManager {
   }
 
   public boolean checkDirectory(Path path, String directoryPath) throws IOException {
-    ZipFile zipFile = new ZipFile(path.toFile());
-    ZipEntry e = zipFile.getEntry(directoryPath);
-    Enumeration entries = zipFile.entries();
+    ZipEntry e = getEntry(path, directoryPath);
+    Enumeration entries = entries(path);
     boolean found = false;
     if (e == null) {
       while (entries.hasMoreElements()) {
@@ -298,8 +336,7 @@ public class ZipManager {
   }
 
   public boolean checkSubMetsFolder(Path path, String objectId) throws IOException {
-    ZipFile zipFile = new ZipFile(path.toFile());
-    Enumeration entries = zipFile.entries();
+    Enumeration entries = entries(path);
     while (entries.hasMoreElements()) {
       ZipEntry entry = (ZipEntry) entries.nextElement();
       String name = entry.getName();
@@ -315,11 +352,7 @@ public class ZipManager {
   }
 
   public boolean checkRootFolderName(Path path, String objectId) throws IOException {
-    if (zipFile == null) {
-      zipFile = new ZipFile(path.toFile());
-    }
-
-    Enumeration entries = zipFile.entries();
+    Enumeration entries = entries(path);
     String entry = null;
     while (entries.hasMoreElements()) {
       ZipEntry entr = (ZipEntry) entries.nextElement();
@@ -338,8 +371,7 @@ public class ZipManager {
 
   public HashMap<String, Boolean> getMetadataFiles(Path path, String regex) throws IOException {
     HashMap<String, Boolean> metadataFiles = new HashMap<>();
-    ZipFile zipFile = new ZipFile(path.toFile());
-    Enumeration entries = zipFile.entries();
+    Enumeration entries = entries(path);
     while (entries.hasMoreElements()) {
       ZipEntry entry = (ZipEntry) entries.nextElement();
       if (entry.getName().matches(regex)) {
@@ -353,8 +385,7 @@ public class ZipManager {
 
   public HashMap<String, Boolean> getFiles(Path path) throws IOException {
     HashMap<String, Boolean> metadataFiles = new HashMap<>();
-    ZipFile zipFile = new ZipFile(path.toFile());
-    Enumeration entries = zipFile.entries();
+    Enumeration entries = entries(path);
     while (entries.hasMoreElements()) {
       ZipEntry entry = (ZipEntry) entries.nextElement();
       if (!entry.getName().matches(".*/METS.xml") && !entry.getName().contains("/metadata") && !entry.isDirectory()
@@ -367,8 +398,7 @@ public class ZipManager {
 
   public boolean checkPathIsDirectory(Path path, String filePath) throws IOException {
     boolean found = false;
-    ZipFile zipFile = new ZipFile(path.toFile());
-    Enumeration entries = zipFile.entries();
+    Enumeration entries = entries(path);
     while (entries.hasMoreElements()) {
       ZipEntry entry = (ZipEntry) entries.nextElement();
       if (entry.getName().matches(".*/?" + filePath + "/")) {
@@ -383,8 +413,7 @@ public class ZipManager {
 
   public boolean checkIfExistsFolderInRoot(Path path, String folder) throws IOException {
     boolean found = false;
-    ZipFile zipFile = new ZipFile(path.toFile());
-    Enumeration entries = zipFile.entries();
+    Enumeration entries = entries(path);
     while (entries.hasMoreElements()) {
       ZipEntry entry = (ZipEntry) entries.nextElement();
       if (entry.getName().matches(".*/" + folder + "/.*")) {
@@ -399,8 +428,7 @@ public class ZipManager {
 
   public boolean checkIfExistsFolderInside(Path path, String folder) throws IOException {
     boolean found = false;
-    ZipFile zipFile = new ZipFile(path.toFile());
-    Enumeration entries = zipFile.entries();
+    Enumeration entries = entries(path);
     while (entries.hasMoreElements()) {
       ZipEntry entry = (ZipEntry) entries.nextElement();
       if (entry.getName().matches(".*/" + folder + "/.*") && entry.getName().split("/").length >= 3) {
@@ -412,8 +440,7 @@ public class ZipManager {
   }
 
   public boolean checkIfExistsFolderInsideRepresentation(Path path, String folder) throws IOException {
-    ZipFile zipFile = new ZipFile(path.toFile());
-    Enumeration entries = zipFile.entries();
+    Enumeration entries = entries(path);
     while (entries.hasMoreElements()) {
       ZipEntry entry = (ZipEntry) entries.nextElement();
       if (entry.getName().matches(".*/representations/.*/" + folder + "/.*")
@@ -425,8 +452,7 @@ public class ZipManager {
   }
 
   public boolean checkIfExistsSubMets(Path path) throws IOException {
-    ZipFile zipFile = new ZipFile(path.toFile());
-    Enumeration entries = zipFile.entries();
+    Enumeration entries = entries(path);
     int countSubMets = 0;
     int countRepresentations;
     List<String> representationsFoldersNames = new ArrayList<>();
@@ -447,15 +473,13 @@ public class ZipManager {
         }
       }
     }
-    zipFile.close();
     countRepresentations = representationsFoldersNames.size();
     return countSubMets == countRepresentations;
   }
 
   public List<String> getRepresentationsFoldersNames(Path path) throws IOException {
     List<String> representationsFoldersNames = new ArrayList<>();
-    ZipFile zipFile = new ZipFile(path.toFile());
-    Enumeration entries = zipFile.entries();
+    Enumeration entries = entries(path);
     while (entries.hasMoreElements()) {
       ZipEntry entry = (ZipEntry) entries.nextElement();
       if (entry.getName().contains("/representations/") && entry.getName().split("/").length > 3
@@ -466,14 +490,12 @@ public class ZipManager {
         }
       }
     }
-    zipFile.close();
     return representationsFoldersNames;
   }
 
   public int countFilesInsideRepresentations(Path path) throws IOException {
     int count = 0;
-    ZipFile zipFile = new ZipFile(path.toFile());
-    Enumeration entries = zipFile.entries();
+    Enumeration entries = entries(path);
     while (entries.hasMoreElements()) {
       ZipEntry entry = (ZipEntry) entries.nextElement();
       if (entry.getName().contains("/representations/") && !entry.getName().matches(".+/submission/.+")
@@ -491,8 +513,7 @@ public class ZipManager {
     commonFolders.add("schemas");
     commonFolders.add("representations");
     List<String> additionalFolders = new ArrayList<>();
-    ZipFile zipFile = new ZipFile(path.toFile());
-    Enumeration entries = zipFile.entries();
+    Enumeration entries = entries(path);
     while (entries.hasMoreElements()) {
       ZipEntry entry = (ZipEntry) entries.nextElement();
       String[] folder = entry.getName().split("/");
@@ -515,8 +536,7 @@ public class ZipManager {
 
   public boolean checkIfExistsFolderRepresentation(Path ipPath, String folder, String representation)
     throws IOException {
-    ZipFile zipFile = new ZipFile(ipPath.toFile());
-    Enumeration entries = zipFile.entries();
+    Enumeration entries = entries(ipPath);
     StringBuilder regex = new StringBuilder();
     regex.append(".+/").append(representation).append("/").append(folder);
     while (entries.hasMoreElements()) {
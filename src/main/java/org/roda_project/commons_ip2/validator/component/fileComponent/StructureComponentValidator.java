@@ -49,6 +49,12 @@ public class StructureComponentValidator extends StructureValidatorImpl {
             .setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
     if (ResultsUtils.isResultValid(
         results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIPSTR1_ID)) {
+      if (!structureValidatorState.isZipFileFlag()) {
+        // list the IP folder once for all the following checks
+        structureValidatorState
+            .getFolderManager()
+            .takeSnapshot(structureValidatorState.getIpPath());
+      }
 
       /* CSIPSTR2 */
       ResultsUtils.addResult(
@@ -230,7 +236,15 @@ public class StructureComponentValidator extends StructureValidatorImpl {
   private ReporterDetails validateCSIPSTR1(final StructureValidatorState structureValidatorState)
       throws IOException {
     ReporterDetails details = new ReporterDetails();
-    if (Files.exists(structureValidatorState.getIpPath())) {
+    if (structureValidatorState.getZipManager().isStreamed()) {
+      structureValidatorState.setZipFileFlag(true);
+      if (!structureValidatorState
+          .getZipManager()
+          .checkSingleRootFolder(structureValidatorState.getIpPath())) {
+        details.setValid(false);
+        details.addIssue("MUST unpack to a single folder");
+      }
+    } else if (Files.exists(structureValidatorState.getIpPath())) {
       if (isZipFile(structureValidatorState.getIpPath())) {
         structureValidatorState.setZipFileFlag(true);
         if (!structureValidatorState
@@ -6,9 +6,11 @@ import java.net.URLDecoder;
 import java.nio.file.Paths;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import javax.xml.namespace.QName;
@@ -28,6 +30,9 @@ import org.roda_project.commons_ip2.validator.constants.ConstantsCSIPspec;
 import org.roda_project.commons_ip2.validator.constants.ConstantsSIPspec;
 import org.roda_project.commons_ip2.validator.handlers.MetsHandler;
 import org.roda_project.commons_ip2.validator.reporter.ReporterDetails;
+import org.roda_project.commons_ip2.validator.rules.MetsElement;
+import org.roda_project.commons_ip2.validator.rules.MetsRule;
+import org.roda_project.commons_ip2.validator.rules.MetsRuleEngine;
 import org.roda_project.commons_ip2.validator.state.MetsValidatorState;
 import org.roda_project.commons_ip2.validator.state.StructureValidatorState;
 import org.roda_project.commons_ip2.validator.utils.CHECKSUMTYPE;
@@ -55,6 +60,11 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
    * {@link List} of content information type.
    */
   private List<String> contentInformationType;
+  /**
+   * {@link MetsRuleEngine} with the requirements checked on each file, in a
+   * single traversal of mets/fileSec.
+   */
+  private final MetsRuleEngine fileRuleEngine;
 
   /**
    * Initializes Validation component.
@@ -70,6 +80,9 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
     moduleName = Constants.CSIP_MODULE_NAME_5;
     this.contentInformationType = ControlledVocabularyParser
       .parse(Constants.PATH_RESOURCES_CSIP_VOCABULARY_CONTENT_INFORMATION_TYPE);
+    this.fileRuleEngine = new MetsRuleEngine(Arrays.asList(new FileIdRule(), new FileMimeTypeRule(),
+      new FileCreatedRule(), new FileChecksumTypeRule(), new FileOwnerIdRule(), new FileLocationRule(),
+      new FileLocationTypeRule()));
   }
 
   @Override
@@ -140,16 +153,20 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
           .setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
 
       if (ResultsUtils.isResultValid(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP66_ID)) {
+        final Map<String, ReporterDetails> fileResults = fileRuleEngine.run(structureValidatorState,
+          metsValidatorState);
 
         /* CSIP67 */
         notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP67_ID);
         ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP67_ID,
-          validateCSIP67(metsValidatorState).setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
+          fileResults.get(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP67_ID)
+            .setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
 
         /* CSIP68 */
         notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP68_ID);
         ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP68_ID,
-          validateCSIP68(metsValidatorState).setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
+          fileResults.get(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP68_ID)
+            .setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
 
         /* CSIP69 */
         notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP69_ID);
@@ -160,7 +177,8 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
         /* CSIP70 */
         notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP70_ID);
         ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP70_ID,
-          validateCSIP70(metsValidatorState).setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
+          fileResults.get(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP70_ID)
+            .setSpecification(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
 
         /* CSIP71 */
         notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP71_ID);
@@ -178,13 +196,13 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
         /* CSIP72 */
         notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID);
         ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID,
-          validateCSIP72(metsValidatorState)
+          fileResults.get(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID)
             .setSpecification(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID));
 
         /* CSIP73 */
         notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP73_ID);
         ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP73_ID,
-          validateCSIP73(metsValidatorState)
+          fileResults.get(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP73_ID)
             .setSpecification(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID));
 
         /* CSIP74 */
@@ -202,7 +220,7 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
         /* CSIP76 */
         notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP76_ID);
         ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP76_ID,
-          validateCSIP76(metsValidatorState)
+          fileResults.get(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP76_ID)
             .setSpecification(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID));
 
         if (ResultsUtils.isResultValid(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP76_ID)) {
@@ -210,7 +228,7 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
           /* CSIP77 */
           notifyObserversValidationStarted(moduleName, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP77_ID);
           ResultsUtils.addResult(results, ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP77_ID,
-            validateCSIP77(metsValidatorState)
+            fileResults.get(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP77_ID)
               .setSpecification(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID));
 
           /* CSIP78 */
@@ -741,68 +759,6 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
     return new ReporterDetails();
   }
 
-  /*
-   * mets/fileSec/fileGrp/file/@ID A unique xml:id identifier for this file across
-   * the package.
-   */
-  private ReporterDetails validateCSIP67(final MetsValidatorState metsValidatorState) {
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrp = fileSec.getFileGrp();
-    for (MetsType.FileSec.FileGrp grp : fileGrp) {
-      final List<FileType> files = grp.getFile();
-      for (FileType file : files) {
-        final String id = file.getID();
-        if (id != null) {
-          if (!metsValidatorState.checkMetsInternalId(id)) {
-            metsValidatorState.addMetsInternalId(id);
-          } else {
-            final StringBuilder message = new StringBuilder();
-            message.append("Value ").append(id)
-              .append(" in %1$s for mets/fileSec/fileGrp/@ID isn't unique in the package");
-            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
-              message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
-          }
-        } else {
-          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage("mets/fileSec/fileGrp/file/@ID in %1$s can't be null",
-              metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-            false, false);
-        }
-      }
-    }
-    return new ReporterDetails();
-  }
-
-  /*
-   * mets/fileSec/fileGrp/file/@MIMETYPE The IANA mime type for the referenced
-   * file.See also: IANA media types
-   */
-  private ReporterDetails validateCSIP68(final MetsValidatorState metsValidatorState) {
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrp = fileSec.getFileGrp();
-    for (MetsType.FileSec.FileGrp grp : fileGrp) {
-      final List<FileType> files = grp.getFile();
-      for (FileType file : files) {
-        final String mimeType = file.getMIMETYPE();
-        if (mimeType != null) {
-          if (!IanaMediaTypes.getIanaMediaTypesList().contains(mimeType)) {
-            final StringBuilder message = new StringBuilder();
-            message.append("Value ").append(mimeType)
-              .append(" in %1$s for mets/fileSec/fileGrp/file/@MIMETYPE value isn't valid");
-            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
-              message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
-          }
-        } else {
-          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage("mets/fileSec/fileGrp/file/@MIMETYPE of file in %1$s can't be null",
-              metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-            false, false);
-        }
-      }
-    }
-    return new ReporterDetails();
-  }
-
   /*
    * mets/fileSec/fileGrp/file/@SIZE Size of the referenced file in bytes.
    */
@@ -893,26 +849,6 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
     return new ReporterDetails();
   }
 
-  /*
-   * mets/fileSec/fileGrp/file/@CREATED Creation date of the referenced file.
-   */
-  private ReporterDetails validateCSIP70(final MetsValidatorState metsValidatorState) {
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrp = fileSec.getFileGrp();
-    for (MetsType.FileSec.FileGrp grp : fileGrp) {
-      final List<FileType> files = grp.getFile();
-      for (FileType file : files) {
-        if (file.getCREATED() == null) {
-          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage("mets/fileSec/fileGrp/file/@CREATED in %1$s can't be null",
-              metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-            false, false);
-        }
-      }
-    }
-    return new ReporterDetails();
-  }
-
   /*
    * mets/fileSec/fileGrp/file/@CHECKSUM The checksum of the referenced file.
    */
@@ -993,63 +929,6 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
     return new ReporterDetails();
   }
 
-  /*
-   * mets/fileSec/fileGrp/file/@CHECKSUMTYPE The type of checksum following the
-   * value list present in the METS-standard which has been used for calculating
-   * the checksum for the referenced file.
-   */
-  private ReporterDetails validateCSIP72(final MetsValidatorState metsValidatorState) {
-    final List<String> tmp = new ArrayList<>();
-    for (CHECKSUMTYPE check : CHECKSUMTYPE.values()) {
-      tmp.add(check.toString());
-    }
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrp = fileSec.getFileGrp();
-    for (MetsType.FileSec.FileGrp grp : fileGrp) {
-      final List<FileType> files = grp.getFile();
-      for (FileType file : files) {
-        final String checksumType = file.getCHECKSUMTYPE();
-        if (checksumType == null) {
-          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage("mets/fileSec/fileGrp/file/@CHECKSUMTYPE in %1$s can't be null",
-              metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-            false, false);
-        } else {
-          if (!tmp.contains(checksumType)) {
-            final StringBuilder message = new StringBuilder();
-            message.append("Value ").append(checksumType)
-              .append(" in %1$s for mets/fileSec/fileGrp/file/@CHECKSUMTYPE isn't valid");
-            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
-              message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
-          }
-        }
-      }
-    }
-    return new ReporterDetails();
-  }
-
-  /*
-   * mets/fileSec/fileGrp/file/@OWNERID If an identifier for the file was supplied
-   * by the owner it can be recorded in this attribute.
-   */
-  private ReporterDetails validateCSIP73(final MetsValidatorState metsValidatorState) {
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrp = fileSec.getFileGrp();
-    for (MetsType.FileSec.FileGrp grp : fileGrp) {
-      final List<FileType> files = grp.getFile();
-      for (FileType file : files) {
-        final String ownerID = file.getOWNERID();
-        if (ownerID != null) {
-          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage("A owner identifier was defined in %1$s", metsValidatorState.getMetsName(),
-              metsValidatorState.isRootMets()),
-            false, false);
-        }
-      }
-    }
-    return new ReporterDetails();
-  }
-
   /**
    * mets/fileSec/fileGrp/file/@ADMID If administrative metadata has been provided
    * for the file this attribute refers to the file’s administrative metadata by
@@ -1064,8 +943,8 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
     final List<AmdSecType> amdSec = metsValidatorState.getMets().getAmdSec();
 
     // Get all identifiers for DigiprovMD
-    final List<String> amdIds = amdSec.stream().map(AmdSecType::getDigiprovMD).flatMap(List::stream)
-      .filter(dp -> dp.getMdRef() != null).map(dp -> dp.getMdRef().getID()).collect(Collectors.toList());
+    final Set<String> amdIds = amdSec.stream().map(AmdSecType::getDigiprovMD).flatMap(List::stream)
+      .filter(dp -> dp.getMdRef() != null).map(dp -> dp.getMdRef().getID()).collect(Collectors.toSet());
 
     // Get all file ADMIDs that are NOT in the list of DigiprovMD identifiers
     final List<String> admidsNotInAmd = fileGrps.stream().map(FileGrpType::getFile).flatMap(List::stream)
@@ -1128,78 +1007,6 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
     return new ReporterDetails();
   }
 
-  /*
-   * mets/fileSec/fileGrp/file/FLocat The location of each external file must be
-   * defined by the file location <FLocat> element using the same rules as for
-   * referencing metadata files. All references to files should be made using the
-   * XLink href attribute and the file protocol using the relative location of the
-   * file.
-   */
-  private ReporterDetails validateCSIP76(final MetsValidatorState metsValidatorState) {
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrp = fileSec.getFileGrp();
-    for (MetsType.FileSec.FileGrp grp : fileGrp) {
-      final List<FileType> files = grp.getFile();
-      for (FileType file : files) {
-        final List<FileType.FLocat> flocat = file.getFLocat();
-        if (flocat == null) {
-          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage("mets/fileSec/fileGrp/file/FLocat in %1$s can't be null",
-              metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-            false, false);
-        } else {
-          if (flocat.size() != 1) {
-            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-              Message.createErrorMessage("Can't have more than one mets/fileSec/fileGrp/file/FLocat in %1$s",
-                metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-              false, false);
-          }
-        }
-      }
-    }
-    return new ReporterDetails();
-  }
-
-  /*
-   * mets/fileSec/fileGrp/file/FLocat[@LOCTYPE=’URL’] The locator type is always
-   * used with the value “URL” from the vocabulary in the attribute.
-   */
-  private ReporterDetails validateCSIP77(final MetsValidatorState metsValidatorState) {
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrp = fileSec.getFileGrp();
-    for (MetsType.FileSec.FileGrp grp : fileGrp) {
-      final List<FileType> files = grp.getFile();
-      for (FileType file : files) {
-        final List<FileType.FLocat> flocat = file.getFLocat();
-        if (flocat == null) {
-          return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-            Message.createErrorMessage("mets/fileSec/fileGrp/file/FLocat in %1$s can't be null",
-              metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-            false, false);
-        } else {
-          for (FileType.FLocat floc : flocat) {
-            final String loctype = floc.getLOCTYPE();
-            if (loctype == null) {
-              return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                Message.createErrorMessage("mets/fileSec/fileGrp/file/FLocat[@LOCTYPE=’URL’] in %1$s can't be null",
-                  metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-                false, false);
-            } else {
-              if (!loctype.equals("URL")) {
-                return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                  Message.createErrorMessage(
-                    "mets/fileSec/fileGrp/file/" + "FLocat[@LOCTYPE=’URL’] value in %1$s has to be URL ",
-                    metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-                  false, false);
-              }
-            }
-          }
-        }
-      }
-    }
-    return new ReporterDetails();
-  }
-
   /*
    * mets/fileSec/fileGrp/file/FLocat[@xlink:type=’simple’] Attribute used with
    * the value “simple”. Value list is maintained by the xlink standard.
@@ -1331,4 +1138,143 @@ public class FileSectionComponentValidator extends MetsValidatorImpl {
     }
     return new ReporterDetails();
   }
+
+  /*
+   * mets/fileSec/fileGrp/file/@ID A unique xml:id identifier for this file across
+   * the package.
+   */
+  private static final class FileIdRule extends MetsRule {
+    private FileIdRule() {
+      super(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP67_ID, MetsElement.FILE);
+    }
+
+    @Override
+    protected void visitFile(final MetsType.FileSec.FileGrp fileGrp, final FileType file) {
+      final String id = file.getID();
+      if (id == null) {
+        fail("mets/fileSec/fileGrp/file/@ID in %1$s can't be null");
+      } else if (getMetsValidatorState().checkMetsInternalId(id)) {
+        fail("Value " + id + " in %1$s for mets/fileSec/fileGrp/@ID isn't unique in the package");
+      } else {
+        getMetsValidatorState().addMetsInternalId(id);
+      }
+    }
+  }
+
+  /*
+   * mets/fileSec/fileGrp/file/@MIMETYPE The IANA mime type for the referenced
+   * file.See also: IANA media types
+   */
+  private static final class FileMimeTypeRule extends MetsRule {
+    private FileMimeTypeRule() {
+      super(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP68_ID, MetsElement.FILE);
+    }
+
+    @Override
+    protected void visitFile(final MetsType.FileSec.FileGrp fileGrp, final FileType file) {
+      final String mimeType = file.getMIMETYPE();
+      if (mimeType == null) {
+        fail("mets/fileSec/fileGrp/file/@MIMETYPE of file in %1$s can't be null");
+      } else if (!IanaMediaTypes.getIanaMediaTypesList().contains(mimeType)) {
+        fail("Value " + mimeType + " in %1$s for mets/fileSec/fileGrp/file/@MIMETYPE value isn't valid");
+      }
+    }
+  }
+
+  /*
+   * mets/fileSec/fileGrp/file/@CREATED Creation date of the referenced file.
+   */
+  private static final class FileCreatedRule extends MetsRule {
+    private FileCreatedRule() {
+      super(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP70_ID, MetsElement.FILE);
+    }
+
+    @Override
+    protected void visitFile(final MetsType.FileSec.FileGrp fileGrp, final FileType file) {
+      if (file.getCREATED() == null) {
+        fail("mets/fileSec/fileGrp/file/@CREATED in %1$s can't be null");
+      }
+    }
+  }
+
+  /*
+   * mets/fileSec/fileGrp/file/@CHECKSUMTYPE The type of checksum following the
+   * value list present in the METS-standard which has been used for calculating
+   * the checksum for the referenced file.
+   */
+  private static final class FileChecksumTypeRule extends MetsRule {
+    private final Set<String> checksumTypes = Arrays.stream(CHECKSUMTYPE.values()).map(CHECKSUMTYPE::toString)
+      .collect(Collectors.toSet());
+
+    private FileChecksumTypeRule() {
+      super(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP72_ID, MetsElement.FILE);
+    }
+
+    @Override
+    protected void visitFile(final MetsType.FileSec.FileGrp fileGrp, final FileType file) {
+      final String checksumType = file.getCHECKSUMTYPE();
+      if (checksumType == null) {
+        fail("mets/fileSec/fileGrp/file/@CHECKSUMTYPE in %1$s can't be null");
+      } else if (!checksumTypes.contains(checksumType)) {
+        fail("Value " + checksumType + " in %1$s for mets/fileSec/fileGrp/file/@CHECKSUMTYPE isn't valid");
+      }
+    }
+  }
+
+  /*
+   * mets/fileSec/fileGrp/file/@OWNERID If an identifier for the file was supplied
+   * by the owner it can be recorded in this attribute.
+   */
+  private static final class FileOwnerIdRule extends MetsRule {
+    private FileOwnerIdRule() {
+      super(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP73_ID, MetsElement.FILE);
+    }
+
+    @Override
+    protected void visitFile(final MetsType.FileSec.FileGrp fileGrp, final FileType file) {
+      if (file.getOWNERID() != null) {
+        fail("A owner identifier was defined in %1$s");
+      }
+    }
+  }
+
+  /*
+   * mets/fileSec/fileGrp/file/FLocat The location of each external file must be
+   * defined by the file location <FLocat> element using the same rules as for
+   * referencing metadata files. All references to files should be made using the
+   * XLink href attribute and the file protocol using the relative location of the
+   * file.
+   */
+  private static final class FileLocationRule extends MetsRule {
+    private FileLocationRule() {
+      super(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP76_ID, MetsElement.FILE);
+    }
+
+    @Override
+    protected void visitFile(final MetsType.FileSec.FileGrp fileGrp, final FileType file) {
+      if (file.getFLocat().size() != 1) {
+        fail("Can't have more than one mets/fileSec/fileGrp/file/FLocat in %1$s");
+      }
+    }
+  }
+
+  /*
+   * mets/fileSec/fileGrp/file/FLocat[@LOCTYPE=’URL’] The locator type is always
+   * used with the value “URL” from the vocabulary in the attribute.
+   */
+  private static final class FileLocationTypeRule extends MetsRule {
+    private FileLocationTypeRule() {
+      super(ConstantsCSIPspec.VALIDATION_REPORT_SPECIFICATION_CSIP77_ID, MetsElement.FLOCAT);
+    }
+
+    @Override
+    protected void visitFLocat(final FileType file, final FileType.FLocat flocat) {
+      final String loctype = flocat.getLOCTYPE();
+      if (loctype == null) {
+        fail("mets/fileSec/fileGrp/file/FLocat[@LOCTYPE=’URL’] in %1$s can't be null");
+      } else if (!loctype.equals("URL")) {
+        fail("mets/fileSec/fileGrp/file/" + "FLocat[@LOCTYPE=’URL’] value in %1$s has to be URL ");
+      }
+    }
+  }
 }
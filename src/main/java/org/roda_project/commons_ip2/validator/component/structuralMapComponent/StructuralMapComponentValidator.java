@@ -769,40 +769,17 @@ public class StructuralMapComponentValidator extends MetsValidatorImpl {
    * using spaces as delimiters.
    */
   private ReporterDetails validateCSIP91(final MetsValidatorState metsValidatorState) {
-    final List<StructMapType> structMap = metsValidatorState.getMets().getStructMap();
-    final List<AmdSecType> amdSec = metsValidatorState.getMets().getAmdSec();
-    final List<String> amdSecIDs = new ArrayList<>();
-    if (amdSec != null && !amdSec.isEmpty()) {
-      for (AmdSecType amdSecType : amdSec) {
-        final List<MdSecType> digiProv = amdSecType.getDigiprovMD();
-        for (MdSecType mdSecType : digiProv) {
-          amdSecIDs.add(mdSecType.getID());
-        }
-      }
-    }
-    if (structMap != null) {
-      for (StructMapType struct : structMap) {
-        final DivType div = struct.getDiv();
-        if (div != null) {
-          final List<DivType> divs = div.getDiv();
-          for (DivType d : divs) {
-            if (d.getLABEL() != null && d.getLABEL().matches("Metadata.*?")) {
-              final List<Object> admids = d.getADMID();
-              if (admids != null && !admids.isEmpty()) {
-                for (Object o : admids) {
-                  final String admid = ((MdSecType) o).getID();
-                  if (!amdSecIDs.contains(admid)) {
-                    final StringBuilder message = new StringBuilder();
-                    message.append("mets/structMap[@LABEL='CSIP']/div/div[@LABEL='Metadata']/@ADMID (").append(admid)
-                      .append(") doesn't match with any mets/amdSec/digiprovMD/@ID in %1$s");
-                    return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                      Message.createErrorMessage(message.toString(), metsValidatorState.getMetsName(),
-                        metsValidatorState.isRootMets()),
-                      false, false);
-                  }
-                }
-              }
-            }
+    for (DivType d : metsValidatorState.getMetsIndex().getStructMapDivsWithLabelPrefix("Metadata")) {
+      final List<Object> admids = d.getADMID();
+      if (admids != null && !admids.isEmpty()) {
+        for (Object o : admids) {
+          final String admid = ((MdSecType) o).getID();
+          if (!metsValidatorState.getMetsIndex().isDigiprovMdId(admid)) {
+            final StringBuilder message = new StringBuilder();
+            message.append("mets/structMap[@LABEL='CSIP']/div/div[@LABEL='Metadata']/@ADMID (").append(admid)
+              .append(") doesn't match with any mets/amdSec/digiprovMD/@ID in %1$s");
+            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+              message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
           }
         }
       }
@@ -819,37 +796,17 @@ public class StructuralMapComponentValidator extends MetsValidatorImpl {
    * delimiters.
    */
   private ReporterDetails validateCSIP92(final MetsValidatorState metsValidatorState) {
-    final List<StructMapType> structMap = metsValidatorState.getMets().getStructMap();
-    final List<MdSecType> dmdSec = metsValidatorState.getMets().getDmdSec();
-    final List<String> dmdSecIDs = new ArrayList<>();
-    if (!dmdSec.isEmpty()) {
-      for (MdSecType md : dmdSec) {
-        dmdSecIDs.add(md.getID());
-      }
-    }
-    if (structMap != null) {
-      for (StructMapType struct : structMap) {
-        final DivType div = struct.getDiv();
-        if (div != null) {
-          final List<DivType> divs = div.getDiv();
-          for (DivType d : divs) {
-            if (d.getLABEL() != null && d.getLABEL().matches("Metadata.*?")) {
-              final List<Object> dmdids = d.getDMDID();
-              if (!dmdids.isEmpty()) {
-                for (Object o : dmdids) {
-                  final String dmid = ((MdSecType) o).getID();
-                  if (!dmdSecIDs.contains(dmid)) {
-                    final StringBuilder message = new StringBuilder();
-                    message.append("mets/structMap[@LABEL='CSIP']/div/div[@LABEL='Metadata']/@DMDID (").append(dmid)
-                      .append(") not match with any mets/dmdSec/mdRef/@ID in %1$s");
-                    return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                      Message.createErrorMessage(message.toString(), metsValidatorState.getMetsName(),
-                        metsValidatorState.isRootMets()),
-                      false, false);
-                  }
-                }
-              }
-            }
+    for (DivType d : metsValidatorState.getMetsIndex().getStructMapDivsWithLabelPrefix("Metadata")) {
+      final List<Object> dmdids = d.getDMDID();
+      if (!dmdids.isEmpty()) {
+        for (Object o : dmdids) {
+          final String dmid = ((MdSecType) o).getID();
+          if (!metsValidatorState.getMetsIndex().isDmdSecId(dmid)) {
+            final StringBuilder message = new StringBuilder();
+            message.append("mets/structMap[@LABEL='CSIP']/div/div[@LABEL='Metadata']/@DMDID (").append(dmid)
+              .append(") not match with any mets/dmdSec/mdRef/@ID in %1$s");
+            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+              message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
           }
         }
       }
@@ -1041,47 +998,22 @@ public class StructuralMapComponentValidator extends MetsValidatorImpl {
    * which describes the file group identifier.
    */
   private ReporterDetails validateCSIP116(final MetsValidatorState metsValidatorState) {
-    final List<StructMapType> structMap = metsValidatorState.getMets().getStructMap();
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrps;
-    if (fileSec != null) {
-      fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
-    } else {
-      fileGrps = new ArrayList<>();
-    }
     boolean found = false;
-    if (structMap != null) {
-      for (StructMapType struct : structMap) {
-        final DivType div = struct.getDiv();
-        if (div != null) {
-          final List<DivType> divs = div.getDiv();
-          for (DivType d : divs) {
-            if (d.getLABEL() != null && d.getLABEL().equals("Documentation")) {
-              final List<DivType.Fptr> ftprs = d.getFptr();
-              if (ftprs != null && !ftprs.isEmpty()) {
-                for (DivType.Fptr fptr : ftprs) {
-                  final String fileid = ((MetsType.FileSec.FileGrp) fptr.getFILEID()).getID();
-                  for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
-                    if (fileGrp.getUSE() != null && fileGrp.getUSE().equals("Documentation")) {
-                      final String id = fileGrp.getID();
-                      if (id.equals(fileid)) {
-                        found = true;
-                      }
-                    }
-                  }
-                  if (!found) {
-                    final StringBuilder message = new StringBuilder();
-                    message.append("Value ").append(fileid)
-                      .append(" in %1$s for mets/structMap[@LABEL='CSIP']/div" + "/div[@LABEL='Documentation']"
-                        + "/fptr/@FILEID doesn't match with " + "any mets/fileSec/fileGrp/@ID  ");
-                    return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                      Message.createErrorMessage(message.toString(), metsValidatorState.getMetsName(),
-                        metsValidatorState.isRootMets()),
-                      false, false);
-                  }
-                }
-              }
-            }
+    for (DivType d : metsValidatorState.getMetsIndex().getStructMapDivs("Documentation")) {
+      final List<DivType.Fptr> ftprs = d.getFptr();
+      if (ftprs != null && !ftprs.isEmpty()) {
+        for (DivType.Fptr fptr : ftprs) {
+          final String fileid = ((MetsType.FileSec.FileGrp) fptr.getFILEID()).getID();
+          if (metsValidatorState.getMetsIndex().hasFileGrp("Documentation", fileid)) {
+            found = true;
+          }
+          if (!found) {
+            final StringBuilder message = new StringBuilder();
+            message.append("Value ").append(fileid)
+              .append(" in %1$s for mets/structMap[@LABEL='CSIP']/div" + "/div[@LABEL='Documentation']"
+                + "/fptr/@FILEID doesn't match with " + "any mets/fileSec/fileGrp/@ID  ");
+            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+              message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
           }
         }
       }
@@ -1270,47 +1202,22 @@ public class StructuralMapComponentValidator extends MetsValidatorImpl {
    * describes the file group identifier.
    */
   private ReporterDetails validateCSIP118(final MetsValidatorState metsValidatorState) {
-    final List<StructMapType> structMap = metsValidatorState.getMets().getStructMap();
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrps;
-    if (fileSec != null) {
-      fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
-    } else {
-      fileGrps = new ArrayList<>();
-    }
     boolean found = false;
-    if (structMap != null) {
-      for (StructMapType struct : structMap) {
-        final DivType div = struct.getDiv();
-        if (div != null) {
-          final List<DivType> divs = div.getDiv();
-          for (DivType d : divs) {
-            if (d.getLABEL() != null && d.getLABEL().equals("Schemas")) {
-              final List<DivType.Fptr> ftprs = d.getFptr();
-              if (ftprs != null && !ftprs.isEmpty()) {
-                for (DivType.Fptr fptr : ftprs) {
-                  final String fileid = ((MetsType.FileSec.FileGrp) fptr.getFILEID()).getID();
-                  for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
-                    if (fileGrp.getUSE() != null && fileGrp.getUSE().equals("Schemas")) {
-                      final String id = fileGrp.getID();
-                      if (id.equals(fileid)) {
-                        found = true;
-                      }
-                    }
-                  }
-                  if (!found) {
-                    final StringBuilder message = new StringBuilder();
-                    message.append("Value ").append(fileid)
-                      .append(" In %1$s for mets/structMap[@LABEL='CSIP']/div/div[@LABEL='Schemas']"
-                        + "/fptr/@FILEID doesn't match with any mets/fileSec/fileGrp/@ID ");
-                    return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                      Message.createErrorMessage(message.toString(), metsValidatorState.getMetsName(),
-                        metsValidatorState.isRootMets()),
-                      false, false);
-                  }
-                }
-              }
-            }
+    for (DivType d : metsValidatorState.getMetsIndex().getStructMapDivs("Schemas")) {
+      final List<DivType.Fptr> ftprs = d.getFptr();
+      if (ftprs != null && !ftprs.isEmpty()) {
+        for (DivType.Fptr fptr : ftprs) {
+          final String fileid = ((MetsType.FileSec.FileGrp) fptr.getFILEID()).getID();
+          if (metsValidatorState.getMetsIndex().hasFileGrp("Schemas", fileid)) {
+            found = true;
+          }
+          if (!found) {
+            final StringBuilder message = new StringBuilder();
+            message.append("Value ").append(fileid)
+              .append(" In %1$s for mets/structMap[@LABEL='CSIP']/div/div[@LABEL='Schemas']"
+                + "/fptr/@FILEID doesn't match with any mets/fileSec/fileGrp/@ID ");
+            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+              message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
           }
         }
       }
@@ -1516,47 +1423,22 @@ public class StructuralMapComponentValidator extends MetsValidatorImpl {
    * and CSIP65 which describes the file group identifier.
    */
   private ReporterDetails validateCSIP119(final MetsValidatorState metsValidatorState) {
-    final List<StructMapType> structMap = metsValidatorState.getMets().getStructMap();
-    final MetsType.FileSec fileSec = metsValidatorState.getMets().getFileSec();
-    final List<MetsType.FileSec.FileGrp> fileGrps;
-    if (fileSec != null) {
-      fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
-    } else {
-      fileGrps = new ArrayList<>();
-    }
     boolean found = false;
-    if (structMap != null) {
-      for (StructMapType struct : structMap) {
-        final DivType div = struct.getDiv();
-        if (div != null) {
-          final List<DivType> divs = div.getDiv();
-          for (DivType d : divs) {
-            if (d.getLABEL() != null && d.getLABEL().equals("Representations")) {
-              final List<DivType.Fptr> ftprs = d.getFptr();
-              if (ftprs != null && !ftprs.isEmpty()) {
-                for (DivType.Fptr fptr : ftprs) {
-                  final String fileid = ((MetsType.FileSec.FileGrp) fptr.getFILEID()).getID();
-                  for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
-                    if (fileGrp.getUSE().equals("Representations")) {
-                      final String id = fileGrp.getID();
-                      if (id.equals(fileid)) {
-                        found = true;
-                      }
-                    }
-                  }
-                  if (!found) {
-                    final StringBuilder message = new StringBuilder();
-                    message
-                      .append("mets/structMap[@LABEL='CSIP']/div/div" + "[@LABEL='Representations']/fptr/@FILEID (")
-                      .append(fileid).append(") doesn't match with any mets/fileSec/fileGrp/@ID in %1$s");
-                    return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION,
-                      Message.createErrorMessage(message.toString(), metsValidatorState.getMetsName(),
-                        metsValidatorState.isRootMets()),
-                      false, false);
-                  }
-                }
-              }
-            }
+    for (DivType d : metsValidatorState.getMetsIndex().getStructMapDivs("Representations")) {
+      final List<DivType.Fptr> ftprs = d.getFptr();
+      if (ftprs != null && !ftprs.isEmpty()) {
+        for (DivType.Fptr fptr : ftprs) {
+          final String fileid = ((MetsType.FileSec.FileGrp) fptr.getFILEID()).getID();
+          if (metsValidatorState.getMetsIndex().hasFileGrp("Representations", fileid)) {
+            found = true;
+          }
+          if (!found) {
+            final StringBuilder message = new StringBuilder();
+            message
+              .append("mets/structMap[@LABEL='CSIP']/div/div" + "[@LABEL='Representations']/fptr/@FILEID (")
+              .append(fileid).append(") doesn't match with any mets/fileSec/fileGrp/@ID in %1$s");
+            return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION, Message.createErrorMessage(
+              message.toString(), metsValidatorState.getMetsName(), metsValidatorState.isRootMets()), false, false);
           }
         }
       }
@@ -6,6 +6,7 @@ import java.security.NoSuchAlgorithmException;
 import java.util.Map;
 import java.util.TreeMap;
 
+import org.roda_project.commons_ip2.validator.common.PackageDigest;
 import org.roda_project.commons_ip2.validator.pyipModel.ChecksumAlg;
 import org.roda_project.commons_ip2.validator.pyipModel.MetadataStatus;
 import org.roda_project.commons_ip2.validator.pyipModel.StructStatus;
@@ -40,6 +41,10 @@ public class ValidationReportOutputJSONPyIP {
    * {@link ValidationReport}.
    */
   private ValidationReport validationReport = null;
+  /**
+   * {@link PackageDigest} of the IP, started with the validation.
+   */
+  private PackageDigest packageDigest = null;
 
   /**
    * Constructor of {@link ValidationReportOutputJSONPyIP}.
@@ -66,6 +71,28 @@ public class ValidationReportOutputJSONPyIP {
     return results;
   }
 
+  /**
+   * Starts calculating the digest of the IP in the background, so that it is
+   * ready when the report is written instead of needing another read of the
+   * whole IP.
+   */
+  public void startPackageDigest() {
+    if (packageDigest == null) {
+      packageDigest = PackageDigest.start(sipPath, ChecksumAlg.SHA1.toString());
+    }
+  }
+
+  /**
+   * Stops calculating the digest of the IP in the background, if it is still
+   * being calculated. A report written afterwards calculates it again.
+   */
+  public void stopPackageDigest() {
+    if (packageDigest != null) {
+      packageDigest.cancel();
+      packageDigest = null;
+    }
+  }
+
   /**
    * Write the PyIP report.
    *
@@ -75,8 +102,11 @@ public class ValidationReportOutputJSONPyIP {
    *           if the Cryptographic algorithm is not available
    */
   public void writeReport() throws IOException, NoSuchAlgorithmException {
+    if (packageDigest == null) {
+      packageDigest = new PackageDigest(sipPath, ChecksumAlg.SHA1.toString());
+    }
     validationReport = PyIPUtils.createValidationReport(sipPath.getFileName().toString(), ipType,
-      ChecksumAlg.SHA1.toString(), sipPath.toString(), results);
+      ChecksumAlg.SHA1.toString(), packageDigest, results);
 
     final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -1,15 +1,10 @@
 package org.roda_project.commons_ip2.validator.reporter.pyipUtils;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Paths;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
-import javax.xml.bind.DatatypeConverter;
-
+import org.roda_project.commons_ip2.validator.common.PackageDigest;
 import org.roda_project.commons_ip2.validator.pyipModel.Checksum;
 import org.roda_project.commons_ip2.validator.pyipModel.ChecksumAlg;
 import org.roda_project.commons_ip2.validator.pyipModel.IpType;
@@ -41,38 +36,37 @@ public final class InformationPackageUtils {
    */
   public static PackageDetails createPackageDetails(final String name, final String checksumAlg, final String ipPath)
     throws IOException, NoSuchAlgorithmException {
+    return createPackageDetails(name, checksumAlg, new PackageDigest(Paths.get(ipPath), checksumAlg));
+  }
+
+  /**
+   * Creates the details of the IP, to the report, with a digest that may have
+   * been calculated while the IP was being validated.
+   *
+   * @param name
+   *          {@link String} name of the IP.
+   * @param checksumAlg
+   *          {@link String } algorithm of the digest.
+   * @param packageDigest
+   *          the {@link PackageDigest} of the IP.
+   * @return {@link PackageDetails}
+   * @throws IOException
+   *           if some I/O error occurs.
+   * @throws NoSuchAlgorithmException
+   *           if the Cryptographic algorithm is not available
+   */
+  public static PackageDetails createPackageDetails(final String name, final String checksumAlg,
+    final PackageDigest packageDigest) throws IOException, NoSuchAlgorithmException {
     final PackageDetails packageDetails = new PackageDetails();
     packageDetails.setName(name);
-    final File file = Paths.get(ipPath).toFile();
-    if (file.exists() && !file.isDirectory()) {
-      final ChecksumAlg algorithim = ChecksumAlg.fromValue(checksumAlg);
-      final Checksum checksum = new Checksum();
-      checksum.setAlgorithm(algorithim);
-      checksum.setValue(calculateChecksumPackage(ipPath, algorithim.toString()));
-      packageDetails.addChecksumsItem(checksum);
-    } else {
-      final ChecksumAlg algorithim = ChecksumAlg.fromValue(checksumAlg);
-      final Checksum checksum = new Checksum();
-      checksum.setAlgorithm(algorithim);
-      checksum.setValue("");
-      packageDetails.addChecksumsItem(checksum);
-    }
+    final ChecksumAlg algorithim = ChecksumAlg.fromValue(checksumAlg);
+    final Checksum checksum = new Checksum();
+    checksum.setAlgorithm(algorithim);
+    checksum.setValue(packageDigest.get());
+    packageDetails.addChecksumsItem(checksum);
     return packageDetails;
   }
 
-  private static String calculateChecksumPackage(final String ipPath, final String alg)
-    throws IOException, NoSuchAlgorithmException {
-    final InputStream stream = new FileInputStream(Paths.get(ipPath).toFile());
-    final MessageDigest messageDigest = MessageDigest.getInstance(alg);
-    final byte[] buffer = new byte[8192];
-    int numOfBytesRead;
-    while ((numOfBytesRead = stream.read(buffer)) > 0) {
-      messageDigest.update(buffer, 0, numOfBytesRead);
-    }
-    final byte[] hash = messageDigest.digest();
-    return DatatypeConverter.printHexBinary(hash);
-  }
-
   /**
    * Set the profile details of the IP.
    *
@@ -1,12 +1,14 @@
 package org.roda_project.commons_ip2.validator.reporter.pyipUtils;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import org.roda_project.commons_ip2.validator.common.PackageDigest;
 import org.roda_project.commons_ip2.validator.constants.Constants;
 import org.roda_project.commons_ip2.validator.pyipModel.InformationPackage;
 import org.roda_project.commons_ip2.validator.pyipModel.MetadataChecks;
@@ -46,8 +48,35 @@ public final class PyIPUtils {
    */
   public static ValidationReport createValidationReport(final String name, final String ipType, final String checkumAlg,
     final String ipPath, final Map<String, ReporterDetails> results) throws IOException, NoSuchAlgorithmException {
+    return createValidationReport(name, ipType, checkumAlg, new PackageDigest(Paths.get(ipPath), checkumAlg),
+      results);
+  }
+
+  /**
+   * Initializes the PyIP report {@link ValidationReport}, with a digest that may
+   * have been calculated while the IP was being validated.
+   *
+   * @param name
+   *          the {@link String} name of the IP
+   * @param ipType
+   *          the {@link String} type of the IP
+   * @param checkumAlg
+   *          the {@link String} algorithm of the digest
+   * @param packageDigest
+   *          the {@link PackageDigest} of the IP
+   * @param results
+   *          the {@link Map} with all validation results
+   * @return {@link ValidationReport}.
+   * @throws IOException
+   *           if some I/O error occurs.
+   * @throws NoSuchAlgorithmException
+   *           if the Cryptographic algorithm is not available
+   */
+  public static ValidationReport createValidationReport(final String name, final String ipType, final String checkumAlg,
+    final PackageDigest packageDigest, final Map<String, ReporterDetails> results)
+    throws IOException, NoSuchAlgorithmException {
     final ValidationReport validationReport = new ValidationReport();
-    validationReport.setPackage(createInformationPackage(name, checkumAlg, ipPath, ipType));
+    validationReport.setPackage(createInformationPackage(name, checkumAlg, packageDigest, ipType));
     validationReport.setUid(UUID.randomUUID());
     validationReport.setStructure(createStructureResults(results));
     if (!validationReport.getStructure().getStatus().equals(StructStatus.NOTWELLFORMED)) {
@@ -77,8 +106,31 @@ public final class PyIPUtils {
    */
   public static InformationPackage createInformationPackage(final String name, final String checksumAlg,
     final String ipPath, final String ipType) throws IOException, NoSuchAlgorithmException {
+    return createInformationPackage(name, checksumAlg, new PackageDigest(Paths.get(ipPath), checksumAlg), ipType);
+  }
+
+  /**
+   * Creates an {@link InformationPackage}, with a digest that may have been
+   * calculated while the IP was being validated.
+   *
+   * @param name
+   *          the {@link String} name of the IP
+   * @param checksumAlg
+   *          the {@link String} algorithm of the digest
+   * @param packageDigest
+   *          the {@link PackageDigest} of the IP
+   * @param ipType
+   *          the {@link String} type of the IP
+   * @return an {@link InformationPackage}
+   * @throws IOException
+   *           if some I/O error occurs.
+   * @throws NoSuchAlgorithmException
+   *           if the Cryptographic algorithm is not available
+   */
+  public static InformationPackage createInformationPackage(final String name, final String checksumAlg,
+    final PackageDigest packageDigest, final String ipType) throws IOException, NoSuchAlgorithmException {
     final InformationPackage informationPackage = new InformationPackage();
-    informationPackage.setDetails(InformationPackageUtils.createPackageDetails(name, checksumAlg, ipPath));
+    informationPackage.setDetails(InformationPackageUtils.createPackageDetails(name, checksumAlg, packageDigest));
     informationPackage.setProfile(
       InformationPackageUtils.createProfileDetails(name, ipType, Constants.VALIDATION_REPORT_HEADER_CSIP_VERSION));
     informationPackage.setRepresentations(InformationPackageUtils.createRepresentation(name));
@@ -0,0 +1,31 @@
+package org.roda_project.commons_ip2.validator.rules;
+
+/**
+ * Types of METS elements a {@link MetsRule} can visit.
+ */
+public enum MetsElement {
+  /** mets. */
+  METS,
+  /** mets/metsHdr. */
+  METS_HDR,
+  /** mets/metsHdr/agent. */
+  AGENT,
+  /** mets/dmdSec. */
+  DMD_SEC,
+  /** mets/amdSec. */
+  AMD_SEC,
+  /** mets/amdSec/digiprovMD. */
+  DIGIPROV_MD,
+  /** mets/fileSec. */
+  FILE_SEC,
+  /** mets/fileSec/fileGrp. */
+  FILE_GRP,
+  /** mets/fileSec/fileGrp/file. */
+  FILE,
+  /** mets/fileSec/fileGrp/file/FLocat. */
+  FLOCAT,
+  /** mets/structMap. */
+  STRUCT_MAP,
+  /** mets/structMap//div, at any depth. */
+  DIV
+}
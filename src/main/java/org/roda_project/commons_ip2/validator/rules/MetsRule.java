@@ -0,0 +1,224 @@
+package org.roda_project.commons_ip2.validator.rules;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.roda_project.commons_ip2.mets_v1_12.beans.AmdSecType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.DivType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MdSecType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.StructMapType;
+import org.roda_project.commons_ip2.validator.reporter.ReporterDetails;
+import org.roda_project.commons_ip2.validator.state.MetsValidatorState;
+import org.roda_project.commons_ip2.validator.state.StructureValidatorState;
+import org.roda_project.commons_ip2.validator.utils.Message;
+
+/**
+ * A requirement checked by a {@link MetsRuleEngine}. The rule declares the
+ * {@link MetsElement} types it cares about and overrides the matching
+ * {@code visit} methods, which the engine calls in document order during its
+ * single traversal of the METS. A rule that {@link #fail(String) fails} is not
+ * visited any more, as the requirement methods of the components return on the
+ * first issue.
+ *
+ * <p>
+ * Rules keep state for the METS being validated, so an instance must not be
+ * shared by concurrent validations.
+ * </p>
+ */
+public abstract class MetsRule {
+  /**
+   * The requirement id, e.g. one of {@code ConstantsCSIPspec}.
+   */
+  private final String id;
+  /**
+   * The element types visited.
+   */
+  private final Set<MetsElement> elements;
+  /**
+   * {@link StructureValidatorState} of the current validation.
+   */
+  private StructureValidatorState structureValidatorState;
+  /**
+   * {@link MetsValidatorState} of the current validation.
+   */
+  private MetsValidatorState metsValidatorState;
+  /**
+   * {@link ReporterDetails} of the current validation.
+   */
+  private ReporterDetails result;
+  /**
+   * Flag if the outcome is known and no more elements need to be visited.
+   */
+  private boolean done;
+
+  /**
+   * Creates a rule.
+   *
+   * @param id
+   *          the requirement id
+   * @param elements
+   *          the element types visited
+   */
+  protected MetsRule(final String id, final MetsElement... elements) {
+    this.id = id;
+    this.elements = elements.length == 0 ? Collections.emptySet()
+      : Collections.unmodifiableSet(EnumSet.of(elements[0], elements));
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public Set<MetsElement> getElements() {
+    return elements;
+  }
+
+  public boolean isDone() {
+    return done;
+  }
+
+  /**
+   * Resets the rule for a new METS.
+   */
+  final void start(final StructureValidatorState structureValidatorState,
+    final MetsValidatorState metsValidatorState) {
+    this.structureValidatorState = structureValidatorState;
+    this.metsValidatorState = metsValidatorState;
+    this.result = new ReporterDetails();
+    this.done = false;
+    begin();
+  }
+
+  /**
+   * Ends the rule after the traversal.
+   *
+   * @return {@link ReporterDetails}
+   */
+  final ReporterDetails finish() {
+    if (!done) {
+      end();
+    }
+    final ReporterDetails details = result;
+    this.result = null;
+    this.structureValidatorState = null;
+    this.metsValidatorState = null;
+    return details;
+  }
+
+  protected StructureValidatorState getStructureValidatorState() {
+    return structureValidatorState;
+  }
+
+  protected MetsValidatorState getMetsValidatorState() {
+    return metsValidatorState;
+  }
+
+  /**
+   * Fails the rule with an issue and stops visiting it.
+   *
+   * @param message
+   *          the issue, with {@code %1$s} in place of the METS name
+   */
+  protected void fail(final String message) {
+    addIssue(message);
+    done = true;
+  }
+
+  /**
+   * Adds an issue, invalidating the rule, and keeps visiting it.
+   *
+   * @param message
+   *          the issue, with {@code %1$s} in place of the METS name
+   */
+  protected void addIssue(final String message) {
+    result.addIssue(
+      Message.createErrorMessage(message, metsValidatorState.getMetsName(), metsValidatorState.isRootMets()));
+    result.setValid(false);
+  }
+
+  /** Called before the traversal. */
+  protected void begin() {
+    // do nothing
+  }
+
+  /** Called after the traversal, unless the rule has failed. */
+  protected void end() {
+    // do nothing
+  }
+
+  protected void visitMets(final Mets mets) {
+    // do nothing
+  }
+
+  protected void visitMetsHdr(final MetsType.MetsHdr metsHdr) {
+    // do nothing
+  }
+
+  protected void visitAgent(final MetsType.MetsHdr.Agent agent) {
+    // do nothing
+  }
+
+  protected void visitDmdSec(final MdSecType dmdSec) {
+    // do nothing
+  }
+
+  protected void visitAmdSec(final AmdSecType amdSec) {
+    // do nothing
+  }
+
+  protected void visitDigiprovMD(final AmdSecType amdSec, final MdSecType digiprovMD) {
+    // do nothing
+  }
+
+  protected void visitFileSec(final MetsType.FileSec fileSec) {
+    // do nothing
+  }
+
+  /**
+   * Visits a file group, before its files.
+   *
+   * @param fileGrp
+   *          the mets/fileSec/fileGrp
+   */
+  protected void visitFileGrp(final MetsType.FileSec.FileGrp fileGrp) {
+    // do nothing
+  }
+
+  /**
+   * Visits a file group again, after its files.
+   *
+   * @param fileGrp
+   *          the mets/fileSec/fileGrp
+   */
+  protected void endFileGrp(final MetsType.FileSec.FileGrp fileGrp) {
+    // do nothing
+  }
+
+  protected void visitFile(final MetsType.FileSec.FileGrp fileGrp, final FileType file) {
+    // do nothing
+  }
+
+  protected void visitFLocat(final FileType file, final FileType.FLocat flocat) {
+    // do nothing
+  }
+
+  protected void visitStructMap(final StructMapType structMap) {
+    // do nothing
+  }
+
+  /**
+   * Visits a div of a struct map.
+   *
+   * @param div
+   *          the {@link DivType}
+   * @param depth
+   *          0 for mets/structMap/div, 1 for its child divs, and so on
+   */
+  protected void visitDiv(final DivType div, final int depth) {
+    // do nothing
+  }
+}
@@ -0,0 +1,210 @@
+package org.roda_project.commons_ip2.validator.rules;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.roda_project.commons_ip2.mets_v1_12.beans.AmdSecType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.DivType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MdSecType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.StructMapType;
+import org.roda_project.commons_ip2.validator.reporter.ReporterDetails;
+import org.roda_project.commons_ip2.validator.state.MetsValidatorState;
+import org.roda_project.commons_ip2.validator.state.StructureValidatorState;
+
+/**
+ * Checks a set of {@link MetsRule}s with a single traversal of the METS,
+ * instead of one traversal per requirement. Each element is dispatched only to
+ * the rules that registered its type and have not failed yet, and sections no
+ * remaining rule is interested in are not traversed at all.
+ *
+ * <p>
+ * As in the requirement methods of the components, only the top level file
+ * groups of mets/fileSec are visited.
+ * </p>
+ */
+public class MetsRuleEngine {
+  /**
+   * {@link List} of {@link MetsRule}, in registration order.
+   */
+  private final List<MetsRule> rules;
+  /**
+   * The rules interested in each element type.
+   */
+  private final Map<MetsElement, List<MetsRule>> rulesByElement = new EnumMap<>(MetsElement.class);
+  /**
+   * Number of elements dispatched in the last run.
+   */
+  private long visitedElements = 0;
+
+  /**
+   * Creates an engine.
+   *
+   * @param rules
+   *          the {@link MetsRule}s, with distinct ids
+   */
+  public MetsRuleEngine(final List<MetsRule> rules) {
+    this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+    for (MetsElement element : MetsElement.values()) {
+      rulesByElement.put(element, new ArrayList<>());
+    }
+    for (MetsRule rule : rules) {
+      for (MetsElement element : rule.getElements()) {
+        rulesByElement.get(element).add(rule);
+      }
+    }
+  }
+
+  public List<MetsRule> getRules() {
+    return rules;
+  }
+
+  /**
+   * Get the number of elements dispatched to the rules in the last run.
+   *
+   * @return the number of elements visited
+   */
+  public long getVisitedElements() {
+    return visitedElements;
+  }
+
+  /**
+   * Checks all rules against the current METS.
+   *
+   * @param structureValidatorState
+   *          the contextual {@link StructureValidatorState}
+   * @param metsValidatorState
+   *          the contextual {@link MetsValidatorState}
+   * @return {@link Map} with the result of each rule, by requirement id.
+   */
+  public Map<String, ReporterDetails> run(final StructureValidatorState structureValidatorState,
+    final MetsValidatorState metsValidatorState) {
+    visitedElements = 0;
+    for (MetsRule rule : rules) {
+      rule.start(structureValidatorState, metsValidatorState);
+    }
+    traverse(metsValidatorState.getMets());
+    final Map<String, ReporterDetails> results = new LinkedHashMap<>();
+    for (MetsRule rule : rules) {
+      results.put(rule.getId(), rule.finish());
+    }
+    return results;
+  }
+
+  private void traverse(final Mets mets) {
+    dispatch(MetsElement.METS, rule -> rule.visitMets(mets));
+
+    final MetsType.MetsHdr metsHdr = mets.getMetsHdr();
+    if (metsHdr != null && wants(MetsElement.METS_HDR, MetsElement.AGENT)) {
+      dispatch(MetsElement.METS_HDR, rule -> rule.visitMetsHdr(metsHdr));
+      for (MetsType.MetsHdr.Agent agent : metsHdr.getAgent()) {
+        if (!wants(MetsElement.AGENT)) {
+          break;
+        }
+        dispatch(MetsElement.AGENT, rule -> rule.visitAgent(agent));
+      }
+    }
+
+    for (MdSecType dmdSec : mets.getDmdSec()) {
+      if (!wants(MetsElement.DMD_SEC)) {
+        break;
+      }
+      dispatch(MetsElement.DMD_SEC, rule -> rule.visitDmdSec(dmdSec));
+    }
+
+    for (AmdSecType amdSec : mets.getAmdSec()) {
+      if (!wants(MetsElement.AMD_SEC, MetsElement.DIGIPROV_MD)) {
+        break;
+      }
+      dispatch(MetsElement.AMD_SEC, rule -> rule.visitAmdSec(amdSec));
+      for (MdSecType digiprovMD : amdSec.getDigiprovMD()) {
+        if (!wants(MetsElement.DIGIPROV_MD)) {
+          break;
+        }
+        dispatch(MetsElement.DIGIPROV_MD, rule -> rule.visitDigiprovMD(amdSec, digiprovMD));
+      }
+    }
+
+    final MetsType.FileSec fileSec = mets.getFileSec();
+    if (fileSec != null
+      && wants(MetsElement.FILE_SEC, MetsElement.FILE_GRP, MetsElement.FILE, MetsElement.FLOCAT)) {
+      dispatch(MetsElement.FILE_SEC, rule -> rule.visitFileSec(fileSec));
+      for (MetsType.FileSec.FileGrp fileGrp : fileSec.getFileGrp()) {
+        if (!wants(MetsElement.FILE_GRP, MetsElement.FILE, MetsElement.FLOCAT)) {
+          break;
+        }
+        traverse(fileGrp);
+      }
+    }
+
+    for (StructMapType structMap : mets.getStructMap()) {
+      if (!wants(MetsElement.STRUCT_MAP, MetsElement.DIV)) {
+        break;
+      }
+      dispatch(MetsElement.STRUCT_MAP, rule -> rule.visitStructMap(structMap));
+      if (structMap.getDiv() != null) {
+        traverse(structMap.getDiv(), 0);
+      }
+    }
+  }
+
+  private void traverse(final MetsType.FileSec.FileGrp fileGrp) {
+    dispatch(MetsElement.FILE_GRP, rule -> rule.visitFileGrp(fileGrp));
+    for (FileType file : fileGrp.getFile()) {
+      if (!wants(MetsElement.FILE, MetsElement.FLOCAT)) {
+        break;
+      }
+      dispatch(MetsElement.FILE, rule -> rule.visitFile(fileGrp, file));
+      if (wants(MetsElement.FLOCAT)) {
+        for (FileType.FLocat flocat : file.getFLocat()) {
+          dispatch(MetsElement.FLOCAT, rule -> rule.visitFLocat(file, flocat));
+        }
+      }
+    }
+    dispatch(MetsElement.FILE_GRP, rule -> rule.endFileGrp(fileGrp));
+  }
+
+  private void traverse(final DivType div, final int depth) {
+    if (!wants(MetsElement.DIV)) {
+      return;
+    }
+    dispatch(MetsElement.DIV, rule -> rule.visitDiv(div, depth));
+    for (DivType child : div.getDiv()) {
+      traverse(child, depth + 1);
+    }
+  }
+
+  private void dispatch(final MetsElement element, final Consumer<MetsRule> visit) {
+    final List<MetsRule> interested = rulesByElement.get(element);
+    if (!interested.isEmpty()) {
+      visitedElements++;
+      for (MetsRule rule : interested) {
+        if (!rule.isDone()) {
+          visit.accept(rule);
+        }
+      }
+    }
+  }
+
+  /**
+   * Check if some rule that has not failed is interested in any of the element
+   * types.
+   */
+  private boolean wants(final MetsElement... elements) {
+    for (MetsElement element : elements) {
+      for (MetsRule rule : rulesByElement.get(element)) {
+        if (!rule.isDone()) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
@@ -1,8 +1,9 @@
 package org.roda_project.commons_ip2.validator.sipComponents.sipFileSectionComponent;
 
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
 import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType;
@@ -10,6 +11,9 @@ import org.roda_project.commons_ip2.validator.component.MetsValidatorImpl;
 import org.roda_project.commons_ip2.validator.constants.Constants;
 import org.roda_project.commons_ip2.validator.constants.ConstantsSIPspec;
 import org.roda_project.commons_ip2.validator.reporter.ReporterDetails;
+import org.roda_project.commons_ip2.validator.rules.MetsElement;
+import org.roda_project.commons_ip2.validator.rules.MetsRule;
+import org.roda_project.commons_ip2.validator.rules.MetsRuleEngine;
 import org.roda_project.commons_ip2.validator.state.MetsValidatorState;
 import org.roda_project.commons_ip2.validator.state.StructureValidatorState;
 import org.roda_project.commons_ip2.validator.utils.Message;
@@ -25,12 +29,50 @@ public class SipFileSectionComponent extends MetsValidatorImpl {
    * Flag if is to validate or not.
    */
   private boolean isToValidate = true;
+  /**
+   * {@link MetsRuleEngine} with the requirements, checked in a single traversal
+   * of mets/fileSec.
+   */
+  private final MetsRuleEngine ruleEngine;
 
   /**
    * Empty constructor.
    */
   public SipFileSectionComponent() {
     this.moduleName = Constants.SIP_MODULE_NAME_3;
+    this.ruleEngine = new MetsRuleEngine(Arrays.asList(
+      /*
+       * fileSec/fileGrp/file/@sip:FILEFORMATNAME An optional attribute may be used
+       * if the MIMETYPE is not suicient for the purposes of processing the
+       * information package. Example: “Extensible Markup Language” Example: “PDF/A”
+       * Example: “ISO/IEC 26300:2006”
+       */
+      new FileAttributeRule(ConstantsSIPspec.VALIDATION_REPORT_SPECIFICATION_SIP32_ID, FileType::getFILEFORMATNAME,
+        "If the MIMETYPE is not sufficient for the purposes of processing the "
+          + "information package, you can add @sip:FILEFORMATNAME " + "attribute in the file element for the %1$s."),
+      /*
+       * fileSec/fileGrp/file/@sip:FILEFORMATVERSION The version of the file format
+       * when the use of PREMIS has not been agreed upon in the submission agreement.
+       * Example: “1.0”
+       */
+      new FileAttributeRule(ConstantsSIPspec.VALIDATION_REPORT_SPECIFICATION_SIP33_ID,
+        FileType::getFILEFORMATVERSION,
+        "You can add @sip:FILEFORMATVERSION attribute in the file element for the %1$s"),
+      /*
+       * fileSec/fileGrp/file/@sip:FILEFORMATREGISTRY The name of the format registry
+       * used to identify the file format when the use of PREMIS has not been agreed
+       * upon in the submission agreement. Example: “PRONOM”
+       */
+      new FileAttributeRule(ConstantsSIPspec.VALIDATION_REPORT_SPECIFICATION_SIP34_ID, FileType::getFORMATREGISTRY,
+        "You can add @sip:FILEFORMATREGISTRY attribute in the file element for the %1$s"),
+      /*
+       * fileSec/fileGrp/file/@sip:FILEFORMATKEY Key of the file format in the
+       * registry when use of PREMIS has not been agreed upon in the submission
+       * agreement. Example: “fmt/101”
+       */
+      new FileAttributeRule(ConstantsSIPspec.VALIDATION_REPORT_SPECIFICATION_SIP35_ID,
+        FileType::getFORMATREGISTRYKEY,
+        "You can add @sip:FILEFORMATKEY attribute in the file element for the %1$s")));
   }
 
   /**
@@ -49,25 +91,31 @@ public class SipFileSectionComponent extends MetsValidatorImpl {
     final Map<String, ReporterDetails> results = new HashMap<>();
 
     if (isToValidate) {
+      final Map<String, ReporterDetails> ruleResults = ruleEngine.run(structureValidatorState, metsValidatorState);
+
       /* SIP32 */
       notifyObserversValidationStarted(moduleName, ConstantsSIPspec.VALIDATION_REPORT_SPECIFICATION_SIP32_ID);
       ResultsUtils.addResult(results, ConstantsSIPspec.VALIDATION_REPORT_SPECIFICATION_SIP32_ID,
-        validateSIP32(metsValidatorState).setSpecification(Constants.VALIDATION_REPORT_HEADER_SIP_VERSION));
+        ruleResults.get(ConstantsSIPspec.VALIDATION_REPORT_SPECIFICATION_SIP32_ID)
+          .setSpecification(Constants.VALIDATION_REPORT_HEADER_SIP_VERSION));
 
       /* SIP33 */
       notifyObserversValidationStarted(moduleName, ConstantsSIPspec.VALIDATION_REPORT_SPECIFICATION_SIP33_ID);
       ResultsUtils.addResult(results, ConstantsSIPspec.VALIDATION_REPORT_SPECIFICATION_SIP33_ID,
-        validateSIP33(metsValidatorState).setSpecification(Constants.VALIDATION_REPORT_HEADER_SIP_VERSION));
+        ruleResults.get(ConstantsSIPspec.VALIDATION_REPORT_SPECIFICATION_SIP33_ID)
+          .setSpecification(Constants.VALIDATION_REPORT_HEADER_SIP_VERSION));
 
       /* SIP34 */
       notifyObserversValidationStarted(moduleName, ConstantsSIPspec.VALIDATION_REPORT_SPECIFICATION_SIP34_ID);
       ResultsUtils.addResult(results, ConstantsSIPspec.VALIDATION_REPORT_SPECIFICATION_SIP34_ID,
-        validateSIP34(metsValidatorState).setSpecification(Constants.VALIDATION_REPORT_HEADER_SIP_VERSION));
+        ruleResults.get(ConstantsSIPspec.VALIDATION_REPORT_SPECIFICATION_SIP34_ID)
+          .setSpecification(Constants.VALIDATION_REPORT_HEADER_SIP_VERSION));
 
       /* SIP35 */
       notifyObserversValidationStarted(moduleName, ConstantsSIPspec.VALIDATION_REPORT_SPECIFICATION_SIP35_ID);
       ResultsUtils.addResult(results, ConstantsSIPspec.VALIDATION_REPORT_SPECIFICATION_SIP35_ID,
-        validateSIP35(metsValidatorState).setSpecification(Constants.VALIDATION_REPORT_HEADER_SIP_VERSION));
+        ruleResults.get(ConstantsSIPspec.VALIDATION_REPORT_SPECIFICATION_SIP35_ID)
+          .setSpecification(Constants.VALIDATION_REPORT_HEADER_SIP_VERSION));
     } else {
       final String message = Message.createErrorMessage("SKIPPED in %1$s because mets/fileSec doesn't exist",
         metsValidatorState.getMetsName(), metsValidatorState.isRootMets());
@@ -83,111 +131,47 @@ public class SipFileSectionComponent extends MetsValidatorImpl {
     return results;
   }
 
-  /*
-   * fileSec/fileGrp/file/@sip:FILEFORMATNAME An optional attribute may be used if
-   * the MIMETYPE is not suicient for the purposes of processing the information
-   * package. Example: “Extensible Markup Language” Example: “PDF/A” Example:
-   * “ISO/IEC 26300:2006”
+  /**
+   * A file attribute that should be set in all files of each file group.
    */
-
-  private ReporterDetails validateSIP32(final MetsValidatorState metsValidatorState) {
-    final List<MetsType.FileSec.FileGrp> fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
-    for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
-      int count = 0;
-      final List<FileType> files = fileGrp.getFile();
-      for (FileType file : files) {
-        final String fileFormatName = file.getFILEFORMATNAME();
-        if (fileFormatName != null && !fileFormatName.equals("")) {
-          count++;
-        }
-      }
-      if (count != files.size()) {
-        return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_SIP_VERSION,
-          Message.createErrorMessage(
-            "If the MIMETYPE is not sufficient for the purposes of processing the "
-              + "information package, you can add @sip:FILEFORMATNAME " + "attribute in the file element for the %1$s.",
-            metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-          false, false);
-      }
+  private static final class FileAttributeRule extends MetsRule {
+    /**
+     * The attribute getter.
+     */
+    private final Function<FileType, String> attribute;
+    /**
+     * The issue when some file of a group misses the attribute.
+     */
+    private final String message;
+    /**
+     * Number of files of the current group with the attribute.
+     */
+    private int count;
+
+    private FileAttributeRule(final String id, final Function<FileType, String> attribute, final String message) {
+      super(id, MetsElement.FILE_GRP, MetsElement.FILE);
+      this.attribute = attribute;
+      this.message = message;
     }
-    return new ReporterDetails();
-  }
 
-  /*
-   * fileSec/fileGrp/file/@sip:FILEFORMATVERSION The version of the file format
-   * when the use of PREMIS has not been agreed upon in the submission agreement.
-   * Example: “1.0”
-   */
-  private ReporterDetails validateSIP33(final MetsValidatorState metsValidatorState) {
-    final List<MetsType.FileSec.FileGrp> fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
-    for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
-      int count = 0;
-      final List<FileType> files = fileGrp.getFile();
-      for (FileType file : files) {
-        final String fileFormatVersion = file.getFILEFORMATVERSION();
-        if (fileFormatVersion != null && !fileFormatVersion.equals("")) {
-          count++;
-        }
-      }
-      if (count != files.size()) {
-        return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_SIP_VERSION,
-          Message.createErrorMessage("You can add @sip:FILEFORMATVERSION attribute in the file element for the %1$s",
-            metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-          false, false);
-      }
+    @Override
+    protected void visitFileGrp(final MetsType.FileSec.FileGrp fileGrp) {
+      count = 0;
     }
-    return new ReporterDetails();
-  }
 
-  /*
-   * fileSec/fileGrp/file/@sip:FILEFORMATREGISTRY The name of the format registry
-   * used to identify the file format when the use of PREMIS has not been agreed
-   * upon in the submission agreement. Example: “PRONOM”
-   */
-  private ReporterDetails validateSIP34(final MetsValidatorState metsValidatorState) {
-    final List<MetsType.FileSec.FileGrp> fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
-    for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
-      int count = 0;
-      final List<FileType> files = fileGrp.getFile();
-      for (FileType file : files) {
-        final String fileFormatRegistry = file.getFORMATREGISTRY();
-        if (fileFormatRegistry != null && !fileFormatRegistry.equals("")) {
-          count++;
-        }
-      }
-      if (count != files.size()) {
-        return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_SIP_VERSION,
-          Message.createErrorMessage("You can add @sip:FILEFORMATREGISTRY attribute in the file element for the %1$s",
-            metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-          false, false);
+    @Override
+    protected void visitFile(final MetsType.FileSec.FileGrp fileGrp, final FileType file) {
+      final String value = attribute.apply(file);
+      if (value != null && !value.equals("")) {
+        count++;
       }
     }
-    return new ReporterDetails();
-  }
 
-  /*
-   * fileSec/fileGrp/file/@sip:FILEFORMATKEY Key of the file format in the
-   * registry when use of PREMIS has not been agreed upon in the submission
-   * agreement. Example: “fmt/101”
-   */
-  private ReporterDetails validateSIP35(final MetsValidatorState metsValidatorState) {
-    final List<MetsType.FileSec.FileGrp> fileGrps = metsValidatorState.getMets().getFileSec().getFileGrp();
-    for (MetsType.FileSec.FileGrp fileGrp : fileGrps) {
-      int count = 0;
-      final List<FileType> files = fileGrp.getFile();
-      for (FileType file : files) {
-        final String fileFormatKey = file.getFORMATREGISTRYKEY();
-        if (fileFormatKey != null && !fileFormatKey.equals("")) {
-          count++;
-        }
-      }
-      if (count != files.size()) {
-        return new ReporterDetails(Constants.VALIDATION_REPORT_HEADER_SIP_VERSION,
-          Message.createErrorMessage("You can add @sip:FILEFORMATKEY attribute in the file element for the %1$s",
-            metsValidatorState.getMetsName(), metsValidatorState.isRootMets()),
-          false, false);
+    @Override
+    protected void endFileGrp(final MetsType.FileSec.FileGrp fileGrp) {
+      if (count != fileGrp.getFile().size()) {
+        fail(message);
       }
     }
-    return new ReporterDetails();
   }
 }
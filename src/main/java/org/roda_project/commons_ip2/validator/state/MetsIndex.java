@@ -0,0 +1,141 @@
+package org.roda_project.commons_ip2.validator.state;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.roda_project.commons_ip2.mets_v1_12.beans.AmdSecType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.DivType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MdSecType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.StructMapType;
+
+/**
+ * Index of the elements of a {@link Mets} that requirement checks look up by
+ * id, label or use, built in a single pass right after the METS file is
+ * unmarshalled so that each lookup is a hash lookup instead of a list scan.
+ */
+public class MetsIndex {
+  /**
+   * Ids of mets/dmdSec.
+   */
+  private final Set<String> dmdSecIds = new HashSet<>();
+  /**
+   * Ids of mets/amdSec/digiprovMD.
+   */
+  private final Set<String> digiprovMdIds = new HashSet<>();
+  /**
+   * The mets/structMap/div/div elements, in document order.
+   */
+  private final List<DivType> structMapDivs = new ArrayList<>();
+  /**
+   * The mets/structMap/div/div elements by label, in document order.
+   */
+  private final Map<String, List<DivType>> structMapDivsByLabel = new HashMap<>();
+  /**
+   * Ids of mets/fileSec/fileGrp by use.
+   */
+  private final Map<String, Set<String>> fileGrpIdsByUse = new HashMap<>();
+
+  /**
+   * Indexes a {@link Mets}.
+   *
+   * @param mets
+   *          the {@link Mets}
+   */
+  public MetsIndex(final Mets mets) {
+    for (MdSecType dmdSec : mets.getDmdSec()) {
+      dmdSecIds.add(dmdSec.getID());
+    }
+    for (AmdSecType amdSec : mets.getAmdSec()) {
+      for (MdSecType digiprovMd : amdSec.getDigiprovMD()) {
+        digiprovMdIds.add(digiprovMd.getID());
+      }
+    }
+    for (StructMapType structMap : mets.getStructMap()) {
+      if (structMap.getDiv() != null) {
+        for (DivType div : structMap.getDiv().getDiv()) {
+          structMapDivs.add(div);
+          if (div.getLABEL() != null) {
+            structMapDivsByLabel.computeIfAbsent(div.getLABEL(), label -> new ArrayList<>()).add(div);
+          }
+        }
+      }
+    }
+    if (mets.getFileSec() != null) {
+      for (MetsType.FileSec.FileGrp fileGrp : mets.getFileSec().getFileGrp()) {
+        if (fileGrp.getUSE() != null) {
+          fileGrpIdsByUse.computeIfAbsent(fileGrp.getUSE(), use -> new HashSet<>()).add(fileGrp.getID());
+        }
+      }
+    }
+  }
+
+  /**
+   * Check if there is a mets/dmdSec with this id.
+   *
+   * @param id
+   *          the id
+   * @return if exists
+   */
+  public boolean isDmdSecId(final String id) {
+    return dmdSecIds.contains(id);
+  }
+
+  /**
+   * Check if there is a mets/amdSec/digiprovMD with this id.
+   *
+   * @param id
+   *          the id
+   * @return if exists
+   */
+  public boolean isDigiprovMdId(final String id) {
+    return digiprovMdIds.contains(id);
+  }
+
+  /**
+   * Get the mets/structMap/div/div elements with this label.
+   *
+   * @param label
+   *          the label
+   * @return {@link List} of {@link DivType}, in document order
+   */
+  public List<DivType> getStructMapDivs(final String label) {
+    return structMapDivsByLabel.getOrDefault(label, Collections.emptyList());
+  }
+
+  /**
+   * Get the mets/structMap/div/div elements whose label starts with a prefix.
+   *
+   * @param prefix
+   *          the label prefix
+   * @return {@link List} of {@link DivType}, in document order
+   */
+  public List<DivType> getStructMapDivsWithLabelPrefix(final String prefix) {
+    final List<DivType> divs = new ArrayList<>();
+    for (DivType div : structMapDivs) {
+      if (div.getLABEL() != null && div.getLABEL().startsWith(prefix)) {
+        divs.add(div);
+      }
+    }
+    return divs;
+  }
+
+  /**
+   * Check if there is a mets/fileSec/fileGrp with this use and id.
+   *
+   * @param use
+   *          the use
+   * @param id
+   *          the id
+   * @return if exists
+   */
+  public boolean hasFileGrp(final String use, final String id) {
+    return fileGrpIdsByUse.getOrDefault(use, Collections.emptySet()).contains(id);
+  }
+}
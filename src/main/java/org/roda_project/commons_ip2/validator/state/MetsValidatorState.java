@@ -1,7 +1,11 @@
 package org.roda_project.commons_ip2.validator.state;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
 
@@ -11,10 +15,18 @@ public class MetsValidatorState {
    * {@link Mets}.
    */
   private Mets mets = null;
+  /**
+   * {@link MetsIndex} of the current {@link Mets}.
+   */
+  private MetsIndex metsIndex = null;
   /**
    * {@link ArrayList} with the internal ids.
    */
   private ArrayList<String> metsInternalIds = new ArrayList<>();
+  /**
+   * {@link Set} with the internal ids, for fast lookups.
+   */
+  private Set<String> metsInternalIdsSet = new HashSet<>();
   /**
    * Mets name.
    */
@@ -53,6 +65,16 @@ public class MetsValidatorState {
    */
   public void setMets(final Mets mets) {
     this.mets = mets;
+    this.metsIndex = mets != null ? new MetsIndex(mets) : null;
+  }
+
+  /**
+   * Get the {@link MetsIndex} of the current {@link Mets}.
+   *
+   * @return {@link MetsIndex}
+   */
+  public MetsIndex getMetsIndex() {
+    return metsIndex;
   }
 
   /**
@@ -120,6 +142,7 @@ public class MetsValidatorState {
    */
   public void addMetsInternalId(final String id) {
     metsInternalIds.add(id);
+    metsInternalIdsSet.add(id);
   }
 
   /**
@@ -130,7 +153,16 @@ public class MetsValidatorState {
    * @return if already exists this {@link String}
    */
   public boolean checkMetsInternalId(final String id) {
-    return metsInternalIds.contains(id);
+    return metsInternalIdsSet.contains(id);
+  }
+
+  /**
+   * Get the METS internal id's registered so far, in registration order.
+   *
+   * @return {@link List} of id's
+   */
+  public List<String> getMetsInternalIds() {
+    return Collections.unmodifiableList(metsInternalIds);
   }
 
   /**
@@ -40,6 +40,36 @@ public final class CLIUtils {
     out.append(CLIConstants.TAB).append(CLIConstants.CLI_OPTION_CREATE).append(CLIConstants.DOUBLE_TAB)
       .append("Create a SIP Shallow file").append(CLIConstants.END_OF_LINE);
 
+    out.append(CLIConstants.END_OF_LINE);
+
+    out.append("Usage: Commons-ip create-batch [OPTIONS]\n");
+
+    out.append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.COMMANDS_KEY);
+    out.append(CLIConstants.DOUBLE_END_OF_LINE);
+    out.append(CLIConstants.TAB).append(CLIConstants.CLI_OPTION_CREATE_BATCH).append(CLIConstants.DOUBLE_TAB)
+      .append("Create the SIPs of a CSV or JSON manifest").append(CLIConstants.END_OF_LINE);
+
+    out.append(CLIConstants.END_OF_LINE);
+
+    out.append("Usage: Commons-ip server [OPTIONS]\n");
+
+    out.append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.COMMANDS_KEY);
+    out.append(CLIConstants.DOUBLE_END_OF_LINE);
+    out.append(CLIConstants.TAB).append(CLIConstants.CLI_OPTION_SERVER).append(CLIConstants.DOUBLE_TAB)
+      .append("Start a local validation server").append(CLIConstants.END_OF_LINE);
+
+    out.append(CLIConstants.END_OF_LINE);
+
+    out.append("Usage: Commons-ip watch [OPTIONS]\n");
+
+    out.append(CLIConstants.END_OF_LINE);
+    out.append(CLIConstants.COMMANDS_KEY);
+    out.append(CLIConstants.DOUBLE_END_OF_LINE);
+    out.append(CLIConstants.TAB).append(CLIConstants.CLI_OPTION_WATCH).append(CLIConstants.DOUBLE_TAB)
+      .append("Validate the packages dropped in a directory").append(CLIConstants.END_OF_LINE);
+
     out.append(CLIConstants.END_OF_LINE);
     printStream.append(out).flush();
   }
@@ -46,6 +46,16 @@ public final class ExitCodes {
    */
   public static final int EXIT_CODE_CREATE_INVALID_PATHS = 4;
 
+  /**
+   * Exit code when the validation server can't be started.
+   */
+  public static final int EXIT_CODE_SERVER_CANNOT_START = 8;
+
+  /**
+   * Exit code when the validated package is not valid.
+   */
+  public static final int EXIT_CODE_NOT_VALID = 9;
+
   private ExitCodes() {
     // do nothing.
   }
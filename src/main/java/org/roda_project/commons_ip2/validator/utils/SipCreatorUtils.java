@@ -166,16 +166,7 @@ public final class SipCreatorUtils {
     final String sipID, final String[] ancestors, final String[] documentation, final String softwareVersion,
     final String path, final String submitterAgentName, final String submitterAgentID)
     throws IPException, InterruptedException {
-    String id = sipID;
-    if (id == null) {
-      id = Utils.generateRandomAndPrefixedUUID();
-    }
-
-    final SIP sip = new EARKSIP(id, IPContentType.getMIXED(), IPContentInformationType.getMIXED());
-    sip.addCreatorSoftwareAgent("RODA Commons IP", softwareVersion);
-    sip.addSubmitterAgent(submitterAgentName, submitterAgentID);
-
-    sip.setDescription("SIP created by commons-ip cli tool");
+    final SIP sip = createEARK2SIP(sipID, softwareVersion, submitterAgentName, submitterAgentID);
 
     if (metadataFile != null) {
       try {
@@ -215,6 +206,88 @@ public final class SipCreatorUtils {
     return sip.build(buildPath);
   }
 
+  /**
+   * Create the EARK2 SIP of a manifest entry, without building it. Unlike
+   * {@link #createEARK2SIP(String, String, String, String[], String, String, String, String[], String[], String, String, String, String)}
+   * it fails if some metadata, representation or documentation file cannot be
+   * added, so that no incomplete SIP is created.
+   *
+   * @param entry
+   *          the {@link SipManifest.Entry}.
+   * @param softwareVersion
+   *          the software version.
+   * @param submitterAgentName
+   *          the name of the submitter agent.
+   * @param submitterAgentID
+   *          the id of the submitter agent
+   * @return {@link SIP}.
+   * @throws IPException
+   *           if some metadata or representation file cannot be added.
+   * @throws IOException
+   *           if some documentation file cannot be added.
+   */
+  public static SIP createEARK2SIP(final SipManifest.Entry entry, final String softwareVersion,
+    final String submitterAgentName, final String submitterAgentID) throws IPException, IOException {
+    final SIP sip = createEARK2SIP(entry.getSipID(), softwareVersion, submitterAgentName, submitterAgentID);
+    if (entry.getMetadataFile() != null) {
+      addMetadataToSIP(sip, entry.getMetadataFile(), entry.getMetadataType(), entry.getMetadataVersion());
+    }
+    if (entry.getRepresentationData() != null) {
+      addRepresentationDataToSIP(sip, entry.getRepresentationData(), entry.getRepresentationType(),
+        entry.getRepresentationID());
+    }
+    if (entry.getDocumentation() != null) {
+      addDocumentationToSIP(sip, entry.getDocumentation());
+    }
+    if (entry.getAncestors() != null) {
+      sip.setAncestors(Arrays.asList(entry.getAncestors()));
+    }
+    return sip;
+  }
+
+  /**
+   * Validates the options of a manifest entry as the create command does.
+   *
+   * @param entry
+   *          the {@link SipManifest.Entry}.
+   * @return the error message, or {@code null} if the options are valid.
+   */
+  public static String validateManifestEntry(final SipManifest.Entry entry) {
+    if (!validateMetadataOptions(entry.getMetadataFile(), entry.getMetadataType(), entry.getMetadataVersion())
+      || !validateRepresentationOptions(entry.getRepresentationData(), entry.getRepresentationType(),
+        entry.getRepresentationID())) {
+      return "Missing metadata file and metadata type or representation data.";
+    }
+    if (!validateAllOptions(entry.getMetadataFile(), entry.getDocumentation(), entry.getRepresentationData())) {
+      return "You have to add at least one metadata file or documentation file or representation data file";
+    }
+    if (entry.getMetadataFile() != null && !validateMetadataPath(entry.getMetadataFile())) {
+      return "The metadata file given does not exist";
+    }
+    if (!validateRepresentationPaths(entry.getRepresentationData())) {
+      return "Make sure if all the representation data paths exists";
+    }
+    if (!validateDocumentationPaths(entry.getDocumentation())) {
+      return "Make sure if all the documentation paths exists";
+    }
+    return null;
+  }
+
+  private static SIP createEARK2SIP(final String sipID, final String softwareVersion, final String submitterAgentName,
+    final String submitterAgentID) {
+    String id = sipID;
+    if (id == null) {
+      id = Utils.generateRandomAndPrefixedUUID();
+    }
+
+    final SIP sip = new EARKSIP(id, IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", softwareVersion);
+    sip.addSubmitterAgent(submitterAgentName, submitterAgentID);
+
+    sip.setDescription("SIP created by commons-ip cli tool");
+    return sip;
+  }
+
   private static void addMetadataToSIP(final SIP sip, final String metadataFile, final String metadataType,
     final String metadataVersion) throws IPException {
     MetadataType metadataTypeEnum = null;
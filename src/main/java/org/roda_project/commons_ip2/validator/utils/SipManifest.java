@@ -0,0 +1,331 @@
+package org.roda_project.commons_ip2.validator.utils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.roda_project.commons_ip2.validator.CLI.CLIConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Manifest of the SIPs to create in batch, one {@link Entry} per SIP, read one
+ * entry at a time so that large manifests are never fully held in memory.
+ *
+ * <p>
+ * The fields are named as the long options of the create command
+ * ({@code sip-id}, {@code metadata-file}, {@code metadata-type},
+ * {@code metadata-version}, {@code representation-data},
+ * {@code representation-type}, {@code representation-id}, {@code ancestors}
+ * and {@code documentation}). A {@code .json} manifest is an array of objects
+ * where multi-valued fields may be arrays of strings. Any other manifest is read
+ * as CSV with a header row, where multi-valued fields are separated by
+ * {@value #CSV_VALUE_SEPARATOR}.
+ * </p>
+ */
+public final class SipManifest implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SipManifest.class);
+
+  /**
+   * Separator of the values of multi-valued fields in a CSV manifest.
+   */
+  public static final String CSV_VALUE_SEPARATOR = "|";
+
+  /**
+   * {@link BufferedReader} of a CSV manifest.
+   */
+  private final BufferedReader csvReader;
+  /**
+   * Header of a CSV manifest.
+   */
+  private final List<String> csvHeader;
+  /**
+   * {@link JsonParser} of a JSON manifest.
+   */
+  private final JsonParser jsonParser;
+  /**
+   * Number of the last entry read, starting at 1.
+   */
+  private int number;
+
+  private SipManifest(final BufferedReader csvReader, final JsonParser jsonParser) throws IOException {
+    this.csvReader = csvReader;
+    this.jsonParser = jsonParser;
+    if (csvReader != null) {
+      csvHeader = readCsvRecord(csvReader);
+      if (csvHeader == null) {
+        throw new IOException("The manifest has no header row");
+      }
+      // spreadsheet exports often start with a byte order mark
+      if (csvHeader.get(0).startsWith("\uFEFF")) {
+        csvHeader.set(0, csvHeader.get(0).substring(1));
+      }
+      for (String column : csvHeader) {
+        if (!isField(column)) {
+          LOGGER.warn("Ignoring unknown manifest column {}", column);
+        }
+      }
+    } else {
+      csvHeader = null;
+      if (jsonParser.nextToken() != JsonToken.START_ARRAY) {
+        throw new IOException("The manifest is not a JSON array");
+      }
+    }
+  }
+
+  /**
+   * Opens a manifest, as JSON if its name ends with
+   * {@link CLIConstants#JSON_FILE_EXTENSION} or as CSV otherwise.
+   *
+   * @param manifest
+   *          the {@link Path} of the manifest.
+   * @return the {@link SipManifest}, to be closed by the caller.
+   * @throws IOException
+   *           if the manifest cannot be read.
+   */
+  public static SipManifest open(final Path manifest) throws IOException {
+    final BufferedReader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8);
+    try {
+      if (manifest.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(CLIConstants.JSON_FILE_EXTENSION)) {
+        return new SipManifest(null, new JsonFactory().createParser(reader));
+      }
+      return new SipManifest(reader, null);
+    } catch (final IOException e) {
+      reader.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Reads the next entry.
+   *
+   * @return the {@link Entry}, or {@code null} at the end of the manifest.
+   * @throws IOException
+   *           if the manifest cannot be read or is malformed.
+   */
+  public Entry next() throws IOException {
+    final Map<String, String[]> fields = csvReader != null ? nextCsvFields() : nextJsonFields();
+    if (fields == null) {
+      return null;
+    }
+    number++;
+    return new Entry(number, fields);
+  }
+
+  private Map<String, String[]> nextCsvFields() throws IOException {
+    List<String> record;
+    do {
+      record = readCsvRecord(csvReader);
+    } while (record != null && record.size() == 1 && record.get(0).isEmpty());
+    if (record == null) {
+      return null;
+    }
+    final Map<String, String[]> fields = new HashMap<>();
+    for (int i = 0; i < record.size() && i < csvHeader.size(); i++) {
+      final String value = record.get(i).trim();
+      if (!value.isEmpty()) {
+        final List<String> values = new ArrayList<>();
+        for (String part : value.split(Pattern.quote(CSV_VALUE_SEPARATOR))) {
+          if (!part.trim().isEmpty()) {
+            values.add(part.trim());
+          }
+        }
+        fields.put(csvHeader.get(i), values.toArray(new String[] {}));
+      }
+    }
+    return fields;
+  }
+
+  /**
+   * Reads a CSV record as in RFC 4180, where quoted fields may hold separators,
+   * line breaks and doubled quotes.
+   */
+  private static List<String> readCsvRecord(final BufferedReader reader) throws IOException {
+    int c = reader.read();
+    if (c == -1) {
+      return null;
+    }
+    final List<String> record = new ArrayList<>();
+    final StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    while (c != -1) {
+      if (quoted) {
+        if (c == '"') {
+          reader.mark(1);
+          final int next = reader.read();
+          if (next == '"') {
+            field.append('"');
+          } else {
+            quoted = false;
+            reader.reset();
+          }
+        } else {
+          field.append((char) c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        record.add(field.toString());
+        field.setLength(0);
+      } else if (c == '\n') {
+        break;
+      } else if (c != '\r') {
+        field.append((char) c);
+      }
+      c = reader.read();
+    }
+    if (quoted) {
+      throw new IOException("Unterminated quoted field in the manifest");
+    }
+    record.add(field.toString());
+    return record;
+  }
+
+  private Map<String, String[]> nextJsonFields() throws IOException {
+    final JsonToken token = jsonParser.nextToken();
+    if (token == JsonToken.END_ARRAY || token == null) {
+      return null;
+    }
+    expect(token, JsonToken.START_OBJECT);
+    final Map<String, String[]> fields = new HashMap<>();
+    while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+      final String name = jsonParser.getCurrentName();
+      final JsonToken value = jsonParser.nextToken();
+      if (value == JsonToken.START_ARRAY) {
+        final List<String> values = new ArrayList<>();
+        while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
+          values.add(jsonParser.getValueAsString());
+        }
+        fields.put(name, values.toArray(new String[] {}));
+      } else if (value == JsonToken.START_OBJECT) {
+        throw new IOException("Unexpected object in field " + name + " of the manifest");
+      } else if (value != JsonToken.VALUE_NULL) {
+        fields.put(name, new String[] {jsonParser.getValueAsString()});
+      }
+      if (!isField(name)) {
+        LOGGER.debug("Ignoring unknown manifest field {}", name);
+      }
+    }
+    return fields;
+  }
+
+  private static void expect(final JsonToken actual, final JsonToken expected) throws IOException {
+    if (actual != expected) {
+      throw new IOException("Malformed manifest, expected " + expected + " but found " + actual);
+    }
+  }
+
+  private static boolean isField(final String name) {
+    return CLIConstants.CLI_CREATE_LONG_OPTION_SIP_ID_WITHOUT_IDENT.equals(name)
+      || CLIConstants.CLI_CREATE_LONG_OPTION_METADATA_FILE_WITHOUT_IDENT.equals(name)
+      || CLIConstants.CLI_CREATE_LONG_OPTION_METADATA_TYPE_WITHOUT_IDENT.equals(name)
+      || CLIConstants.CLI_CREATE_LONG_OPTION_METADATA_VERSION_WITHOUT_IDENT.equals(name)
+      || CLIConstants.CLI_CREATE_LONG_OPTION_REPRESENTATION_DATA_WITHOUT_IDENT.equals(name)
+      || CLIConstants.CLI_CREATE_LONG_OPTION_REPRESENTATION_TYPE_WITHOUT_IDENT.equals(name)
+      || CLIConstants.CLI_CREATE_LONG_OPTION_REPRESENTATION_ID_WITHOUT_IDENT.equals(name)
+      || CLIConstants.CLI_CREATE_LONG_OPTION_ANCESTORS_WITHOUT_IDENT.equals(name)
+      || CLIConstants.CLI_CREATE_LONG_OPTION_DOCUMENTATION_WITHOUT_IDENT.equals(name);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (csvReader != null) {
+      csvReader.close();
+    } else {
+      jsonParser.close();
+    }
+  }
+
+  /**
+   * The options of one SIP.
+   */
+  public static final class Entry {
+    /**
+     * Number of the entry in the manifest, starting at 1.
+     */
+    private final int number;
+    /**
+     * Values of each field.
+     */
+    private final Map<String, String[]> fields;
+
+    private Entry(final int number, final Map<String, String[]> fields) {
+      this.number = number;
+      this.fields = fields;
+    }
+
+    /**
+     * Creates the options of one SIP that is not read from a manifest.
+     *
+     * @param fields
+     *          the values of each field, named as in a manifest.
+     * @return the {@link Entry}, numbered 1.
+     */
+    public static Entry of(final Map<String, String[]> fields) {
+      return new Entry(1, fields);
+    }
+
+    public int getNumber() {
+      return number;
+    }
+
+    private String getValue(final String field) {
+      final String[] values = fields.get(field);
+      return values == null || values.length == 0 ? null : values[0];
+    }
+
+    private String[] getValues(final String field) {
+      final String[] values = fields.get(field);
+      return values == null || values.length == 0 ? null : values;
+    }
+
+    public String getSipID() {
+      return getValue(CLIConstants.CLI_CREATE_LONG_OPTION_SIP_ID_WITHOUT_IDENT);
+    }
+
+    public String getMetadataFile() {
+      return getValue(CLIConstants.CLI_CREATE_LONG_OPTION_METADATA_FILE_WITHOUT_IDENT);
+    }
+
+    public String getMetadataType() {
+      return getValue(CLIConstants.CLI_CREATE_LONG_OPTION_METADATA_TYPE_WITHOUT_IDENT);
+    }
+
+    public String getMetadataVersion() {
+      return getValue(CLIConstants.CLI_CREATE_LONG_OPTION_METADATA_VERSION_WITHOUT_IDENT);
+    }
+
+    public String[] getRepresentationData() {
+      return getValues(CLIConstants.CLI_CREATE_LONG_OPTION_REPRESENTATION_DATA_WITHOUT_IDENT);
+    }
+
+    public String getRepresentationType() {
+      return getValue(CLIConstants.CLI_CREATE_LONG_OPTION_REPRESENTATION_TYPE_WITHOUT_IDENT);
+    }
+
+    public String getRepresentationID() {
+      return getValue(CLIConstants.CLI_CREATE_LONG_OPTION_REPRESENTATION_ID_WITHOUT_IDENT);
+    }
+
+    public String[] getAncestors() {
+      return getValues(CLIConstants.CLI_CREATE_LONG_OPTION_ANCESTORS_WITHOUT_IDENT);
+    }
+
+    public String[] getDocumentation() {
+      return getValues(CLIConstants.CLI_CREATE_LONG_OPTION_DOCUMENTATION_WITHOUT_IDENT);
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip.model.impl.bagit;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.ParseException;
+
+import gov.loc.repository.bagit.Bag;
+import gov.loc.repository.bagit.BagFactory;
+
+/**
+ * Test class for {@link BagitPayloadVerifier}.
+ */
+public class BagitPayloadVerifierTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws IOException {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void verifiesAFolderBag() throws IOException, NoSuchAlgorithmException, ParseException {
+    Path bagDirectory = createBag("bag", "data/file.txt");
+    try (Bag bag = new BagFactory().createBag(bagDirectory.toFile())) {
+      Assert.assertEquals(bagDirectory.resolve("data/file.txt"),
+        BagitPayloadVerifier.verify(bag, tempFolder).get("data/file.txt"));
+    }
+  }
+
+  @Test
+  public void rejectsAFolderBagFileOutsideOfTheBag() throws IOException, NoSuchAlgorithmException {
+    Files.write(tempFolder.resolve("outside.txt"), "content".getBytes(StandardCharsets.UTF_8));
+    Path bagDirectory = createBag("escaping", tempFolder.resolve("outside.txt").toString());
+    try (Bag bag = new BagFactory().createBag(bagDirectory.toFile())) {
+      BagitPayloadVerifier.verify(bag, tempFolder);
+      Assert.fail("A payload file outside of the bag should not be verified");
+    } catch (ParseException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains("is outside of the bag"));
+    }
+  }
+
+  /**
+   * Creates a folder bag with a data file and a manifest listing the given
+   * file, with the checksum of the data file.
+   */
+  private static Path createBag(String name, String listedFile) throws IOException, NoSuchAlgorithmException {
+    Path bagDirectory = Files.createDirectories(tempFolder.resolve(name));
+    Files.write(bagDirectory.resolve("bagit.txt"),
+      "BagIt-Version: 0.97\nTag-File-Character-Encoding: UTF-8\n".getBytes(StandardCharsets.UTF_8));
+    byte[] content = "content".getBytes(StandardCharsets.UTF_8);
+    Files.write(Files.createDirectories(bagDirectory.resolve("data")).resolve("file.txt"), content);
+    String md5 = DatatypeConverter.printHexBinary(MessageDigest.getInstance("MD5").digest(content)).toLowerCase();
+    Files.write(bagDirectory.resolve("manifest-md5.txt"),
+      (md5 + "  " + listedFile + "\n").getBytes(StandardCharsets.UTF_8));
+    return bagDirectory;
+  }
+}
@@ -0,0 +1,133 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip.model.impl.bagit;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.IPConstants;
+import org.roda_project.commons_ip.model.IPFile;
+import org.roda_project.commons_ip.model.IPRepresentation;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.model.SIP;
+import org.roda_project.commons_ip.utils.IPException;
+
+import gov.loc.repository.bagit.Bag;
+import gov.loc.repository.bagit.BagFactory;
+
+/**
+ * Test class for {@link BagitSIP}.
+ */
+public class BagitSIPTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws IOException {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void buildsAValidBag() throws IPException, InterruptedException, ParseException, IOException {
+    Path bagPath = createSIP("SIP_BAGIT").build(tempFolder);
+
+    try (Bag bag = new BagFactory().createBag(bagPath.toFile())) {
+      Assert.assertTrue(bag.verifyValid().toString(), bag.verifyValid().isSuccess());
+    }
+
+    SIP sip = BagitSIP.parse(bagPath, Files.createDirectories(tempFolder.resolve("parsed")));
+    Assert.assertEquals("SIP_BAGIT", sip.getId());
+    Assert.assertEquals(1, sip.getRepresentations().size());
+    Map<String, IPFile> files = new HashMap<>();
+    for (IPFile file : sip.getRepresentations().get(0).getData()) {
+      files.put(String.join("/", file.getRelativeFolders()) + "/" + file.getFileName(), file);
+    }
+    Assert.assertEquals(2, files.size());
+    Assert.assertTrue(FileUtils.contentEquals(Paths.get("src/test/resources/eark/documentation.pdf").toFile(),
+      files.get("/documentation.pdf").getPath().toFile()));
+    Assert.assertTrue(FileUtils.contentEquals(Paths.get("src/test/resources/eark/metadata_other.txt").toFile(),
+      files.get("folder/metadata_other.txt").getPath().toFile()));
+  }
+
+  @Test
+  public void rejectsAPayloadMismatch() throws IPException, InterruptedException, IOException {
+    Path bagPath = createSIP("SIP_MISMATCH").build(tempFolder);
+    Path changedBagPath = tempFolder.resolve("SIP_CHANGED");
+    try (ZipInputStream zipInputStream = new ZipInputStream(Files.newInputStream(bagPath));
+      OutputStream outputStream = Files.newOutputStream(changedBagPath);
+      ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+      ZipEntry entry;
+      while ((entry = zipInputStream.getNextEntry()) != null) {
+        // the bag root folder is named after the ZIP
+        String name = entry.getName().replaceFirst("^SIP_MISMATCH/", "SIP_CHANGED/");
+        zipOutputStream.putNextEntry(new ZipEntry(name));
+        if (name.endsWith("/documentation.pdf")) {
+          zipOutputStream.write("changed".getBytes(StandardCharsets.UTF_8));
+        } else {
+          IOUtils.copy(zipInputStream, zipOutputStream);
+        }
+        zipOutputStream.closeEntry();
+      }
+    }
+
+    try {
+      BagitSIP.parse(changedBagPath, Files.createDirectories(tempFolder.resolve("changed")));
+      Assert.fail("A bag whose payload does not match its manifest should not be parsed");
+    } catch (ParseException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains("documentation.pdf fails md5 fixity check"));
+    }
+  }
+
+  @Test
+  public void deletesTheBagOfAFailedBuild() throws IPException, InterruptedException {
+    SIP sip = createSIP("SIP_FAILED");
+    sip.getRepresentations().get(0).addFile(new IPFile(tempFolder.resolve("missing.txt")));
+    try {
+      sip.build(tempFolder);
+      Assert.fail("A bag with a missing payload file should not be built");
+    } catch (IPException e) {
+      Assert.assertFalse(Files.exists(tempFolder.resolve("SIP_FAILED")));
+    }
+  }
+
+  private static SIP createSIP(String id) throws IPException {
+    SIP sip = new BagitSIP(id);
+    Map<String, String> metadata = new LinkedHashMap<>();
+    metadata.put(IPConstants.BAGIT_ID, id);
+    metadata.put("title", "Bag " + id);
+    sip.addDescriptiveMetadata(BagitUtils.createBagitMetadata(metadata, tempFolder.resolve(id + ".properties")));
+
+    IPRepresentation representation = new IPRepresentation("rep1");
+    representation.addFile(new IPFile(Paths.get("src/test/resources/eark/documentation.pdf")));
+    representation
+      .addFile(new IPFile(Paths.get("src/test/resources/eark/metadata_other.txt"), Arrays.asList("folder")));
+    sip.addRepresentation(representation);
+    return sip;
+  }
+}
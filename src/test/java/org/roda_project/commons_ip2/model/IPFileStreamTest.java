@@ -0,0 +1,98 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.model.MetadataType.MetadataTypeEnum;
+import org.roda_project.commons_ip2.model.impl.eark.EARKSIP;
+
+public class IPFileStreamTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void buildEARKSIPFromStreams() throws IPException, InterruptedException, ParseException, IOException {
+    // in-memory stand-in for an object store
+    Map<String, byte[]> store = new HashMap<>();
+    store.put("object-1.pdf", Files.readAllBytes(Paths.get("src/test/resources/eark/documentation.pdf")));
+    store.put("generated.txt", "generated content".getBytes(StandardCharsets.UTF_8));
+
+    Path zipSIP = createEARKSIPFromStreams(store, md5Hex(store.get("generated.txt"))).build(tempFolder, "streams");
+    SIP parsedSIP = EARKSIP.parse(zipSIP, tempFolder.resolve("streams-parsed"));
+    Assert.assertTrue(parsedSIP.getValidationReport().isValid());
+    List<IPFileInterface> data = parsedSIP.getRepresentations().get(0).getData();
+    Assert.assertEquals(2, data.size());
+    for (IPFileInterface file : data) {
+      Assert.assertArrayEquals(store.get(file.getFileName()), Files.readAllBytes(file.getPath()));
+    }
+
+    // a known checksum that does not match the content fails the build
+    SIP corruptedSIP = createEARKSIPFromStreams(store, md5Hex("other content".getBytes(StandardCharsets.UTF_8)));
+    try {
+      corruptedSIP.build(tempFolder, "streams-corrupted");
+      Assert.fail("Build should fail when the content does not match its checksum");
+    } catch (IPException e) {
+      Assert.assertTrue(e.getMessage().contains("Checksum of"));
+    }
+  }
+
+  private static SIP createEARKSIPFromStreams(Map<String, byte[]> store, String generatedMD5) throws IPException {
+    SIP sip = new EARKSIP("SIP_STREAMS", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    sip.addDescriptiveMetadata(
+      new IPDescriptiveMetadata(new IPFile(Paths.get("src/test/resources/eark/metadata_descriptive_dc.xml")),
+        new MetadataType(MetadataTypeEnum.DC), null));
+    IPRepresentation representation = new IPRepresentation("representation 1");
+    sip.addRepresentation(representation);
+
+    representation.addFile(new IPFileStream("object-1.pdf", store.get("object-1.pdf").length,
+      () -> new ByteArrayInputStream(store.get("object-1.pdf"))).setMimeType("application/pdf"));
+    representation.addFile(new IPFileStream("generated.txt", store.get("generated.txt").length,
+      () -> new ByteArrayInputStream(store.get("generated.txt")), Arrays.asList("generated"))
+        .setChecksumAndAlgorithm(generatedMD5, "MD5"));
+    return sip;
+  }
+
+  private static String md5Hex(byte[] content) {
+    try {
+      return DatatypeConverter.printHexBinary(MessageDigest.getInstance("MD5").digest(content));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.model.impl.eark.EARKSIP;
+
+public class IPReaderTest {
+  private static final Path DATA = Paths.get("src/test/resources/eark/documentation.pdf");
+
+  private static Path tempFolder;
+  private static Path zipSIP;
+
+  @BeforeClass
+  public static void setup() throws IOException, IPException, InterruptedException {
+    tempFolder = Files.createTempDirectory("temp");
+
+    SIP sip = new EARKSIP("SIP_1", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    IPRepresentation representation1 = new IPRepresentation("representation 1");
+    IPFile nested = new IPFile(DATA);
+    nested.setRelativeFolders(Arrays.asList("abc", "def"));
+    representation1.addFile(nested);
+    sip.addRepresentation(representation1);
+    IPRepresentation representation2 = new IPRepresentation("representation 2");
+    IPFile renamed = new IPFile(DATA);
+    renamed.setRenameTo("data3.pdf");
+    representation2.addFile(renamed);
+    sip.addRepresentation(representation2);
+    zipSIP = sip.build(tempFolder);
+  }
+
+  @AfterClass
+  public static void cleanup() throws IOException {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void readsAZipPackage() throws ParseException, IOException {
+    try (IPReader reader = IPReader.open(zipSIP)) {
+      assertReads(reader);
+    }
+  }
+
+  @Test
+  public void readsAFolderPackage() throws ParseException, IOException {
+    Path folder = unzip(zipSIP, tempFolder.resolve("folder"));
+    try (IPReader reader = IPReader.open(folder)) {
+      assertReads(reader);
+      try {
+        reader.openFile("../" + zipSIP.getFileName());
+        Assert.fail("Files outside of the package should not be opened");
+      } catch (FileNotFoundException e) {
+        // expected
+      }
+      Assert.assertFalse(reader.exists("../" + zipSIP.getFileName()));
+    }
+  }
+
+  @Test(expected = ParseException.class)
+  public void rejectsAPackageWithoutMETS() throws IOException, ParseException {
+    Path zip = tempFolder.resolve("no-mets.zip");
+    try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(zip))) {
+      zipOutputStream.putNextEntry(new ZipEntry("SIP_1/representations/rep1/data/file.txt"));
+      zipOutputStream.write("content".getBytes(StandardCharsets.UTF_8));
+      zipOutputStream.closeEntry();
+    }
+    IPReader.open(zip).close();
+  }
+
+  private static void assertReads(IPReader reader) throws ParseException, IOException {
+    Assert.assertEquals("SIP_1", reader.getMets().getOBJID());
+    Assert.assertEquals(Arrays.asList("representation 1", "representation 2"), reader.getRepresentationIds());
+    Assert.assertEquals(Collections.singletonList("representations/representation 1/data/abc/def/documentation.pdf"),
+      reader.getRepresentationFiles("representation 1"));
+    Assert.assertEquals(Collections.singletonList("representations/representation 2/data/data3.pdf"),
+      reader.getRepresentationFiles("representation 2"));
+
+    try (InputStream inputStream = reader.openFile("representations/representation 2/data/data3.pdf")) {
+      Assert.assertArrayEquals(Files.readAllBytes(DATA), IOUtils.toByteArray(inputStream));
+    }
+    Assert.assertTrue(reader.exists(IPConstants.METS_FILE));
+    Assert.assertFalse(reader.exists("representations/representation 2/data/missing.pdf"));
+  }
+
+  private static Path unzip(Path zip, Path folder) throws IOException {
+    try (ZipInputStream zipInputStream = new ZipInputStream(Files.newInputStream(zip))) {
+      for (ZipEntry entry = zipInputStream.getNextEntry(); entry != null; entry = zipInputStream.getNextEntry()) {
+        Path file = folder.resolve(entry.getName());
+        if (entry.isDirectory()) {
+          Files.createDirectories(file);
+        } else {
+          Files.createDirectories(file.getParent());
+          Files.copy(zipInputStream, file);
+        }
+      }
+    }
+    return folder;
+  }
+}
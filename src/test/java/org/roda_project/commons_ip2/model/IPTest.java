@@ -0,0 +1,86 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.model.impl.eark.EARKSIP;
+
+public class IPTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void buildAndParseAsynchronously() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      SIP parsedSIP = createSIP().buildAsync(tempFolder, executor)
+        .thenCompose(zipSIP -> EARKSIP.parseAsync(zipSIP, tempFolder.resolve("parsed"), executor)).get();
+      Assert.assertTrue(parsedSIP.isValid());
+      Assert.assertEquals("SIP_1", parsedSIP.getId());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void cancelBuildBeforeItStarts() throws Exception {
+    // a build cancelled before it starts never runs
+    CountDownLatch busy = new CountDownLatch(1);
+    ExecutorService single = Executors.newSingleThreadExecutor();
+    single.execute(() -> {
+      try {
+        busy.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    Path cancelledFolder = Files.createDirectories(tempFolder.resolve("cancelled"));
+    CompletableFuture<Path> cancelled = createSIP().buildAsync(cancelledFolder, single);
+    Assert.assertTrue(cancelled.cancel(true));
+    busy.countDown();
+    single.shutdown();
+    Assert.assertTrue(single.awaitTermination(1, TimeUnit.MINUTES));
+    try (Stream<Path> files = Files.list(cancelledFolder)) {
+      Assert.assertEquals(0, files.count());
+    }
+  }
+
+  private static SIP createSIP() throws IPException {
+    SIP sip = new EARKSIP("SIP_1", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    IPRepresentation representation = new IPRepresentation("representation 1");
+    representation.addFile(new IPFile(Paths.get("src/test/resources/eark/documentation.pdf")));
+    sip.addRepresentation(representation);
+    return sip;
+  }
+}
@@ -0,0 +1,76 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.roda_project.commons_ip2.model.ProgressDispatcher.Progress;
+
+public class ProgressDispatcherTest {
+
+  @Test
+  public void deliversEveryMinPercentage() {
+    List<String> events = new ArrayList<>();
+    try (ProgressDispatcher dispatcher = dispatcher(60000, 25, false, events)) {
+      run(dispatcher, Progress.PACKAGING, 100, events);
+    }
+    Assert.assertEquals(Arrays.asList("started", "25/100", "50/100", "75/100", "100/100", "ended"), events);
+  }
+
+  @Test
+  public void deliversEveryStatusWithoutInterval() {
+    List<String> events = new ArrayList<>();
+    try (ProgressDispatcher dispatcher = dispatcher(0, 100, false, events)) {
+      run(dispatcher, Progress.REPRESENTATION_PROCESSING, 3, events);
+    }
+    Assert.assertEquals(Arrays.asList("started", "1/3", "2/3", "3/3", "ended"), events);
+  }
+
+  @Test
+  public void deliversTheLatestStatusBeforeEnded() {
+    List<String> events = new ArrayList<>();
+    try (ProgressDispatcher dispatcher = dispatcher(60000, 100, false, events)) {
+      dispatcher.started(Progress.PACKAGING_BYTES, 100, () -> events.add("started"));
+      for (int i = 1; i <= 60; i++) {
+        dispatcher.update(Progress.PACKAGING_BYTES, i, -1);
+      }
+      dispatcher.ended(Progress.PACKAGING_BYTES, () -> events.add("ended"));
+    }
+    Assert.assertEquals(Arrays.asList("started", "60/100", "ended"), events);
+  }
+
+  @Test
+  public void deliversAsynchronouslyInOrder() {
+    List<String> events = Collections.synchronizedList(new ArrayList<>());
+    try (ProgressDispatcher dispatcher = dispatcher(60000, 100, true, events)) {
+      run(dispatcher, Progress.PACKAGING, 10, events);
+    }
+    // the final status is delivered once, before the ended notification
+    Assert.assertEquals(Arrays.asList("started", "10/10", "ended"), events);
+  }
+
+  private static ProgressDispatcher dispatcher(long minIntervalMillis, int minPercentage, boolean asynchronous,
+    List<String> events) {
+    ProgressDispatcher dispatcher = new ProgressDispatcher(minIntervalMillis, minPercentage, asynchronous);
+    dispatcher.setDelivery((progress, current, total) -> events.add(current + "/" + total));
+    return dispatcher;
+  }
+
+  private static void run(ProgressDispatcher dispatcher, Progress progress, int total, List<String> events) {
+    dispatcher.started(progress, total, () -> events.add("started"));
+    for (int i = 1; i <= total; i++) {
+      dispatcher.update(progress, i, total);
+    }
+    dispatcher.ended(progress, () -> events.add("ended"));
+  }
+}
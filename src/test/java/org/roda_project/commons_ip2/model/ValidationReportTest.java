@@ -0,0 +1,78 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.roda_project.commons_ip2.model.ValidationEntry.LEVEL;
+import org.roda_project.commons_ip2.model.ValidationReport.Verbosity;
+
+public class ValidationReportTest {
+
+  @Test
+  public void keepsAllEntries() {
+    ValidationReport report = addEntries(new ValidationReport());
+    Assert.assertEquals(4, report.getValidationEntries().size());
+    assertCounted(report);
+  }
+
+  @Test
+  public void keepsOnlyErrors() {
+    ValidationReport report = addEntries(new ValidationReport(Verbosity.ERRORS_ONLY));
+    Assert.assertEquals(1, report.getValidationEntries().size());
+    Assert.assertEquals(LEVEL.ERROR, report.getValidationEntries().get(0).getLevel());
+    assertCounted(report);
+  }
+
+  @Test
+  public void keepsOnlyCounters() {
+    ValidationReport report = addEntries(new ValidationReport(Verbosity.COUNTERS_ONLY));
+    Assert.assertTrue(report.getValidationEntries().isEmpty());
+    assertCounted(report);
+  }
+
+  @Test
+  public void countsWithoutKeeping() {
+    ValidationReport report = new ValidationReport();
+    report.count(LEVEL.INFO, "found");
+    report.count(LEVEL.INFO, "found");
+    Assert.assertTrue(report.isValid());
+    report.count(LEVEL.ERROR, "missing");
+
+    Assert.assertTrue(report.getValidationEntries().isEmpty());
+    Assert.assertFalse(report.isValid());
+    Assert.assertEquals(Collections.singletonMap("found", 2L), report.getCounters().get(LEVEL.INFO));
+    Assert.assertEquals(1, report.getCount(LEVEL.ERROR));
+    Assert.assertEquals(0, report.getCount(LEVEL.WARN));
+  }
+
+  private static ValidationReport addEntries(ValidationReport report) {
+    List<ValidationEntry> entries = Arrays.asList(entry(LEVEL.INFO, "found"), entry(LEVEL.INFO, "found"),
+      entry(LEVEL.WARN, "unknown"), entry(LEVEL.ERROR, "missing"));
+    for (ValidationEntry entry : entries) {
+      report.addEntry(entry);
+    }
+    return report;
+  }
+
+  private static void assertCounted(ValidationReport report) {
+    Assert.assertFalse(report.isValid());
+    Assert.assertEquals(2, report.getCount(LEVEL.INFO));
+    Assert.assertEquals(1, report.getCount(LEVEL.WARN));
+    Assert.assertEquals(1, report.getCount(LEVEL.ERROR));
+    Assert.assertEquals(Collections.singletonMap("found", 2L), report.getCounters().get(LEVEL.INFO));
+  }
+
+  private static ValidationEntry entry(LEVEL level, String message) {
+    return new ValidationEntry().setLevel(level).setMessage(message);
+  }
+}
@@ -0,0 +1,102 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.model.AIP;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPFileStream;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.impl.BasicAIP;
+
+public class EARKAIPTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void buildEARKAIPWithWrongStreamSize() throws IPException, InterruptedException {
+    for (int writeParallelism : new int[] {1, 4}) {
+      byte[] content = "streamed content".getBytes(StandardCharsets.UTF_8);
+      AIP aip = new BasicAIP("AIP_STREAM_SIZE", IPContentType.getMIXED());
+      IPRepresentation representation = new IPRepresentation("representation");
+      representation
+        .addFile(new IPFileStream("streamed.txt", content.length + 1, () -> new ByteArrayInputStream(content)));
+      aip.addRepresentation(representation);
+      try {
+        new EARKAIP(aip).setWriteParallelism(writeParallelism).build(tempFolder, "stream-size-" + writeParallelism);
+        Assert.fail("Build should fail when the content does not match its declared size");
+      } catch (IPException e) {
+        Assert.assertTrue(e.getMessage(), e.getMessage().contains("Size of"));
+      }
+    }
+  }
+
+  @Test
+  public void buildEARKAIPToDirectoryInParallel() throws IPException, InterruptedException, IOException {
+    // AIP folders have a METS file, keep them out of the folder SIPs are parsed from
+    Path aipFolder = Files.createDirectories(tempFolder.resolve("aip"));
+    Path dataFolder = Files.createDirectories(aipFolder.resolve("data"));
+    Path serial = new EARKAIP(createDeterministicAIP(dataFolder)).build(aipFolder, "serial");
+    Path parallel = new EARKAIP(createDeterministicAIP(dataFolder)).setWriteParallelism(8).build(aipFolder,
+      "parallel");
+
+    List<Path> files;
+    try (Stream<Path> paths = Files.walk(serial)) {
+      files = paths.filter(Files::isRegularFile).map(serial::relativize).sorted().collect(Collectors.toList());
+    }
+    try (Stream<Path> paths = Files.walk(parallel)) {
+      Assert.assertEquals(files,
+        paths.filter(Files::isRegularFile).map(parallel::relativize).sorted().collect(Collectors.toList()));
+    }
+    Assert.assertTrue(files.size() > 40);
+    for (Path file : files) {
+      Assert.assertArrayEquals(file.toString(), Files.readAllBytes(serial.resolve(file)),
+        Files.readAllBytes(parallel.resolve(file)));
+    }
+  }
+
+  private static AIP createDeterministicAIP(Path dataFolder) throws IPException, IOException {
+    BasicAIP aip = new BasicAIP("AIP_PARALLEL", IPContentType.getMIXED());
+    aip.setDeterministicBuild(true);
+    IPRepresentation representation = new IPRepresentation("representation");
+    for (int i = 0; i < 40; i++) {
+      Path file = dataFolder.resolve("file-" + i + ".txt");
+      if (!Files.exists(file)) {
+        Files.write(file, ("content " + i).getBytes(StandardCharsets.UTF_8));
+      }
+      representation.addFile(new IPFile(file, Arrays.asList("folder-" + (i % 4), "sub-" + (i % 3))));
+    }
+    aip.addRepresentation(representation);
+    return aip;
+  }
+}
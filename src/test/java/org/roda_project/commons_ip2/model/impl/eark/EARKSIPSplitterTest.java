@@ -0,0 +1,110 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPDescriptiveMetadata;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPFileInterface;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.MetadataType;
+import org.roda_project.commons_ip2.model.MetadataType.MetadataTypeEnum;
+import org.roda_project.commons_ip2.model.SIP;
+
+public class EARKSIPSplitterTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void buildDividedEARKSIP() throws IPException, InterruptedException, ParseException, IOException {
+    SIP sip = createSIP();
+    Path destination = Files.createDirectories(tempFolder.resolve("divided"));
+
+    List<Path> packages = new EARKSIPSplitter(0, 2).setParallelism(2).build(sip, destination);
+    // at most two data files per part, representations sliced in order
+    List<List<String>> expected = Arrays.asList(Collections.emptyList(),
+      Arrays.asList("representation 1:a.pdf", "representation 1:b.pdf"),
+      Arrays.asList("representation 1:c.pdf", "representation 2:d.pdf"), Arrays.asList("representation 2:e.pdf"));
+    Assert.assertEquals(expected.size(), packages.size());
+
+    for (int i = 0; i < packages.size(); i++) {
+      SIP parsed = EARKSIP.parse(packages.get(i), tempFolder.resolve("divided-parsed-" + i));
+      Assert.assertTrue(parsed.getValidationReport().isValid());
+      List<String> dataFiles = new ArrayList<>();
+      for (IPRepresentation representation : parsed.getRepresentations()) {
+        for (IPFileInterface file : representation.getData()) {
+          dataFiles.add(representation.getRepresentationID() + ":" + file.getFileName());
+        }
+      }
+      Assert.assertEquals(expected.get(i), dataFiles);
+      if (i == 0) {
+        Assert.assertEquals("SIP_1", parsed.getId());
+        Assert.assertEquals(1, parsed.getDescriptiveMetadata().size());
+      } else {
+        Assert.assertEquals("SIP_1-part-" + i, parsed.getId());
+        Assert.assertEquals(Arrays.asList("SIP_0", "SIP_1"), parsed.getAncestors());
+        Assert.assertTrue(parsed.getDescriptiveMetadata().isEmpty());
+      }
+    }
+
+    String manifest = new String(Files.readAllBytes(destination.resolve("SIP_1" + EARKSIPSplitter.MANIFEST_SUFFIX)),
+      StandardCharsets.UTF_8);
+    for (Path path : packages) {
+      Assert.assertTrue(manifest.contains(path.getFileName().toString()));
+    }
+  }
+
+  private static SIP createSIP() throws IPException {
+    SIP sip = new EARKSIP("SIP_1", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    sip.setAncestors(Collections.singletonList("SIP_0"));
+    sip.addDescriptiveMetadata(
+      new IPDescriptiveMetadata(new IPFile(Paths.get("src/test/resources/eark/metadata_descriptive_dc.xml")),
+        new MetadataType(MetadataTypeEnum.DC), null));
+    addRepresentation(sip, "representation 1", "a.pdf", "b.pdf", "c.pdf");
+    addRepresentation(sip, "representation 2", "d.pdf", "e.pdf");
+    return sip;
+  }
+
+  private static void addRepresentation(SIP sip, String representationID, String... fileNames) throws IPException {
+    IPRepresentation representation = new IPRepresentation(representationID);
+    for (String fileName : fileNames) {
+      IPFile file = new IPFile(Paths.get("src/test/resources/eark/documentation.pdf"));
+      file.setRenameTo(fileName);
+      representation.addFile(file);
+    }
+    sip.addRepresentation(representation);
+  }
+}
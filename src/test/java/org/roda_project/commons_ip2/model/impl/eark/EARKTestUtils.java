@@ -0,0 +1,156 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip.utils.METSEnums.CreatorType;
+import org.roda_project.commons_ip2.model.IPAgent;
+import org.roda_project.commons_ip2.model.IPAgentNoteTypeEnum;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPDescriptiveMetadata;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPMetadata;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.MetadataType;
+import org.roda_project.commons_ip2.model.MetadataType.MetadataTypeEnum;
+import org.roda_project.commons_ip2.model.RepresentationStatus;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.utils.Utils;
+
+/**
+ * Full E-ARK SIPs, shared by the tests that need a whole package to build,
+ * parse or validate.
+ */
+public final class EARKTestUtils {
+  private static final String REPRESENTATION_STATUS_NORMALIZED = "NORMALIZED";
+
+  private EARKTestUtils() {
+    // do nothing
+  }
+
+  /**
+   * A SIP with metadata, documentation and two representations, one of them
+   * with file names that need encoding.
+   */
+  public static SIP createFullEARKSIPObject() throws IPException {
+    return createFullEARKSIPObject(new IPAgent("Agent Name", "OTHER", "OTHER ROLE", CreatorType.INDIVIDUAL,
+      "OTHER TYPE", "", IPAgentNoteTypeEnum.SOFTWARE_VERSION));
+  }
+
+  /**
+   * The full SIP with an agent that complies with the E-ARK specification, for
+   * the tests that validate it.
+   */
+  public static SIP createCompliantEARKSIPObject() throws IPException {
+    return createFullEARKSIPObject(new IPAgent("Agent Name", "CREATOR", "", CreatorType.INDIVIDUAL, "OTHER TYPE", "",
+      IPAgentNoteTypeEnum.IDENTIFICATIONCODE));
+  }
+
+  private static SIP createFullEARKSIPObject(IPAgent agent) throws IPException {
+
+    // 1) instantiate E-ARK SIP object
+    SIP sip = new EARKSIP("SIP_1", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+
+    // 1.1) set optional human-readable description
+    sip.setDescription("A full E-ARK SIP");
+
+    // 1.2) add descriptive metadata (SIP level)
+    IPDescriptiveMetadata metadataDescriptiveDC = new IPDescriptiveMetadata(
+      new IPFile(Paths.get("src/test/resources/eark/metadata_descriptive_dc.xml")),
+      new MetadataType(MetadataTypeEnum.DC), null);
+    sip.addDescriptiveMetadata(metadataDescriptiveDC);
+
+    // 1.3) add preservation metadata (SIP level)
+    IPMetadata metadataPreservation = new IPMetadata(
+      new IPFile(Paths.get("src/test/resources/eark/metadata_preservation_premis.xml")))
+        .setMetadataType(MetadataTypeEnum.PREMIS);
+    sip.addPreservationMetadata(metadataPreservation);
+
+    // 1.4) add other metadata (SIP level)
+    IPFile metadataOtherFile = new IPFile(Paths.get("src/test/resources/eark/metadata_other.txt"));
+    // 1.4.1) optionally one may rename file final name
+    metadataOtherFile.setRenameTo("metadata_other_renamed.txt");
+    IPMetadata metadataOther = new IPMetadata(metadataOtherFile);
+    sip.addOtherMetadata(metadataOther);
+    metadataOtherFile = new IPFile(Paths.get("src/test/resources/eark/metadata_other.txt"));
+    // 1.4.1) optionally one may rename file final name
+    metadataOtherFile.setRenameTo("metadata_other_renamed2.txt");
+    metadataOther = new IPMetadata(metadataOtherFile);
+    sip.addOtherMetadata(metadataOther);
+
+    // 1.5) add xml schema (SIP level)
+    sip.addSchema(new IPFile(Paths.get("src/test/resources/eark/schema.xsd")));
+
+    // 1.6) add documentation (SIP level)
+    sip.addDocumentation(new IPFile(Paths.get("src/test/resources/eark/documentation.pdf")));
+
+    // 1.7) set optional RODA related information about ancestors
+    sip.setAncestors(Arrays.asList("b6f24059-8973-4582-932d-eb0b2cb48f28"));
+
+    // 1.8) add an agent (SIP level)
+    sip.addAgent(agent);
+
+    // 1.9) add a representation (status will be set to the default value, i.e.,
+    // ORIGINAL)
+    IPRepresentation representation1 = new IPRepresentation("representation 1");
+    sip.addRepresentation(representation1);
+
+    // 1.9.1) add a file to the representation
+    IPFile representationFile = new IPFile(Paths.get("src/test/resources/eark/documentation.pdf"));
+    representationFile.setRenameTo("data_.pdf");
+    representation1.addFile(representationFile);
+
+    // SIDE TEST: encoding
+    if (!Utils.systemIsWindows()) {
+      IPFile representationFileEnc1 = new IPFile(Paths.get("src/test/resources/eark/documentation.pdf"));
+      representationFileEnc1.setRenameTo("enc1_\u0001\u001F.pdf");
+      representation1.addFile(representationFileEnc1);
+    }
+
+    IPFile representationFileEnc2 = new IPFile(Paths.get("src/test/resources/eark/documentation.pdf"));
+    representationFileEnc2.setRenameTo("enc2_\u0080\u0081\u0090\u00FF.pdf");
+    representation1.addFile(representationFileEnc2);
+
+    IPFile representationFileEnc3 = new IPFile(Paths.get("src/test/resources/eark/documentation.pdf"));
+    representationFileEnc3.setRenameTo(Utils.systemIsWindows() ? "enc3_;@=&.pdf" : "enc3_;?:@=&.pdf");
+    representation1.addFile(representationFileEnc3);
+
+    IPFile representationFileEnc4 = new IPFile(Paths.get("src/test/resources/eark/documentation.pdf"));
+    representationFileEnc4
+      .setRenameTo(Utils.systemIsWindows() ? "enc4_#%{}\\^~[ ]`.pdf" : "enc4_\"<>#%{}|\\^~[ ]`.pdf");
+    representation1.addFile(representationFileEnc4);
+
+    IPFile representationFileEnc5 = new IPFile(Paths.get("src/test/resources/eark/documentation.pdf"));
+    representationFileEnc5
+      .setRenameTo(Utils.systemIsWindows() ? "enc4_#+%{}\\^~[ ]`.pdf" : "enc4_\"<>+#%{}|\\^~[ ]`.pdf");
+    representation1.addFile(representationFileEnc5);
+
+    // 1.9.2) add a file to the representation and put it inside a folder
+    // called 'abc' which has a folder inside called 'def'
+    IPFile representationFile2 = new IPFile(Paths.get("src/test/resources/eark/documentation.pdf"));
+    representationFile2.setRelativeFolders(Arrays.asList("abc", "def"));
+    representation1.addFile(representationFile2);
+
+    // 1.10) add a representation & define its status
+    IPRepresentation representation2 = new IPRepresentation("representation 2");
+    representation2.setStatus(new RepresentationStatus(REPRESENTATION_STATUS_NORMALIZED));
+    sip.addRepresentation(representation2);
+
+    // 1.10.1) add a file to the representation
+    IPFile representationFile3 = new IPFile(Paths.get("src/test/resources/eark/documentation.pdf"));
+    representationFile3.setRenameTo("data3.pdf");
+    representation2.addFile(representationFile3);
+
+    return sip;
+  }
+}
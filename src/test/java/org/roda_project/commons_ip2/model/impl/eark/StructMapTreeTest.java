@@ -0,0 +1,96 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.model.impl.eark;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.model.IPFileShallow;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.utils.StructMapDiv;
+import org.roda_project.commons_ip2.utils.Tree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tests the struct map {@link Tree} built for shallow representations. The
+ * benchmark only runs with {@code -Dcommons-ip.benchmark=true}.
+ */
+public class StructMapTreeTest {
+  private static final Logger LOGGER = LoggerFactory.getLogger(StructMapTreeTest.class);
+
+  private static final int BENCHMARK_FILES = 1_000_000;
+
+  @Test
+  public void createTreeMergesFolders() {
+    IPRepresentation representation = representation(4, i -> new String[][] {{"a", "b"}, {"a", "c"}, {"a", "b"}, {}}[i]);
+
+    Tree<StructMapDiv> tree = EARKMETSUtils.createTree(representation);
+    Assert.assertEquals(1, tree.getChilds().size());
+    Tree<StructMapDiv> a = tree.getChilds().get(0);
+    Assert.assertEquals("a", a.getRoot().getLabel());
+    Assert.assertEquals(Arrays.asList("b", "c"), Arrays.asList(a.getChilds().get(0).getRoot().getLabel(),
+      a.getChilds().get(1).getRoot().getLabel()));
+    Assert.assertEquals("data/a/b/", a.getChilds().get(0).getRoot().getFileLocation());
+    Assert.assertEquals(2, a.getChilds().get(1).getLevel());
+  }
+
+  @Test
+  public void benchmarkWideLayout() {
+    Assume.assumeTrue(Boolean.getBoolean("commons-ip.benchmark"));
+    // 100 000 sibling folders with 10 files each
+    benchmark("wide", representation(BENCHMARK_FILES, i -> new String[] {"folder" + (i / 10)}));
+  }
+
+  @Test
+  public void benchmarkDeepLayout() {
+    Assume.assumeTrue(Boolean.getBoolean("commons-ip.benchmark"));
+    // 10 levels with up to 4 sub folders each
+    String[][] names = new String[10][4];
+    for (int level = 0; level < names.length; level++) {
+      for (int j = 0; j < names[level].length; j++) {
+        names[level][j] = "level" + level + "_" + j;
+      }
+    }
+    benchmark("deep", representation(BENCHMARK_FILES, i -> {
+      String[] folders = new String[names.length];
+      for (int level = 0; level < folders.length; level++) {
+        folders[level] = names[level][(i >> (2 * level)) & 3];
+      }
+      return folders;
+    }));
+  }
+
+  private static void benchmark(String layout, IPRepresentation representation) {
+    for (int run = 0; run < 3; run++) {
+      long start = System.nanoTime();
+      Tree<StructMapDiv> tree = EARKMETSUtils.createTree(representation);
+      LOGGER.info("{} layout, {} files: tree built in {} ms ({} top level folders)", layout,
+        representation.getData().size(), (System.nanoTime() - start) / 1_000_000, tree.getChilds().size());
+    }
+  }
+
+  private static IPRepresentation representation(int files, IntFunction<String[]> folders) {
+    IPRepresentation representation = new IPRepresentation("representation");
+    FileType fileType = new FileType();
+    for (int i = 0; i < files; i++) {
+      IPFileShallow file = new IPFileShallow(URI.create("file:///data/" + i), fileType);
+      List<String> relativeFolders = new ArrayList<>(Arrays.asList(folders.apply(i)));
+      file.setRelativeFolders(relativeFolders);
+      representation.addFile(file);
+    }
+    return representation;
+  }
+}
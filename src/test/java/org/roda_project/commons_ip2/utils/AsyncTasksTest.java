@@ -0,0 +1,101 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class AsyncTasksTest {
+  private static ExecutorService executor;
+
+  @BeforeClass
+  public static void setup() {
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @AfterClass
+  public static void cleanup() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void completesWithTheResult() throws InterruptedException, ExecutionException {
+    Assert.assertEquals("done", AsyncTasks.supplyAsync(() -> "done", executor).get());
+  }
+
+  @Test
+  public void completesWithTheError() throws InterruptedException {
+    try {
+      AsyncTasks.supplyAsync(() -> {
+        throw new IOException("failed");
+      }, executor).get();
+      Assert.fail("The future should complete with the error of the task");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof IOException);
+    }
+  }
+
+  @Test
+  public void neverRunsATaskCancelledBeforeItStarts() throws InterruptedException {
+    CountDownLatch busy = new CountDownLatch(1);
+    executor.execute(() -> {
+      try {
+        busy.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    AtomicBoolean ran = new AtomicBoolean();
+    CountDownLatch cleanedUp = new CountDownLatch(1);
+    CompletableFuture<Boolean> future = AsyncTasks.supplyAsync(() -> ran.getAndSet(true), executor,
+      cleanedUp::countDown);
+    Assert.assertTrue(future.cancel(true));
+    // cleaned up right away, as the task had not started
+    Assert.assertEquals(0, cleanedUp.getCount());
+    busy.countDown();
+
+    // the executor moved on to the next task
+    Assert.assertEquals("next", AsyncTasks.supplyAsync(() -> "next", executor).join());
+    Assert.assertFalse(ran.get());
+  }
+
+  @Test
+  public void interruptsARunningTaskWhenCancelled() throws InterruptedException {
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch interrupted = new CountDownLatch(1);
+    CountDownLatch cleanedUp = new CountDownLatch(1);
+    CompletableFuture<Void> future = AsyncTasks.supplyAsync(() -> {
+      running.countDown();
+      try {
+        Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+      }
+      return null;
+    }, executor, cleanedUp::countDown);
+    Assert.assertTrue(running.await(10, TimeUnit.SECONDS));
+    Assert.assertTrue(future.cancel(true));
+
+    Assert.assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    // cleaned up once the task stopped
+    Assert.assertTrue(cleanedUp.await(10, TimeUnit.SECONDS));
+    // the interrupt is not left to the next task
+    Assert.assertFalse(AsyncTasks.supplyAsync(() -> Thread.currentThread().isInterrupted(), executor).join());
+  }
+}
@@ -0,0 +1,110 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.model.IPConstants;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPDescriptiveMetadata;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPMetadata;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.MetadataType;
+import org.roda_project.commons_ip2.model.MetadataType.MetadataTypeEnum;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.model.impl.eark.EARKSIP;
+
+public class DeterministicBuildTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void buildEARKSIPDeterministically() throws IPException, InterruptedException, IOException {
+    Path first = createDeterministicEARKSIPObject().build(tempFolder, "deterministic1");
+    Path second = createDeterministicEARKSIPObject().build(tempFolder, "deterministic2");
+    Assert.assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+  }
+
+  @Test
+  public void keepsGivenMetadataIds() throws IPException, InterruptedException, IOException {
+    SIP sip = createDeterministicEARKSIPObject();
+    sip.getDescriptiveMetadata().get(0).setId("metadata-dc");
+    Path zip = sip.build(tempFolder, "given");
+    Assert.assertTrue(read(zip, "SIP_1/" + IPConstants.METS_FILE).contains("ID=\"metadata-dc\""));
+  }
+
+  @Test
+  public void derivesIdsFromPaths() throws IPException, InterruptedException, IOException {
+    Path zip = createDeterministicEARKSIPObject().build(tempFolder, "paths1");
+    // metadata built before the representation does not change its ids
+    SIP sip = createDeterministicEARKSIPObject();
+    sip.addDescriptiveMetadata(
+      new IPDescriptiveMetadata(new IPFile(Paths.get("src/test/resources/eark/metadata_descriptive_ead2002.xml")),
+        new MetadataType(MetadataTypeEnum.EAD), null));
+    Path withMoreMetadata = sip.build(tempFolder, "paths2");
+
+    String representationMets = "SIP_1/representations/representation 1/" + IPConstants.METS_FILE;
+    Assert.assertEquals(read(zip, representationMets), read(withMoreMetadata, representationMets));
+  }
+
+  private static SIP createDeterministicEARKSIPObject() throws IPException {
+    SIP sip = new EARKSIP("SIP_1", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    sip.addDescriptiveMetadata(
+      new IPDescriptiveMetadata(new IPFile(Paths.get("src/test/resources/eark/metadata_descriptive_dc.xml")),
+        new MetadataType(MetadataTypeEnum.DC), null));
+    sip.addPreservationMetadata(
+      new IPMetadata(new IPFile(Paths.get("src/test/resources/eark/metadata_preservation_premis.xml")))
+        .setMetadataType(MetadataTypeEnum.PREMIS));
+    sip.addOtherMetadata(new IPMetadata(new IPFile(Paths.get("src/test/resources/eark/metadata_other.txt"))));
+    sip.addDocumentation(new IPFile(Paths.get("src/test/resources/eark/documentation.pdf")));
+    IPRepresentation representation = new IPRepresentation("representation 1");
+    IPFile file = new IPFile(Paths.get("src/test/resources/eark/documentation.pdf"));
+    file.setRelativeFolders(Arrays.asList("abc", "def"));
+    representation.addFile(file);
+    sip.addRepresentation(representation);
+    sip.setDeterministicBuild(true);
+    return sip;
+  }
+
+  private static String read(Path zip, String name) throws IOException {
+    try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+      ZipEntry entry = zipFile.getEntry(name);
+      Assert.assertNotNull(name, entry);
+      try (InputStream inputStream = zipFile.getInputStream(entry)) {
+        return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+      }
+    }
+  }
+}
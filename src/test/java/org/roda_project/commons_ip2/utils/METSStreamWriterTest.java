@@ -0,0 +1,158 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.bind.JAXBException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.FileSec;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType.FileSec.FileGrp;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPFileInterface;
+import org.roda_project.commons_ip2.model.IPFileStream;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.model.impl.eark.EARKSIP;
+
+public class METSStreamWriterTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void writesAsTheMarshaller() throws JAXBException, IOException, IPException {
+    for (boolean rootMETS : new boolean[] {true, false}) {
+      // files streamed after the one of the bean, and no files at all
+      assertSameAsMarshaller(rootMETS, "Data", createFiles("data-", 3));
+      assertSameAsMarshaller(rootMETS, "Data", Collections.emptyList());
+      // files streamed in an empty group, and the group left empty
+      assertSameAsMarshaller(rootMETS, "Empty", createFiles("empty-", 2));
+      assertSameAsMarshaller(rootMETS, "Empty", Collections.emptyList());
+    }
+  }
+
+  @Test
+  public void buildEARKSIPWithStreamedRepresentationMETS()
+    throws IPException, InterruptedException, ParseException, IOException {
+    SIP sip = new EARKSIP("SIP_STREAMED_METS", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    IPRepresentation representation = new IPRepresentation("representation 1");
+    sip.addRepresentation(representation);
+    List<String> fileNames = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      String fileName = "file-" + i + ".pdf";
+      if (i % 10 == 0) {
+        byte[] content = ("content " + i).getBytes(StandardCharsets.UTF_8);
+        representation.addFile(new IPFileStream(fileName, content.length, () -> new ByteArrayInputStream(content)));
+      } else {
+        IPFile file = new IPFile(Paths.get("src/test/resources/eark/documentation.pdf"));
+        file.setRenameTo(fileName);
+        file.setRelativeFolders(Arrays.asList("folder-" + i % 3));
+        representation.addFile(file);
+      }
+      fileNames.add(fileName);
+    }
+
+    Path zipSIP = sip.build(tempFolder, "streamed-mets");
+    SIP parsedSIP = EARKSIP.parse(zipSIP, tempFolder.resolve("streamed-mets-parsed"));
+    Assert.assertTrue(parsedSIP.getValidationReport().isValid());
+    List<String> parsedFileNames = new ArrayList<>();
+    for (IPFileInterface file : parsedSIP.getRepresentations().get(0).getData()) {
+      parsedFileNames.add(file.getFileName());
+    }
+    Assert.assertEquals(fileNames, parsedFileNames);
+  }
+
+  /**
+   * Writes a METS streaming files into a file group, and the same METS with the
+   * files added to the group bean, expecting the same content.
+   */
+  private static void assertSameAsMarshaller(boolean rootMETS, String fileGroupID, List<FileType> files)
+    throws JAXBException, IOException, IPException {
+    Mets mets = createMETS();
+    Path streamed = METSUtils.marshallMETS(mets, Files.createTempFile(tempFolder, "streamed", ".xml"), rootMETS,
+      fileGroupID, files.iterator());
+    for (FileGrp fileGroup : mets.getFileSec().getFileGrp()) {
+      if (fileGroupID.equals(fileGroup.getID())) {
+        fileGroup.getFile().addAll(files);
+      }
+    }
+    Path marshalled = METSUtils.marshallMETS(mets, Files.createTempFile(tempFolder, "marshalled", ".xml"), rootMETS);
+    Assert.assertEquals(new String(Files.readAllBytes(marshalled), StandardCharsets.UTF_8),
+      new String(Files.readAllBytes(streamed), StandardCharsets.UTF_8));
+  }
+
+  private static Mets createMETS() {
+    Mets mets = new Mets();
+    mets.setOBJID("SIP & <\"streamed\">");
+    mets.setLABEL("Représentation 'ü'");
+    FileSec fileSec = new FileSec();
+    fileSec.setID("file-section");
+    FileGrp dataGroup = createFileGroup("Data");
+    dataGroup.getFile().addAll(createFiles("shallow-", 1));
+    fileSec.getFileGrp().add(dataGroup);
+    fileSec.getFileGrp().add(createFileGroup("Empty"));
+    FileGrp documentationGroup = createFileGroup("Documentation");
+    documentationGroup.getFile().addAll(createFiles("documentation-", 1));
+    fileSec.getFileGrp().add(documentationGroup);
+    mets.setFileSec(fileSec);
+    return mets;
+  }
+
+  private static FileGrp createFileGroup(String id) {
+    FileGrp fileGroup = new FileGrp();
+    fileGroup.setID(id);
+    fileGroup.setUSE(id + " & more");
+    return fileGroup;
+  }
+
+  private static List<FileType> createFiles(String prefix, int count) {
+    List<FileType> files = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      FileType file = new FileType();
+      file.setID(prefix + i);
+      file.setMIMETYPE("text/plain; charset=\"utf-8\"");
+      file.setSIZE((long) i);
+      file.setCHECKSUM("checksum-" + i);
+      file.setCHECKSUMTYPE("SHA-256");
+      file.getFLocat().add(METSUtils.createFileLocation("data/" + prefix + i + " & <ü>.txt"));
+      file.getFLocat().add(METSUtils.createShallowFileLocation("file:///" + prefix + i + "?a=1&b=<'\">"));
+      files.add(file);
+    }
+    return files;
+  }
+}
@@ -0,0 +1,147 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.model.ParseException;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip.utils.ValidationConstants;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPDescriptiveMetadata;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPMetadata;
+import org.roda_project.commons_ip2.model.MetadataType;
+import org.roda_project.commons_ip2.model.MetadataType.MetadataTypeEnum;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.model.ValidationEntry.LEVEL;
+import org.roda_project.commons_ip2.model.ValidationReport;
+import org.roda_project.commons_ip2.model.impl.eark.EARKSIP;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class MetadataSchemaValidatorTest {
+  private static final String RECORD_SCHEMA = "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" "
+    + "targetNamespace=\"urn:test:record\" elementFormDefault=\"qualified\">%s"
+    + "<xs:element name=\"record\"><xs:complexType><xs:sequence>"
+    + "<xs:element name=\"title\" type=\"xs:string\"/>"
+    + "</xs:sequence></xs:complexType></xs:element></xs:schema>";
+
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void validateEARKSIPMetadataAgainstSchemas()
+    throws IPException, InterruptedException, ParseException, IOException {
+    Path folder = Files.createDirectories(tempFolder.resolve("metadata-schemas"));
+    Path schema = write(folder.resolve("record.xsd"), String.format(RECORD_SCHEMA, ""));
+    Path valid = write(folder.resolve("valid.xml"), "<record xmlns=\"urn:test:record\"><title>A title</title></record>");
+    Path invalid = write(folder.resolve("invalid.xml"),
+      "<record xmlns=\"urn:test:record\"><name>A name</name></record>");
+
+    SIP sip = new EARKSIP("SIP_METADATA_SCHEMAS", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    sip.addDescriptiveMetadata(new IPDescriptiveMetadata(new IPFile(valid), new MetadataType("RECORD"), "1.0"));
+    sip.addDescriptiveMetadata(new IPDescriptiveMetadata(new IPFile(invalid), new MetadataType("RECORD"), "1.0"));
+    sip.addPreservationMetadata(
+      new IPMetadata(new IPFile(Paths.get("src/test/resources/eark/metadata_preservation_premis.xml")))
+        .setMetadataType(MetadataTypeEnum.PREMIS));
+    sip.addSchema(new IPFile(schema));
+    Path zipSIP = sip.build(tempFolder, "metadata-schemas");
+
+    // the schema is found in the package schemas by namespace
+    SIP parsedSIP = EARKSIP.parse(zipSIP, tempFolder.resolve("metadata-schemas-parsed"));
+    ValidationReport report = new MetadataSchemaValidator(2).validate(parsedSIP);
+    Assert.assertEquals(1, count(report, ValidationConstants.METADATA_VALID_AGAINST_SCHEMA, LEVEL.INFO));
+    Assert.assertEquals(1, count(report, ValidationConstants.METADATA_NOT_VALID_AGAINST_SCHEMA, LEVEL.ERROR));
+    // there is no PREMIS schema
+    Assert.assertEquals(1, count(report, ValidationConstants.METADATA_SCHEMA_NOT_FOUND, LEVEL.WARN));
+
+    // a registered schema takes precedence, by metadata type and version
+    SIP reparsedSIP = EARKSIP.parse(zipSIP, tempFolder.resolve("metadata-schemas-reparsed"));
+    report = new MetadataSchemaValidator(1).registerSchema("PREMIS", null, schema.toUri().toURL())
+      .validate(reparsedSIP);
+    Assert.assertEquals(2, count(report, ValidationConstants.METADATA_NOT_VALID_AGAINST_SCHEMA, LEVEL.ERROR));
+  }
+
+  @Test
+  public void doesNotFetchRemoteResources() throws IPException, IOException, InterruptedException {
+    AtomicInteger requests = new AtomicInteger();
+    HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", exchange -> {
+      requests.incrementAndGet();
+      byte[] body = "<!ENTITY title \"remote\">".getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(200, body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    server.start();
+    try {
+      String remote = "http://localhost:" + server.getAddress().getPort();
+      Path folder = Files.createDirectories(tempFolder.resolve("remote-resources"));
+      Path importing = write(folder.resolve("importing.xsd"), String.format(RECORD_SCHEMA,
+        "<xs:import namespace=\"urn:test:remote\" schemaLocation=\"" + remote + "/remote.xsd\"/>"));
+      Path schema = write(folder.resolve("record.xsd"), String.format(RECORD_SCHEMA, ""));
+      Path valid = write(folder.resolve("valid.xml"),
+        "<record xmlns=\"urn:test:record\"><title>A title</title></record>");
+      Path entity = write(folder.resolve("entity.xml"), "<!DOCTYPE record SYSTEM \"" + remote
+        + "/record.dtd\"><record xmlns=\"urn:test:record\"><title>&title;</title></record>");
+
+      // a schema importing a remote schema
+      ValidationReport report = new MetadataSchemaValidator(1)
+        .registerSchema("RECORD", null, importing.toUri().toURL()).validate(createSIP(schema, valid));
+      Assert.assertEquals(1, count(report, ValidationConstants.METADATA_SCHEMA_NOT_VALID, LEVEL.ERROR));
+
+      // a metadata file with a remote DTD
+      report = new MetadataSchemaValidator(1).validate(createSIP(schema, entity));
+      Assert.assertEquals(1, count(report, ValidationConstants.METADATA_NOT_VALID_AGAINST_SCHEMA, LEVEL.ERROR));
+      Assert.assertEquals(0, requests.get());
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  private static SIP createSIP(Path schema, Path... metadata) throws IPException {
+    SIP sip = new EARKSIP("SIP_REMOTE", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    for (Path file : metadata) {
+      sip.addDescriptiveMetadata(new IPDescriptiveMetadata(new IPFile(file), new MetadataType("RECORD"), "1.0"));
+    }
+    sip.addSchema(new IPFile(schema));
+    return sip;
+  }
+
+  private static Path write(Path file, String content) throws IOException {
+    return Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static long count(ValidationReport report, String message, LEVEL level) {
+    return report.getValidationEntries().stream().filter(e -> e.getLevel() == level && message.equals(e.getMessage()))
+      .count();
+  }
+}
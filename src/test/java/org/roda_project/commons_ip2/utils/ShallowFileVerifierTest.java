@@ -0,0 +1,114 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.model.IPConstants;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPFileShallow;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.model.ValidationEntry.LEVEL;
+import org.roda_project.commons_ip2.model.ValidationReport;
+import org.roda_project.commons_ip2.model.impl.eark.EARKSIP;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class ShallowFileVerifierTest {
+  private static final Path DATA = Paths.get("src/test/resources/data/data.txt");
+  private static final long SIZE = 62L;
+  private static final String CHECKSUM = "06b5dacd5cb1bc148af8ceaaf8764d0a49dbf36024041c33e95c8848445ae866";
+
+  private static HttpServer server;
+  private static String http;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    byte[] content = Files.readAllBytes(DATA);
+    // serves data.txt, and no-length.txt without a length in HEAD responses
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", exchange -> {
+      String path = exchange.getRequestURI().getPath();
+      boolean found = path.equals("/data.txt") || path.equals("/no-length.txt");
+      boolean head = "HEAD".equals(exchange.getRequestMethod());
+      if (found && head && path.equals("/data.txt")) {
+        exchange.getResponseHeaders().set("Content-Length", String.valueOf(content.length));
+      }
+      exchange.sendResponseHeaders(found ? 200 : 404, found && !head ? content.length : -1);
+      if (found && !head) {
+        exchange.getResponseBody().write(content);
+      }
+      exchange.close();
+    });
+    server.start();
+    http = "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getAddress().getPort();
+  }
+
+  @AfterClass
+  public static void cleanup() {
+    server.stop(0);
+  }
+
+  @Test
+  public void verifiesSizesAndChecksums() throws IPException, InterruptedException {
+    SIP sip = createSIP();
+    ValidationReport report = new ShallowFileVerifier(2, true).verify(sip);
+    Assert.assertEquals(6, report.getValidationEntries().size());
+    // the local file, data.txt and no-length.txt, read with a GET
+    Assert.assertEquals(3, report.getCount(LEVEL.INFO));
+    // the wrong checksum, the wrong size and the missing file
+    Assert.assertEquals(3, report.getCount(LEVEL.ERROR));
+    Assert.assertFalse(sip.getValidationReport().isValid());
+  }
+
+  @Test
+  public void verifiesSizesWithoutChecksums() throws IPException, InterruptedException {
+    // the size is checked with a HEAD request, or a GET when the HEAD response
+    // has no length
+    ValidationReport report = new ShallowFileVerifier(2, false).verify(createSIP());
+    Assert.assertEquals(4, report.getCount(LEVEL.INFO));
+    Assert.assertEquals(2, report.getCount(LEVEL.ERROR));
+  }
+
+  private static SIP createSIP() throws IPException {
+    SIP sip = new EARKSIP("SIP_S_2", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    IPRepresentation representation = new IPRepresentation("representation 1");
+    sip.addRepresentation(representation);
+    representation.addFile(new IPFileShallow(DATA.toUri(), fileType("F1", SIZE, CHECKSUM)));
+    representation.addFile(new IPFileShallow(URI.create(http + "/data.txt"), fileType("F2", SIZE, CHECKSUM)));
+    representation.addFile(
+      new IPFileShallow(URI.create(http + "/data.txt"), fileType("F3", SIZE, CHECKSUM.replace('0', 'f'))));
+    representation.addFile(new IPFileShallow(URI.create(http + "/data.txt"), fileType("F4", SIZE + 1, CHECKSUM)));
+    representation.addFile(new IPFileShallow(URI.create(http + "/missing.txt"), fileType("F5", SIZE, CHECKSUM)));
+    representation.addFile(new IPFileShallow(URI.create(http + "/no-length.txt"), fileType("F6", SIZE, CHECKSUM)));
+    return sip;
+  }
+
+  private static FileType fileType(String id, long size, String checksum) {
+    FileType fileType = new FileType();
+    fileType.setID(id);
+    fileType.setSIZE(size);
+    fileType.setCHECKSUM(checksum);
+    fileType.setCHECKSUMTYPE(IPConstants.CHECKSUM_ALGORITHM);
+    return fileType;
+  }
+}
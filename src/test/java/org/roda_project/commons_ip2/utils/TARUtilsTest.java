@@ -0,0 +1,143 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/commons-ip
+ */
+package org.roda_project.commons_ip2.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.roda_project.commons_ip.utils.IPEnums;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.model.IPConstants;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.impl.eark.EARKSIP;
+
+public class TARUtilsTest {
+  private static final Path DATA = Paths.get("src/test/resources/eark/documentation.pdf");
+
+  /**
+   * Longer than the ustar name field and not ASCII, so it needs a pax header.
+   */
+  private static final String LONG_NAME = String.join("", Collections.nCopies(12, "documenta\u00E7\u00E3o_")) + ".pdf";
+
+  @Test
+  public void tarsTheEntriesOfTheZip() throws IPException, InterruptedException, IOException {
+    ByteArrayOutputStream zip = new ByteArrayOutputStream();
+    createSIP().build(zip);
+    Map<String, byte[]> zipEntries = unzip(zip.toByteArray());
+
+    ByteArrayOutputStream tar = new ByteArrayOutputStream();
+    createSIP().build(tar, IPEnums.SipType.EARK2, IPEnums.ArchiveFormat.TAR);
+    Map<String, byte[]> tarEntries = untar(tar.toByteArray());
+
+    Assert.assertEquals(zipEntries.keySet(), tarEntries.keySet());
+    // the METS file is written once everything it references is known
+    Assert.assertEquals("SIP_1/" + IPConstants.METS_FILE, last(tarEntries));
+    String data = "SIP_1/representations/representation 1/data/";
+    Assert.assertArrayEquals(Files.readAllBytes(DATA), tarEntries.get(data + "documentation.pdf"));
+    Assert.assertArrayEquals(Files.readAllBytes(DATA), tarEntries.get(data + "abc/def/" + LONG_NAME));
+    for (Map.Entry<String, byte[]> entry : zipEntries.entrySet()) {
+      if (!entry.getKey().endsWith(IPConstants.METS_FILE)) {
+        Assert.assertArrayEquals(entry.getKey(), entry.getValue(), tarEntries.get(entry.getKey()));
+      }
+    }
+  }
+
+  private static EARKSIP createSIP() throws IPException {
+    EARKSIP sip = new EARKSIP("SIP_1", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    IPRepresentation representation = new IPRepresentation("representation 1");
+    representation.addFile(new IPFile(DATA));
+    IPFile longName = new IPFile(DATA);
+    longName.setRenameTo(LONG_NAME);
+    longName.setRelativeFolders(Arrays.asList("abc", "def"));
+    representation.addFile(longName);
+    sip.addRepresentation(representation);
+    return sip;
+  }
+
+  private static Map<String, byte[]> unzip(byte[] bytes) throws IOException {
+    Map<String, byte[]> entries = new LinkedHashMap<>();
+    try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+      for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+        if (!entry.isDirectory()) {
+          entries.put(entry.getName(), IOUtils.toByteArray(zip));
+        }
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Reads the regular files of a ustar archive, taking their path from the pax
+   * header before them when there is one.
+   */
+  private static Map<String, byte[]> untar(byte[] bytes) {
+    Assert.assertEquals(0, bytes.length % 512);
+    Map<String, byte[]> entries = new LinkedHashMap<>();
+    String paxPath = null;
+    int offset = 0;
+    while (offset < bytes.length && bytes[offset] != 0) {
+      Assert.assertEquals("ustar", ascii(bytes, offset + 257, 5));
+      String name = ascii(bytes, offset, 100);
+      String prefix = ascii(bytes, offset + 345, 155);
+      int size = Integer.parseInt(ascii(bytes, offset + 124, 11), 8);
+      byte[] content = Arrays.copyOfRange(bytes, offset + 512, offset + 512 + size);
+      if (bytes[offset + 156] == 'x') {
+        paxPath = paxRecord(new String(content, StandardCharsets.UTF_8), "path");
+      } else {
+        entries.put(paxPath != null ? paxPath : prefix.isEmpty() ? name : prefix + "/" + name, content);
+        paxPath = null;
+      }
+      offset += 512 + (size + 511) / 512 * 512;
+    }
+    return entries;
+  }
+
+  private static String paxRecord(String records, String key) {
+    for (String record : records.split("\n")) {
+      String keyValue = record.substring(record.indexOf(' ') + 1);
+      if (keyValue.startsWith(key + "=")) {
+        return keyValue.substring(key.length() + 1);
+      }
+    }
+    return null;
+  }
+
+  private static String ascii(byte[] bytes, int offset, int length) {
+    int end = offset;
+    while (end < offset + length && bytes[end] != 0) {
+      end++;
+    }
+    return new String(bytes, offset, end - offset, StandardCharsets.US_ASCII).trim();
+  }
+
+  private static String last(Map<String, byte[]> entries) {
+    String last = null;
+    for (String name : entries.keySet()) {
+      last = name;
+    }
+    return last;
+  }
+}
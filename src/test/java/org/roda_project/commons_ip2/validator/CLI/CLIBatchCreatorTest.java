@@ -0,0 +1,147 @@
+package org.roda_project.commons_ip2.validator.CLI;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip2.validator.utils.ExitCodes;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Creates SIPs in batch with {@link CLIBatchCreator}.
+ */
+public class CLIBatchCreatorTest {
+  private static final String DOCUMENTATION = Paths.get("src/test/resources/eark/documentation.pdf").toAbsolutePath()
+    .toString();
+
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws IOException {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void createsSIPsAndWritesCsvResults() throws IOException {
+    final Path manifest = write("manifest.csv",
+      "sip-id,representation-data,documentation\n" + "SIP_1," + DOCUMENTATION + ",\n" + "SIP_2,," + DOCUMENTATION
+        + "\n" + "SIP_1,," + DOCUMENTATION + "\n" + "SIP_3,,\n" + "SIP_4,missing.pdf,\n");
+    // paths with a separator are quoted in the results
+    final Path sips = tempFolder.resolve("sips, csv");
+
+    Assert.assertEquals(ExitCodes.EXIT_CODE_CREATE_CANNOT_SIP,
+      new CLIBatchCreator().start(new String[] {"-i", manifest.toString(), "-p", sips.toString(), "-t", "2"}));
+
+    final List<String> lines = Files.readAllLines(sips.resolve("batch-results.csv"), StandardCharsets.UTF_8);
+    Assert.assertEquals("entry,sip-id,status,path,size,duration-ms,message", lines.get(0));
+    Assert.assertEquals(6, lines.size());
+    final Map<String, String> results = new HashMap<>();
+    for (String line : lines.subList(1, lines.size())) {
+      results.put(line.substring(0, line.indexOf(',')), line);
+    }
+    for (String entry : new String[] {"1", "2"}) {
+      final Path sip = sips.resolve("SIP_" + entry + ".zip").toAbsolutePath().normalize();
+      Assert.assertTrue(Files.isRegularFile(sip));
+      Assert.assertTrue(results.get(entry),
+        results.get(entry).startsWith(entry + ",SIP_" + entry + ",created,\"" + sip + "\"," + Files.size(sip) + ","));
+    }
+    Assert.assertTrue(results.get("3"), results.get("3").startsWith("3,SIP_1,failed,,,"));
+    Assert.assertTrue(results.get("3"), results.get("3").endsWith(",Duplicate SIP identifier"));
+    Assert.assertTrue(results.get("4"), results.get("4").startsWith("4,SIP_3,failed,,,"));
+    Assert.assertTrue(results.get("5"), results.get("5").startsWith("5,SIP_4,failed,,,"));
+    Assert.assertFalse(Files.exists(sips.resolve("SIP_4.zip")));
+  }
+
+  @Test
+  public void createsSIPsAndWritesJsonResults() throws IOException {
+    final Path manifest = write("manifest.json", "[{\"sip-id\": \"SIP_1\", \"documentation\": [" + quote(DOCUMENTATION)
+      + "]}, {\"sip-id\": \"SIP_2\", \"representation-data\": " + quote(DOCUMENTATION) + "}]");
+    final Path sips = tempFolder.resolve("sips-json");
+    final Path resultsFile = tempFolder.resolve("results").resolve("results.json");
+
+    Assert.assertEquals(ExitCodes.EXIT_CODE_OK, new CLIBatchCreator().start(
+      new String[] {"-i", manifest.toString(), "-p", sips.toString(), "-o", resultsFile.toString(), "-t", "1"}));
+
+    final List<Map<String, String>> results = readJsonResults(resultsFile);
+    Assert.assertEquals(2, results.size());
+    for (Map<String, String> result : results) {
+      Assert.assertEquals("created", result.get("status"));
+      Assert.assertEquals(String.valueOf(Files.size(Paths.get(result.get("path")))), result.get("size"));
+    }
+  }
+
+  @Test
+  public void closesResultsOfMalformedManifest() throws IOException {
+    final StringBuilder content = new StringBuilder("[");
+    for (int i = 0; i < 4; i++) {
+      content.append("{\"sip-id\": \"SIP_").append(i).append("\", \"documentation\": ").append(quote(DOCUMENTATION))
+        .append("}, ");
+    }
+    final Path manifest = write("malformed.json", content.append("{\"sip-id\": ").toString());
+    final Path resultsFile = tempFolder.resolve("malformed-results.json");
+
+    Assert.assertEquals(ExitCodes.EXIT_CODE_CREATE_INVALID_PATHS,
+      new CLIBatchCreator().start(new String[] {"-i", manifest.toString(), "-p",
+        tempFolder.resolve("sips-malformed").toString(), "-o", resultsFile.toString(), "-t", "1", "-q", "1"}));
+
+    // the results of the jobs that ran are complete and the file is closed
+    for (Map<String, String> result : readJsonResults(resultsFile)) {
+      Assert.assertNotNull(result.get("status"));
+      Assert.assertNotNull(result.get("duration-ms"));
+    }
+  }
+
+  @Test
+  public void rejectsMissingManifest() {
+    Assert.assertEquals(ExitCodes.EXIT_PARSE_ARG, new CLIBatchCreator().start(new String[] {}));
+    Assert.assertEquals(ExitCodes.EXIT_CODE_CREATE_INVALID_PATHS,
+      new CLIBatchCreator().start(new String[] {"-i", tempFolder.resolve("missing.csv").toString()}));
+  }
+
+  private static List<Map<String, String>> readJsonResults(final Path resultsFile) throws IOException {
+    final List<Map<String, String>> results = new ArrayList<>();
+    try (Reader reader = Files.newBufferedReader(resultsFile, StandardCharsets.UTF_8);
+      JsonParser parser = new JsonFactory().createParser(reader)) {
+      Assert.assertEquals(JsonToken.START_ARRAY, parser.nextToken());
+      while (parser.nextToken() == JsonToken.START_OBJECT) {
+        final Map<String, String> result = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          final String name = parser.getCurrentName();
+          parser.nextToken();
+          result.put(name, parser.getText());
+        }
+        results.add(result);
+      }
+      Assert.assertEquals(JsonToken.END_ARRAY, parser.currentToken());
+    }
+    return results;
+  }
+
+  private static String quote(final String value) {
+    return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+  }
+
+  private static Path write(final String name, final String content) throws IOException {
+    return Files.write(tempFolder.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+  }
+}
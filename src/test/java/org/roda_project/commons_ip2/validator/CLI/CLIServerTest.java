@@ -0,0 +1,185 @@
+package org.roda_project.commons_ip2.validator.CLI;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.model.impl.eark.EARKSIP;
+import org.roda_project.commons_ip2.validator.EARKSIPValidator;
+import org.roda_project.commons_ip2.validator.reporter.ValidationReportOutputJson;
+import org.roda_project.commons_ip2.validator.utils.ExitCodes;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Runs a {@link CLIServer} on an ephemeral port.
+ */
+public class CLIServerTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws IOException {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void validatesRejectsAndReportsMetrics() throws Exception {
+    final Path sip = createSIP();
+    final boolean valid = new EARKSIPValidator(new ValidationReportOutputJson(sip, NullOutputStream.NULL_OUTPUT_STREAM))
+      .validate();
+    final Path notSIP = Files.write(tempFolder.resolve("not-a-sip.zip"), "not a zip".getBytes(StandardCharsets.UTF_8));
+    final Path reports = tempFolder.resolve("reports");
+
+    final CLIServer server = new CLIServer();
+    Assert.assertEquals(ExitCodes.EXIT_CODE_OK, server.start(new String[] {"-p", "0", "-t", "1", "-q", "1"}));
+    final String url = "http://localhost:" + server.getAddress().getPort();
+    try {
+      Map<String, String> response = request(url + "/validate?output=" + encode(reports), 400);
+      Assert.assertEquals("bad_request", response.get("status"));
+      response = request(url + "/validate?sip=" + encode(sip) + "&report=other", 400);
+      Assert.assertEquals("bad_request", response.get("status"));
+
+      // the verdict of each package
+      response = request(url + "/validate?sip=" + encode(sip) + "&output=" + encode(reports), 200);
+      Assert.assertEquals(valid ? "valid" : "invalid", response.get("status"));
+      // the report that was written, not only the reserved name
+      Assert.assertTrue(Files.size(Paths.get(response.get("report"))) > 0);
+      response = request(url + "/validate?sip=" + encode(notSIP) + "&output=" + encode(reports), 200);
+      Assert.assertEquals("invalid", response.get("status"));
+
+      // a running and a waiting job fill the server
+      final CountDownLatch release = new CountDownLatch(1);
+      final CountDownLatch running = new CountDownLatch(1);
+      final Runnable blocking = () -> {
+        running.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      };
+      server.jobs.execute(blocking);
+      Assert.assertTrue(running.await(10, TimeUnit.SECONDS));
+      server.jobs.execute(blocking);
+      response = request(url + "/validate?sip=" + encode(sip), 503);
+      Assert.assertEquals("rejected", response.get("status"));
+
+      response = request(url + "/metrics", 200);
+      Assert.assertEquals("1", response.get("maxConcurrentJobs"));
+      Assert.assertEquals("1", response.get("queueCapacity"));
+      Assert.assertEquals("1", response.get("activeJobs"));
+      Assert.assertEquals("1", response.get("queuedJobs"));
+      Assert.assertEquals("2", response.get("completedJobs"));
+      Assert.assertEquals("0", response.get("failedJobs"));
+      Assert.assertEquals("1", response.get("rejectedJobs"));
+      release.countDown();
+    } finally {
+      server.stop();
+    }
+
+    try {
+      request(url + "/metrics", 200);
+      Assert.fail("The server should be stopped");
+    } catch (ConnectException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void buildsSIPs() throws Exception {
+    final Path sips = tempFolder.resolve("sips");
+    final String data = encode(Paths.get("src/test/resources/eark/documentation.pdf"));
+
+    final CLIServer server = new CLIServer();
+    Assert.assertEquals(ExitCodes.EXIT_CODE_OK, server.start(new String[] {"-p", "0", "-t", "1"}));
+    final String url = "http://localhost:" + server.getAddress().getPort();
+    try {
+      Map<String, String> response = request(url + "/build?representation-data=" + data, 400);
+      Assert.assertEquals("bad_request", response.get("status"));
+      response = request(url + "/build?path=" + encode(sips) + "&representation-data=missing.pdf", 400);
+      Assert.assertEquals("bad_request", response.get("status"));
+
+      response = request(url + "/build?path=" + encode(sips) + "&sip-id=built&representation-data=" + data + "%7C"
+        + encode(Paths.get("src/test/resources/eark/schema.xsd")), 200);
+      Assert.assertEquals("created", response.get("status"));
+      final Path sip = Paths.get(response.get("sip"));
+      Assert.assertEquals(sips.toAbsolutePath(), sip.getParent());
+      Assert.assertTrue(Files.isRegularFile(sip));
+      Assert.assertTrue(sip.getFileName().toString().startsWith("built"));
+
+      response = request(url + "/metrics", 200);
+      Assert.assertEquals("1", response.get("completedJobs"));
+      Assert.assertEquals("0", response.get("failedJobs"));
+    } finally {
+      server.stop();
+    }
+  }
+
+  private static Path createSIP() throws IPException, InterruptedException {
+    final SIP sip = new EARKSIP("SIP_1", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    final IPRepresentation representation = new IPRepresentation("representation 1");
+    representation.addFile(new IPFile(Paths.get("src/test/resources/eark/documentation.pdf")));
+    sip.addRepresentation(representation);
+    return sip.build(tempFolder);
+  }
+
+  private static String encode(final Path path) throws IOException {
+    return URLEncoder.encode(path.toString(), StandardCharsets.UTF_8.name());
+  }
+
+  /**
+   * Sends a request, checking its response code, and reads the fields of the
+   * JSON response.
+   */
+  private static Map<String, String> request(final String url, final int expectedCode) throws IOException {
+    final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+    try {
+      Assert.assertEquals(expectedCode, connection.getResponseCode());
+      final Map<String, String> fields = new HashMap<>();
+      try (InputStream inputStream = expectedCode < 400 ? connection.getInputStream()
+        : connection.getErrorStream(); JsonParser parser = new JsonFactory().createParser(inputStream)) {
+        while (parser.nextToken() != null) {
+          if (parser.currentToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            parser.nextToken();
+            fields.put(name, parser.getText());
+          }
+        }
+      }
+      return fields;
+    } finally {
+      connection.disconnect();
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package org.roda_project.commons_ip2.validator.CLI;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip2.model.impl.eark.EARKTestUtils;
+import org.roda_project.commons_ip2.validator.utils.ExitCodes;
+
+/**
+ * Runs a {@link CLIWatcher} on a temporary directory.
+ */
+public class CLIWatcherTest {
+  private static final long TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws IOException {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void movesPackagesOnce() throws Exception {
+    final Path sip = EARKTestUtils.createCompliantEARKSIPObject().build(tempFolder);
+    final Path watchDir = Files.createDirectories(tempFolder.resolve("watched"));
+    Files.copy(sip, watchDir.resolve("sip.zip"));
+    Files.createFile(watchDir.resolve("sip.zip.done"));
+    Files.write(watchDir.resolve("not-a-sip.zip"), "not a zip".getBytes(StandardCharsets.UTF_8));
+    Files.createFile(watchDir.resolve("not-a-sip.zip.done"));
+
+    // the output folders are inside the watched directory by default
+    final Thread watcher = watch("-i", watchDir.toString(), "-t", "2");
+    try {
+      waitFor(() -> Files.exists(watchDir.resolve("invalid").resolve("not-a-sip.zip"))
+        && list(watchDir.resolve("valid")).size() + list(watchDir.resolve("invalid")).size() == 2);
+      // a few more ticks, in which nothing moved out is validated again
+      Thread.sleep(3000);
+    } finally {
+      stop(watcher);
+    }
+    Assert.assertEquals(2, list(watchDir.resolve("reports")).size());
+    Assert.assertEquals(2, list(watchDir.resolve("valid")).size() + list(watchDir.resolve("invalid")).size());
+    try (Stream<Path> files = Files.list(watchDir)) {
+      Assert.assertTrue(files.allMatch(Files::isDirectory));
+    }
+  }
+
+  @Test
+  public void movesPackagesThatCannotBeValidated() throws Exception {
+    final Path watchDir = Files.createDirectories(tempFolder.resolve("failing"));
+    final Path outputDir = tempFolder.resolve("failing-output");
+    final Thread watcher = watch("-i", watchDir.toString(), "-o", outputDir.toString());
+    try {
+      waitFor(() -> Files.isDirectory(outputDir.resolve("reports")));
+      // no report can be written
+      FileUtils.deleteDirectory(outputDir.resolve("reports").toFile());
+      Files.createFile(outputDir.resolve("reports"));
+
+      Files.write(watchDir.resolve("sip.zip"), "not a zip".getBytes(StandardCharsets.UTF_8));
+      Files.createFile(watchDir.resolve("sip.zip.done"));
+      waitFor(() -> Files.exists(outputDir.resolve("invalid").resolve("sip.zip.error")));
+    } finally {
+      stop(watcher);
+    }
+    Assert.assertTrue(Files.exists(outputDir.resolve("invalid").resolve("sip.zip")));
+    Assert.assertTrue(new String(Files.readAllBytes(outputDir.resolve("invalid").resolve("sip.zip.error")),
+      StandardCharsets.UTF_8).contains("IOException"));
+    Assert.assertFalse(Files.exists(watchDir.resolve("sip.zip")));
+    Assert.assertFalse(Files.exists(watchDir.resolve("sip.zip.done")));
+  }
+
+  @Test
+  public void rejectsWatchingAnOutputDirectory() throws IOException {
+    final Path outputDir = tempFolder.resolve("output");
+    final Path watchDir = Files.createDirectories(outputDir.resolve("valid"));
+    Assert.assertEquals(ExitCodes.EXIT_CODE_CREATE_INVALID_PATHS,
+      new CLIWatcher().start(new String[] {"-i", watchDir.toString(), "-o", outputDir.toString()}));
+  }
+
+  private static Thread watch(final String... args) {
+    final Thread watcher = new Thread(() -> new CLIWatcher().start(args));
+    watcher.start();
+    return watcher;
+  }
+
+  private static void stop(final Thread watcher) throws InterruptedException {
+    watcher.interrupt();
+    watcher.join(TIMEOUT_MILLIS);
+    Assert.assertFalse(watcher.isAlive());
+  }
+
+  private static void waitFor(final BooleanSupplier condition) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (!condition.getAsBoolean()) {
+      Assert.assertTrue("Timed out waiting for the watcher", System.currentTimeMillis() < deadline);
+      Thread.sleep(100);
+    }
+  }
+
+  private static List<Path> list(final Path folder) {
+    if (!Files.isDirectory(folder)) {
+      return Collections.emptyList();
+    }
+    try (Stream<Path> files = Files.list(folder)) {
+      return files.collect(Collectors.toList());
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
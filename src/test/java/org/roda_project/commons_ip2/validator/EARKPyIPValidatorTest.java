@@ -0,0 +1,62 @@
+package org.roda_project.commons_ip2.validator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.xml.bind.DatatypeConverter;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip2.validator.reporter.ValidationReportOutputJSONPyIP;
+import org.xml.sax.SAXException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes E-ARK reports with {@link EARKPyIPValidator}.
+ */
+public class EARKPyIPValidatorTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws IOException {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void reportsThePackageDigest() throws InterruptedException, IOException,
+    ParserConfigurationException, SAXException, NoSuchAlgorithmException {
+    final Path zipSIP = tempFolder.resolve("sip.zip");
+    try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(zipSIP))) {
+      zip.putNextEntry(new ZipEntry("sip/METS.xml"));
+      zip.write("<mets/>".getBytes(StandardCharsets.UTF_8));
+      zip.closeEntry();
+    }
+    final Path reportPath = tempFolder.resolve("pyip-report.json");
+    new EARKPyIPValidator(new ValidationReportOutputJSONPyIP(reportPath, zipSIP)).validate();
+
+    // the digest calculated during validation is the one of the whole package
+    final JsonNode checksum = new ObjectMapper().readTree(reportPath.toFile()).path("package").path("details")
+      .path("checksums").path(0);
+    Assert.assertEquals("SHA1", checksum.path("algorithm").asText());
+    final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+    Assert.assertEquals(DatatypeConverter.printHexBinary(digest.digest(Files.readAllBytes(zipSIP))),
+      checksum.path("value").asText());
+  }
+}
@@ -0,0 +1,68 @@
+package org.roda_project.commons_ip2.validator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.model.impl.eark.EARKSIP;
+import org.roda_project.commons_ip2.validator.reporter.ReporterDetails;
+import org.roda_project.commons_ip2.validator.reporter.ValidationReportOutputJson;
+import org.xml.sax.SAXException;
+
+/**
+ * Validates SIPs as they are built with {@link EARKSIPBuildValidator}.
+ */
+public class EARKSIPBuildValidatorTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws IOException {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void validatesAsTheBuiltFile() throws IPException, InterruptedException, IOException,
+    ParserConfigurationException, SAXException {
+    final SIP sip = new EARKSIP("SIP_1", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    final IPRepresentation representation = new IPRepresentation("representation 1");
+    representation.addFile(new IPFile(Paths.get("src/test/resources/eark/documentation.pdf")));
+    sip.addRepresentation(representation);
+    final ValidationReportOutputJson fromBuild = EARKSIPBuildValidator.buildAndValidate(sip, tempFolder,
+      NullOutputStream.NULL_OUTPUT_STREAM);
+    Assert.assertTrue(Files.isRegularFile(fromBuild.getSipPath()));
+
+    final ValidationReportOutputJson fromFile = new ValidationReportOutputJson(fromBuild.getSipPath(),
+      NullOutputStream.NULL_OUTPUT_STREAM);
+    new EARKSIPValidator(fromFile).validate();
+    Assert.assertEquals(fromFile.getResults().keySet(), fromBuild.getResults().keySet());
+    for (final Map.Entry<String, ReporterDetails> result : fromFile.getResults().entrySet()) {
+      final ReporterDetails details = fromBuild.getResults().get(result.getKey());
+      Assert.assertEquals(result.getKey(), result.getValue().isValid(), details.isValid());
+      Assert.assertEquals(result.getKey(), result.getValue().getIssues(), details.getIssues());
+    }
+    Assert.assertEquals(fromFile.getErrors(), fromBuild.getErrors());
+    Assert.assertEquals(fromFile.getWarnings(), fromBuild.getWarnings());
+  }
+}
@@ -0,0 +1,57 @@
+package org.roda_project.commons_ip2.validator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip2.validator.reporter.ValidationReportOutputJson;
+import org.xml.sax.SAXException;
+
+/**
+ * Validates SIPs with {@link EARKSIPValidator}.
+ */
+public class EARKSIPValidatorTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws IOException {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void validatesAsynchronously() throws InterruptedException, ExecutionException, IOException,
+    ParserConfigurationException, SAXException {
+    final Path notAZip = Files.write(tempFolder.resolve("sip.zip"), "not a zip".getBytes(StandardCharsets.UTF_8));
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final ValidationReportOutputJson async = new ValidationReportOutputJson(notAZip,
+        NullOutputStream.NULL_OUTPUT_STREAM);
+      Assert.assertFalse(new EARKSIPValidator(async).validateAsync(executor).get());
+
+      final ValidationReportOutputJson sync = new ValidationReportOutputJson(notAZip,
+        NullOutputStream.NULL_OUTPUT_STREAM);
+      Assert.assertFalse(new EARKSIPValidator(sync).validate());
+      Assert.assertEquals(sync.getErrors(), async.getErrors());
+      Assert.assertTrue(async.getErrors() > 0);
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
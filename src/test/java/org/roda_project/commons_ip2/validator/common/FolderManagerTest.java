@@ -0,0 +1,88 @@
+package org.roda_project.commons_ip2.validator.common;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that a {@link FolderManager} answers the same with and without a
+ * {@link DirectorySnapshot}.
+ */
+public class FolderManagerTest {
+  private static Path tempFolder;
+  private static Path ipPath;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+    ipPath = tempFolder.resolve("ip");
+    write("METS.xml", "<mets/>");
+    write("metadata/descriptive/dc.xml", "<dc/>");
+    write("metadata/descriptive/ead.xml", "<ead/>");
+    write("metadata/preservation/premis.xml", "<premis/>");
+    write("metadata/other.txt", "other");
+    write("representations/rep1/METS.xml", "<mets/>");
+    write("representations/rep1/data/a.txt", "a");
+    write("representations/rep1/data/sub/b.txt", "bb");
+    Files.createDirectories(ipPath.resolve("representations/rep1/metadata"));
+    write("representations/rep2/data/c.txt", "ccc");
+    write("representations/readme.txt", "readme");
+    Files.createDirectories(ipPath.resolve("schemas"));
+    Files.createDirectories(ipPath.resolve("extra"));
+  }
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void answersFromSnapshotAsFromFileSystem() throws IOException {
+    FolderManager fileSystem = new FolderManager();
+    FolderManager snapshot = new FolderManager();
+    snapshot.takeSnapshot(ipPath);
+    Assert.assertEquals(23, snapshot.getSnapshot().size());
+    Assert.assertEquals(3L, snapshot.getSnapshot().get(ipPath.resolve("representations/rep2/data/c.txt")).getSize());
+
+    Assert.assertTrue(snapshot.checkIfExistsRootMetsFile(ipPath));
+    Assert.assertEquals(fileSystem.countMetadataFiles(ipPath), snapshot.countMetadataFiles(ipPath));
+    for (String folder : new String[] {"metadata", "representations", "schemas", "documentation"}) {
+      Assert.assertEquals(fileSystem.checkIfExistsFolderInRoot(ipPath, folder),
+        snapshot.checkIfExistsFolderInRoot(ipPath, folder));
+      Assert.assertEquals(fileSystem.checkIfExistsFolderInsideRepresentation(ipPath, folder),
+        snapshot.checkIfExistsFolderInsideRepresentation(ipPath, folder));
+      Assert.assertEquals(fileSystem.checkIfExistsFolderRepresentation(ipPath, folder, "rep1"),
+        snapshot.checkIfExistsFolderRepresentation(ipPath, folder, "rep1"));
+    }
+    Assert.assertEquals(fileSystem.checkIfExistsFolderInside(ipPath, "metadata", "preservation"),
+      snapshot.checkIfExistsFolderInside(ipPath, "metadata", "preservation"));
+    Assert.assertEquals(fileSystem.checkIfExistsSubMets(ipPath), snapshot.checkIfExistsSubMets(ipPath));
+    Assert.assertEquals(new HashSet<>(fileSystem.getRepresentationsFoldersNames(ipPath)),
+      new HashSet<>(snapshot.getRepresentationsFoldersNames(ipPath)));
+    Assert.assertEquals(1, snapshot.countFilesInsideRepresentations(ipPath));
+    Assert.assertEquals(fileSystem.verifyAdditionalFoldersInRoot(ipPath).size(),
+      snapshot.verifyAdditionalFoldersInRoot(ipPath).size());
+    Assert.assertEquals(fileSystem.getMetadataFiles(ipPath), snapshot.getMetadataFiles(ipPath));
+    Assert.assertEquals(fileSystem.getFiles(ipPath), snapshot.getFiles(ipPath));
+    Assert.assertEquals(4, snapshot.getFiles(ipPath).size());
+
+    Path file = ipPath.resolve("representations/rep1/data/sub/b.txt");
+    Assert.assertTrue(snapshot.checkPathExists(file));
+    Assert.assertTrue(snapshot.verifySize(file, 2L));
+    Assert.assertFalse(snapshot.checkPathExists(ipPath.resolve("representations/rep1/data/missing.txt")));
+  }
+
+  private static void write(String path, String content) throws IOException {
+    Path file = ipPath.resolve(path);
+    Files.createDirectories(file.getParent());
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+}
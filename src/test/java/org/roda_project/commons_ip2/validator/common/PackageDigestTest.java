@@ -0,0 +1,64 @@
+package org.roda_project.commons_ip2.validator.common;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Calculates {@link PackageDigest}s of known files.
+ */
+public class PackageDigestTest {
+  /**
+   * SHA-1 of "content".
+   */
+  private static final String CONTENT_SHA1 = "040F06FD774092478D450774F5BA30C5DA78ACC8";
+
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws IOException {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void calculatesOnFirstGet() throws IOException, NoSuchAlgorithmException {
+    final Path file = Files.write(tempFolder.resolve("lazy.zip"), "content".getBytes(StandardCharsets.UTF_8));
+    Assert.assertEquals(CONTENT_SHA1, new PackageDigest(file, "SHA-1").get());
+  }
+
+  @Test
+  public void calculatesInTheBackground() throws IOException, NoSuchAlgorithmException {
+    final Path file = Files.write(tempFolder.resolve("started.zip"), "content".getBytes(StandardCharsets.UTF_8));
+    Assert.assertEquals(CONTENT_SHA1, PackageDigest.start(file, "SHA-1").get());
+  }
+
+  @Test
+  public void isEmptyForFolders() throws IOException, NoSuchAlgorithmException {
+    Assert.assertEquals("", PackageDigest.start(tempFolder, "SHA-1").get());
+  }
+
+  @Test
+  public void failsOnceCancelled() throws NoSuchAlgorithmException {
+    final PackageDigest packageDigest = new PackageDigest(tempFolder.resolve("cancelled.zip"), "SHA-1");
+    packageDigest.cancel();
+    try {
+      packageDigest.get();
+      Assert.fail("A cancelled digest should not be calculated");
+    } catch (IOException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains("cancelled"));
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package org.roda_project.commons_ip2.validator.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.utils.FileZipEntryInfo;
+import org.roda_project.commons_ip2.model.IPConstants;
+
+/**
+ * Checks what a {@link StreamedZip} keeps of each entry, read or recorded.
+ */
+public class StreamedZipTest {
+  /**
+   * SHA-256 of "content".
+   */
+  private static final String CONTENT_SHA256 = "ed7002b439e9ac845f22357d822bac1444730fbdb6016d3ec9432297b9ec9f73";
+
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws IOException {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void hashesEveryEntry() throws IOException, NoSuchAlgorithmException {
+    final StreamedZip streamedZip = StreamedZip.read(new ByteArrayInputStream(
+      zip("ip/METS.xml", "<mets/>", "ip/representations/rep1/data/file.txt", "content")));
+
+    Assert.assertEquals(Arrays.asList("ip/METS.xml", "ip/representations/rep1/data/file.txt"),
+      Collections.list(streamedZip.entries()).stream().map(ZipEntry::getName).collect(Collectors.toList()));
+    Assert.assertEquals(7, streamedZip.getEntry("ip/representations/rep1/data/file.txt").getSize());
+    Assert.assertEquals(CONTENT_SHA256, streamedZip
+      .getChecksum("ip/representations/rep1/data/file.txt", IPConstants.CHECKSUM_ALGORITHM).toLowerCase());
+    try {
+      streamedZip.getInputStream("ip/representations/rep1/data/file.txt");
+      Assert.fail("Data files should not be kept");
+    } catch (IOException e) {
+      Assert.assertTrue(e.getMessage().contains("not kept"));
+    }
+  }
+
+  @Test
+  public void recordsTheBuiltEntries() throws IOException, NoSuchAlgorithmException {
+    final Path mets = Files.write(tempFolder.resolve("METS.xml"), "<mets/>".getBytes(StandardCharsets.UTF_8));
+    final StreamedZip.Recorder recorder = new StreamedZip.Recorder();
+    recorder.sipBuildPackagingStarted(2);
+    recorder.sipBuildPackagingEntryWritten("ip/METS.xml", 7, new FileZipEntryInfo("ip/METS.xml", mets));
+    final FileZipEntryInfo data = new FileZipEntryInfo("ip/representations/rep1/data/file.txt",
+      tempFolder.resolve("not-read.txt"));
+    data.setChecksum(CONTENT_SHA256);
+    data.setChecksumAlgorithm(IPConstants.CHECKSUM_ALGORITHM);
+    recorder.sipBuildPackagingEntryWritten(data.getName(), 7, data);
+
+    final StreamedZip streamedZip = recorder.getStreamedZip();
+    try (InputStream inputStream = streamedZip.getInputStream("ip/METS.xml")) {
+      Assert.assertEquals("<mets/>", IOUtils.toString(inputStream, StandardCharsets.UTF_8));
+    }
+    Assert.assertEquals(7, streamedZip.getEntry(data.getName()).getSize());
+    Assert.assertEquals(CONTENT_SHA256, streamedZip.getChecksum(data.getName(), IPConstants.CHECKSUM_ALGORITHM));
+
+    // a new package starts a new recording
+    recorder.sipBuildPackagingStarted(0);
+    Assert.assertFalse(recorder.getStreamedZip().entries().hasMoreElements());
+  }
+
+  @Test
+  public void keepsRootMETS() throws IOException {
+    final StreamedZip streamedZip = StreamedZip
+      .read(new ByteArrayInputStream(zip("METS.xml", "<mets/>", "representations/rep1/METS.xml", "<mets/>")));
+    try (InputStream inputStream = streamedZip.getInputStream("METS.xml")) {
+      Assert.assertEquals("<mets/>", IOUtils.toString(inputStream, StandardCharsets.UTF_8));
+    }
+    Assert.assertNotNull(streamedZip.getInputStream("representations/rep1/METS.xml"));
+  }
+
+  @Test
+  public void dropsContentOverTheLimit() throws IOException, NoSuchAlgorithmException {
+    final StreamedZip streamedZip = StreamedZip.read(
+      new ByteArrayInputStream(zip("ip/METS.xml", "<mets/>", "ip/metadata/descriptive/dc.xml", "<dc>large</dc>")),
+      Collections.singleton(IPConstants.CHECKSUM_ALGORITHM), 10);
+    Assert.assertNotNull(streamedZip.getInputStream("ip/METS.xml"));
+    try {
+      streamedZip.getInputStream("ip/metadata/descriptive/dc.xml");
+      Assert.fail("Content over the limit should not be kept");
+    } catch (IOException e) {
+      Assert.assertTrue(e.getMessage().contains("limit"));
+    }
+    Assert.assertNotNull(streamedZip.getChecksum("ip/metadata/descriptive/dc.xml", IPConstants.CHECKSUM_ALGORITHM));
+  }
+
+  private static byte[] zip(final String... namesAndContents) throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try (ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+      for (int i = 0; i < namesAndContents.length; i += 2) {
+        zipOutputStream.putNextEntry(new ZipEntry(namesAndContents[i]));
+        zipOutputStream.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+        zipOutputStream.closeEntry();
+      }
+    }
+    return outputStream.toByteArray();
+  }
+}
@@ -0,0 +1,130 @@
+package org.roda_project.commons_ip2.validator.common;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.roda_project.commons_ip.utils.IPException;
+import org.roda_project.commons_ip2.model.IPContentInformationType;
+import org.roda_project.commons_ip2.model.IPContentType;
+import org.roda_project.commons_ip2.model.IPDescriptiveMetadata;
+import org.roda_project.commons_ip2.model.IPFile;
+import org.roda_project.commons_ip2.model.IPRepresentation;
+import org.roda_project.commons_ip2.model.MetadataType;
+import org.roda_project.commons_ip2.model.MetadataType.MetadataTypeEnum;
+import org.roda_project.commons_ip2.model.SIP;
+import org.roda_project.commons_ip2.model.impl.eark.EARKSIP;
+import org.roda_project.commons_ip2.model.impl.eark.EARKTestUtils;
+import org.roda_project.commons_ip2.validator.EARKSIPValidator;
+import org.roda_project.commons_ip2.validator.reporter.ValidationReportOutputJson;
+import org.xml.sax.SAXException;
+
+/**
+ * Checks that a {@link ValidationCache} gives the same results as validating
+ * again.
+ */
+public class ValidationCacheTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws IOException {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void givesTheResultsOfValidatingAgain() throws IOException, IPException, InterruptedException,
+    ParserConfigurationException, SAXException, NoSuchAlgorithmException {
+    final Path ipPath = EARKTestUtils.createCompliantEARKSIPObject().build(tempFolder, "compliant");
+    final Path cacheFolder = tempFolder.resolve("compliant-cache");
+
+    final ValidationReportOutputJson uncached = validate(ipPath, null);
+    for (int i = 0; i < 2; i++) {
+      final ValidationReportOutputJson cached = validate(ipPath, new ValidationCache(cacheFolder));
+      Assert.assertEquals(uncached.getResults().keySet(), cached.getResults().keySet());
+      Assert.assertEquals(uncached.getErrors(), cached.getErrors());
+      Assert.assertEquals(uncached.getSuccess(), cached.getSuccess());
+      Assert.assertEquals(uncached.getWarnings(), cached.getWarnings());
+    }
+    // one entry for the package plus one for each representation METS
+    Assert.assertEquals(3, list(cacheFolder).size());
+  }
+
+  @Test
+  public void reusesRepresentationMETSResults() throws IOException, IPException, InterruptedException,
+    ParserConfigurationException, SAXException, NoSuchAlgorithmException {
+    final Path ipPath = createSIP();
+    final Path cacheFolder = tempFolder.resolve("validation-cache");
+
+    final ValidationReportOutputJson uncached = validate(ipPath, null);
+    validate(ipPath, new ValidationCache(cacheFolder));
+
+    // forget the package results, so that each representation METS is looked up
+    final Path packageEntry = cacheFolder
+      .resolve(ValidationCache.key("package", ValidationCache.fingerprint(ipPath, null)) + ".json");
+    Files.delete(packageEntry);
+    final List<Path> metsEntries = list(cacheFolder);
+    Assert.assertFalse(metsEntries.isEmpty());
+    for (Path entry : metsEntries) {
+      Files.setLastModifiedTime(entry, FileTime.fromMillis(0));
+    }
+
+    final ValidationReportOutputJson cached = validate(ipPath, new ValidationCache(cacheFolder));
+    Assert.assertEquals(uncached.getResults().keySet(), cached.getResults().keySet());
+    Assert.assertEquals(uncached.getErrors(), cached.getErrors());
+    Assert.assertEquals(uncached.getSuccess(), cached.getSuccess());
+    Assert.assertEquals(uncached.getWarnings(), cached.getWarnings());
+    Assert.assertTrue(Files.exists(packageEntry));
+    Assert.assertEquals(metsEntries.size() + 1, list(cacheFolder).size());
+    for (Path entry : metsEntries) {
+      // reused, not written again
+      Assert.assertEquals(0, Files.getLastModifiedTime(entry).toMillis());
+    }
+  }
+
+  private static Path createSIP() throws IPException, InterruptedException {
+    final SIP sip = new EARKSIP("SIP_1", IPContentType.getMIXED(), IPContentInformationType.getMIXED());
+    sip.addCreatorSoftwareAgent("RODA Commons IP", "2.0.0");
+    sip.addDescriptiveMetadata(
+      new IPDescriptiveMetadata(new IPFile(Paths.get("src/test/resources/eark/metadata_descriptive_dc.xml")),
+        new MetadataType(MetadataTypeEnum.DC), null));
+    for (String representationID : new String[] {"representation 1", "representation 2"}) {
+      final IPRepresentation representation = new IPRepresentation(representationID);
+      representation.addFile(new IPFile(Paths.get("src/test/resources/eark/documentation.pdf")));
+      sip.addRepresentation(representation);
+    }
+    return sip.build(tempFolder);
+  }
+
+  private static ValidationReportOutputJson validate(final Path ipPath, final ValidationCache validationCache)
+    throws IOException, ParserConfigurationException, SAXException, NoSuchAlgorithmException {
+    final ValidationReportOutputJson report = new ValidationReportOutputJson(ipPath,
+      NullOutputStream.NULL_OUTPUT_STREAM);
+    new EARKSIPValidator(report, validationCache).validate();
+    return report;
+  }
+
+  private static List<Path> list(final Path folder) throws IOException {
+    try (Stream<Path> files = Files.list(folder)) {
+      return files.collect(Collectors.toList());
+    }
+  }
+}
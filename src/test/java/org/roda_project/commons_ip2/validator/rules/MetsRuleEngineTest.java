@@ -0,0 +1,156 @@
+package org.roda_project.commons_ip2.validator.rules;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.roda_project.commons_ip2.mets_v1_12.beans.FileType;
+import org.roda_project.commons_ip2.mets_v1_12.beans.Mets;
+import org.roda_project.commons_ip2.mets_v1_12.beans.MetsType;
+import org.roda_project.commons_ip2.validator.reporter.ReporterDetails;
+import org.roda_project.commons_ip2.validator.state.MetsValidatorState;
+import org.roda_project.commons_ip2.validator.state.StructureValidatorState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tests the {@link MetsRuleEngine}. The benchmark, which compares one
+ * traversal for all rules with one traversal per rule, only runs with
+ * {@code -Dcommons-ip.benchmark=true}.
+ */
+public class MetsRuleEngineTest {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetsRuleEngineTest.class);
+
+  private static final int BENCHMARK_FILES = 500_000;
+  private static final int BENCHMARK_RULES = 20;
+
+  @Test
+  public void checksAllRulesInOneTraversal() {
+    MetsValidatorState metsValidatorState = state(mets(2, 3));
+    metsValidatorState.getMets().getFileSec().getFileGrp().get(1).getFile().get(0).setMIMETYPE(null);
+    CountingRule counting = new CountingRule("count");
+    MimeTypeRule mimeType = new MimeTypeRule("mimetype");
+    MetsRuleEngine engine = new MetsRuleEngine(Arrays.asList(counting, mimeType));
+
+    Map<String, ReporterDetails> results = engine.run(new StructureValidatorState(Paths.get("ip")),
+      metsValidatorState);
+    Assert.assertEquals(Arrays.asList("count", "mimetype"), new ArrayList<>(results.keySet()));
+    Assert.assertTrue(results.get("count").isValid());
+    Assert.assertFalse(results.get("mimetype").isValid());
+    Assert.assertEquals(Collections.singletonList("mets/fileSec/fileGrp/file/@MIMETYPE is missing in Root METS.xml"),
+      results.get("mimetype").getIssues());
+    Assert.assertEquals(6, counting.files);
+    Assert.assertEquals(4, mimeType.files);
+    // file section and 6 files, no rule visits file groups
+    Assert.assertEquals(7, engine.getVisitedElements());
+
+    // rules are reset on each run
+    metsValidatorState.getMets().getFileSec().getFileGrp().get(1).getFile().get(0).setMIMETYPE("text/plain");
+    results = engine.run(new StructureValidatorState(Paths.get("ip")), metsValidatorState);
+    Assert.assertTrue(results.get("mimetype").isValid());
+    Assert.assertTrue(results.get("mimetype").getIssues().isEmpty());
+  }
+
+  @Test
+  public void benchmarkTraversals() {
+    Assume.assumeTrue(Boolean.getBoolean("commons-ip.benchmark"));
+    MetsValidatorState metsValidatorState = state(mets(100, BENCHMARK_FILES / 100));
+    StructureValidatorState structureValidatorState = new StructureValidatorState(Paths.get("ip"));
+    List<MetsRule> rules = new ArrayList<>();
+    for (int i = 0; i < BENCHMARK_RULES; i++) {
+      rules.add(new MimeTypeRule("rule" + i));
+    }
+
+    for (int run = 0; run < 3; run++) {
+      long start = System.nanoTime();
+      MetsRuleEngine single = new MetsRuleEngine(rules);
+      single.run(structureValidatorState, metsValidatorState);
+      long singleTime = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      long visited = 0;
+      for (MetsRule rule : rules) {
+        MetsRuleEngine engine = new MetsRuleEngine(Collections.singletonList(rule));
+        engine.run(structureValidatorState, metsValidatorState);
+        visited += engine.getVisitedElements();
+      }
+      long perRuleTime = System.nanoTime() - start;
+
+      LOGGER.info(
+        "{} files, {} rules: single traversal {} ms ({} elements), one traversal per rule {} ms ({} elements)",
+        BENCHMARK_FILES, BENCHMARK_RULES, singleTime / 1_000_000, single.getVisitedElements(),
+        perRuleTime / 1_000_000, visited);
+    }
+  }
+
+  private static MetsValidatorState state(Mets mets) {
+    MetsValidatorState metsValidatorState = new MetsValidatorState();
+    metsValidatorState.setMets(mets);
+    metsValidatorState.setMetsName("METS.xml");
+    metsValidatorState.setIsRootMets(true);
+    return metsValidatorState;
+  }
+
+  private static Mets mets(int fileGroups, int filesPerGroup) {
+    Mets mets = new Mets();
+    MetsType.FileSec fileSec = new MetsType.FileSec();
+    for (int i = 0; i < fileGroups; i++) {
+      MetsType.FileSec.FileGrp fileGrp = new MetsType.FileSec.FileGrp();
+      fileGrp.setID("group-" + i);
+      for (int j = 0; j < filesPerGroup; j++) {
+        FileType file = new FileType();
+        file.setID("file-" + i + "-" + j);
+        file.setMIMETYPE("text/plain");
+        fileGrp.getFile().add(file);
+      }
+      fileSec.getFileGrp().add(fileGrp);
+    }
+    mets.setFileSec(fileSec);
+    return mets;
+  }
+
+  private static final class CountingRule extends MetsRule {
+    private int files;
+
+    private CountingRule(String id) {
+      super(id, MetsElement.FILE_SEC, MetsElement.FILE);
+    }
+
+    @Override
+    protected void begin() {
+      files = 0;
+    }
+
+    @Override
+    protected void visitFile(MetsType.FileSec.FileGrp fileGrp, FileType file) {
+      files++;
+    }
+  }
+
+  private static final class MimeTypeRule extends MetsRule {
+    private int files;
+
+    private MimeTypeRule(String id) {
+      super(id, MetsElement.FILE);
+    }
+
+    @Override
+    protected void begin() {
+      files = 0;
+    }
+
+    @Override
+    protected void visitFile(MetsType.FileSec.FileGrp fileGrp, FileType file) {
+      files++;
+      if (file.getMIMETYPE() == null) {
+        fail("mets/fileSec/fileGrp/file/@MIMETYPE is missing in %1$s");
+      }
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package org.roda_project.commons_ip2.validator.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Reads CSV and JSON {@link SipManifest}s.
+ */
+public class SipManifestTest {
+  private static Path tempFolder;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    tempFolder = Files.createTempDirectory("temp");
+  }
+
+  @AfterClass
+  public static void cleanup() throws IOException {
+    FileUtils.deleteDirectory(tempFolder.toFile());
+  }
+
+  @Test
+  public void readsQuotedCsvFields() throws IOException {
+    final Path manifest = write("quoted.csv",
+      "\uFEFFsip-id,representation-data,documentation\r\n"
+        + "\"SIP, \"\"one\"\"\",\"a.pdf | b,c.pdf\",\"line\nbreak\"\r\n" + "\r\n" + "SIP_2,d.pdf,\n");
+    try (SipManifest sipManifest = SipManifest.open(manifest)) {
+      SipManifest.Entry entry = sipManifest.next();
+      Assert.assertEquals(1, entry.getNumber());
+      Assert.assertEquals("SIP, \"one\"", entry.getSipID());
+      Assert.assertArrayEquals(new String[] {"a.pdf", "b,c.pdf"}, entry.getRepresentationData());
+      Assert.assertArrayEquals(new String[] {"line\nbreak"}, entry.getDocumentation());
+
+      // the empty line is skipped
+      entry = sipManifest.next();
+      Assert.assertEquals(2, entry.getNumber());
+      Assert.assertEquals("SIP_2", entry.getSipID());
+      Assert.assertNull(entry.getDocumentation());
+      Assert.assertNull(sipManifest.next());
+    }
+  }
+
+  @Test
+  public void readsMissingAndUnknownCsvColumns() throws IOException {
+    final Path manifest = write("columns.csv", "sip-id,unknown,metadata-file,metadata-type\nSIP_1,value\n");
+    try (SipManifest sipManifest = SipManifest.open(manifest)) {
+      final SipManifest.Entry entry = sipManifest.next();
+      Assert.assertEquals("SIP_1", entry.getSipID());
+      Assert.assertNull(entry.getMetadataFile());
+      Assert.assertNull(entry.getMetadataType());
+      Assert.assertNull(sipManifest.next());
+    }
+  }
+
+  @Test
+  public void rejectsMalformedCsv() throws IOException {
+    assertMalformed(write("empty.csv", ""));
+    final Path manifest = write("unterminated.csv", "sip-id,documentation\nSIP_1,\"a.pdf\n");
+    try (SipManifest sipManifest = SipManifest.open(manifest)) {
+      sipManifest.next();
+      Assert.fail("An unterminated quoted field should not be read");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void readsJson() throws IOException {
+    final Path manifest = write("manifest.json",
+      "[{\"sip-id\": \"SIP_1\", \"representation-data\": [\"a.pdf\", \"b.pdf\"], \"documentation\": null,"
+        + " \"unknown\": 1}, {\"sip-id\": \"SIP_2\", \"metadata-file\": \"dc.xml\"}]");
+    try (SipManifest sipManifest = SipManifest.open(manifest)) {
+      SipManifest.Entry entry = sipManifest.next();
+      Assert.assertEquals("SIP_1", entry.getSipID());
+      Assert.assertArrayEquals(new String[] {"a.pdf", "b.pdf"}, entry.getRepresentationData());
+      Assert.assertNull(entry.getDocumentation());
+      entry = sipManifest.next();
+      Assert.assertEquals(2, entry.getNumber());
+      Assert.assertEquals("dc.xml", entry.getMetadataFile());
+      Assert.assertNull(sipManifest.next());
+    }
+  }
+
+  @Test
+  public void rejectsMalformedJson() throws IOException {
+    assertMalformed(write("object.json", "{\"sip-id\": \"SIP_1\"}"));
+    assertMalformed(write("nested.json", "[{\"sip-id\": {\"id\": \"SIP_1\"}}]"));
+    assertMalformed(write("value.json", "[\"SIP_1\"]"));
+    assertMalformed(write("truncated.json", "[{\"sip-id\": \"SIP_1\"}, {\"sip-id\": "));
+  }
+
+  /**
+   * Reads all the entries of a manifest, expecting it to be malformed.
+   */
+  private static void assertMalformed(final Path manifest) throws IOException {
+    try (SipManifest sipManifest = SipManifest.open(manifest)) {
+      while (sipManifest.next() != null) {
+        // read all
+      }
+      Assert.fail("The manifest " + manifest.getFileName() + " should be malformed");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  private static Path write(final String name, final String content) throws IOException {
+    return Files.write(tempFolder.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+  }
+}